@@ -0,0 +1,19 @@
+package com.barbershop.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Time a staff member is booked for, streamed by the occupancy engine (JPQL projection)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookedInterval {
+    private Long staffId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
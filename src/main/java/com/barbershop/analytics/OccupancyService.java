@@ -0,0 +1,383 @@
+package com.barbershop.analytics;
+
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.model.dto.response.OccupancyForecastResponse;
+import com.barbershop.model.dto.response.OccupancyResponse;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.repository.AppointmentItemRepository;
+import com.barbershop.repository.ArchivedAppointmentRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.sharding.ShardDirectory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+/**
+ * Booked vs. available staff minutes per weekday and hour, and a capacity forecast built on them.
+ *
+ * Item intervals of the range are read with one streaming query (plus one on the archive when
+ * the range reaches past the archive horizon) into per-staff, per-week buffers of minute offsets.
+ * Every (staff, week) pair is a unit of work; a fork/join pool splits the units, each leaf fills
+ * its own histogram and the partial histograms are summed on the way back up. Available minutes
+ * come from each staff member's working hours on every day they were employed in the range.
+ */
+@Slf4j
+@Service
+public class OccupancyService {
+
+    static final int SLOTS = 7 * 24;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    private final AppointmentItemRepository appointmentItemRepository;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
+    private final StaffRepository staffRepository;
+    private final ShardDirectory shardDirectory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ForkJoinPool pool;
+
+    @Value("${analytics.max-range-days:1100}")
+    private long maxRangeDays;
+
+    @Value("${analytics.units-per-task:8}")
+    private int unitsPerTask;
+
+    @Value("${analytics.forecast-history-weeks:8}")
+    private int historyWeeks;
+
+    @Value("${analytics.max-forecast-weeks:12}")
+    private int maxForecastWeeks;
+
+    @Value("${archive.horizon-months:12}")
+    private int archiveHorizonMonths;
+
+    public OccupancyService(AppointmentItemRepository appointmentItemRepository,
+                            ArchivedAppointmentRepository archivedAppointmentRepository,
+                            StaffRepository staffRepository,
+                            ShardDirectory shardDirectory,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${analytics.parallelism:0}") int parallelism) {
+        this.appointmentItemRepository = appointmentItemRepository;
+        this.archivedAppointmentRepository = archivedAppointmentRepository;
+        this.staffRepository = staffRepository;
+        this.shardDirectory = shardDirectory;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Heatmap of [from, to) in the current branch
+     */
+    public OccupancyResponse getHeatmap(LocalDate from, LocalDate to) {
+        if (!to.isAfter(from)) {
+            throw new BadRequestException("Range end must be after its start");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > maxRangeDays) {
+            throw new BadRequestException("Range can span at most " + maxRangeDays + " days");
+        }
+
+        long[] histogram = compute(from, to, false);
+        List<OccupancyResponse.Slot> slots = new ArrayList<>(SLOTS);
+        long booked = 0;
+        long available = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            slots.add(slot(slot, histogram[slot], histogram[SLOTS + slot]));
+            booked += histogram[slot];
+            available += histogram[SLOTS + slot];
+        }
+        return new OccupancyResponse(from, to, booked, available, ratio(booked, available), slots);
+    }
+
+    /**
+     * The coming weeks, each slot expected at the utilization it had over the past history weeks
+     */
+    public OccupancyForecastResponse getForecast(int weeks) {
+        if (weeks < 1 || weeks > maxForecastWeeks) {
+            throw new BadRequestException("Forecast can cover 1 to " + maxForecastWeeks + " weeks");
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalDate historyFrom = today.minusWeeks(historyWeeks);
+        long[] history = compute(historyFrom, today, false);
+        long[] future = compute(today, today.plusWeeks(weeks), true);
+
+        long[] expectedBySlot = new long[SLOTS];
+        long[] availableBySlot = new long[SLOTS];
+        List<OccupancyForecastResponse.Week> forecast = new ArrayList<>(weeks);
+        for (int week = 0; week < weeks; week++) {
+            int base = week * 2 * SLOTS;
+            long booked = 0;
+            long expected = 0;
+            long available = 0;
+            for (int slot = 0; slot < SLOTS; slot++) {
+                long slotBooked = future[base + slot];
+                long slotAvailable = future[base + SLOTS + slot];
+                // what is booked so far is a floor; late bookings fill up to the usual utilization
+                long slotExpected = Math.max(slotBooked,
+                        Math.round(ratio(history[slot], history[SLOTS + slot]) * slotAvailable));
+                booked += slotBooked;
+                expected += slotExpected;
+                available += slotAvailable;
+                expectedBySlot[slot] += slotExpected;
+                availableBySlot[slot] += slotAvailable;
+            }
+            forecast.add(new OccupancyForecastResponse.Week(
+                    today.plusWeeks(week), booked, expected, available, ratio(expected, available)));
+        }
+
+        List<OccupancyResponse.Slot> slots = new ArrayList<>(SLOTS);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            slots.add(slot(slot, expectedBySlot[slot], availableBySlot[slot]));
+        }
+        return new OccupancyForecastResponse(historyFrom, today, forecast, slots);
+    }
+
+    /**
+     * Booked minutes per slot followed by available minutes per slot; once per week when perWeek
+     */
+    long[] compute(LocalDate from, LocalDate to, boolean perWeek) {
+        long started = System.nanoTime();
+        Range range = new Range(from, to, perWeek);
+        List<StaffLoad> loads = readOnlyTransaction.execute(status -> load(range));
+
+        List<WorkUnit> units = new ArrayList<>();
+        for (StaffLoad load : loads) {
+            for (int week = 0; week < range.weeks; week++) {
+                if (load.weeks[week] != null || load.availableIn(week)) {
+                    units.add(new WorkUnit(load, week));
+                }
+            }
+        }
+        long[] histogram = units.isEmpty()
+                ? new long[range.histogramLength()]
+                : pool.invoke(new HistogramTask(range, units, 0, units.size(), Math.max(1, unitsPerTask)));
+        log.debug("Occupancy {}..{}: {} staff, {} units in {} ms", from, to, loads.size(), units.size(),
+                (System.nanoTime() - started) / 1_000_000);
+        return histogram;
+    }
+
+    private List<StaffLoad> load(Range range) {
+        Map<Long, StaffLoad> byStaff = new HashMap<>();
+        for (Staff staff : staffRepository.findAll()) {
+            byStaff.put(staff.getId(), StaffLoad.of(staff, range));
+        }
+
+        LocalDateTime start = range.from.atStartOfDay();
+        LocalDateTime end = range.to.atStartOfDay();
+        try (Stream<BookedInterval> rows = appointmentItemRepository.streamBookedIntervals(start, end)) {
+            rows.forEach(row -> add(byStaff, range, row));
+        }
+        if (range.from.isBefore(LocalDate.now().minusMonths(archiveHorizonMonths).plusDays(1))) {
+            // a day early: items starting the evening before can still run into the range
+            try (Stream<BookedInterval> rows = archivedAppointmentRepository.streamBookedIntervals(
+                    start.minusDays(1), end, shardDirectory.currentBranch())) {
+                rows.forEach(row -> add(byStaff, range, row));
+            }
+        }
+        return new ArrayList<>(byStaff.values());
+    }
+
+    private static void add(Map<Long, StaffLoad> byStaff, Range range, BookedInterval row) {
+        int start = Math.max(0, range.minuteOf(row.getStart()));
+        int end = Math.min(range.minutes, range.minuteOf(row.getEnd()));
+        if (end <= start) {
+            return;
+        }
+        byStaff.computeIfAbsent(row.getStaffId(), id -> new StaffLoad(range.weeks, 0, 0, 0, 0))
+                .add(start / MINUTES_PER_WEEK, start, end);
+    }
+
+    private static OccupancyResponse.Slot slot(int slot, long booked, long available) {
+        return new OccupancyResponse.Slot(DayOfWeek.of(slot / 24 + 1), slot % 24, booked, available, ratio(booked, available));
+    }
+
+    private static double ratio(long part, long whole) {
+        return whole == 0 ? 0.0 : (double) part / whole;
+    }
+
+    private static final class Range {
+        final LocalDate from;
+        final LocalDate to;
+        final boolean perWeek;
+        final int days;
+        final int minutes;
+        final int weeks;
+        final long epochMinute;
+        // Monday = 0
+        final int firstDayOfWeek;
+
+        Range(LocalDate from, LocalDate to, boolean perWeek) {
+            this.from = from;
+            this.to = to;
+            this.perWeek = perWeek;
+            this.days = (int) ChronoUnit.DAYS.between(from, to);
+            this.minutes = days * MINUTES_PER_DAY;
+            this.weeks = (days + 6) / 7;
+            this.epochMinute = from.atStartOfDay().toEpochSecond(ZoneOffset.UTC) / 60;
+            this.firstDayOfWeek = from.getDayOfWeek().getValue() - 1;
+        }
+
+        int minuteOf(LocalDateTime time) {
+            long minute = time.toEpochSecond(ZoneOffset.UTC) / 60 - epochMinute;
+            return (int) Math.max(-1, Math.min(minutes + 1L, minute));
+        }
+
+        int dayOf(LocalDateTime time) {
+            return (int) Math.max(0, Math.min(days, ChronoUnit.DAYS.between(from, time.toLocalDate())));
+        }
+
+        int histogramLength() {
+            return (perWeek ? weeks : 1) * 2 * SLOTS;
+        }
+
+        /**
+         * Spread [start, end) over the hour slots it covers; offset 0 for booked, SLOTS for available
+         */
+        void addMinutes(long[] histogram, int offset, int start, int end) {
+            int minute = start;
+            while (minute < end) {
+                int day = minute / MINUTES_PER_DAY;
+                int next = Math.min(end, (minute / 60 + 1) * 60);
+                int base = perWeek ? (day / 7) * 2 * SLOTS : 0;
+                int slot = ((firstDayOfWeek + day) % 7) * 24 + (minute % MINUTES_PER_DAY) / 60;
+                histogram[base + offset + slot] += next - minute;
+                minute = next;
+            }
+        }
+    }
+
+    private static final class StaffLoad {
+        // minute offsets of booked intervals, bucketed by the week they start in
+        final Intervals[] weeks;
+        final int firstDay;
+        final int endDay;
+        final int workStart;
+        final int workEnd;
+
+        StaffLoad(int weeks, int firstDay, int endDay, int workStart, int workEnd) {
+            this.weeks = new Intervals[weeks];
+            this.firstDay = firstDay;
+            this.endDay = endDay;
+            this.workStart = workStart;
+            this.workEnd = workEnd;
+        }
+
+        // Since when someone left is not stored; their last update is normally the deactivation
+        static StaffLoad of(Staff staff, Range range) {
+            int firstDay = staff.getCreatedAt() == null ? 0 : range.dayOf(staff.getCreatedAt());
+            int endDay = Boolean.FALSE.equals(staff.getActive()) && staff.getUpdatedAt() != null
+                    ? range.dayOf(staff.getUpdatedAt())
+                    : range.days;
+            return new StaffLoad(range.weeks, firstDay, endDay,
+                    minuteOfDay(staff.getWorkStartTime()), minuteOfDay(staff.getWorkEndTime()));
+        }
+
+        private static int minuteOfDay(LocalTime time) {
+            return time == null ? 0 : time.getHour() * 60 + time.getMinute();
+        }
+
+        void add(int week, int start, int end) {
+            if (weeks[week] == null) {
+                weeks[week] = new Intervals();
+            }
+            weeks[week].add(start, end);
+        }
+
+        boolean availableIn(int week) {
+            return workEnd > workStart && firstDay < Math.min(endDay, (week + 1) * 7) && endDay > week * 7;
+        }
+    }
+
+    private static final class Intervals {
+        int[] bounds = new int[16];
+        int size;
+
+        void add(int start, int end) {
+            if (size + 2 > bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            bounds[size++] = start;
+            bounds[size++] = end;
+        }
+    }
+
+    private record WorkUnit(StaffLoad load, int week) {
+
+        void accumulate(Range range, long[] histogram) {
+            Intervals booked = load.weeks[week];
+            if (booked != null) {
+                for (int i = 0; i < booked.size; i += 2) {
+                    range.addMinutes(histogram, 0, booked.bounds[i], booked.bounds[i + 1]);
+                }
+            }
+            if (load.workEnd > load.workStart) {
+                int lastDay = Math.min(Math.min(range.days, load.endDay), (week + 1) * 7);
+                for (int day = Math.max(load.firstDay, week * 7); day < lastDay; day++) {
+                    int dayStart = day * MINUTES_PER_DAY;
+                    range.addMinutes(histogram, SLOTS, dayStart + load.workStart, dayStart + load.workEnd);
+                }
+            }
+        }
+    }
+
+    private static final class HistogramTask extends RecursiveTask<long[]> {
+
+        private final Range range;
+        private final List<WorkUnit> units;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        HistogramTask(Range range, List<WorkUnit> units, int from, int to, int threshold) {
+            this.range = range;
+            this.units = units;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= threshold) {
+                long[] histogram = new long[range.histogramLength()];
+                for (int i = from; i < to; i++) {
+                    units.get(i).accumulate(range, histogram);
+                }
+                return histogram;
+            }
+            int middle = (from + to) >>> 1;
+            HistogramTask left = new HistogramTask(range, units, from, middle, threshold);
+            left.fork();
+            long[] histogram = new HistogramTask(range, units, middle, to, threshold).compute();
+            long[] other = left.join();
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] += other[i];
+            }
+            return histogram;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.barbershop.assignment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.barbershop.schedule.DayMask.MINUTES_PER_DAY;
+
+/**
+ * Branch-and-bound search for the staff of an appointment's unassigned items.
+ *
+ * Times are whole minutes from the start of the first item's day. Every item keeps its requested
+ * time and gets one of its candidate staff; the staff's timeline must stay free of overlaps,
+ * including with the other items of the same appointment. An assignment costs
+ * {@code loadWeight * minutes the staff member already has} plus {@code gapWeight * idle gap it
+ * leaves}, the gap being the distance to the nearest booking, blocked time or day edge on either side, so
+ * bookings go to the least busy staff and pack against what is already there.
+ *
+ * Items with the fewest candidates are placed first and candidates are tried cheapest first,
+ * so the first complete answer is the greedy one. Branches whose cost plus a lower bound for the
+ * rest cannot beat the best answer are cut. The search stops at the deadline with the best
+ * answer found so far.
+ */
+public class AssignmentSearch {
+
+    private final List<Item> items;
+    private final Timeline[] timelines;
+    private final long loadWeight;
+    private final long gapWeight;
+
+    private int[] order;
+    private long[] lowerBounds;
+    private int[] current;
+    private int[] best;
+    private long bestCost;
+    private long deadline;
+    private long nodes;
+    private boolean timedOut;
+
+    public AssignmentSearch(List<Item> items, Timeline[] timelines, long loadWeight, long gapWeight) {
+        this.items = items;
+        this.timelines = timelines;
+        this.loadWeight = loadWeight;
+        this.gapWeight = gapWeight;
+    }
+
+    /**
+     * Timeline index for every item, or null when no overlap-free assignment was found in time
+     */
+    public int[] solve(long budgetNanos) {
+        int size = items.size();
+        order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        order = Arrays.stream(order).boxed()
+                .sorted(Comparator.comparingInt((Integer i) -> items.get(i).candidates.length)
+                        .thenComparingInt(i -> items.get(i).start))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        // the load a timeline already has only grows and gaps are never negative
+        lowerBounds = new long[size + 1];
+        for (int depth = size - 1; depth >= 0; depth--) {
+            long cheapest = Long.MAX_VALUE;
+            for (int candidate : items.get(order[depth]).candidates) {
+                cheapest = Math.min(cheapest, loadWeight * timelines[candidate].booked);
+            }
+            lowerBounds[depth] = lowerBounds[depth + 1] + (cheapest == Long.MAX_VALUE ? 0 : cheapest);
+        }
+
+        current = new int[size];
+        best = null;
+        bestCost = Long.MAX_VALUE;
+        nodes = 0;
+        timedOut = false;
+        deadline = System.nanoTime() + budgetNanos;
+        search(0, 0);
+        return best;
+    }
+
+    public long nodes() {
+        return nodes;
+    }
+
+    public boolean timedOut() {
+        return timedOut;
+    }
+
+    private void search(int depth, long cost) {
+        if ((++nodes & 0xFF) == 0 && System.nanoTime() > deadline) {
+            timedOut = true;
+        }
+        if (timedOut) {
+            return;
+        }
+        if (depth == order.length) {
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = current.clone();
+            }
+            return;
+        }
+        if (cost + lowerBounds[depth] >= bestCost) {
+            return;
+        }
+
+        Item item = items.get(order[depth]);
+        List<long[]> options = new ArrayList<>(item.candidates.length);
+        for (int candidate : item.candidates) {
+            Timeline timeline = timelines[candidate];
+            if (!timeline.overlaps(item.start, item.end)) {
+                options.add(new long[]{candidate,
+                        loadWeight * timeline.booked + gapWeight * timeline.gap(item.start, item.end)});
+            }
+        }
+        options.sort(Comparator.comparingLong(option -> option[1]));
+
+        for (long[] option : options) {
+            Timeline timeline = timelines[(int) option[0]];
+            timeline.add(item.start, item.end);
+            current[order[depth]] = (int) option[0];
+            search(depth + 1, cost + option[1]);
+            timeline.removeLast();
+            if (timedOut) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * An item to staff: [start, end) and the timelines it may go to
+     */
+    public record Item(int start, int end, int[] candidates) {
+    }
+
+    /**
+     * What a staff member is booked for around the appointment; closed hours are added with {@link #block}
+     */
+    public static final class Timeline {
+
+        private int[] starts = new int[8];
+        private int[] ends = new int[8];
+        private int size;
+        private long booked;
+
+        public void add(int start, int end) {
+            put(start, end);
+            booked += end - start;
+        }
+
+        /**
+         * Time the staff member cannot be booked for, such as a break; not counted as load
+         */
+        public void block(int start, int end) {
+            put(start, end);
+        }
+
+        private void put(int start, int end) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+
+        // only for what add() put last
+        void removeLast() {
+            size--;
+            booked -= ends[size] - starts[size];
+        }
+
+        public boolean overlaps(int start, int end) {
+            for (int i = 0; i < size; i++) {
+                if (starts[i] < end && ends[i] > start) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long gap(int start, int end) {
+            int dayStart = Math.floorDiv(start, MINUTES_PER_DAY) * MINUTES_PER_DAY;
+            int before = dayStart;
+            int after = dayStart + MINUTES_PER_DAY;
+            for (int i = 0; i < size; i++) {
+                if (ends[i] <= start) {
+                    before = Math.max(before, ends[i]);
+                }
+                if (starts[i] >= end) {
+                    after = Math.min(after, starts[i]);
+                }
+            }
+            return Math.max(0, Math.min(start - before, after - end));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.barbershop.assignment;
+
+import com.barbershop.analytics.BookedInterval;
+import com.barbershop.exception.AppointmentConflictException;
+import com.barbershop.model.dto.request.AppointmentItemRequest;
+import com.barbershop.model.entity.Service;
+import com.barbershop.repository.AppointmentItemRepository;
+import com.barbershop.schedule.AvailabilityCalendar;
+import com.barbershop.skill.StaffSkillIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks staff for the items of a booking that came without one.
+ *
+ * Candidates are the active staff who perform the service and whose calendar covers the item
+ * (from {@link StaffSkillIndex}); their bookings around the appointment are read with one query and
+ * {@link AssignmentSearch} assigns all open items together. The booking then goes through the
+ * usual availability and working-hours checks under the staff locks, so a slot taken between
+ * the search and the lock is still refused.
+ */
+@Slf4j
+@Component
+public class StaffAssignmentService {
+
+    private final StaffSkillIndex skillIndex;
+    private final AvailabilityCalendar availabilityCalendar;
+    private final AppointmentItemRepository appointmentItemRepository;
+    private final Timer solveTimer;
+    private final Counter timeouts;
+
+    @Value("${assignment.time-budget-ms:50}")
+    private long timeBudgetMs;
+
+    @Value("${assignment.load-weight:1}")
+    private long loadWeight;
+
+    @Value("${assignment.gap-weight:2}")
+    private long gapWeight;
+
+    public StaffAssignmentService(StaffSkillIndex skillIndex,
+                                  AvailabilityCalendar availabilityCalendar,
+                                  AppointmentItemRepository appointmentItemRepository,
+                                  MeterRegistry meterRegistry) {
+        this.skillIndex = skillIndex;
+        this.availabilityCalendar = availabilityCalendar;
+        this.appointmentItemRepository = appointmentItemRepository;
+        this.solveTimer = meterRegistry.timer("assignment.solve");
+        this.timeouts = meterRegistry.counter("assignment.timeouts");
+    }
+
+    /**
+     * Staff for every item, in order: the one asked for, or the one picked when none was
+     */
+    public List<Long> assign(List<AppointmentItemRequest> requests, List<Service> services) {
+        List<Long> staffIds = new ArrayList<>(requests.size());
+        List<Integer> open = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            staffIds.add(requests.get(i).getStaffId());
+            if (requests.get(i).getStaffId() == null) {
+                open.add(i);
+            }
+        }
+        if (open.isEmpty()) {
+            return staffIds;
+        }
+
+        LocalDateTime base = requests.stream()
+                .map(AppointmentItemRequest::getScheduledTime)
+                .min(Comparator.naturalOrder())
+                .orElseThrow()
+                .toLocalDate()
+                .atStartOfDay();
+        LocalDateTime until = base;
+        Map<Long, Integer> timelineOf = new LinkedHashMap<>();
+        List<AssignmentSearch.Item> items = new ArrayList<>(open.size());
+        for (int index : open) {
+            LocalDateTime start = requests.get(index).getScheduledTime();
+            Service service = services.get(index);
+            List<Long> eligible = skillIndex.eligibleStaff(service.getId(), start, service.getDurationMinutes());
+            if (eligible.isEmpty()) {
+                throw new AppointmentConflictException(
+                        "No staff member is available for " + service.getName() + " at " + start + ". Please choose another time.");
+            }
+            int[] candidates = eligible.stream()
+                    .mapToInt(id -> timelineOf.computeIfAbsent(id, key -> timelineOf.size()))
+                    .toArray();
+            int minute = minute(base, start);
+            items.add(new AssignmentSearch.Item(minute, minute + service.getDurationMinutes(), candidates));
+            LocalDateTime end = start.plusMinutes(service.getDurationMinutes());
+            until = end.isAfter(until) ? end : until;
+        }
+
+        // the whole days, so the load that is balanced is the day's
+        LocalDate lastDay = until.minusMinutes(1).toLocalDate();
+        AssignmentSearch.Timeline[] timelines = new AssignmentSearch.Timeline[timelineOf.size()];
+        timelineOf.forEach((staffId, timeline) -> {
+            // closed parts of each day are the edges idle gaps are measured against
+            timelines[timeline] = new AssignmentSearch.Timeline();
+            for (LocalDate date = base.toLocalDate(); !date.isAfter(lastDay); date = date.plusDays(1)) {
+                int dayStart = minute(base, date.atStartOfDay());
+                for (int[] closed : availabilityCalendar.day(staffId, date).closedRuns()) {
+                    timelines[timeline].block(dayStart + closed[0], dayStart + closed[1]);
+                }
+            }
+        });
+        LocalDateTime windowEnd = lastDay.plusDays(1).atStartOfDay();
+        for (BookedInterval booked : appointmentItemRepository.findBookedIntervals(timelineOf.keySet(), base, windowEnd)) {
+            timelines[timelineOf.get(booked.getStaffId())].add(minute(base, booked.getStart()), minute(base, booked.getEnd()));
+        }
+        // items of this booking that already have their staff
+        for (int i = 0; i < requests.size(); i++) {
+            Integer timeline = staffIds.get(i) == null ? null : timelineOf.get(staffIds.get(i));
+            if (timeline != null) {
+                int minute = minute(base, requests.get(i).getScheduledTime());
+                timelines[timeline].add(minute, minute + services.get(i).getDurationMinutes());
+            }
+        }
+
+        AssignmentSearch search = new AssignmentSearch(items, timelines, loadWeight, gapWeight);
+        long started = System.nanoTime();
+        int[] solution = search.solve(TimeUnit.MILLISECONDS.toNanos(timeBudgetMs));
+        long elapsed = System.nanoTime() - started;
+        solveTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        if (search.timedOut()) {
+            timeouts.increment();
+        }
+        log.debug("Assigned {} items over {} staff: {} nodes in {} us{}", items.size(), timelines.length,
+                search.nodes(), elapsed / 1000, search.timedOut() ? " (time budget reached)" : "");
+        if (solution == null) {
+            throw new AppointmentConflictException(
+                    "No free staff for all services at the requested times. Please choose another time or staff member.");
+        }
+
+        Long[] idOf = new Long[timelines.length];
+        timelineOf.forEach((id, timeline) -> idOf[timeline] = id);
+        for (int i = 0; i < open.size(); i++) {
+            staffIds.set(open.get(i), idOf[solution[i]]);
+        }
+        return staffIds;
+    }
+
+    private static int minute(LocalDateTime base, LocalDateTime time) {
+        return (int) Duration.between(base, time).toMinutes();
+    }
+}
@@ -0,0 +1,105 @@
+package com.barbershop.batch;
+
+import com.barbershop.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One GET of a batch, recognised from its path
+ */
+@Data
+@AllArgsConstructor
+class BatchRead {
+
+    enum Kind {
+        ACTIVE_SERVICES,    // /api/services
+        SERVICES,           // /api/services?ids=1,2
+        SERVICE,            // /api/services/{id}
+        ACTIVE_STAFF,       // /api/staff
+        STAFF_LIST,         // /api/staff?ids=1,2
+        STAFF,              // /api/staff/{id}
+        APPOINTMENT,        // /api/appointments/{id}
+        MY_APPOINTMENTS     // /api/appointments/my-appointments?page=0&size=10
+    }
+
+    private final Kind kind;
+    private final List<Long> ids;
+    private final int page;
+    private final int size;
+
+    static BatchRead parse(String path) {
+        UriComponents uri = UriComponentsBuilder.fromUriString(path).build();
+        String[] segments = uri.getPath() == null ? new String[0] : uri.getPath().replaceAll("^/+|/+$", "").split("/");
+        MultiValueMap<String, String> query = uri.getQueryParams();
+        if (segments.length < 2 || !segments[0].equals("api")) {
+            throw unsupported(path);
+        }
+
+        String resource = segments[1];
+        if (segments.length == 2 && (resource.equals("services") || resource.equals("staff"))) {
+            boolean services = resource.equals("services");
+            if (query.containsKey("ids")) {
+                return new BatchRead(services ? Kind.SERVICES : Kind.STAFF_LIST, ids(query.get("ids")), 0, 0);
+            }
+            return new BatchRead(services ? Kind.ACTIVE_SERVICES : Kind.ACTIVE_STAFF, List.of(), 0, 0);
+        }
+        if (segments.length == 3 && resource.equals("appointments") && segments[2].equals("my-appointments")) {
+            return new BatchRead(Kind.MY_APPOINTMENTS, List.of(),
+                    number(query.getFirst("page"), 0), Math.max(1, number(query.getFirst("size"), 10)));
+        }
+        if (segments.length == 3) {
+            Kind kind = switch (resource) {
+                case "services" -> Kind.SERVICE;
+                case "staff" -> Kind.STAFF;
+                case "appointments" -> Kind.APPOINTMENT;
+                default -> throw unsupported(path);
+            };
+            return new BatchRead(kind, List.of(id(segments[2])), 0, 0);
+        }
+        throw unsupported(path);
+    }
+
+    private static List<Long> ids(List<String> values) {
+        List<Long> ids = new ArrayList<>();
+        for (String value : values) {
+            for (String part : value.split(",")) {
+                if (!part.isBlank()) {
+                    ids.add(id(part.trim()));
+                }
+            }
+        }
+        if (ids.size() > 100) {
+            throw new BadRequestException("At most 100 ids per request");
+        }
+        return ids;
+    }
+
+    private static Long id(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid id: " + value);
+        }
+    }
+
+    private static int number(String value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid number: " + value);
+        }
+    }
+
+    private static BadRequestException unsupported(String path) {
+        return new BadRequestException("Not available in a batch: " + path);
+    }
+}
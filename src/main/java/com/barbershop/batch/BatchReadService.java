@@ -0,0 +1,207 @@
+package com.barbershop.batch;
+
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.exception.ResourceNotFoundException;
+import com.barbershop.exception.UnauthorizedException;
+import com.barbershop.model.dto.request.BatchRequest;
+import com.barbershop.model.dto.response.AppointmentResponse;
+import com.barbershop.model.dto.response.BatchResponse;
+import com.barbershop.model.dto.response.ServiceResponse;
+import com.barbershop.model.dto.response.StaffResponse;
+import com.barbershop.service.AppointmentService;
+import com.barbershop.service.ServiceService;
+import com.barbershop.service.StaffService;
+import com.barbershop.sharding.BranchContext;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Answers several GET requests in one round trip.
+ *
+ * Lookups by id are merged across the batch: all requested services are loaded with one
+ * findAllById, likewise staff and appointments, and each sub-request picks its rows from the
+ * shared result. The merged lookups and the list reads run in parallel on a bounded pool, each
+ * in its own read-only transaction; when the pool is saturated the request thread runs them itself.
+ */
+@Slf4j
+@Service
+public class BatchReadService {
+
+    private final ServiceService serviceService;
+    private final StaffService staffService;
+    private final AppointmentService appointmentService;
+    private final ThreadPoolExecutor executor;
+
+    @Value("${batch.timeout-ms:10000}")
+    private long timeoutMs;
+
+    public BatchReadService(ServiceService serviceService,
+                            StaffService staffService,
+                            AppointmentService appointmentService,
+                            @Value("${batch.threads:8}") int threads,
+                            @Value("${batch.queue-capacity:200}") int queueCapacity) {
+        this.serviceService = serviceService;
+        this.staffService = staffService;
+        this.appointmentService = appointmentService;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public BatchResponse execute(List<BatchRequest.SubRequest> requests, Long userId) {
+        List<Object> reads = new ArrayList<>(requests.size());
+        Set<Long> serviceIds = new LinkedHashSet<>();
+        Set<Long> staffIds = new LinkedHashSet<>();
+        Set<Long> appointmentIds = new LinkedHashSet<>();
+        Set<Pageable> myPages = new LinkedHashSet<>();
+        boolean activeServices = false;
+        boolean activeStaff = false;
+
+        for (BatchRequest.SubRequest request : requests) {
+            BatchRead read;
+            try {
+                read = BatchRead.parse(request.getPath());
+            } catch (BadRequestException ex) {
+                reads.add(ex);
+                continue;
+            }
+            reads.add(read);
+            switch (read.getKind()) {
+                case ACTIVE_SERVICES -> activeServices = true;
+                case ACTIVE_STAFF -> activeStaff = true;
+                case SERVICES, SERVICE -> serviceIds.addAll(read.getIds());
+                case STAFF_LIST, STAFF -> staffIds.addAll(read.getIds());
+                case APPOINTMENT -> appointmentIds.addAll(read.getIds());
+                case MY_APPOINTMENTS -> myPages.add(PageRequest.of(read.getPage(), read.getSize()));
+            }
+        }
+
+        String branch = BranchContext.branch();
+        List<CompletableFuture<?>> tasks = new ArrayList<>();
+        CompletableFuture<List<ServiceResponse>> activeServiceList = activeServices
+                ? submit(tasks, branch, serviceService::getAllActiveServices) : null;
+        CompletableFuture<List<StaffResponse>> activeStaffList = activeStaff
+                ? submit(tasks, branch, staffService::getAllActiveStaff) : null;
+        CompletableFuture<Map<Long, ServiceResponse>> services = serviceIds.isEmpty() ? CompletableFuture.completedFuture(Map.of())
+                : submit(tasks, branch, () -> index(serviceService.getServicesByIds(serviceIds), ServiceResponse::getId));
+        CompletableFuture<Map<Long, StaffResponse>> staff = staffIds.isEmpty() ? CompletableFuture.completedFuture(Map.of())
+                : submit(tasks, branch, () -> index(staffService.getStaffByIds(staffIds), StaffResponse::getId));
+        CompletableFuture<Map<Long, AppointmentResponse>> appointments = appointmentIds.isEmpty() ? CompletableFuture.completedFuture(Map.of())
+                : submit(tasks, branch, () -> index(appointmentService.getAppointmentsByIds(appointmentIds), AppointmentResponse::getId));
+        Map<Pageable, CompletableFuture<Page<AppointmentResponse>>> myAppointments = new HashMap<>();
+        if (userId != null) {
+            myPages.forEach(page -> myAppointments.put(page,
+                    submit(tasks, branch, () -> appointmentService.getCustomerAppointments(userId, page))));
+        }
+
+        try {
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException ex) {
+            // reported per sub-request below
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<BatchResponse.Result> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            String id = requests.get(i).getId();
+            if (reads.get(i) instanceof BadRequestException ex) {
+                results.add(new BatchResponse.Result(id, 400, null, ex.getMessage()));
+                continue;
+            }
+            BatchRead read = (BatchRead) reads.get(i);
+            Long first = read.getIds().isEmpty() ? null : read.getIds().get(0);
+            results.add(switch (read.getKind()) {
+                case ACTIVE_SERVICES -> result(id, activeServiceList, Function.identity());
+                case ACTIVE_STAFF -> result(id, activeStaffList, Function.identity());
+                case SERVICES -> result(id, services, byId -> pick(byId, read.getIds()));
+                case STAFF_LIST -> result(id, staff, byId -> pick(byId, read.getIds()));
+                case SERVICE -> result(id, services, byId -> found(byId, first, "Service"));
+                case STAFF -> result(id, staff, byId -> found(byId, first, "Staff"));
+                case APPOINTMENT -> result(id, appointments, byId -> found(byId, first, "Appointment"));
+                case MY_APPOINTMENTS -> userId == null
+                        ? new BatchResponse.Result(id, 401, null, "Authentication required")
+                        : result(id, myAppointments.get(PageRequest.of(read.getPage(), read.getSize())), Function.identity());
+            });
+        }
+        return new BatchResponse(results);
+    }
+
+    private <T> CompletableFuture<T> submit(List<CompletableFuture<?>> tasks, String branch, Supplier<T> work) {
+        CompletableFuture<T> task = CompletableFuture.supplyAsync(() -> BranchContext.callAsBranch(branch, work), executor);
+        tasks.add(task);
+        return task;
+    }
+
+    private <T> BatchResponse.Result result(String id, CompletableFuture<T> task, Function<? super T, ?> pick) {
+        if (!task.isDone()) {
+            return new BatchResponse.Result(id, 504, null, "Timed out");
+        }
+        try {
+            return new BatchResponse.Result(id, 200, pick.apply(task.join()), null);
+        } catch (CompletionException ex) {
+            return failure(id, ex.getCause());
+        } catch (RuntimeException ex) {
+            return failure(id, ex);
+        }
+    }
+
+    private static BatchResponse.Result failure(String id, Throwable ex) {
+        if (ex instanceof ResourceNotFoundException) {
+            return new BatchResponse.Result(id, 404, null, ex.getMessage());
+        }
+        if (ex instanceof BadRequestException) {
+            return new BatchResponse.Result(id, 400, null, ex.getMessage());
+        }
+        if (ex instanceof UnauthorizedException) {
+            return new BatchResponse.Result(id, 401, null, ex.getMessage());
+        }
+        log.error("Batch request {} failed", id, ex);
+        return new BatchResponse.Result(id, 500, null, "An unexpected error occurred");
+    }
+
+    private static <T> Map<Long, T> index(List<T> rows, Function<T, Long> id) {
+        Map<Long, T> byId = new HashMap<>();
+        rows.forEach(row -> byId.put(id.apply(row), row));
+        return byId;
+    }
+
+    private static <T> List<T> pick(Map<Long, T> byId, List<Long> ids) {
+        return ids.stream().distinct().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    private static <T> T found(Map<Long, T> byId, Long id, String resource) {
+        T row = byId.get(id);
+        if (row == null) {
+            throw new ResourceNotFoundException(resource, "id", id);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,137 @@
+package com.barbershop.bulk;
+
+import com.barbershop.cache.CacheRegion;
+import com.barbershop.cache.EncodedResponseCache;
+import com.barbershop.crm.CustomerSummaryService;
+import com.barbershop.event.AppointmentEvent;
+import com.barbershop.event.AppointmentEventPublisher;
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.model.dto.request.BulkStatusRequest;
+import com.barbershop.model.dto.response.BulkStatusResponse;
+import com.barbershop.model.dto.response.BulkStatusResponse.Outcome;
+import com.barbershop.model.dto.response.BulkStatusResponse.Result;
+import com.barbershop.repository.AppointmentItemRepository;
+import com.barbershop.repository.AppointmentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Moves many appointments to a new status at once. The current statuses are read in one query
+ * and checked against the allowed transition, then the appointments and their items are changed
+ * with one UPDATE each; entities are never loaded. The candidates still in an allowed status are
+ * row-locked before the UPDATE, so an appointment changed by someone else in the meantime is
+ * reported instead of overwritten, and the locked ids are exactly the ones this call changed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class AppointmentBulkService {
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentItemRepository appointmentItemRepository;
+    private final AppointmentEventPublisher eventPublisher;
+    private final EncodedResponseCache responseCache;
+    private final CustomerSummaryService customerSummaryService;
+
+    @Value("${bulk.max-appointments:1000}")
+    private int maxAppointments;
+
+    public BulkStatusResponse apply(BulkTransition transition, BulkStatusRequest request) {
+        List<AppointmentStatusRow> rows;
+        List<Long> requestedIds;
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            requestedIds = List.copyOf(new LinkedHashSet<>(request.getIds()));
+            if (requestedIds.size() > maxAppointments) {
+                throw new BadRequestException("At most " + maxAppointments + " appointments per request");
+            }
+            rows = appointmentRepository.findStatusRows(requestedIds);
+        } else if (request.getFrom() != null && request.getTo() != null) {
+            if (!request.getFrom().isBefore(request.getTo())) {
+                throw new BadRequestException("'from' must be before 'to'");
+            }
+            rows = appointmentRepository.findStatusRowsBetween(
+                    request.getFrom(), request.getTo(), request.getStatus(), PageRequest.of(0, maxAppointments + 1));
+            if (rows.size() > maxAppointments) {
+                throw new BadRequestException("More than " + maxAppointments + " appointments match; narrow the filter");
+            }
+            requestedIds = rows.stream().map(AppointmentStatusRow::getId).toList();
+        } else {
+            throw new BadRequestException("Either ids or from and to are required");
+        }
+
+        // validate every appointment in one pass
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        Map<Long, AppointmentStatusRow> byId = rows.stream()
+                .collect(Collectors.toMap(AppointmentStatusRow::getId, Function.identity()));
+        Map<Long, Result> results = new LinkedHashMap<>();
+        List<Long> candidates = new ArrayList<>();
+        for (Long id : requestedIds) {
+            AppointmentStatusRow row = byId.get(id);
+            if (row == null) {
+                results.put(id, new Result(id, Outcome.NOT_FOUND, null, "Appointment not found"));
+            } else if (row.getStatus() == transition.getTo()) {
+                results.put(id, new Result(id, Outcome.UNCHANGED, row.getStatus().name(), null));
+            } else if (!transition.getFrom().contains(row.getStatus())) {
+                results.put(id, new Result(id, Outcome.INVALID_TRANSITION, row.getStatus().name(),
+                        "Cannot " + transition.getPath() + " a " + row.getStatus() + " appointment"));
+            } else if (transition == BulkTransition.NO_SHOW && !row.getAppointmentDateTime().isBefore(now)) {
+                results.put(id, new Result(id, Outcome.INVALID_TRANSITION, row.getStatus().name(),
+                        "Appointment time has not passed yet"));
+            } else {
+                candidates.add(id);
+                results.put(id, null);
+            }
+        }
+
+        Set<Long> transitioned = new HashSet<>();
+        if (!candidates.isEmpty()) {
+            transitioned.addAll(appointmentRepository.lockInStatus(candidates, transition.getFrom()));
+        }
+        if (!transitioned.isEmpty()) {
+            appointmentRepository.transition(transitioned, transition.getFrom(), transition.getTo(), now);
+            if (transition.getItemStatus() != null) {
+                appointmentItemRepository.updateStatusByAppointmentIds(
+                        transitioned, transition.getItemStatus(), transition.getKeptItemStatuses(), now);
+            }
+            if (transition == BulkTransition.COMPLETE || transition == BulkTransition.CANCEL) {
+                customerSummaryService.recordClosed(transitioned);
+            }
+            Map<Long, List<Long>> staffIds = eventPublisher.staffIdsByAppointment(transitioned);
+            eventPublisher.publishAll(transitioned.stream()
+                    .map(byId::get)
+                    .map(row -> new AppointmentEvent(null, transition.getEventType(), row.getId(), row.getCustomerId(),
+                            transition.getTo().name(), row.getAppointmentDateTime(),
+                            staffIds.getOrDefault(row.getId(), List.of()), now, row.getBranchId()))
+                    .toList());
+            responseCache.invalidate(CacheRegion.BOARD, CacheRegion.OCCUPANCY);
+        }
+
+        for (Long id : candidates) {
+            String previous = byId.get(id).getStatus().name();
+            results.put(id, transitioned.contains(id)
+                    ? new Result(id, Outcome.UPDATED, previous, null)
+                    : new Result(id, Outcome.CONFLICT, previous, "Appointment was changed by someone else; reload and retry"));
+        }
+
+        log.debug("Bulk {}: {} of {} appointments updated", transition.getPath(), transitioned.size(), requestedIds.size());
+        return new BulkStatusResponse(transition.getPath(), requestedIds.size(), transitioned.size(),
+                new ArrayList<>(results.values()));
+    }
+}
@@ -0,0 +1,22 @@
+package com.barbershop.bulk;
+
+import com.barbershop.model.entity.Appointment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Current state of an appointment read by bulk status changes (JPQL projection)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentStatusRow {
+    private Long id;
+    private Long customerId;
+    private Appointment.AppointmentStatus status;
+    private LocalDateTime appointmentDateTime;
+    private String branchId;
+}
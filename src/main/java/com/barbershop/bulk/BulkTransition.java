@@ -0,0 +1,55 @@
+package com.barbershop.bulk;
+
+import com.barbershop.event.AppointmentEventType;
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.model.entity.Appointment.AppointmentStatus;
+import com.barbershop.model.entity.AppointmentItem.ItemStatus;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Status changes that can be applied to many appointments at once, with the statuses they start from
+ */
+@Getter
+public enum BulkTransition {
+    CONFIRM("confirm", EnumSet.of(AppointmentStatus.PENDING), AppointmentStatus.CONFIRMED,
+            null, null),
+    COMPLETE("complete", EnumSet.of(AppointmentStatus.PENDING, AppointmentStatus.CONFIRMED), AppointmentStatus.COMPLETED,
+            ItemStatus.COMPLETED, EnumSet.of(ItemStatus.CANCELLED, ItemStatus.COMPLETED)),
+    CANCEL("cancel", EnumSet.of(AppointmentStatus.PENDING, AppointmentStatus.CONFIRMED), AppointmentStatus.CANCELLED,
+            ItemStatus.CANCELLED, EnumSet.of(ItemStatus.CANCELLED)),
+    // only for appointments whose time has passed
+    NO_SHOW("no-show", EnumSet.of(AppointmentStatus.PENDING, AppointmentStatus.CONFIRMED), AppointmentStatus.NO_SHOW,
+            ItemStatus.NO_SHOW, EnumSet.of(ItemStatus.CANCELLED, ItemStatus.COMPLETED));
+
+    private final String path;
+    private final Set<AppointmentStatus> from;
+    private final AppointmentStatus to;
+    // items move along unless they are already in one of the kept statuses; null leaves items alone
+    private final ItemStatus itemStatus;
+    private final Set<ItemStatus> keptItemStatuses;
+
+    BulkTransition(String path, Set<AppointmentStatus> from, AppointmentStatus to,
+                   ItemStatus itemStatus, Set<ItemStatus> keptItemStatuses) {
+        this.path = path;
+        this.from = from;
+        this.to = to;
+        this.itemStatus = itemStatus;
+        this.keptItemStatuses = keptItemStatuses;
+    }
+
+    public AppointmentEventType getEventType() {
+        return AppointmentEventType.forStatus(to);
+    }
+
+    public static BulkTransition fromPath(String path) {
+        return Arrays.stream(values())
+                .filter(transition -> transition.path.equalsIgnoreCase(path))
+                .findFirst()
+                .orElseThrow(() -> new BadRequestException(
+                        "Unknown bulk action: " + path + ". Use confirm, complete, cancel or no-show"));
+    }
+}
@@ -0,0 +1,13 @@
+package com.barbershop.cache;
+
+/**
+ * Groups of cached responses that are invalidated together
+ */
+public enum CacheRegion {
+    SERVICES,
+    STAFF,
+    // appointments of a day (embeds services and staff)
+    BOARD,
+    // admin occupancy heatmaps and forecasts (booked items and staff hours)
+    OCCUPANCY
+}
@@ -0,0 +1,52 @@
+package com.barbershop.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * A fully encoded JSON response body, plain and gzip-compressed
+ */
+public final class EncodedResponse {
+
+    private final byte[] body;
+    private final byte[] gzipBody;
+    private final String etag;
+    private final long expiresAtMillis;
+
+    EncodedResponse(byte[] body, byte[] gzipBody, String etag, long expiresAtMillis) {
+        this.body = body;
+        this.gzipBody = gzipBody;
+        this.etag = etag;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+
+    /**
+     * Response carrying the cached bytes as they are; answers 304 for a matching If-None-Match
+     */
+    public ResponseEntity<byte[]> toResponse(HttpServletRequest request) {
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(request)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzipBody);
+        }
+        return response.body(body);
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+}
@@ -0,0 +1,149 @@
+package com.barbershop.cache;
+
+import com.barbershop.model.dto.response.ApiResponse;
+import com.barbershop.sharding.ShardDirectory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of read responses that change rarely, held as the final UTF-8 and gzip bytes of their
+ * {@link ApiResponse} envelope. A hit neither maps entities nor runs Jackson; the bytes go to
+ * the servlet output stream as they are.
+ *
+ * Services invalidate a region when they change its data. Invalidation happens immediately and
+ * again after the transaction commits, and every region has a generation so a response built
+ * from data read before the change is never stored. Entries also expire after a TTL, which
+ * bounds staleness when several nodes run (invalidation is local to a node).
+ */
+@Component
+public class EncodedResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final ShardDirectory shardDirectory;
+    private final Map<CacheRegion, Region> regions = new EnumMap<>(CacheRegion.class);
+    private final Counter hits;
+    private final Counter misses;
+
+    @Value("${response-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${response-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${response-cache.board-ttl-seconds:30}")
+    private long boardTtlSeconds;
+
+    @Value("${response-cache.max-entries-per-region:512}")
+    private int maxEntriesPerRegion;
+
+    public EncodedResponseCache(ObjectMapper objectMapper, ShardDirectory shardDirectory, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.shardDirectory = shardDirectory;
+        for (CacheRegion region : CacheRegion.values()) {
+            regions.put(region, new Region());
+        }
+        this.hits = meterRegistry.counter("cache.responses", "result", "hit");
+        this.misses = meterRegistry.counter("cache.responses", "result", "miss");
+    }
+
+    /**
+     * Cached encoding of {@code ApiResponse.success(loader.get())} for the key in the current branch
+     */
+    public EncodedResponse get(CacheRegion cacheRegion, String key, Supplier<?> loader) {
+        long now = System.currentTimeMillis();
+        if (!enabled) {
+            return encode(loader.get(), now);
+        }
+
+        Region region = regions.get(cacheRegion);
+        String branchKey = shardDirectory.currentBranch() + ":" + key;
+        EncodedResponse cached = region.entries.get(branchKey);
+        if (cached != null && !cached.isExpired(now)) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        long generation = region.generation.get();
+        EncodedResponse encoded = encode(loader.get(), now + ttlMillis(cacheRegion));
+        if (region.entries.size() >= maxEntriesPerRegion) {
+            region.entries.clear();
+        }
+        region.entries.put(branchKey, encoded);
+        if (region.generation.get() != generation) {
+            // invalidated while we were loading; what we read may already be outdated
+            region.entries.remove(branchKey, encoded);
+        }
+        return encoded;
+    }
+
+    /**
+     * Drop a region now and, inside a transaction, once more after commit
+     */
+    public void invalidate(CacheRegion... cacheRegions) {
+        clear(cacheRegions);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    clear(cacheRegions);
+                }
+            });
+        }
+    }
+
+    private void clear(CacheRegion... cacheRegions) {
+        for (CacheRegion cacheRegion : cacheRegions) {
+            Region region = regions.get(cacheRegion);
+            region.generation.incrementAndGet();
+            region.entries.clear();
+        }
+    }
+
+    private long ttlMillis(CacheRegion region) {
+        return (region == CacheRegion.BOARD ? boardTtlSeconds : ttlSeconds) * 1000;
+    }
+
+    private EncodedResponse encode(Object payload, long expiresAtMillis) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(ApiResponse.success(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize cached response", e);
+        }
+
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        String etag = "\"" + Long.toHexString(crc.getValue()) + "-" + body.length + "\"";
+        return new EncodedResponse(body, gzipped.toByteArray(), etag, expiresAtMillis);
+    }
+
+    private static final class Region {
+        final Map<String, EncodedResponse> entries = new ConcurrentHashMap<>();
+        final AtomicLong generation = new AtomicLong();
+    }
+}
@@ -0,0 +1,343 @@
+package com.barbershop.cluster;
+
+import com.barbershop.model.entity.AppointmentItem;
+import com.barbershop.model.entity.BookingPartition;
+import com.barbershop.model.entity.ClusterNode;
+import com.barbershop.repository.AppointmentItemRepository;
+import com.barbershop.repository.BookingPartitionRepository;
+import com.barbershop.repository.ClusterNodeRepository;
+import com.barbershop.sharding.BranchContext;
+import com.barbershop.sharding.ShardDirectory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Staff-partitioned booking ownership across application nodes.
+ *
+ * Staff ids are hashed into a fixed number of partitions, and partitions are spread over the
+ * live nodes with a consistent hash ring. Membership is a lease table: every node renews its
+ * row on each heartbeat, and nodes whose lease has run out drop off the ring. No external
+ * coordinator is involved.
+ *
+ * Bookings lock the fence rows of their partitions (one row per partition and shard) and bump
+ * the generation. The owner of a partition keeps the schedules of its staff in memory and
+ * checks conflicts against them; the generation tells it whether another node booked in the
+ * partition since it last loaded, for example while the ring was moving, and it reloads in
+ * that case. Non-owners (stale ring view, owner unreachable, multi-staff appointments spanning
+ * owners) fall back to the database conflict check under the same lock. Double-booking is
+ * therefore ruled out by the lock, while ownership keeps the lock uncontended and the check
+ * in memory.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "cluster", name = "enabled", havingValue = "true")
+public class BookingCluster {
+
+    private final ClusterNodeRepository clusterNodeRepository;
+    private final BookingPartitionRepository bookingPartitionRepository;
+    private final AppointmentItemRepository appointmentItemRepository;
+    private final ShardDirectory shardDirectory;
+    private final TransactionTemplate transactionTemplate;
+
+    private final String nodeId;
+    private final int partitions;
+    private final int virtualNodes;
+    private final Duration lease;
+    private final String advertisedUrl;
+    private volatile int port;
+
+    private volatile ConsistentHashRing ring;
+    private volatile Map<String, String> urlsByNode = Map.of();
+
+    // shard:partition -> in-memory schedules of an owned partition
+    private final Map<String, PartitionState> partitionStates = new ConcurrentHashMap<>();
+
+    private final Counter localChecks;
+    private final Counter databaseChecks;
+
+    public BookingCluster(ClusterNodeRepository clusterNodeRepository,
+                          BookingPartitionRepository bookingPartitionRepository,
+                          AppointmentItemRepository appointmentItemRepository,
+                          ShardDirectory shardDirectory,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${cluster.node-id:}") String nodeId,
+                          @Value("${cluster.partitions:64}") int partitions,
+                          @Value("${cluster.virtual-nodes:100}") int virtualNodes,
+                          @Value("${cluster.lease-ms:10000}") long leaseMs,
+                          @Value("${cluster.advertised-url:}") String advertisedUrl) {
+        this.clusterNodeRepository = clusterNodeRepository;
+        this.bookingPartitionRepository = bookingPartitionRepository;
+        this.appointmentItemRepository = appointmentItemRepository;
+        this.shardDirectory = shardDirectory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nodeId = StringUtils.hasText(nodeId) ? nodeId : "node-" + UUID.randomUUID().toString().substring(0, 8);
+        this.partitions = partitions;
+        this.virtualNodes = virtualNodes;
+        this.lease = Duration.ofMillis(leaseMs);
+        this.advertisedUrl = advertisedUrl;
+        this.ring = new ConsistentHashRing(List.of(this.nodeId), virtualNodes);
+
+        this.localChecks = meterRegistry.counter("cluster.availability.checks", "source", "memory");
+        this.databaseChecks = meterRegistry.counter("cluster.availability.checks", "source", "database");
+        Gauge.builder("cluster.nodes", this, BookingCluster::memberCount).register(meterRegistry);
+    }
+
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        port = event.getWebServer().getPort();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (String shard : shardDirectory.shards()) {
+            BranchContext.runOnShard(shard, this::createPartitionRows);
+        }
+        heartbeat();
+        log.info("Node {} joined the booking cluster ({} nodes)", nodeId, ring.nodes().size());
+    }
+
+    /**
+     * Renew our lease and rebuild the ring from the live members
+     */
+    @Scheduled(fixedDelayString = "${cluster.heartbeat-ms:2000}")
+    public synchronized void heartbeat() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ClusterNode> live = BranchContext.callOnShard(ShardDirectory.DEFAULT_SHARD, () ->
+                transactionTemplate.execute(status -> {
+                    ClusterNode self = clusterNodeRepository.findById(nodeId)
+                            .orElseGet(() -> new ClusterNode(nodeId, null, now, now));
+                    self.setUrl(url());
+                    self.setLeaseExpiresAt(now.plus(lease));
+                    clusterNodeRepository.save(self);
+                    clusterNodeRepository.deleteExpiredBefore(now.minusHours(1));
+                    return clusterNodeRepository.findLive(now);
+                }));
+
+        Map<String, String> urls = new HashMap<>();
+        live.forEach(node -> urls.put(node.getNodeId(), node.getUrl()));
+        urlsByNode = urls;
+
+        Set<String> members = live.stream().map(ClusterNode::getNodeId).collect(Collectors.toCollection(TreeSet::new));
+        if (!members.equals(ring.nodes())) {
+            ring = new ConsistentHashRing(members, virtualNodes);
+            // state of partitions that moved away would go stale
+            partitionStates.values().removeIf(state -> !isLocalPartition(state.partition));
+            log.info("Booking cluster membership changed: {}", members);
+        }
+    }
+
+    /**
+     * Leave the ring right away instead of waiting for the lease to run out
+     */
+    @PreDestroy
+    public void leave() {
+        try {
+            BranchContext.runOnShard(ShardDirectory.DEFAULT_SHARD, () ->
+                    transactionTemplate.executeWithoutResult(status -> clusterNodeRepository.deleteById(nodeId)));
+        } catch (RuntimeException ex) {
+            log.warn("Node {} could not remove its lease: {}", nodeId, ex.getMessage());
+        }
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public int memberCount() {
+        return ring.nodes().size();
+    }
+
+    public String ownerOf(Long staffId) {
+        return ring.ownerOf(partitionOf(staffId));
+    }
+
+    /**
+     * URL of a live node, null if unknown
+     */
+    public String urlOf(String node) {
+        return urlsByNode.get(node);
+    }
+
+    public boolean isLocal(Long staffId) {
+        return isLocalPartition(partitionOf(staffId));
+    }
+
+    /**
+     * Lock the partitions of the given staff for the current booking transaction.
+     * Must run before anything else is read in the transaction, so that reads see every
+     * booking committed by the previous lock holder.
+     */
+    public Reservation reserve(Collection<Long> staffIds) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Bookings must be reserved inside a transaction");
+        }
+        String shard = shardDirectory.currentShard();
+        Reservation reservation = new Reservation();
+
+        // fixed lock order, so two multi-staff bookings cannot deadlock
+        Set<Integer> partitionIds = staffIds.stream().map(this::partitionOf).collect(Collectors.toCollection(TreeSet::new));
+        for (Integer partitionId : partitionIds) {
+            BookingPartition row = bookingPartitionRepository.findForUpdate(partitionId)
+                    .orElseThrow(() -> new IllegalStateException("Missing booking partition " + partitionId));
+            long generation = row.getGeneration();
+            row.setGeneration(generation + 1);
+
+            if (isLocalPartition(partitionId)) {
+                PartitionState state = partitionStates.computeIfAbsent(shard + ":" + partitionId,
+                        key -> new PartitionState(partitionId));
+                synchronized (state) {
+                    if (state.generation != generation) {
+                        // someone else booked here since we loaded
+                        state.schedules.clear();
+                        state.generation = generation;
+                    }
+                }
+                reservation.owned.put(partitionId, state);
+                reservation.lockedGenerations.put(partitionId, generation);
+            }
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    reservation.apply();
+                }
+            }
+        });
+        return reservation;
+    }
+
+    private boolean isLocalPartition(int partitionId) {
+        return nodeId.equals(ring.ownerOf(partitionId));
+    }
+
+    private int partitionOf(Long staffId) {
+        return (int) Long.remainderUnsigned(ConsistentHashRing.mix(staffId), partitions);
+    }
+
+    private void createPartitionRows() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<Integer> existing = bookingPartitionRepository.findAll().stream()
+                    .map(BookingPartition::getPartitionId)
+                    .collect(Collectors.toSet());
+            List<BookingPartition> missing = new ArrayList<>();
+            for (int i = 0; i < partitions; i++) {
+                if (!existing.contains(i)) {
+                    missing.add(new BookingPartition(i, 0L));
+                }
+            }
+            bookingPartitionRepository.saveAll(missing);
+        });
+    }
+
+    private String url() {
+        if (StringUtils.hasText(advertisedUrl)) {
+            return advertisedUrl;
+        }
+        return port > 0 ? "http://localhost:" + port : null;
+    }
+
+    private StaffSchedule loadSchedule(Long staffId) {
+        StaffSchedule schedule = new StaffSchedule();
+        for (AppointmentItem item : appointmentItemRepository.findActiveByStaffFrom(staffId, LocalDateTime.now().minusDays(1))) {
+            schedule.add(item.getScheduledTime(), item.getScheduledTime().plusMinutes(item.getDurationMinutes()));
+        }
+        return schedule;
+    }
+
+    private static final class PartitionState {
+        final int partition;
+        final Map<Long, StaffSchedule> schedules = new HashMap<>();
+        long generation = -1;
+
+        PartitionState(int partition) {
+            this.partition = partition;
+        }
+    }
+
+    /**
+     * Partitions locked by one booking transaction
+     */
+    public final class Reservation {
+
+        private final Map<Integer, PartitionState> owned = new HashMap<>();
+        private final Map<Integer, Long> lockedGenerations = new HashMap<>();
+        private final Map<Long, List<LocalDateTime[]>> booked = new HashMap<>();
+
+        private Reservation() {
+        }
+
+        /**
+         * Check a staff member is free; databaseCheck throws on a conflict and is used
+         * whenever this node cannot answer from memory
+         */
+        public void checkAvailability(Long staffId, LocalDateTime start, LocalDateTime end, Runnable databaseCheck) {
+            PartitionState state = owned.get(partitionOf(staffId));
+            if (state != null) {
+                synchronized (state) {
+                    StaffSchedule schedule = state.schedules.computeIfAbsent(staffId, BookingCluster.this::loadSchedule);
+                    if (!schedule.overlaps(start, end)) {
+                        localChecks.increment();
+                        return;
+                    }
+                    // the slot may have been freed by a cancellation we do not track
+                    state.schedules.remove(staffId);
+                }
+            }
+            databaseChecks.increment();
+            databaseCheck.run();
+        }
+
+        public void record(Long staffId, LocalDateTime start, LocalDateTime end) {
+            booked.computeIfAbsent(staffId, id -> new ArrayList<>()).add(new LocalDateTime[]{start, end});
+        }
+
+        private void apply() {
+            owned.forEach((partitionId, state) -> {
+                synchronized (state) {
+                    if (state.generation != lockedGenerations.get(partitionId)) {
+                        state.schedules.clear();
+                        return;
+                    }
+                    state.generation++;
+                    booked.forEach((staffId, intervals) -> {
+                        StaffSchedule schedule = partitionOf(staffId) == partitionId ? state.schedules.get(staffId) : null;
+                        if (schedule != null) {
+                            intervals.forEach(interval -> schedule.add(interval[0], interval[1]));
+                        }
+                    });
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.barbershop.cluster;
+
+import com.barbershop.model.dto.request.AppointmentCreateRequest;
+import com.barbershop.model.dto.request.AppointmentItemRequest;
+import com.barbershop.model.dto.response.ApiResponse;
+import com.barbershop.model.dto.response.AppointmentResponse;
+import com.barbershop.sharding.BranchContext;
+import com.barbershop.sharding.BranchResolutionFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Sends a booking to the node owning the staff of its first item. Forwarded requests are
+ * always handled where they arrive, so a request takes at most one extra hop; if the owner
+ * cannot be reached the booking is handled locally, which is still safe (see {@link BookingCluster}).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "cluster", name = "enabled", havingValue = "true")
+public class BookingForwarder {
+
+    public static final String FORWARDED_HEADER = "X-Booking-Forwarded-By";
+
+    private static final ParameterizedTypeReference<ApiResponse<AppointmentResponse>> RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final BookingCluster bookingCluster;
+    private final RestClient restClient;
+    private final Counter forwardedCounter;
+
+    public BookingForwarder(BookingCluster bookingCluster,
+                            RestClient.Builder restClientBuilder,
+                            MeterRegistry meterRegistry,
+                            @Value("${cluster.forward-timeout-ms:5000}") long timeoutMs) {
+        this.bookingCluster = bookingCluster;
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(timeoutMs))
+                .build());
+        requestFactory.setReadTimeout(Duration.ofMillis(timeoutMs));
+        this.restClient = restClientBuilder.requestFactory(requestFactory).build();
+        this.forwardedCounter = meterRegistry.counter("cluster.bookings.forwarded");
+    }
+
+    /**
+     * The owner's response, or empty when the booking should be handled on this node
+     */
+    public Optional<ResponseEntity<ApiResponse<AppointmentResponse>>> forward(AppointmentCreateRequest request,
+                                                                              HttpServletRequest httpRequest) {
+        if (httpRequest.getHeader(FORWARDED_HEADER) != null) {
+            return Optional.empty();
+        }
+        Long staffId = request.getItems().stream()
+                .map(AppointmentItemRequest::getStaffId)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+        if (staffId == null) {
+            return Optional.empty();
+        }
+        String owner = bookingCluster.ownerOf(staffId);
+        String url = owner == null || owner.equals(bookingCluster.nodeId()) ? null : bookingCluster.urlOf(owner);
+        if (url == null) {
+            return Optional.empty();
+        }
+
+        try {
+            ResponseEntity<ApiResponse<AppointmentResponse>> response = restClient.post()
+                    .uri(url + "/api/appointments")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .headers(headers -> {
+                        headers.set(FORWARDED_HEADER, bookingCluster.nodeId());
+                        headers.set(HttpHeaders.AUTHORIZATION, httpRequest.getHeader(HttpHeaders.AUTHORIZATION));
+                        if (BranchContext.branch() != null) {
+                            headers.set(BranchResolutionFilter.BRANCH_HEADER, BranchContext.branch());
+                        }
+                    })
+                    .body(request)
+                    .exchange((clientRequest, clientResponse) -> ResponseEntity
+                            .status(clientResponse.getStatusCode())
+                            .body(clientResponse.bodyTo(RESPONSE_TYPE)));
+            forwardedCounter.increment();
+            return Optional.of(response);
+        } catch (ResourceAccessException ex) {
+            log.warn("Owner {} of staff {} is unreachable, booking locally: {}", owner, staffId, ex.getMessage());
+            return Optional.empty();
+        }
+    }
+}
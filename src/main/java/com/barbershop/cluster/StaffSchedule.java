@@ -0,0 +1,35 @@
+package com.barbershop.cluster;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Busy intervals of one staff member, held by the node owning the staff's partition
+ */
+final class StaffSchedule {
+
+    // start -> latest end among intervals starting then
+    private final TreeMap<LocalDateTime, LocalDateTime> intervals = new TreeMap<>();
+    private Duration longest = Duration.ZERO;
+
+    void add(LocalDateTime start, LocalDateTime end) {
+        intervals.merge(start, end, (a, b) -> a.isAfter(b) ? a : b);
+        Duration length = Duration.between(start, end);
+        if (length.compareTo(longest) > 0) {
+            longest = length;
+        }
+    }
+
+    boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        // only intervals starting less than the longest interval before our start can reach into it
+        for (Map.Entry<LocalDateTime, LocalDateTime> interval
+                : intervals.subMap(start.minus(longest), true, end, false).entrySet()) {
+            if (interval.getValue().isAfter(start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,69 @@
+package com.barbershop.concurrency;
+
+import com.barbershop.exception.AppointmentConflictException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a transactional operation that lost an optimistic lock race. Each attempt must start
+ * its own transaction, so this is called from outside the service (the controllers); the retry
+ * reloads the appointment and validates the transition again against what the winner wrote.
+ * Only operations that are safe to repeat, like status transitions, should go through here.
+ *
+ * Metrics: {@code appointments.optimistic.conflicts} for every lost race,
+ * {@code appointments.optimistic.exhausted} when all attempts lost; both tagged by operation.
+ */
+@Slf4j
+@Component
+public class OptimisticRetry {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${optimistic-retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${optimistic-retry.backoff-ms:20}")
+    private long backoffMs;
+
+    public OptimisticRetry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T run(String operation, Supplier<T> attempt) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // an inner retry would keep seeing the same stale persistence context
+            return attempt.get();
+        }
+        for (int attemptNo = 1; ; attemptNo++) {
+            try {
+                return attempt.get();
+            } catch (OptimisticLockingFailureException ex) {
+                meterRegistry.counter("appointments.optimistic.conflicts", "operation", operation).increment();
+                if (attemptNo >= maxAttempts) {
+                    meterRegistry.counter("appointments.optimistic.exhausted", "operation", operation).increment();
+                    throw new AppointmentConflictException(
+                            "The appointment was changed by someone else at the same time. Please reload and try again.");
+                }
+                log.debug("Optimistic lock conflict on {} (attempt {}), retrying", operation, attemptNo);
+                pause(attemptNo);
+            }
+        }
+    }
+
+    // jittered linear backoff, so the racers do not collide again
+    private void pause(int attemptNo) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMs * attemptNo + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppointmentConflictException("Interrupted while retrying");
+        }
+    }
+}
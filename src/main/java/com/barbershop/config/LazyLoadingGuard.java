@@ -0,0 +1,48 @@
+package com.barbershop.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewFilter;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Refuses to start when entities could be lazy-loaded outside a transaction.
+ *
+ * Open-session-in-view keeps a session, and with it a connection, for the whole request, and
+ * Hibernate's enable_lazy_load_no_trans opens one for each lazy load. With both off a lazy load
+ * after the service returns throws LazyInitializationException, so entities are mapped to DTOs
+ * inside the transactional services with fetch plans that cover what the mapping reads.
+ */
+@Component
+public class LazyLoadingGuard implements SmartInitializingSingleton {
+
+    private final ListableBeanFactory beanFactory;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public LazyLoadingGuard(ListableBeanFactory beanFactory, EntityManagerFactory entityManagerFactory) {
+        this.beanFactory = beanFactory;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<String> inView = new ArrayList<>();
+        inView.addAll(List.of(beanFactory.getBeanNamesForType(OpenEntityManagerInViewInterceptor.class, true, false)));
+        inView.addAll(List.of(beanFactory.getBeanNamesForType(OpenEntityManagerInViewFilter.class, true, false)));
+        if (!inView.isEmpty()) {
+            throw new IllegalStateException("Open-session-in-view is enabled by " + inView
+                    + "; set spring.jpa.open-in-view=false and map entities inside the services");
+        }
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        if (sessionFactory.getSessionFactoryOptions().isInitializeLazyStateOutsideTransactionsEnabled()) {
+            throw new IllegalStateException(
+                    "hibernate.enable_lazy_load_no_trans is on; lazy loads would open a connection outside any transaction");
+        }
+    }
+}
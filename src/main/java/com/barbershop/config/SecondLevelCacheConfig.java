@@ -0,0 +1,84 @@
+package com.barbershop.config;
+
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache for reference data: Service and Staff rows and the active-list
+ * queries. Ehcache runs in-process behind JCache.
+ *
+ * Every region is declared here with an entry and time-to-live limit, and Hibernate fails on
+ * any region that is not, so nothing is cached without a bound. Cache keys carry the branch
+ * (tenant id). Each application context gets its own cache manager. Hit, miss and put counts
+ * are published as hibernate.* meters.
+ *
+ * The cache is per node: a write evicts only the writing node's copy, so other nodes may serve
+ * the old row or list for up to the time-to-live (300 s by default, the bound of the search and
+ * skill indexes). Users are not cached, so credential and role changes apply on every node at once.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String SERVICES = "services";
+    public static final String STAFF = "staff";
+    // Hibernate's own names for the query cache and the per-table change times behind it
+    static final String QUERY_RESULTS = "default-query-results-region";
+    static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(
+            @Value("${second-level-cache.reference-entries:10000}") long referenceEntries,
+            @Value("${second-level-cache.reference-ttl-seconds:300}") long referenceTtlSeconds,
+            @Value("${second-level-cache.query-entries:1000}") long queryEntries,
+            @Value("${second-level-cache.query-ttl-seconds:300}") long queryTtlSeconds,
+            @Value("${second-level-cache.timestamp-entries:1000}") long timestampEntries) {
+        EhcacheCachingProvider provider =
+                (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        org.ehcache.config.Configuration configuration = ConfigurationBuilder.newConfigurationBuilder()
+                .withCache(SERVICES, region(referenceEntries, Duration.ofSeconds(referenceTtlSeconds)))
+                .withCache(STAFF, region(referenceEntries, Duration.ofSeconds(referenceTtlSeconds)))
+                .withCache(QUERY_RESULTS, region(queryEntries, Duration.ofSeconds(queryTtlSeconds)))
+                // an expired change time would let an older query result through
+                .withCache(UPDATE_TIMESTAMPS, region(timestampEntries, null))
+                .build();
+        return provider.getCacheManager(URI.create("urn:barbershop:second-level-cache:" + UUID.randomUUID()), configuration);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(
+            CacheManager secondLevelCacheManager,
+            @Value("${second-level-cache.enabled:true}") boolean enabled) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, enabled);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            // statistics on, but not a log line per session
+            properties.put(AvailableSettings.LOG_SESSION_METRICS, false);
+        };
+    }
+
+    private static CacheConfiguration<Object, Object> region(long entries, Duration timeToLive) {
+        return CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(entries))
+                .withExpiry(timeToLive == null ? ExpiryPolicyBuilder.noExpiration() : ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive))
+                .build();
+    }
+}
@@ -50,11 +50,17 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/auth/test").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/services/**").permitAll()
+                        // Time off carries private reasons
+                        .requestMatchers(HttpMethod.GET, "/api/staff/*/exceptions").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/staff/**").permitAll()
 
                         // Swagger endpoints
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
 
+                        // Actuator
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+
 
                         // Admin only endpoints
                         .requestMatchers(HttpMethod.POST, "/api/services/**").hasRole("ADMIN")
@@ -64,6 +70,9 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.PUT, "/api/staff/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/staff/**").hasRole("ADMIN")
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/api/appointments/bulk/**").hasAnyRole("ADMIN", "STAFF")
+                        .requestMatchers("/api/appointments/live").hasAnyRole("ADMIN", "STAFF")
+                        .requestMatchers("/api/sync").hasAnyRole("ADMIN", "STAFF")
 
                         // Authenticated endpoints
                         .anyRequest().authenticated()
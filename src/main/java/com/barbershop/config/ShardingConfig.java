@@ -0,0 +1,131 @@
+package com.barbershop.config;
+
+import com.barbershop.repository.UserRepository;
+import com.barbershop.security.JwtTokenProvider;
+import com.barbershop.sharding.BranchResolutionFilter;
+import com.barbershop.sharding.BranchTenantResolver;
+import com.barbershop.sharding.HibernateMetadataCapture;
+import com.barbershop.sharding.ShardDataSources;
+import com.barbershop.sharding.ShardDirectory;
+import com.barbershop.sharding.ShardRoutingDataSource;
+import com.barbershop.sharding.ShardSchemaInitializer;
+import com.barbershop.sharding.ShardingProperties;
+import com.barbershop.sharding.UserReplicator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Branch sharding: every branch is mapped to a shard (a database/schema), JPA runs on a
+ * routing data source that follows the branch of the current request, and branch-scoped
+ * entities carry the branch as Hibernate tenant id.
+ *
+ * Without extra {@code sharding.shards} there is one shard (the primary datasource) holding
+ * the default branch, which is how the application behaves out of the box.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    public ShardDirectory shardDirectory(ShardingProperties properties) {
+        return new ShardDirectory(properties);
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource defaultShardDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ShardDataSources shardDataSources(ShardingProperties properties, HikariDataSource defaultShardDataSource) {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        dataSources.put(ShardDirectory.DEFAULT_SHARD, defaultShardDataSource);
+        properties.getShards().forEach((name, shard) -> {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + name);
+            dataSource.setJdbcUrl(shard.getUrl());
+            dataSource.setUsername(shard.getUsername());
+            dataSource.setPassword(shard.getPassword());
+            if (shard.getDriverClassName() != null) {
+                dataSource.setDriverClassName(shard.getDriverClassName());
+            }
+            dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+            dataSources.put(name, dataSource);
+        });
+        return new ShardDataSources(dataSources);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDirectory shardDirectory, ShardDataSources shardDataSources) {
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(shardDirectory);
+        routing.setTargetDataSources(new HashMap<>(shardDataSources.asMap()));
+        routing.setDefaultTargetDataSource(shardDataSources.get(ShardDirectory.DEFAULT_SHARD));
+        return routing;
+    }
+
+    @Bean
+    public HibernateMetadataCapture hibernateMetadataCapture() {
+        return new HibernateMetadataCapture();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer branchTenancyCustomizer(ShardDirectory shardDirectory,
+                                                                 HibernateMetadataCapture metadataCapture) {
+        return properties -> {
+            properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, new BranchTenantResolver(shardDirectory));
+            properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER, (IntegratorProvider) () -> List.of(metadataCapture));
+        };
+    }
+
+    @Bean
+    public UserReplicator userReplicator(ShardDirectory shardDirectory, ShardDataSources shardDataSources) {
+        return new UserReplicator(shardDirectory, shardDataSources);
+    }
+
+    @Bean
+    public ShardSchemaInitializer shardSchemaInitializer(EntityManagerFactory entityManagerFactory,
+                                                         HibernateMetadataCapture metadataCapture,
+                                                         ShardDirectory shardDirectory,
+                                                         ShardDataSources shardDataSources,
+                                                         JpaProperties jpaProperties,
+                                                         UserReplicator userReplicator,
+                                                         @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        return new ShardSchemaInitializer(entityManagerFactory, metadataCapture, shardDirectory,
+                shardDataSources, jpaProperties, userReplicator, ddlAuto);
+    }
+
+    // Must run before the security filter chain so authentication already reads the right shard
+    @Bean
+    public FilterRegistrationBean<BranchResolutionFilter> branchResolutionFilter(ShardDirectory shardDirectory,
+                                                                                 JwtTokenProvider tokenProvider,
+                                                                                 UserRepository userRepository,
+                                                                                 ObjectMapper objectMapper) {
+        FilterRegistrationBean<BranchResolutionFilter> registration = new FilterRegistrationBean<>(
+                new BranchResolutionFilter(shardDirectory, tokenProvider, userRepository, objectMapper));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
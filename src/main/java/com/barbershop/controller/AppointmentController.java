@@ -1,10 +1,24 @@
 package com.barbershop.controller;
 
+import com.barbershop.bulk.AppointmentBulkService;
+import com.barbershop.bulk.BulkTransition;
+import com.barbershop.cache.CacheRegion;
+import com.barbershop.cache.EncodedResponseCache;
+import com.barbershop.cluster.BookingForwarder;
+import com.barbershop.concurrency.OptimisticRetry;
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.idempotency.IdempotencyService;
+import com.barbershop.live.LiveCalendarHub;
 import com.barbershop.model.dto.request.AppointmentCreateRequest;
+import com.barbershop.model.dto.request.BulkStatusRequest;
 import com.barbershop.model.dto.response.ApiResponse;
+import com.barbershop.model.dto.response.AppointmentListView;
 import com.barbershop.model.dto.response.AppointmentResponse;
+import com.barbershop.model.dto.response.BulkStatusResponse;
+import com.barbershop.projection.AppointmentFields;
 import com.barbershop.security.UserPrincipal;
 import com.barbershop.service.AppointmentService;
+import com.fasterxml.jackson.core.type.TypeReference;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,18 +26,25 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Tag(
         name = "Appointments",
@@ -36,6 +57,12 @@ import java.util.List;
 public class AppointmentController {
 
     private final AppointmentService appointmentService;
+    private final AppointmentBulkService appointmentBulkService;
+    private final ObjectProvider<BookingForwarder> bookingForwarder;
+    private final EncodedResponseCache responseCache;
+    private final OptimisticRetry optimisticRetry;
+    private final IdempotencyService idempotencyService;
+    private final ObjectProvider<LiveCalendarHub> liveCalendarHub;
 
     @Operation(
             summary = "Create new appointment",
@@ -52,6 +79,9 @@ public class AppointmentController {
             - Calculate total price and duration
             - Prevent double-booking
             
+            Send an Idempotency-Key header to retry safely: a retry with the same key and body returns
+            the first response (with Idempotent-Replayed: true) instead of booking again.
+            
             Requires customer authentication.
             """,
             security = @SecurityRequirement(name = "Bearer Authentication")
@@ -106,7 +136,31 @@ public class AppointmentController {
                             )
                     )
             )
-            @Valid @RequestBody AppointmentCreateRequest request) {
+            @Valid @RequestBody AppointmentCreateRequest request,
+            @Parameter(description = "Unique key per booking attempt; retries reuse it", example = "3f1c9a52-7d3e-4b8a-9c61-0e2f5b7d8a90")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @Parameter(hidden = true) HttpServletRequest httpRequest) {
+
+        if (idempotencyKey != null) {
+            return idempotencyService.execute(String.valueOf(currentUser.getId()), idempotencyKey, request,
+                    new TypeReference<ApiResponse<AppointmentResponse>>() {
+                    },
+                    () -> createAppointment(currentUser, request, httpRequest));
+        }
+        return createAppointment(currentUser, request, httpRequest);
+    }
+
+    private ResponseEntity<ApiResponse<AppointmentResponse>> createAppointment(UserPrincipal currentUser,
+                                                                            AppointmentCreateRequest request,
+                                                                            HttpServletRequest httpRequest) {
+        // In a cluster, bookings are handled by the node owning the staff
+        BookingForwarder forwarder = bookingForwarder.getIfAvailable();
+        if (forwarder != null) {
+            Optional<ResponseEntity<ApiResponse<AppointmentResponse>>> forwarded = forwarder.forward(request, httpRequest);
+            if (forwarded.isPresent()) {
+                return forwarded.get();
+            }
+        }
 
         Long customerId = currentUser.getId();
 
@@ -137,7 +191,7 @@ public class AppointmentController {
             @Parameter(description = "Appointment ID", example = "1")
             @PathVariable Long id) {
         AppointmentResponse appointment = appointmentService.getAppointmentById(id);
-        return ResponseEntity.ok(ApiResponse.success(appointment));
+        return withVersion(ResponseEntity.ok(), appointment).body(ApiResponse.success(appointment));
     }
 
     @Operation(
@@ -193,6 +247,10 @@ public class AppointmentController {
             - Managing bookings
             - Generating reports
             
+            Compact responses:
+            - fields: comma separated fields to return, e.g. id,status,items.scheduledTime,items.staff
+            - view=normalized: items reference services and staff by id; each is sent once in a side dictionary
+            
             Requires ADMIN role.
             """,
             security = @SecurityRequirement(name = "Bearer Authentication")
@@ -212,12 +270,21 @@ public class AppointmentController {
             )
     })
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<AppointmentResponse>>> getAllAppointments(
+    public ResponseEntity<? extends ApiResponse<?>> getAllAppointments(
             @Parameter(description = "Page number (0-indexed)", example = "0")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Number of items per page", example = "10")
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Fields to return, all when omitted", example = "id,appointmentDateTime,status,items.staff")
+            @RequestParam(required = false) String fields,
+            @Parameter(description = "full (default) or normalized", example = "normalized")
+            @RequestParam(required = false) String view) {
         Pageable pageable = PageRequest.of(page, size);
+        AppointmentFields selection = AppointmentFields.parse(fields, view);
+        if (selection != null) {
+            AppointmentListView appointments = appointmentService.getAllAppointments(selection, pageable);
+            return ResponseEntity.ok(ApiResponse.success(appointments));
+        }
         Page<AppointmentResponse> appointments = appointmentService.getAllAppointments(pageable);
         return ResponseEntity.ok(ApiResponse.success(appointments));
     }
@@ -234,6 +301,8 @@ public class AppointmentController {
             - Daily schedule view
             - Calendar integration
             - Staff workload planning
+            
+            Supports the same fields and view=normalized parameters as the appointment list.
             """
     )
     @ApiResponses(value = {
@@ -247,15 +316,29 @@ public class AppointmentController {
             )
     })
     @GetMapping("/by-date")
-    public ResponseEntity<ApiResponse<List<AppointmentResponse>>> getAppointmentsByDate(
+    public ResponseEntity<byte[]> getAppointmentsByDate(
             @Parameter(
                     description = "Date in ISO format (YYYY-MM-DDTHH:MM:SS)",
                     example = "2025-12-30T00:00:00"
             )
-            @RequestParam String date) {
+            @RequestParam String date,
+            @Parameter(description = "Fields to return, all when omitted", example = "id,appointmentDateTime,items.staff")
+            @RequestParam(required = false) String fields,
+            @Parameter(description = "full (default) or normalized", example = "normalized")
+            @RequestParam(required = false) String view,
+            @Parameter(hidden = true) HttpServletRequest httpRequest) {
         LocalDateTime dateTime = LocalDateTime.parse(date);
-        List<AppointmentResponse> appointments = appointmentService.getAppointmentsByDate(dateTime);
-        return ResponseEntity.ok(ApiResponse.success(appointments));
+        AppointmentFields selection = AppointmentFields.parse(fields, view);
+        if (selection != null) {
+            // ApiResponse<AppointmentListView>, one cache entry per day and field selection
+            return responseCache.get(CacheRegion.BOARD, dateTime.toLocalDate() + "?" + selection.key(),
+                            () -> appointmentService.getAppointmentsByDate(dateTime, selection))
+                    .toResponse(httpRequest);
+        }
+        // ApiResponse<List<AppointmentResponse>>; the whole day shares one cache entry
+        return responseCache.get(CacheRegion.BOARD, dateTime.toLocalDate().toString(),
+                        () -> appointmentService.getAppointmentsByDate(dateTime))
+                .toResponse(httpRequest);
     }
 
     @Operation(
@@ -288,18 +371,31 @@ public class AppointmentController {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "404",
                     description = "Appointment not found"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "409",
+                    description = "Changed concurrently and still conflicting after retries"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "412",
+                    description = "If-Match does not match the current appointment version"
             )
     })
     @PutMapping("/{id}/cancel")
     public ResponseEntity<ApiResponse<AppointmentResponse>> cancelAppointment(
             @Parameter(hidden = true) @AuthenticationPrincipal UserPrincipal currentUser,
             @Parameter(description = "Appointment ID to cancel", example = "1")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @Parameter(description = "Only change the appointment if it is still at this version (ETag of the last read)", example = "\"3\"")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
         Long customerId = currentUser.getId();
+        Long expectedVersion = ifMatchVersion(ifMatch);
 
-        AppointmentResponse appointment = appointmentService.cancelAppointment(id, customerId);
-        return ResponseEntity.ok(ApiResponse.success("Appointment cancelled successfully", appointment));
+        AppointmentResponse appointment = optimisticRetry.run("cancel",
+                () -> appointmentService.cancelAppointment(id, customerId, expectedVersion));
+        return withVersion(ResponseEntity.ok(), appointment)
+                .body(ApiResponse.success("Appointment cancelled successfully", appointment));
     }
 
     @Operation(
@@ -322,10 +418,22 @@ public class AppointmentController {
                     responseCode = "200",
                     description = "Appointment confirmed successfully"
             ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Only PENDING appointments can be confirmed"
+            ),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "404",
                     description = "Appointment not found"
             ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "409",
+                    description = "Changed concurrently and still conflicting after retries"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "412",
+                    description = "If-Match does not match the current appointment version"
+            ),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "401",
                     description = "Unauthorized"
@@ -338,9 +446,14 @@ public class AppointmentController {
     @PutMapping("/{id}/confirm")
     public ResponseEntity<ApiResponse<AppointmentResponse>> confirmAppointment(
             @Parameter(description = "Appointment ID to confirm", example = "1")
-            @PathVariable Long id) {
-        AppointmentResponse appointment = appointmentService.confirmAppointment(id);
-        return ResponseEntity.ok(ApiResponse.success("Appointment confirmed successfully", appointment));
+            @PathVariable Long id,
+            @Parameter(description = "Only change the appointment if it is still at this version (ETag of the last read)", example = "\"3\"")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ifMatchVersion(ifMatch);
+        AppointmentResponse appointment = optimisticRetry.run("confirm",
+                () -> appointmentService.confirmAppointment(id, expectedVersion));
+        return withVersion(ResponseEntity.ok(), appointment)
+                .body(ApiResponse.success("Appointment confirmed successfully", appointment));
     }
 
     @Operation(
@@ -363,10 +476,22 @@ public class AppointmentController {
                     responseCode = "200",
                     description = "Appointment completed successfully"
             ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Only PENDING or CONFIRMED appointments can be completed"
+            ),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "404",
                     description = "Appointment not found"
             ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "409",
+                    description = "Changed concurrently and still conflicting after retries"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "412",
+                    description = "If-Match does not match the current appointment version"
+            ),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "401",
                     description = "Unauthorized"
@@ -379,8 +504,148 @@ public class AppointmentController {
     @PutMapping("/{id}/complete")
     public ResponseEntity<ApiResponse<AppointmentResponse>> completeAppointment(
             @Parameter(description = "Appointment ID to complete", example = "1")
-            @PathVariable Long id) {
-        AppointmentResponse appointment = appointmentService.completeAppointment(id);
-        return ResponseEntity.ok(ApiResponse.success("Appointment completed successfully", appointment));
+            @PathVariable Long id,
+            @Parameter(description = "Only change the appointment if it is still at this version (ETag of the last read)", example = "\"3\"")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ifMatchVersion(ifMatch);
+        AppointmentResponse appointment = optimisticRetry.run("complete",
+                () -> appointmentService.completeAppointment(id, expectedVersion));
+        return withVersion(ResponseEntity.ok(), appointment)
+                .body(ApiResponse.success("Appointment completed successfully", appointment));
+    }
+
+    @Operation(
+            summary = "Change the status of many appointments (Admin/Staff)",
+            description = """
+            Apply one status change to a list of appointments, e.g. completing the day's appointments at closing time.
+            
+            Actions:
+            - confirm: PENDING -> CONFIRMED
+            - complete: PENDING/CONFIRMED -> COMPLETED, items except cancelled ones become COMPLETED
+            - cancel: PENDING/CONFIRMED -> CANCELLED, all items become CANCELLED
+            - no-show: PENDING/CONFIRMED -> NO_SHOW, items except cancelled ones become NO_SHOW; only for appointments whose time has passed
+            
+            Select appointments by ids, or by from/to (and optionally current status) when no ids are given.
+            Appointments that cannot make the transition are skipped; the result lists the outcome for every id.
+            
+            Requires ADMIN or STAFF role.
+            """,
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Transition applied; see the per-appointment results",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Unknown action, missing selection or too many appointments",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "401",
+                    description = "Unauthorized"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - ADMIN or STAFF role required"
+            )
+    })
+    @PostMapping("/bulk/{action}")
+    public ResponseEntity<ApiResponse<BulkStatusResponse>> bulkTransition(
+            @Parameter(description = "confirm, complete, cancel or no-show", example = "complete")
+            @PathVariable String action,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Appointment ids, or a time filter",
+                    required = true,
+                    content = @Content(
+                            schema = @Schema(
+                                    example = """
+                        {
+                          "ids": [12, 13, 15]
+                        }
+                        """
+                            )
+                    )
+            )
+            @Valid @RequestBody BulkStatusRequest request) {
+        BulkStatusResponse result = appointmentBulkService.apply(BulkTransition.fromPath(action), request);
+        return ResponseEntity.ok(ApiResponse.success(result.getUpdated() + " appointments updated", result));
+    }
+
+    @Operation(
+            summary = "Live calendar stream",
+            description = """
+            Server-Sent Events stream of appointment changes, replacing polling of /by-date.
+            
+            Events are named after the change (created, confirmed, cancelled, completed, no_show, updated)
+            and carry the appointment id, status, time and staff. Filter by day and/or staff member.
+            
+            The stream opens with a "ready" event. On reconnect, send the last received event id as Last-Event-ID (browsers do this automatically)
+            to receive the events missed in between. A "reset" event means they could not be replayed:
+            reload the day from /by-date once and keep listening.
+            
+            Requires ADMIN or STAFF role.
+            """,
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Event stream opened"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Live updates are disabled or too many streams are open",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "401",
+                    description = "Unauthorized"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - ADMIN or STAFF role required"
+            )
+    })
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter liveCalendar(
+            @Parameter(description = "Only appointments on this day", example = "2025-12-30")
+            @RequestParam(required = false) LocalDate date,
+            @Parameter(description = "Only appointments with this staff member", example = "1")
+            @RequestParam(required = false) Long staffId,
+            @Parameter(description = "Id of the last event received before reconnecting")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        LiveCalendarHub hub = liveCalendarHub.getIfAvailable();
+        if (hub == null) {
+            throw new BadRequestException("Live calendar updates are disabled");
+        }
+        return hub.subscribe(date, staffId, lastEventId);
+    }
+
+    /**
+     * ETag carrying the appointment version; archived appointments have none
+     */
+    private static ResponseEntity.BodyBuilder withVersion(ResponseEntity.BodyBuilder builder, AppointmentResponse appointment) {
+        return appointment.getVersion() == null ? builder : builder.eTag("\"" + appointment.getVersion() + "\"");
+    }
+
+    /**
+     * Version from an If-Match header, null when absent or "*"
+     */
+    private static Long ifMatchVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.parseLong(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("If-Match must be an appointment version, e.g. \"3\"");
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.barbershop.controller;
+
+import com.barbershop.batch.BatchReadService;
+import com.barbershop.model.dto.request.BatchRequest;
+import com.barbershop.model.dto.response.ApiResponse;
+import com.barbershop.model.dto.response.BatchResponse;
+import com.barbershop.security.UserPrincipal;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@Tag(
+        name = "Batch",
+        description = "Several read requests in one round trip."
+)
+@RestController
+@RequestMapping("/api/batch")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class BatchController {
+
+    private final BatchReadService batchReadService;
+
+    @Operation(
+            summary = "Run several GET requests at once",
+            description = """
+            Answers up to 20 GET requests in one call. Supported paths:
+            - /api/services, /api/services?ids=1,2,3, /api/services/{id}
+            - /api/staff, /api/staff?ids=1,2,3, /api/staff/{id}
+            - /api/appointments/{id}, /api/appointments/my-appointments?page=0&size=10
+            
+            Each result carries the request id, the status the request would have had on its own,
+            and its data or error message. Lookups by id are merged, so asking for ten staff members
+            costs one query.
+            
+            Requires authentication.
+            """,
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Batch answered; see the status of every result",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "No requests or too many requests",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "401",
+                    description = "Unauthorized"
+            )
+    })
+    @PostMapping
+    public ResponseEntity<ApiResponse<BatchResponse>> batch(
+            @Parameter(hidden = true) @AuthenticationPrincipal UserPrincipal currentUser,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Requests to answer",
+                    required = true,
+                    content = @Content(
+                            schema = @Schema(
+                                    example = """
+                        {
+                          "requests": [
+                            {"id": "services", "path": "/api/services"},
+                            {"id": "staff", "path": "/api/staff?ids=1,2"},
+                            {"id": "mine", "path": "/api/appointments/my-appointments?size=5"}
+                          ]
+                        }
+                        """
+                            )
+                    )
+            )
+            @Valid @RequestBody BatchRequest request) {
+        Long userId = currentUser == null ? null : currentUser.getId();
+        return ResponseEntity.ok(ApiResponse.success(batchReadService.execute(request.getRequests(), userId)));
+    }
+}
@@ -0,0 +1,107 @@
+package com.barbershop.controller;
+
+import com.barbershop.crm.CustomerSummaryService;
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.job.CustomerSummaryBackfill;
+import com.barbershop.model.dto.response.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Tag(
+        name = "Customers",
+        description = "Admin-only customer summaries for the CRM customer page."
+)
+@RestController
+@RequestMapping("/api/admin/customers")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class CustomerController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final CustomerSummaryService customerSummaryService;
+    private final CustomerSummaryBackfill customerSummaryBackfill;
+
+    @Operation(
+            summary = "Get customer summaries",
+            description = "Visit count, cancellations, last visit, lifetime spend and favourite service and staff of the branch's customers, one page per call read with a single query. The page has no total count; use hasNext to page on. With ids=1,2,3 only those customers are returned (up to 100). Admin only.",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Summaries retrieved",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid sort or page size",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - ADMIN role required",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            )
+    })
+    @GetMapping("/summaries")
+    public ResponseEntity<?> getSummaries(
+            @Parameter(description = "Customer IDs to fetch in one call", example = "1,2,3")
+            @RequestParam(required = false) List<Long> ids,
+            @Parameter(description = "Order: lastVisit, spend or visits (all descending)", example = "lastVisit")
+            @RequestParam(defaultValue = "lastVisit") String sort,
+            @Parameter(description = "Page number (0-based)", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Number of customers per page", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+        if (ids != null) {
+            if (ids.size() > MAX_PAGE_SIZE) {
+                throw new BadRequestException("At most " + MAX_PAGE_SIZE + " ids per request");
+            }
+            return ResponseEntity.ok(ApiResponse.success(customerSummaryService.getSummaries(ids)));
+        }
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Page must be 0 or more and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        return ResponseEntity.ok(ApiResponse.success(customerSummaryService.getSummaries(sort, page, size)));
+    }
+
+    @Operation(
+            summary = "Rebuild customer summaries",
+            description = "Recomputes every customer summary from the full appointment history, archive included, in the background. Only needed after data was changed outside the application. Admin only.",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "202",
+                    description = "Rebuild started",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "A rebuild is already running",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - ADMIN role required",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            )
+    })
+    @PostMapping("/summaries/rebuild")
+    public ResponseEntity<ApiResponse<Void>> rebuildSummaries() {
+        customerSummaryBackfill.start();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success("Customer summary rebuild started", null));
+    }
+}
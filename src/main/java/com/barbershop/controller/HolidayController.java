@@ -0,0 +1,120 @@
+package com.barbershop.controller;
+
+import com.barbershop.model.dto.request.ShopHolidayRequest;
+import com.barbershop.model.dto.response.ApiResponse;
+import com.barbershop.model.dto.response.ShopHolidayResponse;
+import com.barbershop.schedule.ScheduleService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Tag(
+        name = "Shop Holidays",
+        description = "Admin-only management of the dates the current branch is closed or closes early."
+)
+@RestController
+@RequestMapping("/api/admin/holidays")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class HolidayController {
+
+    private final ScheduleService scheduleService;
+
+    @Operation(
+            summary = "Get shop holidays",
+            description = "Holidays of the current branch between two dates, both inclusive (up to a year). Admin only.",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Holidays found",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid date range",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - ADMIN role required"
+            )
+    })
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<ShopHolidayResponse>>> getHolidays(
+            @Parameter(description = "First date", example = "2025-01-01", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last date", example = "2025-12-31", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(ApiResponse.success(scheduleService.getHolidays(from, to)));
+    }
+
+    @Operation(
+            summary = "Add a shop holiday",
+            description = "Close the branch on a date for every staff member, all day or from closesAt on. Staff can still be given extra hours on that date. Existing appointments are not touched. Admin only.",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "201",
+                    description = "Holiday added",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid input or a holiday already on that date",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - ADMIN role required"
+            )
+    })
+    @PostMapping
+    public ResponseEntity<ApiResponse<ShopHolidayResponse>> addHoliday(@Valid @RequestBody ShopHolidayRequest request) {
+        ShopHolidayResponse created = scheduleService.addHoliday(request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Holiday added successfully", created));
+    }
+
+    @Operation(
+            summary = "Remove a shop holiday",
+            description = "Admin only.",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Holiday removed"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404",
+                    description = "Holiday not found"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - ADMIN role required"
+            )
+    })
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> deleteHoliday(
+            @Parameter(description = "Holiday ID", example = "1")
+            @PathVariable Long id) {
+        scheduleService.deleteHoliday(id);
+        return ResponseEntity.ok(ApiResponse.success("Holiday removed successfully", null));
+    }
+}
@@ -0,0 +1,136 @@
+package com.barbershop.controller;
+
+import com.barbershop.analytics.OccupancyService;
+import com.barbershop.cache.CacheRegion;
+import com.barbershop.cache.EncodedResponseCache;
+import com.barbershop.model.dto.response.ApiResponse;
+import com.barbershop.model.dto.response.BranchReportResponse;
+import com.barbershop.report.BranchReportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Tag(
+        name = "Reports",
+        description = "Admin-only reports across all branches."
+)
+@RestController
+@RequestMapping("/api/admin/reports")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ReportController {
+
+    private final BranchReportService branchReportService;
+    private final OccupancyService occupancyService;
+    private final EncodedResponseCache responseCache;
+
+    @Operation(
+            summary = "Get per-branch appointment totals",
+            description = "Appointment counts by status and completed revenue for every branch in the given period. All shards are queried in parallel; shards that do not answer are listed in failedShards. Admin only.",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Report generated",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid period",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - ADMIN role required",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            )
+    })
+    @GetMapping("/branches")
+    public ResponseEntity<ApiResponse<BranchReportResponse>> getBranchReport(
+            @Parameter(description = "Period start (inclusive)", example = "2025-01-01T00:00:00", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Period end (exclusive)", example = "2025-02-01T00:00:00", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(ApiResponse.success(branchReportService.getBranchReport(from, to)));
+    }
+
+    @Operation(
+            summary = "Get the occupancy heatmap",
+            description = "Booked and available staff minutes per weekday and hour of the current branch over the given days, with utilization. Ranges of up to about three years are supported; results are cached until bookings or staff change. Admin only.",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Heatmap generated",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid or too long range",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - ADMIN role required",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            )
+    })
+    @GetMapping("/occupancy")
+    public ResponseEntity<byte[]> getOccupancy(
+            @Parameter(description = "First day (inclusive)", example = "2025-01-01", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day (exclusive)", example = "2026-01-01", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(hidden = true) HttpServletRequest httpRequest) {
+        // ApiResponse<OccupancyResponse>, one cache entry per range
+        return responseCache.get(CacheRegion.OCCUPANCY, from + ".." + to, () -> occupancyService.getHeatmap(from, to))
+                .toResponse(httpRequest);
+    }
+
+    @Operation(
+            summary = "Get the capacity forecast",
+            description = "Expected booked minutes for each of the coming weeks: every weekday-hour slot is expected at the utilization it had over the past weeks, and never below what is already booked. Admin only.",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Forecast generated",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid number of weeks",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - ADMIN role required",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            )
+    })
+    @GetMapping("/occupancy/forecast")
+    public ResponseEntity<byte[]> getOccupancyForecast(
+            @Parameter(description = "Weeks to forecast, starting today", example = "4")
+            @RequestParam(defaultValue = "4") int weeks,
+            @Parameter(hidden = true) HttpServletRequest httpRequest) {
+        // ApiResponse<OccupancyForecastResponse>; keyed by day since the forecast starts today
+        return responseCache.get(CacheRegion.OCCUPANCY, "forecast:" + weeks + "@" + LocalDate.now(),
+                        () -> occupancyService.getForecast(weeks))
+                .toResponse(httpRequest);
+    }
+}
@@ -1,18 +1,28 @@
 package com.barbershop.controller;
 
+import com.barbershop.cache.CacheRegion;
+import com.barbershop.cache.EncodedResponseCache;
+import com.barbershop.exception.BadRequestException;
 import com.barbershop.model.dto.request.ServiceRequest;
 import com.barbershop.model.dto.response.ApiResponse;
 import com.barbershop.model.dto.response.ServiceResponse;
+import com.barbershop.model.dto.response.StaffResponse;
+import com.barbershop.search.ServiceSearchIndex;
 import com.barbershop.service.ServiceService;
+import com.barbershop.service.StaffService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Tag(name = "Services", description = "Barbershop service management endpoints")
@@ -22,13 +32,42 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class ServiceController {
 
+    private static final int MAX_IDS = 100;
+    private static final int MAX_SEARCH_RESULTS = 50;
+
     private final ServiceService serviceService;
+    private final EncodedResponseCache responseCache;
+    private final ServiceSearchIndex searchIndex;
+    private final StaffService staffService;
 
-    @Operation(summary = "Get all active services", description = "Retrieve list of all active barbershop services")
+    @Operation(summary = "Get all active services", description = "Retrieve list of all active barbershop services, or with ids=1,2,3 just those services (up to 100, inactive ones included)")
     @GetMapping
-    public ResponseEntity<ApiResponse<List<ServiceResponse>>> getAllActiveServices() {
-        List<ServiceResponse> services = serviceService.getAllActiveServices();
-        return ResponseEntity.ok(ApiResponse.success(services));
+    public ResponseEntity<?> getAllActiveServices(
+            @Parameter(description = "Service IDs to fetch in one call", example = "1,2,3")
+            @RequestParam(required = false) List<Long> ids,
+            @Parameter(hidden = true) HttpServletRequest request) {
+        if (ids != null) {
+            if (ids.size() > MAX_IDS) {
+                throw new BadRequestException("At most " + MAX_IDS + " ids per request");
+            }
+            return ResponseEntity.ok(ApiResponse.success(serviceService.getServicesByIds(ids)));
+        }
+        // ApiResponse<List<ServiceResponse>>, served from pre-encoded bytes
+        return responseCache.get(CacheRegion.SERVICES, "active", serviceService::getAllActiveServices)
+                .toResponse(request);
+    }
+
+    @Operation(summary = "Search services", description = "Active services matching every word of the query, best match first. Case and Turkish accents are ignored and the words may be prefixes, so \"sac kes\" finds \"Saç Kesimi\"")
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<ServiceResponse>>> searchServices(
+            @Parameter(description = "Words to look for in service names and descriptions", example = "beard")
+            @RequestParam String q,
+            @Parameter(description = "Maximum number of results", example = "10")
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_SEARCH_RESULTS);
+        }
+        return ResponseEntity.ok(ApiResponse.success(searchIndex.search(q, limit)));
     }
 
     @Operation(summary = "Get service by ID", description = "Retrieve a specific service by its ID")
@@ -38,6 +77,15 @@ public class ServiceController {
         return ResponseEntity.ok(ApiResponse.success(service));
     }
 
+    @Operation(summary = "Get staff for a service", description = "Active staff who perform the service. With at, only those whose working hours cover the whole service starting then")
+    @GetMapping("/{id}/staff")
+    public ResponseEntity<ApiResponse<List<StaffResponse>>> getStaffForService(
+            @PathVariable Long id,
+            @Parameter(description = "Start time to check working hours for", example = "2025-12-30T14:30:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(ApiResponse.success(staffService.getStaffForService(id, at)));
+    }
+
     @Operation(
             summary = "Create new service",
             description = "Create a new barbershop service. Requires ADMIN role.",
@@ -1,8 +1,19 @@
 package com.barbershop.controller;
 
+import com.barbershop.cache.CacheRegion;
+import com.barbershop.cache.EncodedResponseCache;
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.model.dto.request.ScheduleExceptionRequest;
+import com.barbershop.model.dto.request.StaffServicesRequest;
+import com.barbershop.model.dto.request.StaffShiftsRequest;
 import com.barbershop.model.dto.response.ApiResponse;
+import com.barbershop.model.dto.response.ScheduleExceptionResponse;
+import com.barbershop.model.dto.response.ServiceResponse;
+import com.barbershop.model.dto.response.StaffAvailabilityResponse;
 import com.barbershop.model.dto.response.StaffResponse;
+import com.barbershop.model.dto.response.StaffShiftResponse;
 import com.barbershop.model.entity.Staff;
+import com.barbershop.schedule.ScheduleService;
 import com.barbershop.service.StaffService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,12 +22,15 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Tag(
@@ -29,11 +43,15 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class StaffController {
 
+    private static final int MAX_IDS = 100;
+
     private final StaffService staffService;
+    private final ScheduleService scheduleService;
+    private final EncodedResponseCache responseCache;
 
     @Operation(
             summary = "Get all active staff members",
-            description = "Retrieve a list of all active (non-deleted) staff members. This is a public endpoint accessible without authentication. Returns staff name, specialties, working hours, and contact information."
+            description = "Retrieve a list of all active (non-deleted) staff members. This is a public endpoint accessible without authentication. Returns staff name, specialties, working hours, and contact information. With ids=1,2,3 only those staff members are returned (up to 100, inactive ones included)."
     )
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
@@ -43,9 +61,19 @@ public class StaffController {
             )
     })
     @GetMapping
-    public ResponseEntity<ApiResponse<List<StaffResponse>>> getAllActiveStaff() {
-        List<StaffResponse> staff = staffService.getAllActiveStaff();
-        return ResponseEntity.ok(ApiResponse.success(staff));
+    public ResponseEntity<?> getAllActiveStaff(
+            @Parameter(description = "Staff member IDs to fetch in one call", example = "1,2,3")
+            @RequestParam(required = false) List<Long> ids,
+            @Parameter(hidden = true) HttpServletRequest request) {
+        if (ids != null) {
+            if (ids.size() > MAX_IDS) {
+                throw new BadRequestException("At most " + MAX_IDS + " ids per request");
+            }
+            return ResponseEntity.ok(ApiResponse.success(staffService.getStaffByIds(ids)));
+        }
+        // ApiResponse<List<StaffResponse>>, served from pre-encoded bytes
+        return responseCache.get(CacheRegion.STAFF, "active", staffService::getAllActiveStaff)
+                .toResponse(request);
     }
 
     @Operation(
@@ -206,4 +234,262 @@ public class StaffController {
         staffService.deactivateStaff(id);
         return ResponseEntity.ok(ApiResponse.success("Staff deactivated successfully", null));
     }
-}
\ No newline at end of file
+
+    @Operation(
+            summary = "Get services of a staff member",
+            description = "Services this staff member is linked to in the skill matrix. A service linked to nobody can be booked with any staff member. Public endpoint."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Services found",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404",
+                    description = "Staff member not found",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            )
+    })
+    @GetMapping("/{id}/services")
+    public ResponseEntity<ApiResponse<List<ServiceResponse>>> getStaffServices(
+            @Parameter(description = "Staff member ID", example = "1")
+            @PathVariable Long id) {
+        return ResponseEntity.ok(ApiResponse.success(staffService.getStaffServices(id)));
+    }
+
+    @Operation(
+            summary = "Set services of a staff member",
+            description = "Replace the services this staff member performs. Bookings of a linked service are then only accepted with its linked staff. Requires ADMIN role.",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Services updated",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Unknown service ID",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404",
+                    description = "Staff member not found",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - ADMIN role required"
+            )
+    })
+    @PutMapping("/{id}/services")
+    public ResponseEntity<ApiResponse<List<ServiceResponse>>> updateStaffServices(
+            @Parameter(description = "Staff member ID", example = "1")
+            @PathVariable Long id,
+            @Valid @RequestBody StaffServicesRequest request) {
+        List<ServiceResponse> services = staffService.updateStaffServices(id, request.getServiceIds());
+        return ResponseEntity.ok(ApiResponse.success("Staff services updated successfully", services));
+    }
+
+    @Operation(
+            summary = "Get weekly shifts of a staff member",
+            description = "Working stretches and breaks per weekday. A staff member without working stretches works their default hours every day. Public endpoint."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Shifts found",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404",
+                    description = "Staff member not found",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            )
+    })
+    @GetMapping("/{id}/shifts")
+    public ResponseEntity<ApiResponse<List<StaffShiftResponse>>> getStaffShifts(
+            @Parameter(description = "Staff member ID", example = "1")
+            @PathVariable Long id) {
+        return ResponseEntity.ok(ApiResponse.success(scheduleService.getShifts(id)));
+    }
+
+    @Operation(
+            summary = "Set weekly shifts of a staff member",
+            description = "Replace the working stretches (kind WORK) and breaks (kind BREAK) per weekday. Days without a working stretch are days off; an empty list goes back to the default hours every day. Requires ADMIN role.",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Shifts updated",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "A shift ends before it starts",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404",
+                    description = "Staff member not found",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - ADMIN role required"
+            )
+    })
+    @PutMapping("/{id}/shifts")
+    public ResponseEntity<ApiResponse<List<StaffShiftResponse>>> updateStaffShifts(
+            @Parameter(description = "Staff member ID", example = "1")
+            @PathVariable Long id,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Weekly calendar",
+                    required = true,
+                    content = @Content(
+                            schema = @Schema(
+                                    example = """
+                        {
+                          "shifts": [
+                            {"dayOfWeek": "MONDAY", "startTime": "09:00:00", "endTime": "18:00:00", "kind": "WORK"},
+                            {"dayOfWeek": "MONDAY", "startTime": "13:00:00", "endTime": "14:00:00", "kind": "BREAK"},
+                            {"dayOfWeek": "SATURDAY", "startTime": "10:00:00", "endTime": "15:00:00", "kind": "WORK"}
+                          ]
+                        }
+                        """
+                            )
+                    )
+            )
+            @Valid @RequestBody StaffShiftsRequest request) {
+        List<StaffShiftResponse> shifts = scheduleService.updateShifts(id, request.getShifts());
+        return ResponseEntity.ok(ApiResponse.success("Staff shifts updated successfully", shifts));
+    }
+
+    @Operation(
+            summary = "Get time off and extra hours of a staff member",
+            description = "Schedule exceptions between two dates, both inclusive (up to a year). Requires ADMIN role.",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Exceptions found",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid date range",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404",
+                    description = "Staff member not found",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            )
+    })
+    @GetMapping("/{id}/exceptions")
+    public ResponseEntity<ApiResponse<List<ScheduleExceptionResponse>>> getScheduleExceptions(
+            @Parameter(description = "Staff member ID", example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "First date", example = "2025-01-01", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last date", example = "2025-01-31", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(ApiResponse.success(scheduleService.getExceptions(id, from, to)));
+    }
+
+    @Operation(
+            summary = "Add time off or extra hours",
+            description = "Change one date of a staff member's week: kind OFF takes the time off, kind EXTRA adds working time. Without start and end time it covers the whole day. Existing appointments are not touched. Requires ADMIN role.",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "201",
+                    description = "Exception added",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid times",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404",
+                    description = "Staff member not found",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - ADMIN role required"
+            )
+    })
+    @PostMapping("/{id}/exceptions")
+    public ResponseEntity<ApiResponse<ScheduleExceptionResponse>> addScheduleException(
+            @Parameter(description = "Staff member ID", example = "1")
+            @PathVariable Long id,
+            @Valid @RequestBody ScheduleExceptionRequest request) {
+        ScheduleExceptionResponse created = scheduleService.addException(id, request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Schedule exception added successfully", created));
+    }
+
+    @Operation(
+            summary = "Remove time off or extra hours",
+            description = "Requires ADMIN role.",
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Exception removed"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404",
+                    description = "Exception not found for this staff member"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - ADMIN role required"
+            )
+    })
+    @DeleteMapping("/{id}/exceptions/{exceptionId}")
+    public ResponseEntity<ApiResponse<Void>> deleteScheduleException(
+            @Parameter(description = "Staff member ID", example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Exception ID", example = "1")
+            @PathVariable Long exceptionId) {
+        scheduleService.deleteException(id, exceptionId);
+        return ResponseEntity.ok(ApiResponse.success("Schedule exception removed successfully", null));
+    }
+
+    @Operation(
+            summary = "Find free slots of a staff member",
+            description = "Start times on the date at which the whole service fits the staff member's shifts, breaks, time off, shop holidays and existing bookings. Empty for inactive staff or services and for staff who do not perform the service. Public endpoint."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Free slots",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404",
+                    description = "Staff member or service not found",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            )
+    })
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<ApiResponse<StaffAvailabilityResponse>> getAvailability(
+            @Parameter(description = "Staff member ID", example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Service to fit", example = "1", required = true)
+            @RequestParam Long serviceId,
+            @Parameter(description = "Date", example = "2025-01-15", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(ApiResponse.success(scheduleService.findFreeSlots(id, serviceId, date)));
+    }
+}
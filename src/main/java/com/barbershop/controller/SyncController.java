@@ -0,0 +1,65 @@
+package com.barbershop.controller;
+
+import com.barbershop.model.dto.response.ApiResponse;
+import com.barbershop.model.dto.response.SyncResponse;
+import com.barbershop.sync.SyncService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Tag(
+        name = "Sync",
+        description = "Incremental sync for clients that keep the schedule offline."
+)
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class SyncController {
+
+    private final SyncService syncService;
+
+    @Operation(
+            summary = "Get changes since a sync token",
+            description = """
+            Appointments (with their items), services and staff created or changed since the token, and ids of
+            services and staff deleted since then. Pass the returned token as since on the next call.
+            
+            Without a token, or with one older than the tombstone retention, the response is a full snapshot
+            (reset = true): replace the local copy instead of merging.
+            
+            Requires ADMIN or STAFF role.
+            """,
+            security = @SecurityRequirement(name = "Bearer Authentication")
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Changes returned",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid sync token",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "403",
+                    description = "Forbidden - ADMIN or STAFF role required",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            )
+    })
+    @GetMapping
+    public ResponseEntity<ApiResponse<SyncResponse>> sync(
+            @Parameter(description = "Token from the previous sync; omit for a full snapshot")
+            @RequestParam(required = false) String since) {
+        return ResponseEntity.ok(ApiResponse.success(syncService.changesSince(since)));
+    }
+}
@@ -0,0 +1,202 @@
+package com.barbershop.crm;
+
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.model.dto.response.CustomerSummaryResponse;
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.AppointmentItem;
+import com.barbershop.model.entity.CustomerSummary;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.ArchivedAppointmentRepository;
+import com.barbershop.repository.CustomerSummaryRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.sharding.ShardDirectory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-customer lifetime totals for the CRM customer page.
+ *
+ * The summary rows are changed in the transaction that completes or cancels an appointment, so
+ * they commit or roll back with it; only the closed appointments' own items are read. Writers
+ * lock the customers' user rows first, which serializes concurrent closes of one customer's
+ * appointments and the backfill rebuilding the same customer. Reopening a closed appointment
+ * cannot be undone incrementally (the last visit may move back), so it rebuilds that customer.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class CustomerSummaryService {
+
+    static final Set<Appointment.AppointmentStatus> CLOSED =
+            EnumSet.of(Appointment.AppointmentStatus.COMPLETED, Appointment.AppointmentStatus.CANCELLED);
+
+    private final CustomerSummaryRepository customerSummaryRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
+    private final UserRepository userRepository;
+    private final ShardDirectory shardDirectory;
+
+    /**
+     * Add newly completed or cancelled appointments to their customers' summaries;
+     * call in the transaction that closes them
+     */
+    public void recordClosed(Collection<Long> appointmentIds) {
+        if (appointmentIds.isEmpty()) {
+            return;
+        }
+        List<VisitLine> lines = appointmentRepository.findVisitLines(appointmentIds).stream()
+                .filter(line -> CLOSED.contains(line.getStatus()))
+                .toList();
+        if (lines.isEmpty()) {
+            return;
+        }
+        userRepository.lockAll(lines.stream().map(VisitLine::getCustomerId).collect(Collectors.toCollection(TreeSet::new)));
+
+        Map<String, Map<Long, List<VisitLine>>> byBranch = group(lines);
+        for (Map.Entry<String, Map<Long, List<VisitLine>>> branch : byBranch.entrySet()) {
+            Map<Long, CustomerSummary> existing = customerSummaryRepository
+                    .findByBranchAndCustomers(branch.getKey(), branch.getValue().keySet()).stream()
+                    .collect(Collectors.toMap(CustomerSummary::getCustomerId, Function.identity()));
+            List<CustomerSummary> changed = new ArrayList<>();
+            branch.getValue().forEach((customerId, customerLines) -> {
+                CustomerSummary summary = existing.getOrDefault(customerId, new CustomerSummary(branch.getKey(), customerId));
+                fold(summary, customerLines);
+                changed.add(summary);
+            });
+            customerSummaryRepository.saveAll(changed);
+        }
+    }
+
+    /**
+     * Keep the summary right after a status change made outside complete/cancel
+     */
+    public void recordStatusChange(Appointment appointment, Appointment.AppointmentStatus previous) {
+        if (previous == appointment.getStatus()) {
+            return;
+        }
+        if (CLOSED.contains(previous)) {
+            rebuild(List.of(appointment.getCustomer().getId()), appointment.getBranchId());
+        } else if (CLOSED.contains(appointment.getStatus())) {
+            recordClosed(List.of(appointment.getId()));
+        }
+    }
+
+    /**
+     * Recompute summaries from hot and archived history; branchId null rebuilds every branch on
+     * the current shard. Returns the number of summaries written.
+     */
+    public int rebuild(Collection<Long> customerIds, String branchId) {
+        if (customerIds.isEmpty()) {
+            return 0;
+        }
+        userRepository.lockAll(new TreeSet<>(customerIds));
+        customerSummaryRepository.deleteByCustomerIds(customerIds, branchId);
+
+        List<VisitLine> lines = new ArrayList<>(appointmentRepository.findVisitLinesByCustomers(customerIds, CLOSED));
+        lines.addAll(archivedAppointmentRepository.findVisitLinesByCustomers(customerIds, CLOSED, branchId));
+
+        List<CustomerSummary> rebuilt = new ArrayList<>();
+        group(lines).forEach((branch, byCustomer) -> byCustomer.forEach((customerId, customerLines) -> {
+            CustomerSummary summary = new CustomerSummary(branch, customerId);
+            fold(summary, customerLines);
+            rebuilt.add(summary);
+        }));
+        customerSummaryRepository.saveAll(rebuilt);
+        return rebuilt.size();
+    }
+
+    /**
+     * One page of the branch's customer summaries, read with a single query
+     */
+    @Transactional(readOnly = true)
+    public Slice<CustomerSummaryResponse> getSummaries(String sortBy, int page, int size) {
+        Sort sort = switch (sortBy == null ? "lastVisit" : sortBy) {
+            case "lastVisit" -> Sort.by(Sort.Direction.DESC, "lastVisitAt");
+            case "spend" -> Sort.by(Sort.Direction.DESC, "lifetimeSpend");
+            case "visits" -> Sort.by(Sort.Direction.DESC, "visitCount");
+            default -> throw new BadRequestException("Unknown sort: " + sortBy + ". Use lastVisit, spend or visits");
+        };
+        return customerSummaryRepository.findPage(shardDirectory.currentBranch(),
+                PageRequest.of(page, size, sort.and(Sort.by("customerId"))));
+    }
+
+    /**
+     * Summaries of the given customers in the order asked; customers without one are left out
+     */
+    @Transactional(readOnly = true)
+    public List<CustomerSummaryResponse> getSummaries(Collection<Long> customerIds) {
+        Map<Long, CustomerSummaryResponse> byId = customerSummaryRepository
+                .findViews(shardDirectory.currentBranch(), customerIds).stream()
+                .collect(Collectors.toMap(CustomerSummaryResponse::getCustomerId, Function.identity()));
+        return customerIds.stream().distinct().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    private static Map<String, Map<Long, List<VisitLine>>> group(List<VisitLine> lines) {
+        return lines.stream().collect(Collectors.groupingBy(VisitLine::getBranchId, LinkedHashMap::new,
+                Collectors.groupingBy(VisitLine::getCustomerId, LinkedHashMap::new, Collectors.toList())));
+    }
+
+    private static void fold(CustomerSummary summary, List<VisitLine> lines) {
+        Map<Long, Integer> serviceVisits = summary.getServiceVisits() == null ? new HashMap<>() : new HashMap<>(summary.getServiceVisits());
+        Map<Long, Integer> staffVisits = summary.getStaffVisits() == null ? new HashMap<>() : new HashMap<>(summary.getStaffVisits());
+        Map<Long, List<VisitLine>> byAppointment = lines.stream()
+                .collect(Collectors.groupingBy(VisitLine::getAppointmentId, LinkedHashMap::new, Collectors.toList()));
+
+        for (List<VisitLine> appointment : byAppointment.values()) {
+            VisitLine first = appointment.get(0);
+            if (first.getStatus() == Appointment.AppointmentStatus.CANCELLED) {
+                summary.setCancelledCount(summary.getCancelledCount() + 1);
+                continue;
+            }
+            summary.setVisitCount(summary.getVisitCount() + 1);
+            if (summary.getLastVisitAt() == null || first.getAppointmentDateTime().isAfter(summary.getLastVisitAt())) {
+                summary.setLastVisitAt(first.getAppointmentDateTime());
+            }
+            for (VisitLine line : appointment) {
+                // an appointment without items comes back as one line with no item
+                if (line.getItemStatus() == null || line.getItemStatus() == AppointmentItem.ItemStatus.CANCELLED) {
+                    continue;
+                }
+                summary.setLifetimeSpend(summary.getLifetimeSpend().add(line.getPrice() == null ? BigDecimal.ZERO : line.getPrice()));
+                serviceVisits.merge(line.getServiceId(), 1, Integer::sum);
+                if (line.getStaffId() != null) {
+                    staffVisits.merge(line.getStaffId(), 1, Integer::sum);
+                }
+            }
+        }
+
+        // fresh maps so the change is always seen by dirty checking
+        summary.setServiceVisits(serviceVisits);
+        summary.setStaffVisits(staffVisits);
+        summary.setFavouriteServiceId(favourite(serviceVisits));
+        summary.setFavouriteStaffId(favourite(staffVisits));
+    }
+
+    // most visits; ties go to the lower id so the answer is stable
+    private static Long favourite(Map<Long, Integer> visits) {
+        return visits.entrySet().stream()
+                .max(Comparator.<Map.Entry<Long, Integer>>comparingInt(Map.Entry::getValue)
+                        .thenComparing(Map.Entry::getKey, Comparator.reverseOrder()))
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+}
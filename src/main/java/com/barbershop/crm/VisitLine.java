@@ -0,0 +1,28 @@
+package com.barbershop.crm;
+
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.AppointmentItem;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One item of a closed appointment, or the appointment alone when it has no items (JPQL projection)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitLine {
+    private Long appointmentId;
+    private String branchId;
+    private Long customerId;
+    private LocalDateTime appointmentDateTime;
+    private Appointment.AppointmentStatus status;
+    private AppointmentItem.ItemStatus itemStatus;
+    private Long serviceId;
+    private Long staffId;
+    private BigDecimal price;
+}
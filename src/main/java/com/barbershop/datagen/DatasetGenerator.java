@@ -0,0 +1,316 @@
+package com.barbershop.datagen;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic dataset generator.
+ *
+ * Every random choice is drawn from one SplittableRandom seeded by the spec, in a fixed order,
+ * so the same spec always produces the same rows. Staff calendars are filled with per-day
+ * cursors that only move forward, which guarantees that no two items of the same staff member
+ * overlap without ever having to look back at earlier bookings.
+ */
+@RequiredArgsConstructor
+public class DatasetGenerator {
+
+    private static final String[] FIRST_NAMES = {
+            "Ahmet", "Mehmet", "Mustafa", "Ali", "Hüseyin", "Hasan", "İbrahim", "Murat", "Emre", "Burak",
+            "Can", "Deniz", "Efe", "Kerem", "Ozan", "Serkan", "Tolga", "Umut", "Yusuf", "Zeki",
+            "Ayşe", "Elif", "Zeynep", "Merve", "Selin", "John", "David", "Michael", "James", "Daniel"
+    };
+    private static final String[] LAST_NAMES = {
+            "Yılmaz", "Kaya", "Demir", "Şahin", "Çelik", "Yıldız", "Yıldırım", "Öztürk", "Aydın", "Özdemir",
+            "Arslan", "Doğan", "Kılıç", "Aslan", "Çetin", "Kara", "Koç", "Kurt", "Özkan", "Şimşek",
+            "Smith", "Johnson", "Brown", "Taylor", "Wilson"
+    };
+
+    // name, description, minutes, price, relative popularity
+    private static final Object[][] CATALOG = {
+            {"Classic Haircut", "Scissor cut with wash and style", 30, "250.00", 30},
+            {"Skin Fade", "Zero fade blended with clippers and foil shaver", 45, "320.00", 18},
+            {"Beard Trim", "Beard shaping and line-up", 15, "120.00", 14},
+            {"Hot Towel Shave", "Traditional straight razor shave with hot towel", 30, "200.00", 8},
+            {"Kids Haircut", "Haircut for children under 12", 30, "180.00", 7},
+            {"Haircut & Beard", "Full haircut with beard trim", 60, "350.00", 9},
+            {"Hair Wash", "Shampoo and conditioner", 15, "80.00", 3},
+            {"Beard Coloring", "Beard color touch-up", 30, "220.00", 2},
+            {"Hair Coloring", "Full hair color", 60, "500.00", 2},
+            {"Head Massage", "Relaxing scalp massage", 15, "100.00", 3},
+            {"Eyebrow Shaping", "Threading and trim", 15, "90.00", 2},
+            {"Wax Nose & Ears", "Hot wax for nose and ears", 15, "70.00", 2}
+    };
+
+    // Working patterns: start, end (minutes of day)
+    private static final int[][] SHIFTS = {
+            {9 * 60, 18 * 60},
+            {8 * 60, 16 * 60},
+            {10 * 60, 19 * 60},
+            {12 * 60, 21 * 60},
+            {9 * 60, 17 * 60 + 30}
+    };
+
+    // Monday .. Sunday booking weight
+    private static final double[] WEEKDAY_WEIGHT = {0.8, 0.9, 0.9, 1.0, 1.2, 1.5, 0.5};
+
+    private static final String[] NOTES = {
+            "Short on the sides please", "Scissors only", "Keep the length on top",
+            "First visit", "Running a bit late", "Same as last time"
+    };
+
+    private static final int SLOT_MINUTES = 15;
+    private static final int MAX_ITEMS = 3;
+
+    private final DatasetSpec spec;
+
+    /**
+     * Generate the full dataset into the sink, allocating ids from the given starting points
+     */
+    public Result generate(DatasetSink sink, IdBase ids, String passwordHash, LocalDate referenceDate) {
+        SplittableRandom random = new SplittableRandom(spec.getSeed());
+        Result result = new Result();
+        LocalDateTime epoch = spec.getStartDate().atStartOfDay();
+
+        // Customers
+        for (int i = 0; i < spec.getCustomers(); i++) {
+            long id = ids.getUser() + i;
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String phone = "5" + (300_000_000L + random.nextInt(600_000_000));
+            LocalDateTime createdAt = epoch.minusMinutes(random.nextInt(2 * 365 * 24 * 60));
+            sink.user(id, "customer" + id + "@example.com", passwordHash, first, last, phone, "CUSTOMER", createdAt);
+            result.users++;
+        }
+
+        // Staff with varied working hours
+        int staffCount = spec.resolvedStaffCount();
+        int[] shiftStart = new int[staffCount];
+        int[] shiftEnd = new int[staffCount];
+        for (int i = 0; i < staffCount; i++) {
+            long id = ids.getStaff() + i;
+            int[] shift = SHIFTS[random.nextInt(SHIFTS.length)];
+            shiftStart[i] = shift[0];
+            shiftEnd[i] = shift[1];
+            String name = FIRST_NAMES[random.nextInt(20)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            sink.staff(id, name, "5" + (300_000_000L + random.nextInt(600_000_000)), "staff" + id + "@barbershop.local",
+                    random.nextBoolean() ? "Haircut, Fade, Beard" : "Haircut, Shave, Coloring",
+                    LocalTime.ofSecondOfDay(shift[0] * 60L), LocalTime.ofSecondOfDay(shift[1] * 60L),
+                    epoch.minusDays(random.nextInt(900)));
+            result.staff++;
+        }
+
+        // Services
+        int serviceCount = CATALOG.length;
+        int[] serviceMinutes = new int[serviceCount];
+        BigDecimal[] servicePrice = new BigDecimal[serviceCount];
+        int[] popularityCumulative = new int[serviceCount];
+        int popularityTotal = 0;
+        for (int i = 0; i < serviceCount; i++) {
+            Object[] entry = CATALOG[i];
+            serviceMinutes[i] = (Integer) entry[2];
+            servicePrice[i] = new BigDecimal((String) entry[3]);
+            popularityTotal += (Integer) entry[4];
+            popularityCumulative[i] = popularityTotal;
+            sink.service(ids.getService() + i, (String) entry[0], (String) entry[1], serviceMinutes[i],
+                    servicePrice[i], epoch.minusDays(1000));
+            result.services++;
+        }
+
+        // Appointments, distributed over days by weekday weight
+        double totalWeight = 0;
+        for (int d = 0; d < spec.getDays(); d++) {
+            totalWeight += WEEKDAY_WEIGHT[spec.getStartDate().plusDays(d).getDayOfWeek().getValue() - 1];
+        }
+
+        int[] cursor = new int[staffCount];
+        int[] open = new int[staffCount];
+        int[] itemServices = new int[MAX_ITEMS];
+        int[] itemStaffs = new int[MAX_ITEMS];
+        int[] itemStarts = new int[MAX_ITEMS];
+        long appointmentId = ids.getAppointment();
+        long itemId = ids.getItem();
+        double cumulativeTarget = 0;
+
+        for (int d = 0; d < spec.getDays(); d++) {
+            LocalDate day = spec.getStartDate().plusDays(d);
+            LocalDateTime midnight = day.atStartOfDay();
+            boolean past = day.isBefore(referenceDate);
+            DayOfWeek weekday = day.getDayOfWeek();
+
+            cumulativeTarget += spec.getAppointments() * WEEKDAY_WEIGHT[weekday.getValue() - 1] / totalWeight;
+            // Anything a full day could not take rolls over to the following days
+            long target = Math.round(cumulativeTarget) - result.appointments;
+
+            int openCount = 0;
+            for (int s = 0; s < staffCount; s++) {
+                cursor[s] = shiftStart[s] + SLOT_MINUTES * random.nextInt(3);
+                if (cursor[s] + SLOT_MINUTES <= shiftEnd[s]) {
+                    open[openCount++] = s;
+                }
+            }
+
+            long produced = 0;
+            while (produced < target && openCount > 0) {
+                int pick = random.nextInt(openCount);
+                int staff = open[pick];
+
+                // Occasional idle gap before the booking
+                int gap = random.nextInt(100) < 35 ? SLOT_MINUTES * (1 + random.nextInt(2)) : 0;
+                int firstService = pickService(random, popularityCumulative, popularityTotal);
+                int start = cursor[staff] + gap;
+                if (start + serviceMinutes[firstService] > shiftEnd[staff]) {
+                    // Staff day is full: drop from the open set
+                    open[pick] = open[--openCount];
+                    continue;
+                }
+
+                int itemCount = rollItemCount(random);
+                String status = past ? pastStatus(random) : futureStatus(random);
+                String itemStatus = itemStatusFor(status);
+                LocalDateTime appointmentStart = midnight.plusMinutes(start);
+                String notes = random.nextInt(100) < 10 ? NOTES[random.nextInt(NOTES.length)] : null;
+                LocalDateTime createdAt = appointmentStart.minusMinutes(60L + random.nextInt(21 * 24 * 60));
+
+                int itemStart = start;
+                int itemStaff = staff;
+                int service = firstService;
+                int lastEnd = start;
+                long customerId = pickCustomer(random, ids);
+                // items are placed first: the appointment row carries their totals
+                int placed = 0;
+                BigDecimal totalPrice = BigDecimal.ZERO;
+                int totalMinutes = 0;
+                for (int i = 0; i < itemCount; i++) {
+                    if (i > 0) {
+                        service = pickService(random, popularityCumulative, popularityTotal);
+                        itemStaff = random.nextInt(100) < 70 ? staff : random.nextInt(staffCount);
+                        itemStart = alignUp(Math.max(lastEnd, cursor[itemStaff]));
+                        if (itemStart + serviceMinutes[service] > shiftEnd[itemStaff]) {
+                            break;
+                        }
+                    }
+                    int itemEnd = itemStart + serviceMinutes[service];
+                    cursor[itemStaff] = itemEnd;
+                    lastEnd = itemEnd;
+                    itemServices[placed] = service;
+                    itemStaffs[placed] = itemStaff;
+                    itemStarts[placed] = itemStart;
+                    placed++;
+                    totalPrice = totalPrice.add(servicePrice[service]);
+                    totalMinutes += serviceMinutes[service];
+                }
+
+                sink.appointment(appointmentId, customerId, appointmentStart, midnight.plusMinutes(lastEnd), status, notes,
+                        totalPrice, totalMinutes, createdAt, createdAt);
+                for (int i = 0; i < placed; i++) {
+                    sink.item(itemId++, appointmentId, ids.getService() + itemServices[i], ids.getStaff() + itemStaffs[i],
+                            servicePrice[itemServices[i]], serviceMinutes[itemServices[i]], midnight.plusMinutes(itemStarts[i]), itemStatus);
+                    result.items++;
+                }
+
+                appointmentId++;
+                produced++;
+                result.appointments++;
+            }
+        }
+
+        result.shortfall = Math.max(0, spec.getAppointments() - result.appointments);
+        return result;
+    }
+
+    private static int alignUp(int minutes) {
+        return (minutes + SLOT_MINUTES - 1) / SLOT_MINUTES * SLOT_MINUTES;
+    }
+
+    private static int pickService(SplittableRandom random, int[] cumulative, int total) {
+        int roll = random.nextInt(total);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (roll < cumulative[i]) {
+                return i;
+            }
+        }
+        return cumulative.length - 1;
+    }
+
+    private long pickCustomer(SplittableRandom random, IdBase ids) {
+        // Skewed towards a core of regulars
+        double u = random.nextDouble();
+        return ids.getUser() + (long) (spec.getCustomers() * Math.pow(u, 2.2));
+    }
+
+    private static int rollItemCount(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        if (roll < 65) {
+            return 1;
+        }
+        return roll < 92 ? 2 : MAX_ITEMS;
+    }
+
+    private static String pastStatus(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        if (roll < 78) {
+            return "COMPLETED";
+        }
+        if (roll < 90) {
+            return "CANCELLED";
+        }
+        if (roll < 96) {
+            return "NO_SHOW";
+        }
+        // Stale bookings nobody closed
+        return roll < 98 ? "CONFIRMED" : "PENDING";
+    }
+
+    private static String futureStatus(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        if (roll < 40) {
+            return "PENDING";
+        }
+        return roll < 95 ? "CONFIRMED" : "CANCELLED";
+    }
+
+    private static String itemStatusFor(String appointmentStatus) {
+        return switch (appointmentStatus) {
+            case "COMPLETED" -> "COMPLETED";
+            case "NO_SHOW" -> "NO_SHOW";
+            case "CANCELLED" -> "CANCELLED";
+            default -> "PENDING";
+        };
+    }
+
+    /**
+     * First id to use for each table
+     */
+    @Data
+    public static class IdBase {
+        private long user = 1;
+        private long staff = 1;
+        private long service = 1;
+        private long appointment = 1;
+        private long item = 1;
+    }
+
+    /**
+     * Row counts produced by a generation run
+     */
+    @Data
+    public static class Result {
+        private long users;
+        private long staff;
+        private long services;
+        private long appointments;
+        private long items;
+        private long shortfall;
+
+        public long totalRows() {
+            return users + staff + services + appointments + items;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.barbershop.datagen;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * Generates a synthetic dataset when the app runs with the "datagen" profile.
+ *
+ * Example:
+ * ./gradlew bootRun --args='--spring.profiles.active=datagen --datagen.customers=1000000 --datagen.appointments=5000000'
+ */
+@Slf4j
+@Component
+@Profile("datagen")
+@RequiredArgsConstructor
+public class DatasetGeneratorRunner implements CommandLineRunner {
+
+    private final DataSource dataSource;
+    private final PasswordEncoder passwordEncoder;
+
+    @Value("${datagen.seed:42}")
+    private long seed;
+
+    @Value("${datagen.customers:100000}")
+    private int customers;
+
+    @Value("${datagen.staff:0}")
+    private int staff;
+
+    @Value("${datagen.appointments:1000000}")
+    private int appointments;
+
+    @Value("${datagen.days:365}")
+    private int days;
+
+    @Value("${datagen.start-date:}")
+    private String startDate;
+
+    @Value("${datagen.reference-date:}")
+    private String referenceDate;
+
+    @Value("${datagen.mode:jdbc}")
+    private String mode;
+
+    @Value("${datagen.output-dir:build/datagen}")
+    private String outputDir;
+
+    @Value("${datagen.batch-size:5000}")
+    private int batchSize;
+
+    @Override
+    public void run(String... args) throws Exception {
+        LocalDate reference = StringUtils.hasText(referenceDate) ? LocalDate.parse(referenceDate) : LocalDate.now();
+
+        DatasetSpec spec = new DatasetSpec();
+        spec.setSeed(seed);
+        spec.setCustomers(customers);
+        spec.setStaff(staff);
+        spec.setAppointments(appointments);
+        spec.setDays(days);
+        spec.setStartDate(StringUtils.hasText(startDate) ? LocalDate.parse(startDate) : reference.minusDays(days * 9L / 10));
+
+        DatasetGenerator generator = new DatasetGenerator(spec);
+        // Hash once: BCrypt per row would dominate the run
+        String passwordHash = passwordEncoder.encode(spec.getPassword());
+
+        log.info("Generating dataset: seed={}, customers={}, staff={}, appointments={}, days={} from {}, mode={}",
+                seed, customers, spec.resolvedStaffCount(), appointments, days, spec.getStartDate(), mode);
+
+        long started = System.nanoTime();
+        DatasetGenerator.Result result;
+        if ("files".equalsIgnoreCase(mode)) {
+            try (TsvFileDatasetSink sink = new TsvFileDatasetSink(Paths.get(outputDir))) {
+                result = generator.generate(sink, new DatasetGenerator.IdBase(), passwordHash, reference);
+            }
+        } else {
+            try (Connection connection = dataSource.getConnection()) {
+                DatasetGenerator.IdBase ids = nextIds(connection);
+                boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+                if (mysql) {
+                    // Rows are generated consistent, so skip per-row constraint checks for the session
+                    execute(connection, "SET foreign_key_checks = 0");
+                    execute(connection, "SET unique_checks = 0");
+                }
+                try (JdbcDatasetSink sink = new JdbcDatasetSink(connection, batchSize)) {
+                    result = generator.generate(sink, ids, passwordHash, reference);
+                } finally {
+                    if (mysql) {
+                        execute(connection, "SET unique_checks = 1");
+                        execute(connection, "SET foreign_key_checks = 1");
+                    }
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+
+        log.info("Generated {} users, {} staff, {} services, {} appointments, {} items ({} rows) in {}s = {} rows/s",
+                result.getUsers(), result.getStaff(), result.getServices(), result.getAppointments(), result.getItems(),
+                result.totalRows(), String.format("%.1f", seconds), String.format("%.0f", result.totalRows() / seconds));
+        if (result.getShortfall() > 0) {
+            log.warn("Staff capacity ran out: {} appointments could not be placed without overlaps", result.getShortfall());
+        }
+    }
+
+    /**
+     * Continue after the highest existing id in each table so generation can append
+     */
+    private DatasetGenerator.IdBase nextIds(Connection connection) throws SQLException {
+        DatasetGenerator.IdBase ids = new DatasetGenerator.IdBase();
+        ids.setUser(maxId(connection, "users") + 1);
+        ids.setStaff(maxId(connection, "staff") + 1);
+        ids.setService(maxId(connection, "services") + 1);
+        ids.setAppointment(maxId(connection, "appointments") + 1);
+        ids.setItem(maxId(connection, "appointment_items") + 1);
+        return ids;
+    }
+
+    private void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private long maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
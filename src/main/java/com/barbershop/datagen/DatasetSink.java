@@ -0,0 +1,30 @@
+package com.barbershop.datagen;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Destination for generated rows. Parents are always emitted before their children.
+ */
+public interface DatasetSink extends AutoCloseable {
+
+    void user(long id, String email, String passwordHash, String firstName, String lastName,
+              String phone, String role, LocalDateTime createdAt);
+
+    void staff(long id, String name, String phone, String email, String specialties,
+               LocalTime workStartTime, LocalTime workEndTime, LocalDateTime createdAt);
+
+    void service(long id, String name, String description, int durationMinutes,
+                 BigDecimal price, LocalDateTime createdAt);
+
+    void appointment(long id, long customerId, LocalDateTime appointmentDateTime, LocalDateTime endDateTime,
+                     String status, String notes, BigDecimal totalPrice, int totalDurationMinutes,
+                     LocalDateTime createdAt, LocalDateTime updatedAt);
+
+    void item(long id, long appointmentId, long serviceId, long staffId, BigDecimal price,
+              int durationMinutes, LocalDateTime scheduledTime, String status);
+
+    @Override
+    void close() throws Exception;
+}
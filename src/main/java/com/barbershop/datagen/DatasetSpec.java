@@ -0,0 +1,31 @@
+package com.barbershop.datagen;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Size and shape of a generated dataset
+ */
+@Data
+public class DatasetSpec {
+
+    private long seed = 42L;
+    private int customers = 100_000;
+    private int staff = 0;               // 0 = derive from appointments per day
+    private int appointments = 1_000_000;
+    private LocalDate startDate = LocalDate.now().minusDays(330);
+    private int days = 365;
+    private String password = "password123";
+
+    // Bookings one barber can take on an average day; the peak weekday needs ~1.6x
+    static final int APPOINTMENTS_PER_STAFF_DAY = 8;
+
+    int resolvedStaffCount() {
+        if (staff > 0) {
+            return staff;
+        }
+        long perDay = (long) Math.ceil((double) appointments / days);
+        return (int) Math.max(3, Math.ceil((double) perDay / APPOINTMENTS_PER_STAFF_DAY * 1.7));
+    }
+}
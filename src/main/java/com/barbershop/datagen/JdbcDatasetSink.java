@@ -0,0 +1,194 @@
+package com.barbershop.datagen;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Writes generated rows with batched JDBC inserts on a single connection.
+ *
+ * With MySQL, add rewriteBatchedStatements=true to the JDBC URL so each batch becomes one
+ * multi-row INSERT; that is what makes 100K+ rows/s possible.
+ */
+public class JdbcDatasetSink implements DatasetSink {
+
+    private final Connection connection;
+    private final int batchSize;
+
+    private final Batch users;
+    private final Batch staff;
+    private final Batch services;
+    private final Batch appointments;
+    private final Batch items;
+
+    public JdbcDatasetSink(Connection connection, int batchSize) throws SQLException {
+        this.connection = connection;
+        this.batchSize = batchSize;
+        connection.setAutoCommit(false);
+
+        users = new Batch(connection.prepareStatement(
+                "INSERT INTO users (id, email, password, first_name, last_name, phone, role, active, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, TRUE, ?, ?)"));
+        staff = new Batch(connection.prepareStatement(
+                "INSERT INTO staff (id, name, phone, email, specialties, photo_url, active, work_start_time, work_end_time, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, ?, ?, NULL, TRUE, ?, ?, ?, ?)"));
+        services = new Batch(connection.prepareStatement(
+                "INSERT INTO services (id, name, description, duration_minutes, price, active, image_url, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, ?, ?, TRUE, NULL, ?, ?)"));
+        appointments = new Batch(connection.prepareStatement(
+                "INSERT INTO appointments (id, customer_id, appointment_date_time, end_date_time, status, notes, " +
+                        "total_price, total_duration_minutes, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"));
+        items = new Batch(connection.prepareStatement(
+                "INSERT INTO appointment_items (id, appointment_id, service_id, staff_id, price, duration_minutes, scheduled_time, end_time, status) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)"));
+    }
+
+    @Override
+    public void user(long id, String email, String passwordHash, String firstName, String lastName,
+                     String phone, String role, LocalDateTime createdAt) {
+        try {
+            PreparedStatement ps = users.statement;
+            ps.setLong(1, id);
+            ps.setString(2, email);
+            ps.setString(3, passwordHash);
+            ps.setString(4, firstName);
+            ps.setString(5, lastName);
+            ps.setString(6, phone);
+            ps.setString(7, role);
+            ps.setTimestamp(8, Timestamp.valueOf(createdAt));
+            ps.setTimestamp(9, Timestamp.valueOf(createdAt));
+            add(users);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to insert user " + id, e);
+        }
+    }
+
+    @Override
+    public void staff(long id, String name, String phone, String email, String specialties,
+                      LocalTime workStartTime, LocalTime workEndTime, LocalDateTime createdAt) {
+        try {
+            PreparedStatement ps = staff.statement;
+            ps.setLong(1, id);
+            ps.setString(2, name);
+            ps.setString(3, phone);
+            ps.setString(4, email);
+            ps.setString(5, specialties);
+            ps.setObject(6, workStartTime);
+            ps.setObject(7, workEndTime);
+            ps.setTimestamp(8, Timestamp.valueOf(createdAt));
+            ps.setTimestamp(9, Timestamp.valueOf(createdAt));
+            add(staff);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to insert staff " + id, e);
+        }
+    }
+
+    @Override
+    public void service(long id, String name, String description, int durationMinutes,
+                        BigDecimal price, LocalDateTime createdAt) {
+        try {
+            PreparedStatement ps = services.statement;
+            ps.setLong(1, id);
+            ps.setString(2, name);
+            ps.setString(3, description);
+            ps.setInt(4, durationMinutes);
+            ps.setBigDecimal(5, price);
+            ps.setTimestamp(6, Timestamp.valueOf(createdAt));
+            ps.setTimestamp(7, Timestamp.valueOf(createdAt));
+            add(services);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to insert service " + id, e);
+        }
+    }
+
+    @Override
+    public void appointment(long id, long customerId, LocalDateTime appointmentDateTime, LocalDateTime endDateTime,
+                            String status, String notes, BigDecimal totalPrice, int totalDurationMinutes,
+                            LocalDateTime createdAt, LocalDateTime updatedAt) {
+        try {
+            PreparedStatement ps = appointments.statement;
+            ps.setLong(1, id);
+            ps.setLong(2, customerId);
+            ps.setTimestamp(3, Timestamp.valueOf(appointmentDateTime));
+            ps.setTimestamp(4, Timestamp.valueOf(endDateTime));
+            ps.setString(5, status);
+            if (notes != null) {
+                ps.setString(6, notes);
+            } else {
+                ps.setNull(6, Types.VARCHAR);
+            }
+            ps.setBigDecimal(7, totalPrice);
+            ps.setInt(8, totalDurationMinutes);
+            ps.setTimestamp(9, Timestamp.valueOf(createdAt));
+            ps.setTimestamp(10, Timestamp.valueOf(updatedAt));
+            add(appointments);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to insert appointment " + id, e);
+        }
+    }
+
+    @Override
+    public void item(long id, long appointmentId, long serviceId, long staffId, BigDecimal price,
+                     int durationMinutes, LocalDateTime scheduledTime, String status) {
+        try {
+            PreparedStatement ps = items.statement;
+            ps.setLong(1, id);
+            ps.setLong(2, appointmentId);
+            ps.setLong(3, serviceId);
+            ps.setLong(4, staffId);
+            ps.setBigDecimal(5, price);
+            ps.setInt(6, durationMinutes);
+            ps.setTimestamp(7, Timestamp.valueOf(scheduledTime));
+            ps.setTimestamp(8, Timestamp.valueOf(scheduledTime.plusMinutes(durationMinutes)));
+            ps.setString(9, status);
+            add(items);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to insert appointment item " + id, e);
+        }
+    }
+
+    private void add(Batch batch) throws SQLException {
+        batch.statement.addBatch();
+        if (++batch.pending >= batchSize) {
+            flushAll();
+        }
+    }
+
+    /**
+     * Flush every pending batch in foreign-key order, then commit
+     */
+    private void flushAll() throws SQLException {
+        for (Batch batch : new Batch[]{users, staff, services, appointments, items}) {
+            if (batch.pending > 0) {
+                batch.statement.executeBatch();
+                batch.pending = 0;
+            }
+        }
+        connection.commit();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            flushAll();
+        } finally {
+            for (Batch batch : new Batch[]{users, staff, services, appointments, items}) {
+                batch.statement.close();
+            }
+        }
+    }
+
+    private static class Batch {
+        private final PreparedStatement statement;
+        private int pending;
+
+        Batch(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.barbershop.datagen;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes generated rows as tab-separated files plus a load.sql script of
+ * LOAD DATA LOCAL INFILE statements, for loading with the mysql client.
+ */
+public class TsvFileDatasetSink implements DatasetSink {
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String NULL = "\\N";
+
+    private final Path directory;
+    private final BufferedWriter users;
+    private final BufferedWriter staff;
+    private final BufferedWriter services;
+    private final BufferedWriter appointments;
+    private final BufferedWriter items;
+
+    public TsvFileDatasetSink(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        users = open("users.tsv");
+        staff = open("staff.tsv");
+        services = open("services.tsv");
+        appointments = open("appointments.tsv");
+        items = open("appointment_items.tsv");
+    }
+
+    private BufferedWriter open(String name) throws IOException {
+        return Files.newBufferedWriter(directory.resolve(name), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void user(long id, String email, String passwordHash, String firstName, String lastName,
+                     String phone, String role, LocalDateTime createdAt) {
+        row(users, id, email, passwordHash, firstName, lastName, phone, role, 1, createdAt, createdAt);
+    }
+
+    @Override
+    public void staff(long id, String name, String phone, String email, String specialties,
+                      LocalTime workStartTime, LocalTime workEndTime, LocalDateTime createdAt) {
+        row(staff, id, name, phone, email, specialties, null, 1, workStartTime, workEndTime, createdAt, createdAt);
+    }
+
+    @Override
+    public void service(long id, String name, String description, int durationMinutes,
+                        BigDecimal price, LocalDateTime createdAt) {
+        row(services, id, name, description, durationMinutes, price, 1, null, createdAt, createdAt);
+    }
+
+    @Override
+    public void appointment(long id, long customerId, LocalDateTime appointmentDateTime, LocalDateTime endDateTime,
+                            String status, String notes, BigDecimal totalPrice, int totalDurationMinutes,
+                            LocalDateTime createdAt, LocalDateTime updatedAt) {
+        row(appointments, id, customerId, appointmentDateTime, endDateTime, status, notes, totalPrice, totalDurationMinutes,
+                createdAt, updatedAt);
+    }
+
+    @Override
+    public void item(long id, long appointmentId, long serviceId, long staffId, BigDecimal price,
+                     int durationMinutes, LocalDateTime scheduledTime, String status) {
+        row(items, id, appointmentId, serviceId, staffId, price, durationMinutes, scheduledTime,
+                scheduledTime.plusMinutes(durationMinutes), status);
+    }
+
+    private void row(BufferedWriter writer, Object... values) {
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write('\t');
+                }
+                writer.write(format(values[i]));
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String format(Object value) {
+        if (value == null) {
+            return NULL;
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return DATE_TIME.format(dateTime);
+        }
+        String text = value.toString();
+        if (text.indexOf('\t') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\\') >= 0) {
+            text = text.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+        }
+        return text;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (BufferedWriter writer : new BufferedWriter[]{users, staff, services, appointments, items}) {
+            writer.close();
+        }
+
+        String script = """
+                SET foreign_key_checks = 0;
+                SET unique_checks = 0;
+                LOAD DATA LOCAL INFILE 'users.tsv' INTO TABLE users
+                  (id, email, password, first_name, last_name, phone, role, active, created_at, updated_at);
+                LOAD DATA LOCAL INFILE 'staff.tsv' INTO TABLE staff
+                  (id, name, phone, email, specialties, photo_url, active, work_start_time, work_end_time, created_at, updated_at);
+                LOAD DATA LOCAL INFILE 'services.tsv' INTO TABLE services
+                  (id, name, description, duration_minutes, price, active, image_url, created_at, updated_at);
+                LOAD DATA LOCAL INFILE 'appointments.tsv' INTO TABLE appointments
+                  (id, customer_id, appointment_date_time, end_date_time, status, notes, total_price, total_duration_minutes, created_at, updated_at);
+                LOAD DATA LOCAL INFILE 'appointment_items.tsv' INTO TABLE appointment_items
+                  (id, appointment_id, service_id, staff_id, price, duration_minutes, scheduled_time, end_time, status);
+                SET unique_checks = 1;
+                SET foreign_key_checks = 1;
+                """;
+        Files.writeString(directory.resolve("load.sql"), script, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,26 @@
+package com.barbershop.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Appointment lifecycle event as stored in the outbox and handed to consumers
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentEvent {
+    private Long eventId;              // outbox id, set on delivery
+    private AppointmentEventType type;
+    private Long appointmentId;
+    private Long customerId;
+    private String status;
+    private LocalDateTime appointmentDateTime;
+    private List<Long> staffIds;
+    private LocalDateTime occurredAt;
+    private String branchId;
+}
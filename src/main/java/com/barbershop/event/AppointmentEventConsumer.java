@@ -0,0 +1,17 @@
+package com.barbershop.event;
+
+/**
+ * In-process consumer of appointment lifecycle events.
+ *
+ * Delivery is at-least-once and ordered per appointment: an event can be redelivered after a
+ * failure (of this or any other consumer), so implementations must be idempotent.
+ * Throwing an exception schedules the event for retry with backoff.
+ */
+public interface AppointmentEventConsumer {
+
+    void onEvent(AppointmentEvent event) throws Exception;
+
+    default String name() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,92 @@
+package com.barbershop.event;
+
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.AppointmentItem;
+import com.barbershop.model.entity.OutboxEvent;
+import com.barbershop.repository.AppointmentItemRepository;
+import com.barbershop.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Records appointment events in the outbox table as part of the caller's transaction,
+ * so an event exists if and only if the state change it describes was committed.
+ */
+@Component
+@RequiredArgsConstructor
+public class AppointmentEventPublisher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final AppointmentItemRepository appointmentItemRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(Appointment appointment, AppointmentEventType type) {
+        List<Long> staffIds = appointment.getItems().stream()
+                .map(AppointmentItem::getStaff)
+                .filter(Objects::nonNull)
+                .map(staff -> staff.getId())
+                .distinct()
+                .toList();
+
+        AppointmentEvent event = new AppointmentEvent(
+                null,
+                type,
+                appointment.getId(),
+                appointment.getCustomer().getId(),
+                appointment.getStatus().name(),
+                appointment.getAppointmentDateTime(),
+                staffIds,
+                LocalDateTime.now(),
+                appointment.getBranchId()
+        );
+        outboxEventRepository.save(toOutboxEvent(event));
+    }
+
+    /**
+     * Record events built by bulk operations that never load the appointment entities
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishAll(Collection<AppointmentEvent> events) {
+        outboxEventRepository.saveAll(events.stream().map(this::toOutboxEvent).toList());
+    }
+
+    /**
+     * Staff ids per appointment for events built without the entities, read in one query;
+     * appointments without staffed items are missing from the map
+     */
+    public Map<Long, List<Long>> staffIdsByAppointment(Collection<Long> appointmentIds) {
+        return appointmentItemRepository.findStaffByAppointmentIds(appointmentIds).stream()
+                .collect(Collectors.groupingBy(AppointmentStaff::getAppointmentId,
+                        Collectors.mapping(AppointmentStaff::getStaffId, Collectors.toList())));
+    }
+
+    private OutboxEvent toOutboxEvent(AppointmentEvent event) {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setAggregateId(event.getAppointmentId());
+        outboxEvent.setEventType(event.getType());
+        outboxEvent.setPayload(toJson(event));
+        outboxEvent.setStatus(OutboxEvent.OutboxStatus.PENDING);
+        outboxEvent.setAttempts(0);
+        return outboxEvent;
+    }
+
+    private String toJson(AppointmentEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize appointment event", e);
+        }
+    }
+}
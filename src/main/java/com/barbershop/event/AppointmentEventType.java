@@ -0,0 +1,25 @@
+package com.barbershop.event;
+
+import com.barbershop.model.entity.Appointment;
+
+public enum AppointmentEventType {
+    CREATED,
+    CONFIRMED,
+    CANCELLED,
+    COMPLETED,
+    NO_SHOW,
+    UPDATED;
+
+    /**
+     * Event raised when an appointment moves to the given status
+     */
+    public static AppointmentEventType forStatus(Appointment.AppointmentStatus status) {
+        return switch (status) {
+            case CONFIRMED -> CONFIRMED;
+            case CANCELLED -> CANCELLED;
+            case COMPLETED -> COMPLETED;
+            case NO_SHOW -> NO_SHOW;
+            default -> UPDATED;
+        };
+    }
+}
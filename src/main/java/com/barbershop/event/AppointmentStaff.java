@@ -0,0 +1,16 @@
+package com.barbershop.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Staff member working on an appointment, read for events of bulk changes (JPQL projection)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentStaff {
+    private Long appointmentId;
+    private Long staffId;
+}
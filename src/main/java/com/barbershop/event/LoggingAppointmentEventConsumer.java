@@ -0,0 +1,19 @@
+package com.barbershop.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Audit trail of appointment lifecycle events in the application log
+ */
+@Slf4j
+@Component
+public class LoggingAppointmentEventConsumer implements AppointmentEventConsumer {
+
+    @Override
+    public void onEvent(AppointmentEvent event) {
+        log.debug("Appointment event #{}: {} appointment={} customer={} status={} at={}",
+                event.getEventId(), event.getType(), event.getAppointmentId(), event.getCustomerId(),
+                event.getStatus(), event.getAppointmentDateTime());
+    }
+}
@@ -0,0 +1,260 @@
+package com.barbershop.event;
+
+import com.barbershop.model.entity.OutboxEvent;
+import com.barbershop.repository.OutboxEventRepository;
+import com.barbershop.sharding.BranchContext;
+import com.barbershop.sharding.ShardDirectory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox in batches and hands events to every registered consumer.
+ *
+ * Events are read in id order. Once an event of an appointment fails or is waiting for its
+ * retry, later events of the same appointment are held back, which keeps delivery ordered per
+ * appointment while other appointments keep flowing; appointments in backoff are left out by
+ * the query, so however many events they hold they never fill a batch. Failed events are retried with
+ * exponential backoff and parked as FAILED after the configured number of attempts.
+ * Every shard has its own outbox table, which is drained in turn.
+ *
+ * With several nodes, each batch claims its events ({@code claimedBy}, {@code claimedUntil})
+ * before delivering them, so a node only delivers what it claimed. Once the claim is committed
+ * it is checked again: if another node holds an earlier event of the same appointment, the
+ * later ones are given back. A node that dies mid-batch leaves its claim to expire after
+ * {@code outbox.claim-lease-ms}; its events are then delivered again, so consumers see them
+ * at least once.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxDispatcher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<AppointmentEventConsumer> consumers;
+    private final ObjectMapper objectMapper;
+    private final ShardDirectory shardDirectory;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter deliveredCounter;
+    private final Counter retryCounter;
+    private final Counter failedCounter;
+    private final Timer deliveryTimer;
+    private final Timer endToEndTimer;
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final AtomicLong pendingCount = new AtomicLong();
+
+    @Value("${outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${outbox.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    @Value("${outbox.retention-hours:72}")
+    private long retentionHours;
+
+    @Value("${outbox.claim-lease-ms:60000}")
+    private long claimLeaseMs;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            List<AppointmentEventConsumer> consumers,
+                            ObjectMapper objectMapper,
+                            ShardDirectory shardDirectory,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.consumers = consumers;
+        this.objectMapper = objectMapper;
+        this.shardDirectory = shardDirectory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.deliveredCounter = meterRegistry.counter("outbox.events.delivered");
+        this.retryCounter = meterRegistry.counter("outbox.events.retried");
+        this.failedCounter = meterRegistry.counter("outbox.events.failed");
+        this.deliveryTimer = meterRegistry.timer("outbox.delivery.duration");
+        this.endToEndTimer = meterRegistry.timer("outbox.delivery.lag");
+        Gauge.builder("outbox.lag.seconds", lagMillis, value -> value.get() / 1000.0)
+                .description("Age of the oldest undelivered outbox event")
+                .register(meterRegistry);
+        Gauge.builder("outbox.events.pending", pendingCount, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:500}")
+    public void dispatch() {
+        long pending = 0;
+        for (String shard : shardDirectory.shards()) {
+            pending += BranchContext.callOnShard(shard, () -> {
+                int delivered;
+                do {
+                    delivered = dispatchBatch();
+                } while (delivered == batchSize);
+                return outboxEventRepository.countByStatus(OutboxEvent.OutboxStatus.PENDING);
+            });
+        }
+        pendingCount.set(pending);
+    }
+
+    /**
+     * Deliver one batch; returns how many events were delivered
+     */
+    int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> batch = claimBatch(now);
+        if (batch.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+
+        lagMillis.set(Math.max(0, Duration.between(batch.get(0).getCreatedAt(), now).toMillis()));
+
+        String claim = batch.get(0).getClaimedBy();
+        Set<Long> blockedAppointments = new HashSet<>();
+        List<Long> processedIds = new ArrayList<>();
+        List<OutboxEvent> retried = new ArrayList<>();
+
+        for (OutboxEvent event : batch) {
+            if (blockedAppointments.contains(event.getAggregateId())) {
+                continue;
+            }
+            if (event.getNextAttemptAt() != null && event.getNextAttemptAt().isAfter(now)) {
+                blockedAppointments.add(event.getAggregateId());
+                continue;
+            }
+
+            try {
+                deliver(event);
+                processedIds.add(event.getId());
+                deliveredCounter.increment();
+                endToEndTimer.record(Duration.between(event.getCreatedAt(), LocalDateTime.now()));
+            } catch (Exception ex) {
+                scheduleRetry(event, ex, now);
+                retried.add(event);
+                if (event.getStatus() == OutboxEvent.OutboxStatus.PENDING) {
+                    blockedAppointments.add(event.getAggregateId());
+                }
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!processedIds.isEmpty()) {
+                outboxEventRepository.markProcessed(processedIds, LocalDateTime.now());
+            }
+            if (!retried.isEmpty()) {
+                outboxEventRepository.saveAll(retried);
+            }
+            // events held back behind a failure go back to the pool instead of waiting out the lease
+            if (!blockedAppointments.isEmpty()) {
+                outboxEventRepository.release(claim, blockedAppointments);
+            }
+        });
+        return processedIds.size();
+    }
+
+    /**
+     * Claim up to a batch of events for this dispatcher; returns the claimed ones in id order
+     */
+    private List<OutboxEvent> claimBatch(LocalDateTime now) {
+        String claim = UUID.randomUUID().toString();
+        Integer claimed = transactionTemplate.execute(status -> {
+            List<Long> ids = outboxEventRepository.findClaimable(now, PageRequest.of(0, batchSize));
+            return ids.isEmpty() ? 0 : outboxEventRepository.claim(ids, claim, now, now.plusNanos(
+                    TimeUnit.MILLISECONDS.toNanos(claimLeaseMs)));
+        });
+        if (claimed == null || claimed == 0) {
+            return List.of();
+        }
+        // read after the claim committed, so a racing claim on an earlier event is visible
+        return transactionTemplate.execute(status -> {
+            List<Long> overtaken = outboxEventRepository.findOvertakenAggregates(claim);
+            if (!overtaken.isEmpty()) {
+                outboxEventRepository.release(claim, overtaken);
+            }
+            return outboxEventRepository.findClaimed(claim);
+        });
+    }
+
+    private void deliver(OutboxEvent outboxEvent) throws Exception {
+        AppointmentEvent event = objectMapper.readValue(outboxEvent.getPayload(), AppointmentEvent.class);
+        event.setEventId(outboxEvent.getId());
+
+        long started = System.nanoTime();
+        try {
+            for (AppointmentEventConsumer consumer : consumers) {
+                consumer.onEvent(event);
+            }
+        } finally {
+            deliveryTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void scheduleRetry(OutboxEvent event, Exception ex, LocalDateTime now) {
+        event.setClaimedBy(null);
+        event.setClaimedUntil(null);
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        event.setLastError(truncate(ex.getClass().getSimpleName() + ": " + ex.getMessage()));
+
+        if (attempts >= maxAttempts) {
+            event.setStatus(OutboxEvent.OutboxStatus.FAILED);
+            failedCounter.increment();
+            log.error("Outbox event {} ({} for appointment {}) failed after {} attempts",
+                    event.getId(), event.getEventType(), event.getAggregateId(), attempts, ex);
+            return;
+        }
+
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 20));
+        long jitter = ThreadLocalRandom.current().nextLong(backoff / 5 + 1);
+        event.setNextAttemptAt(now.plusNanos(TimeUnit.MILLISECONDS.toNanos(backoff + jitter)));
+        retryCounter.increment();
+        log.warn("Outbox event {} ({} for appointment {}) failed, retry {} in {} ms: {}",
+                event.getId(), event.getEventType(), event.getAggregateId(), attempts, backoff + jitter, ex.getMessage());
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+
+    /**
+     * Remove delivered events once they are past the retention window
+     */
+    @Scheduled(cron = "${outbox.purge-cron:0 15 * * * *}")
+    public void purgeProcessed() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        int removed = 0;
+        for (String shard : shardDirectory.shards()) {
+            removed += BranchContext.callOnShard(shard, () ->
+                    transactionTemplate.execute(status -> outboxEventRepository.deleteProcessedBefore(cutoff)));
+        }
+        if (removed > 0) {
+            log.info("Purged {} delivered outbox events", removed);
+        }
+    }
+}
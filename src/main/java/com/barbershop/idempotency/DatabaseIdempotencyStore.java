@@ -0,0 +1,136 @@
+package com.barbershop.idempotency;
+
+import com.barbershop.repository.IdempotencyKeyRepository;
+import com.barbershop.sharding.BranchContext;
+import com.barbershop.sharding.ShardDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keys in the idempotency_keys table of the branch's shard, for several nodes behind a load
+ * balancer. The insert of the key row is the claim; duplicates on any node poll the row until
+ * the owner stored its response or gave the key up. Every step commits on its own, outside the
+ * booking transaction, so other nodes see the claim immediately.
+ *
+ * An in-flight claim carries a lease of {@code idempotency.claim-lease-ms}, which the owning node
+ * renews while the request runs. If the node dies, the lease runs out long before the key's TTL:
+ * waiters stop waiting and the next request takes the key over and runs. A node only completes
+ * or releases keys it still holds.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "idempotency", name = "store", havingValue = "database")
+public class DatabaseIdempotencyStore implements IdempotencyStore {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ShardDirectory shardDirectory;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+    // keys this node is running, renewed by the heartbeat
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Value("${idempotency.poll-interval-ms:50}")
+    private long pollIntervalMs;
+
+    @Value("${idempotency.claim-lease-ms:30000}")
+    private long claimLeaseMs;
+
+    public DatabaseIdempotencyStore(IdempotencyKeyRepository idempotencyKeyRepository,
+                                    ShardDirectory shardDirectory,
+                                    PlatformTransactionManager transactionManager) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.shardDirectory = shardDirectory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public IdempotencyRecord begin(String key, String fingerprint, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> idempotencyKeyRepository.deleteIfExpired(key, now));
+        try {
+            transactionTemplate.executeWithoutResult(status -> idempotencyKeyRepository.claim(
+                    key, fingerprint, now, now.plus(ttl), nodeId, now.plus(Duration.ofMillis(claimLeaseMs))));
+            inFlight.add(key);
+            return null;
+        } catch (DataIntegrityViolationException e) {
+            // another request holds the key
+            IdempotencyRecord record = read(key);
+            return record != null ? record : begin(key, fingerprint, ttl);
+        }
+    }
+
+    @Override
+    public void complete(String key, int status, String body) {
+        inFlight.remove(key);
+        transactionTemplate.executeWithoutResult(tx -> idempotencyKeyRepository.complete(key, nodeId, status, body));
+    }
+
+    @Override
+    public void release(String key) {
+        inFlight.remove(key);
+        transactionTemplate.executeWithoutResult(status -> idempotencyKeyRepository.release(key, nodeId));
+    }
+
+    @Override
+    public IdempotencyRecord await(String key, Duration timeout) {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        while (System.currentTimeMillis() < deadline) {
+            IdempotencyRecord record = read(key);
+            if (record == null || record.isCompleted()) {
+                return record;
+            }
+            try {
+                Thread.sleep(pollIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new IdempotencyTimeoutException("Request with this Idempotency-Key is still being processed");
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.heartbeat-interval-ms:10000}")
+    public void renewClaims() {
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        List<String> keys = List.copyOf(inFlight);
+        LocalDateTime claimedUntil = LocalDateTime.now().plus(Duration.ofMillis(claimLeaseMs));
+        // keys carry their branch, not their shard; a shard without them updates nothing
+        for (String shard : shardDirectory.shards()) {
+            BranchContext.callOnShard(shard,
+                    () -> transactionTemplate.execute(status -> idempotencyKeyRepository.renew(keys, nodeId, claimedUntil)));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        for (String shard : shardDirectory.shards()) {
+            int purged = BranchContext.callOnShard(shard,
+                    () -> transactionTemplate.execute(status -> idempotencyKeyRepository.deleteExpiredBefore(now)));
+            if (purged > 0) {
+                log.debug("Purged {} expired idempotency keys on shard {}", purged, shard);
+            }
+        }
+    }
+
+    private IdempotencyRecord read(String key) {
+        return transactionTemplate.execute(status -> idempotencyKeyRepository.findRecord(key, LocalDateTime.now()).orElse(null));
+    }
+}
@@ -0,0 +1,24 @@
+package com.barbershop.idempotency;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What is known about an idempotency key: the request it was first used with and, once that
+ * request finished, its response
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    // hash of the request body the key was first used with
+    private String fingerprint;
+    // null while the first request is still running
+    private Integer responseStatus;
+    private String responseBody;
+
+    public boolean isCompleted() {
+        return responseStatus != null;
+    }
+}
@@ -0,0 +1,140 @@
+package com.barbershop.idempotency;
+
+import com.barbershop.exception.AppointmentConflictException;
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.sharding.ShardDirectory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per Idempotency-Key. The first request with a key runs and its
+ * successful response is stored; retries with the same key and body get that response replayed
+ * (marked with {@code Idempotent-Replayed: true}), and retries arriving while it still runs wait
+ * for it instead of running a second time. Failed requests give the key up, so a retry runs again.
+ * Reusing a key for a different body is rejected.
+ */
+@Component
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final ShardDirectory shardDirectory;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.wait-timeout-ms:10000}")
+    private long waitTimeoutMs;
+
+    public IdempotencyService(IdempotencyStore store, ObjectMapper objectMapper,
+                              ShardDirectory shardDirectory, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.shardDirectory = shardDirectory;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Run the action once for the key within the caller's scope (e.g. the user id)
+     */
+    public <T> ResponseEntity<T> execute(String scope, String idempotencyKey, Object request,
+                                         TypeReference<T> bodyType, Supplier<ResponseEntity<T>> action) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String key = shardDirectory.currentBranch() + ":" + scope + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+        Duration ttl = Duration.ofHours(ttlHours);
+
+        while (true) {
+            IdempotencyRecord record = store.begin(key, fingerprint, ttl);
+            if (record == null) {
+                return runAndStore(key, action);
+            }
+            if (!record.getFingerprint().equals(fingerprint)) {
+                count("mismatch");
+                throw new BadRequestException(HEADER + " was already used for a different request");
+            }
+            if (!record.isCompleted()) {
+                count("waited");
+                try {
+                    record = store.await(key, Duration.ofMillis(waitTimeoutMs));
+                } catch (IdempotencyTimeoutException e) {
+                    throw new AppointmentConflictException(e.getMessage() + ". Retry later with the same key.");
+                }
+                if (record == null) {
+                    // the first attempt failed; try to run it ourselves
+                    continue;
+                }
+            }
+            count("replayed");
+            return replay(record, bodyType);
+        }
+    }
+
+    private <T> ResponseEntity<T> runAndStore(String key, Supplier<ResponseEntity<T>> action) {
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException | Error e) {
+            store.release(key);
+            throw e;
+        }
+        if (response.getStatusCode().is2xxSuccessful()) {
+            store.complete(key, response.getStatusCode().value(), toJson(response.getBody()));
+        } else {
+            store.release(key);
+        }
+        count("executed");
+        return response;
+    }
+
+    private <T> ResponseEntity<T> replay(IdempotencyRecord record, TypeReference<T> bodyType) {
+        try {
+            return ResponseEntity.status(record.getResponseStatus())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(objectMapper.readValue(record.getResponseBody(), bodyType));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored idempotent response", e);
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(toJson(request).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize idempotent request", e);
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("idempotency.requests", "result", result).increment();
+    }
+}
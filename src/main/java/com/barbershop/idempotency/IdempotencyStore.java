@@ -0,0 +1,31 @@
+package com.barbershop.idempotency;
+
+import java.time.Duration;
+
+/**
+ * Claims on idempotency keys and the responses stored under them
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Claim the key for a new execution. Returns null when the caller now owns the key and must
+     * run the request, otherwise the existing record (completed or still in flight).
+     */
+    IdempotencyRecord begin(String key, String fingerprint, Duration ttl);
+
+    /**
+     * Store the response of the owning execution; later duplicates replay it until the key expires
+     */
+    void complete(String key, int status, String body);
+
+    /**
+     * Give the key up without a response, so the next attempt runs again
+     */
+    void release(String key);
+
+    /**
+     * Wait for an in-flight key. Returns the completed record, or null when the key was released
+     * or expired; throws {@link IdempotencyTimeoutException} when the wait runs out.
+     */
+    IdempotencyRecord await(String key, Duration timeout);
+}
@@ -0,0 +1,10 @@
+package com.barbershop.idempotency;
+
+/**
+ * The first request with an idempotency key is still running after the wait timeout
+ */
+public class IdempotencyTimeoutException extends RuntimeException {
+    public IdempotencyTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,125 @@
+package com.barbershop.idempotency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Keys held by this node only. Duplicates of an in-flight request wait on its future. Size is
+ * bounded: past {@code idempotency.max-entries} the oldest finished keys are evicted first.
+ */
+@Component
+@ConditionalOnProperty(prefix = "idempotency", name = "store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // keys in claim order, for eviction
+    private final Queue<String> order = new ConcurrentLinkedQueue<>();
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Override
+    public IdempotencyRecord begin(String key, String fingerprint, Duration ttl) {
+        long now = System.currentTimeMillis();
+        Entry fresh = new Entry(fingerprint, now + ttl.toMillis());
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, fresh);
+            if (existing == null) {
+                order.add(key);
+                evictIfFull(now);
+                return null;
+            }
+            if (existing.expiresAt > now) {
+                IdempotencyRecord record = existing.result.getNow(null);
+                return record != null ? record : new IdempotencyRecord(existing.fingerprint, null, null);
+            }
+            // expired, take it over
+            if (entries.remove(key, existing)) {
+                existing.result.complete(null);
+            }
+        }
+    }
+
+    @Override
+    public void complete(String key, int status, String body) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.result.complete(new IdempotencyRecord(entry.fingerprint, status, body));
+        }
+    }
+
+    @Override
+    public void release(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            entry.result.complete(null);
+        }
+    }
+
+    @Override
+    public IdempotencyRecord await(String key, Duration timeout) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            return entry.result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyTimeoutException("Request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyTimeoutException("Interrupted while waiting for the original request");
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evictIfFull(long now) {
+        int inspected = 0;
+        int queued = order.size();
+        while (entries.size() > maxEntries && inspected++ < queued) {
+            String oldest = order.poll();
+            if (oldest == null) {
+                return;
+            }
+            Entry entry = entries.get(oldest);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.result.isDone() || entry.expiresAt <= now) {
+                if (entries.remove(oldest, entry)) {
+                    entry.result.complete(null);
+                }
+            } else {
+                // still running, never evicted; look at it again later
+                order.add(oldest);
+            }
+        }
+    }
+
+    private static final class Entry {
+        final String fingerprint;
+        final long expiresAt;
+        final CompletableFuture<IdempotencyRecord> result = new CompletableFuture<>();
+
+        Entry(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.barbershop.job;
+
+import com.barbershop.cache.CacheRegion;
+import com.barbershop.cache.EncodedResponseCache;
+import com.barbershop.repository.AppointmentItemRepository;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.ArchivedAppointmentRepository;
+import com.barbershop.sharding.BranchContext;
+import com.barbershop.sharding.ShardDirectory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves closed appointments (completed, cancelled, no-show) older than
+ * {@code archive.horizon-months} from the hot tables into appointments_archive and
+ * appointment_items_archive, keeping their ids.
+ *
+ * Each batch copies and deletes in one transaction, so a row is always in exactly one of the
+ * two tables. Booking, schedule and date queries only read the hot tables; customer history
+ * and lookups by id read both.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "archive", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AppointmentArchiver {
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentItemRepository appointmentItemRepository;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
+    private final ShardDirectory shardDirectory;
+    private final EncodedResponseCache responseCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter archivedCounter;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${archive.horizon-months:12}")
+    private long horizonMonths;
+
+    @Value("${archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${archive.max-batches-per-run:1000}")
+    private int maxBatchesPerRun;
+
+    @Value("${archive.pause-ms:100}")
+    private long pauseMs;
+
+    public AppointmentArchiver(AppointmentRepository appointmentRepository,
+                               AppointmentItemRepository appointmentItemRepository,
+                               ArchivedAppointmentRepository archivedAppointmentRepository,
+                               ShardDirectory shardDirectory,
+                               EncodedResponseCache responseCache,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
+        this.appointmentRepository = appointmentRepository;
+        this.appointmentItemRepository = appointmentItemRepository;
+        this.archivedAppointmentRepository = archivedAppointmentRepository;
+        this.shardDirectory = shardDirectory;
+        this.responseCache = responseCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archivedCounter = meterRegistry.counter("jobs.archive.appointments");
+    }
+
+    @Scheduled(cron = "${archive.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        archive();
+    }
+
+    /**
+     * Archive in batches until nothing is left or the batch budget is used up;
+     * returns the number of appointments moved
+     */
+    public int archive() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusMonths(horizonMonths);
+            int moved = 0;
+            for (String shard : shardDirectory.shards()) {
+                moved += BranchContext.callOnShard(shard, () -> archiveShard(cutoff));
+            }
+            if (moved > 0) {
+                log.info("Archived {} appointments older than {}", moved, cutoff);
+            }
+            return moved;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int archiveShard(LocalDateTime cutoff) {
+        int moved = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int count = transactionTemplate.execute(status -> moveBatch(cutoff));
+            moved += count;
+            if (count < batchSize) {
+                break;
+            }
+            pause();
+        }
+        return moved;
+    }
+
+    private int moveBatch(LocalDateTime cutoff) {
+        List<Long> ids = appointmentRepository.findArchivableIds(cutoff, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // parents first so the archived items can reference them
+        archivedAppointmentRepository.copyAppointments(ids, LocalDateTime.now());
+        archivedAppointmentRepository.copyItems(ids);
+        appointmentItemRepository.deleteByAppointmentIds(ids);
+        appointmentRepository.deleteByIds(ids);
+        responseCache.invalidate(CacheRegion.BOARD, CacheRegion.OCCUPANCY);
+
+        archivedCounter.increment(ids.size());
+        return ids.size();
+    }
+
+    private void pause() {
+        if (pauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
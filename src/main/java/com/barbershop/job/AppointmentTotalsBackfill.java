@@ -0,0 +1,73 @@
+package com.barbershop.job;
+
+import com.barbershop.repository.AppointmentItemRepository;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.sharding.BranchContext;
+import com.barbershop.sharding.ShardDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Fills the stored item end times and appointment totals of rows written before those columns
+ * existed. Runs once at startup and finds nothing to do afterwards: every insert sets them.
+ * Items go first, the appointment end time is taken from them.
+ */
+@Slf4j
+@Component
+public class AppointmentTotalsBackfill implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentItemRepository appointmentItemRepository;
+    private final ShardDirectory shardDirectory;
+    private final TransactionTemplate transactionTemplate;
+
+    public AppointmentTotalsBackfill(AppointmentRepository appointmentRepository,
+                                     AppointmentItemRepository appointmentItemRepository,
+                                     ShardDirectory shardDirectory,
+                                     PlatformTransactionManager transactionManager) {
+        this.appointmentRepository = appointmentRepository;
+        this.appointmentItemRepository = appointmentItemRepository;
+        this.shardDirectory = shardDirectory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (String shard : shardDirectory.shards()) {
+            int items = BranchContext.callOnShard(shard, () -> fill(
+                    () -> appointmentItemRepository.findIdsWithoutEndTime(PageRequest.of(0, BATCH_SIZE)),
+                    appointmentItemRepository::fillEndTime));
+            int appointments = BranchContext.callOnShard(shard, () -> fill(
+                    () -> appointmentRepository.findIdsWithoutTotals(PageRequest.of(0, BATCH_SIZE)),
+                    appointmentRepository::fillTotals));
+            if (items > 0 || appointments > 0) {
+                log.info("Filled end times of {} items and totals of {} appointments on shard {}", items, appointments, shard);
+            }
+        }
+    }
+
+    private int fill(Supplier<List<Long>> nextBatch, Function<List<Long>, Integer> update) {
+        int filled = 0;
+        while (true) {
+            int count = transactionTemplate.execute(status -> {
+                List<Long> ids = nextBatch.get();
+                return ids.isEmpty() ? 0 : update.apply(ids);
+            });
+            if (count == 0) {
+                return filled;
+            }
+            filled += count;
+        }
+    }
+}
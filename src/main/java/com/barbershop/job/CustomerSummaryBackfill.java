@@ -0,0 +1,143 @@
+package com.barbershop.job;
+
+import com.barbershop.crm.CustomerSummaryService;
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.ArchivedAppointmentRepository;
+import com.barbershop.repository.CustomerSummaryRepository;
+import com.barbershop.sharding.BranchContext;
+import com.barbershop.sharding.ShardDirectory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rebuilds every customer summary from the hot and archived appointment history.
+ *
+ * The customers of each shard are split into chunks and the chunks of all shards are rebuilt in
+ * parallel, each in its own transaction. A chunk locks its customers' user rows like the
+ * incremental updates do, so an appointment closed while the backfill runs is counted exactly
+ * once: either it committed before the chunk read the history, or it waits and is added after.
+ */
+@Slf4j
+@Component
+public class CustomerSummaryBackfill {
+
+    private static final Set<Appointment.AppointmentStatus> CLOSED =
+            EnumSet.of(Appointment.AppointmentStatus.COMPLETED, Appointment.AppointmentStatus.CANCELLED);
+
+    private final CustomerSummaryService customerSummaryService;
+    private final AppointmentRepository appointmentRepository;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
+    private final CustomerSummaryRepository customerSummaryRepository;
+    private final ShardDirectory shardDirectory;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor();
+    private final Counter rebuiltCounter;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${customer-summary.backfill-chunk-size:200}")
+    private int chunkSize;
+
+    public CustomerSummaryBackfill(CustomerSummaryService customerSummaryService,
+                                   AppointmentRepository appointmentRepository,
+                                   ArchivedAppointmentRepository archivedAppointmentRepository,
+                                   CustomerSummaryRepository customerSummaryRepository,
+                                   ShardDirectory shardDirectory,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${customer-summary.backfill-threads:4}") int threads) {
+        this.customerSummaryService = customerSummaryService;
+        this.appointmentRepository = appointmentRepository;
+        this.archivedAppointmentRepository = archivedAppointmentRepository;
+        this.customerSummaryRepository = customerSummaryRepository;
+        this.shardDirectory = shardDirectory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = Executors.newFixedThreadPool(threads);
+        this.rebuiltCounter = meterRegistry.counter("jobs.customer-summary.rebuilt");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    // off unless a cron is configured; the summaries are kept current without it
+    @Scheduled(cron = "${customer-summary.backfill-cron:-}")
+    public void scheduledRun() {
+        rebuildAll();
+    }
+
+    /**
+     * Start a rebuild in the background
+     */
+    public CompletableFuture<Integer> start() {
+        if (running.get()) {
+            throw new BadRequestException("A customer summary rebuild is already running");
+        }
+        return CompletableFuture.supplyAsync(this::rebuildAll, coordinator);
+    }
+
+    /**
+     * Rebuild all summaries and wait for it; returns the number of summaries written
+     */
+    public int rebuildAll() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+            for (String shard : shardDirectory.shards()) {
+                List<Long> customerIds = BranchContext.callOnShard(shard, this::customerIds);
+                for (int start = 0; start < customerIds.size(); start += chunkSize) {
+                    List<Long> chunk = customerIds.subList(start, Math.min(customerIds.size(), start + chunkSize));
+                    chunks.add(CompletableFuture.supplyAsync(() -> BranchContext.callOnShard(shard, () ->
+                            transactionTemplate.execute(status -> customerSummaryService.rebuild(chunk, null))), workers));
+                }
+            }
+
+            int rebuilt = 0;
+            int failed = 0;
+            for (CompletableFuture<Integer> chunk : chunks) {
+                try {
+                    rebuilt += chunk.join();
+                } catch (RuntimeException ex) {
+                    failed++;
+                    log.warn("Customer summary rebuild: chunk failed: {}", ex.toString());
+                }
+            }
+            rebuiltCounter.increment(rebuilt);
+            log.info("Rebuilt {} customer summaries in {} chunks ({} failed)", rebuilt, chunks.size(), failed);
+            return rebuilt;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // customers with closed appointments, plus those with a summary that may now be stale
+    private List<Long> customerIds() {
+        TreeSet<Long> ids = new TreeSet<>(appointmentRepository.findCustomerIdsWithStatus(CLOSED));
+        ids.addAll(archivedAppointmentRepository.findCustomerIdsWithStatus(CLOSED));
+        ids.addAll(customerSummaryRepository.findCustomerIds());
+        return new ArrayList<>(ids);
+    }
+}
@@ -0,0 +1,213 @@
+package com.barbershop.job;
+
+import com.barbershop.cache.CacheRegion;
+import com.barbershop.cache.EncodedResponseCache;
+import com.barbershop.event.AppointmentEvent;
+import com.barbershop.event.AppointmentEventPublisher;
+import com.barbershop.event.AppointmentEventType;
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.AppointmentItem;
+import com.barbershop.model.entity.JobCheckpoint;
+import com.barbershop.repository.AppointmentItemRepository;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.JobCheckpointRepository;
+import com.barbershop.sharding.BranchContext;
+import com.barbershop.sharding.ShardDirectory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Marks PENDING/CONFIRMED appointments whose time has passed as NO_SHOW.
+ *
+ * Past-due rows are walked in (appointmentDateTime, id) keyset order in chunks. Every chunk is
+ * a bulk UPDATE committed together with its outbox events and the job checkpoint, so a crash
+ * loses at most the chunk in flight and the next run resumes where the last one stopped.
+ * The chunk locks its rows before the update, so the ids it marks (and their items, which
+ * become NO_SHOW as well) are exactly the ones still open at that point.
+ * The checkpoint only moves forward: an appointment set back to PENDING/CONFIRMED after the
+ * sweeper has passed it is an admin correction and is not revisited.
+ * During business hours the sweeper only works for a fraction of the wall time
+ * ({@code noshow.busy-duty-cycle}) to stay out of the way of booking traffic.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "noshow", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class NoShowSweeper {
+
+    static final String JOB_NAME = "no-show-sweeper";
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentItemRepository appointmentItemRepository;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final AppointmentEventPublisher eventPublisher;
+    private final ShardDirectory shardDirectory;
+    private final EncodedResponseCache responseCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter markedCounter;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${noshow.grace-minutes:60}")
+    private long graceMinutes;
+
+    @Value("${noshow.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${noshow.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+
+    @Value("${noshow.busy-hours-start:08:00}")
+    private LocalTime busyHoursStart;
+
+    @Value("${noshow.busy-hours-end:21:00}")
+    private LocalTime busyHoursEnd;
+
+    @Value("${noshow.busy-duty-cycle:0.2}")
+    private double busyDutyCycle;
+
+    public NoShowSweeper(AppointmentRepository appointmentRepository,
+                         AppointmentItemRepository appointmentItemRepository,
+                         JobCheckpointRepository jobCheckpointRepository,
+                         AppointmentEventPublisher eventPublisher,
+                         ShardDirectory shardDirectory,
+                         EncodedResponseCache responseCache,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        this.appointmentRepository = appointmentRepository;
+        this.appointmentItemRepository = appointmentItemRepository;
+        this.jobCheckpointRepository = jobCheckpointRepository;
+        this.eventPublisher = eventPublisher;
+        this.shardDirectory = shardDirectory;
+        this.responseCache = responseCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.markedCounter = meterRegistry.counter("jobs.noshow.marked");
+    }
+
+    @Scheduled(cron = "${noshow.cron:0 */15 * * * *}")
+    public void scheduledRun() {
+        sweep();
+    }
+
+    /**
+     * Run until no past-due appointment is left or the chunk budget is used up;
+     * returns the number of appointments marked as NO_SHOW
+     */
+    public int sweep() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(graceMinutes);
+            int marked = 0;
+            // each shard has its own checkpoint row
+            for (String shard : shardDirectory.shards()) {
+                marked += BranchContext.callOnShard(shard, () -> sweepShard(cutoff));
+            }
+            if (marked > 0) {
+                log.info("Marked {} past-due appointments as NO_SHOW", marked);
+            }
+            return marked;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int sweepShard(LocalDateTime cutoff) {
+        int marked = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            long started = System.nanoTime();
+            ChunkResult result = transactionTemplate.execute(status -> processChunk(cutoff));
+            marked += result.marked;
+            if (result.scanned < chunkSize) {
+                break;
+            }
+            throttle(System.nanoTime() - started);
+        }
+        return marked;
+    }
+
+    private ChunkResult processChunk(LocalDateTime cutoff) {
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(JOB_NAME)
+                .orElseGet(() -> new JobCheckpoint(JOB_NAME, EPOCH, 0L, 0L, null));
+
+        List<OverdueAppointment> rows = appointmentRepository.findOverdueAfter(
+                cutoff, checkpoint.getLastTime(), checkpoint.getLastId(), PageRequest.of(0, chunkSize));
+        if (rows.isEmpty()) {
+            return new ChunkResult(0, 0);
+        }
+
+        // a few rows may have been confirmed or completed in the meantime
+        List<Long> ids = appointmentRepository.lockInStatus(rows.stream().map(OverdueAppointment::getId).toList(),
+                EnumSet.of(Appointment.AppointmentStatus.PENDING, Appointment.AppointmentStatus.CONFIRMED));
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        if (!ids.isEmpty()) {
+            appointmentRepository.markNoShow(ids, now);
+            appointmentItemRepository.updateStatusByAppointmentIds(ids, AppointmentItem.ItemStatus.NO_SHOW,
+                    EnumSet.of(AppointmentItem.ItemStatus.CANCELLED, AppointmentItem.ItemStatus.COMPLETED), now);
+            responseCache.invalidate(CacheRegion.BOARD, CacheRegion.OCCUPANCY);
+        }
+
+        Set<Long> markedIds = new HashSet<>(ids);
+        Map<Long, List<Long>> staffIds = eventPublisher.staffIdsByAppointment(ids);
+        eventPublisher.publishAll(rows.stream()
+                .filter(row -> markedIds.contains(row.getId()))
+                .map(row -> new AppointmentEvent(null, AppointmentEventType.NO_SHOW, row.getId(), row.getCustomerId(),
+                        Appointment.AppointmentStatus.NO_SHOW.name(), row.getAppointmentDateTime(),
+                        staffIds.getOrDefault(row.getId(), List.of()), now, row.getBranchId()))
+                .toList());
+
+        OverdueAppointment last = rows.get(rows.size() - 1);
+        checkpoint.setLastTime(last.getAppointmentDateTime());
+        checkpoint.setLastId(last.getId());
+        checkpoint.setProcessedTotal(checkpoint.getProcessedTotal() + markedIds.size());
+        jobCheckpointRepository.save(checkpoint);
+
+        markedCounter.increment(markedIds.size());
+        return new ChunkResult(rows.size(), markedIds.size());
+    }
+
+    /**
+     * During business hours, sleep long enough that chunk work only takes the configured share of time
+     */
+    private void throttle(long chunkNanos) {
+        LocalTime now = LocalTime.now();
+        if (now.isBefore(busyHoursStart) || !now.isBefore(busyHoursEnd) || busyDutyCycle >= 1.0) {
+            return;
+        }
+        long pauseMillis = (long) (chunkNanos / 1_000_000.0 * (1.0 / busyDutyCycle - 1.0));
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class ChunkResult {
+        final int scanned;
+        final int marked;
+
+        ChunkResult(int scanned, int marked) {
+            this.scanned = scanned;
+            this.marked = marked;
+        }
+    }
+}
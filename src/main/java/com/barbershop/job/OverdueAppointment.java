@@ -0,0 +1,20 @@
+package com.barbershop.job;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Past-due appointment row read by the no-show sweeper (JPQL projection)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverdueAppointment {
+    private Long id;
+    private Long customerId;
+    private LocalDateTime appointmentDateTime;
+    private String branchId;
+}
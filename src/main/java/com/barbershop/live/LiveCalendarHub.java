@@ -0,0 +1,294 @@
+package com.barbershop.live;
+
+import com.barbershop.event.AppointmentEvent;
+import com.barbershop.event.AppointmentEventConsumer;
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.sharding.ShardDirectory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes appointment events from the outbox to open live calendar streams (Server-Sent Events).
+ *
+ * Every event is encoded once and the same frame is queued for each matching subscriber.
+ * Subscriber queues are bounded; a subscriber whose queue overflows is evicted and reconnects.
+ * Frames are written by a small sender pool instead of a thread per stream.
+ *
+ * Recent events stay in a ring buffer under a node-local sequence number, which is the SSE
+ * event id ({@code <epoch>-<sequence>}). A reconnect with {@code Last-Event-ID} replays what it
+ * missed; when that is no longer possible (the id is from another node or a previous run, or
+ * older than the buffer) the stream starts with a {@code reset} event and the client reloads
+ * the day once from {@code GET /api/appointments/by-date}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "live", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LiveCalendarHub implements AppointmentEventConsumer {
+
+    static final String READY_EVENT = "ready";
+    static final String RESET_EVENT = "reset";
+
+    private final ObjectMapper objectMapper;
+    private final ShardDirectory shardDirectory;
+    private final ExecutorService senders;
+    private final Set<LiveSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger sendersBusy = new AtomicInteger();
+
+    // distinguishes ids of this run from ids handed out by another node or before a restart
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    // ring buffer of recent events, guarded by this
+    private final Entry[] recent;
+    private final Set<Long> recentOutboxIds = new HashSet<>();
+    private long sequence;
+
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+
+    private final Counter publishedCounter;
+    private final Counter evictedCounter;
+
+    public LiveCalendarHub(ObjectMapper objectMapper,
+                           ShardDirectory shardDirectory,
+                           MeterRegistry meterRegistry,
+                           @Value("${live.replay-size:10000}") int replaySize,
+                           @Value("${live.buffer-size:256}") int bufferSize,
+                           @Value("${live.max-subscribers:1000}") int maxSubscribers,
+                           @Value("${live.sender-threads:4}") int senderThreads,
+                           @Value("${live.timeout-ms:1800000}") long timeoutMs) {
+        this.objectMapper = objectMapper;
+        this.shardDirectory = shardDirectory;
+        this.recent = new Entry[replaySize];
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "live-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.publishedCounter = meterRegistry.counter("live.events.published");
+        this.evictedCounter = meterRegistry.counter("live.subscribers.evicted");
+        Gauge.builder("live.subscribers", subscribers, Set::size).register(meterRegistry);
+        Gauge.builder("live.senders.busy", sendersBusy, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (LiveSubscriber subscriber : subscribers) {
+            close(subscriber);
+            complete(subscriber);
+        }
+        senders.shutdownNow();
+    }
+
+    /**
+     * Open a stream of the current branch, resuming after lastEventId when given
+     */
+    public SseEmitter subscribe(LocalDate date, Long staffId, String lastEventId) {
+        LiveFilter filter = new LiveFilter(shardDirectory.currentBranch(), date, staffId);
+        if (subscribers.size() >= maxSubscribers) {
+            throw new BadRequestException("Too many live calendar streams are open, try again later");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        LiveSubscriber subscriber = new LiveSubscriber(emitter, filter, bufferSize);
+        emitter.onCompletion(() -> close(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(error -> close(subscriber));
+        register(subscriber, lastEventId);
+        return emitter;
+    }
+
+    /**
+     * Add the subscriber and queue what it missed; replay and registration happen under the
+     * same lock as publishing, so no event is lost or sent twice in between
+     */
+    void register(LiveSubscriber subscriber, String lastEventId) {
+        synchronized (this) {
+            // ready and reset carry the current position, so the next reconnect can resume from here;
+            // ready also gets the response headers out before the first change
+            List<Entry> missed = lastEventId == null ? null : missedSince(lastEventId, subscriber.getFilter());
+            if (lastEventId == null) {
+                subscriber.offer(encode(epoch + "-" + sequence, READY_EVENT, "{}"));
+            } else if (missed == null || missed.size() > subscriber.remainingCapacity()) {
+                subscriber.offer(encode(epoch + "-" + sequence, RESET_EVENT, "{}"));
+            } else {
+                missed.forEach(entry -> subscriber.offer(entry.frame));
+            }
+            subscribers.add(subscriber);
+        }
+        schedule(subscriber);
+    }
+
+    /**
+     * Events after lastEventId matching the filter, or null when they cannot all be replayed
+     */
+    private List<Entry> missedSince(String lastEventId, LiveFilter filter) {
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch)) {
+            return null;
+        }
+        long last;
+        try {
+            last = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        long oldest = Math.max(1, sequence - recent.length + 1);
+        if (last > sequence || last < oldest - 1) {
+            return null;
+        }
+        List<Entry> missed = new ArrayList<>();
+        for (long seq = last + 1; seq <= sequence; seq++) {
+            Entry entry = recent[(int) (seq % recent.length)];
+            if (filter.matches(entry.event)) {
+                missed.add(entry);
+            }
+        }
+        return missed;
+    }
+
+    @Override
+    public void onEvent(AppointmentEvent event) throws JsonProcessingException {
+        String data = objectMapper.writeValueAsString(event);
+        List<LiveSubscriber> targets = new ArrayList<>();
+        synchronized (this) {
+            // redelivery after another consumer failed; the stream has seen this event already
+            if (event.getEventId() != null && recentOutboxIds.contains(event.getEventId())) {
+                return;
+            }
+            long seq = ++sequence;
+            Entry entry = new Entry(event, encode(epoch + "-" + seq, event.getType().name().toLowerCase(Locale.ROOT), data));
+            int slot = (int) (seq % recent.length);
+            if (recent[slot] != null && recent[slot].event.getEventId() != null) {
+                recentOutboxIds.remove(recent[slot].event.getEventId());
+            }
+            recent[slot] = entry;
+            if (event.getEventId() != null) {
+                recentOutboxIds.add(event.getEventId());
+            }
+
+            for (LiveSubscriber subscriber : subscribers) {
+                if (!subscriber.getFilter().matches(event)) {
+                    continue;
+                }
+                if (subscriber.offer(entry.frame)) {
+                    targets.add(subscriber);
+                } else {
+                    evict(subscriber);
+                }
+            }
+        }
+        publishedCounter.increment();
+        targets.forEach(this::schedule);
+    }
+
+    /**
+     * Comment frames keep proxies from closing idle streams and surface dead connections
+     */
+    @Scheduled(fixedDelayString = "${live.heartbeat-ms:15000}")
+    public void heartbeat() {
+        Set<ResponseBodyEmitter.DataWithMediaType> frame = SseEmitter.event().comment("").build();
+        for (LiveSubscriber subscriber : subscribers) {
+            if (subscriber.offer(frame)) {
+                schedule(subscriber);
+            } else {
+                evict(subscriber);
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void evict(LiveSubscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            evictedCounter.increment();
+            log.debug("Evicted slow live calendar subscriber {}", subscriber.getFilter());
+        }
+        subscriber.closed.set(true);
+        subscriber.discardPending();
+        // the stream is completed by its drain, after a write that may still be blocked returns
+        schedule(subscriber);
+    }
+
+    private void schedule(LiveSubscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException ex) {
+                subscriber.scheduled.set(false);
+            }
+        }
+    }
+
+    private void drain(LiveSubscriber subscriber) {
+        sendersBusy.incrementAndGet();
+        try {
+            Set<ResponseBodyEmitter.DataWithMediaType> frame;
+            while (!subscriber.closed.get() && (frame = subscriber.poll()) != null) {
+                subscriber.send(frame);
+            }
+        } catch (IOException | IllegalStateException ex) {
+            // client went away or the stream already completed
+            close(subscriber);
+        } finally {
+            sendersBusy.decrementAndGet();
+            subscriber.scheduled.set(false);
+        }
+        if (subscriber.closed.get()) {
+            complete(subscriber);
+        } else if (subscriber.hasPending()) {
+            schedule(subscriber);
+        }
+    }
+
+    private void close(LiveSubscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.closed.set(true);
+        subscriber.discardPending();
+    }
+
+    private static void complete(LiveSubscriber subscriber) {
+        try {
+            subscriber.complete();
+        } catch (RuntimeException ex) {
+            // already completed
+        }
+    }
+
+    private static Set<ResponseBodyEmitter.DataWithMediaType> encode(String id, String name, String data) {
+        return SseEmitter.event().id(id).name(name).data(data).build();
+    }
+
+    private record Entry(AppointmentEvent event, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.barbershop.live;
+
+import com.barbershop.event.AppointmentEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * What a live calendar subscriber wants to see: one branch, optionally one day and one staff member
+ */
+@Data
+@AllArgsConstructor
+public class LiveFilter {
+    private final String branchId;
+    private final LocalDate date;
+    private final Long staffId;
+
+    public boolean matches(AppointmentEvent event) {
+        if (!branchId.equals(event.getBranchId())) {
+            return false;
+        }
+        if (date != null && (event.getAppointmentDateTime() == null
+                || !date.equals(event.getAppointmentDateTime().toLocalDate()))) {
+            return false;
+        }
+        return staffId == null || (event.getStaffIds() != null && event.getStaffIds().contains(staffId));
+    }
+}
@@ -0,0 +1,75 @@
+package com.barbershop.live;
+
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One open live calendar stream with its bounded queue of frames waiting to be written.
+ *
+ * Frames are written by the hub's sender pool, at most one drain per subscriber at a time,
+ * so a stream always sees frames in the order they were queued.
+ */
+public class LiveSubscriber {
+
+    private final SseEmitter emitter;
+    private final LiveFilter filter;
+    private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue;
+
+    // a drain task is queued or running
+    final AtomicBoolean scheduled = new AtomicBoolean();
+    final AtomicBoolean closed = new AtomicBoolean();
+
+    public LiveSubscriber(SseEmitter emitter, LiveFilter filter, int bufferSize) {
+        this.emitter = emitter;
+        this.filter = filter;
+        this.queue = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    public LiveFilter getFilter() {
+        return filter;
+    }
+
+    public SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    /**
+     * Queue a frame; false when the buffer is full
+     */
+    boolean offer(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        return queue.offer(frame);
+    }
+
+    Set<ResponseBodyEmitter.DataWithMediaType> poll() {
+        return queue.poll();
+    }
+
+    boolean hasPending() {
+        return !queue.isEmpty();
+    }
+
+    int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    void discardPending() {
+        queue.clear();
+    }
+
+    /**
+     * Write one pre-encoded frame; blocks while the client is not reading
+     */
+    protected void send(Set<ResponseBodyEmitter.DataWithMediaType> frame) throws IOException {
+        emitter.send(frame);
+    }
+
+    protected void complete() {
+        emitter.complete();
+    }
+}
@@ -0,0 +1,38 @@
+package com.barbershop.model.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * GET requests to answer in one round trip
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRequest {
+
+    @NotEmpty(message = "At least one request is required")
+    @Size(max = 20, message = "At most 20 requests per batch")
+    @Valid
+    private List<SubRequest> requests;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SubRequest {
+
+        // echoed in the result so the client can match it
+        @NotBlank(message = "Request id is required")
+        private String id;
+
+        @NotBlank(message = "Request path is required")
+        private String path;
+    }
+}
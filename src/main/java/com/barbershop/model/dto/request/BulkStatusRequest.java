@@ -0,0 +1,29 @@
+package com.barbershop.model.dto.request;
+
+import com.barbershop.model.entity.Appointment;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Appointments to change, either by id or by a filter on time and current status
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusRequest {
+
+    @Size(max = 1000, message = "At most 1000 appointments per request")
+    private List<Long> ids;
+
+    // filter, used when no ids are given
+    private LocalDateTime from;
+
+    private LocalDateTime to;
+
+    private Appointment.AppointmentStatus status;
+}
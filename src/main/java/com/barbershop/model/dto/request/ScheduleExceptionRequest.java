@@ -0,0 +1,32 @@
+package com.barbershop.model.dto.request;
+
+import com.barbershop.model.entity.ScheduleException;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Time off or extra hours on one date; without times it covers the whole day
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleExceptionRequest {
+
+    @NotNull(message = "Date is required")
+    private LocalDate date;
+
+    private LocalTime startTime;
+
+    private LocalTime endTime;
+
+    private ScheduleException.Kind kind = ScheduleException.Kind.OFF;
+
+    @Size(max = 255, message = "Reason must be at most 255 characters")
+    private String reason;
+}
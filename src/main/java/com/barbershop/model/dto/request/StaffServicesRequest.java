@@ -0,0 +1,20 @@
+package com.barbershop.model.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Full list of services a staff member performs; replaces the current one
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StaffServicesRequest {
+
+    @NotNull(message = "Service IDs are required")
+    private List<Long> serviceIds;
+}
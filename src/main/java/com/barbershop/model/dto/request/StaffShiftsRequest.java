@@ -0,0 +1,42 @@
+package com.barbershop.model.dto.request;
+
+import com.barbershop.model.entity.StaffShift;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Full weekly calendar of a staff member; replaces the current one. An empty list goes back
+ * to the default working hours every day.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StaffShiftsRequest {
+
+    @NotNull(message = "Shifts are required")
+    private List<@Valid Shift> shifts;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Shift {
+
+        @NotNull(message = "Day of week is required")
+        private DayOfWeek dayOfWeek;
+
+        @NotNull(message = "Start time is required")
+        private LocalTime startTime;
+
+        @NotNull(message = "End time is required")
+        private LocalTime endTime;
+
+        private StaffShift.Kind kind = StaffShift.Kind.WORK;
+    }
+}
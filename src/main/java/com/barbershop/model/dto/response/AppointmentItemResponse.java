@@ -1,6 +1,7 @@
 package com.barbershop.model.dto.response;
 
 import com.barbershop.model.entity.AppointmentItem;
+import com.barbershop.model.entity.ArchivedAppointmentItem;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,6 +19,7 @@ public class AppointmentItemResponse {
     private BigDecimal price;
     private Integer durationMinutes;
     private LocalDateTime scheduledTime;
+    private LocalDateTime endTime;
     private String status;
 
     public static AppointmentItemResponse fromEntity(AppointmentItem item) {
@@ -28,6 +30,20 @@ public class AppointmentItemResponse {
                 item.getPrice(),
                 item.getDurationMinutes(),
                 item.getScheduledTime(),
+                item.getEndTime(),
+                item.getStatus().name()
+        );
+    }
+
+    public static AppointmentItemResponse fromArchived(ArchivedAppointmentItem item) {
+        return new AppointmentItemResponse(
+                item.getId(),
+                ServiceResponse.fromEntity(item.getService()),
+                item.getStaff() != null ? StaffResponse.fromEntity(item.getStaff()) : null,
+                item.getPrice(),
+                item.getDurationMinutes(),
+                item.getScheduledTime(),
+                item.getScheduledTime().plusMinutes(item.getDurationMinutes()),
                 item.getStatus().name()
         );
     }
@@ -0,0 +1,59 @@
+package com.barbershop.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appointments reduced to the requested fields. In the normalized view rows reference customers,
+ * services and staff by id and each of them is sent once in the side dictionaries.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AppointmentListView {
+    private List<Map<String, Object>> content;
+    private Map<Long, CustomerSummary> customers;
+    private Map<Long, ServiceSummary> services;
+    private Map<Long, StaffSummary> staff;
+    // paging, absent for unpaged lists
+    private Integer page;
+    private Integer size;
+    private Long totalElements;
+    private Integer totalPages;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class CustomerSummary {
+        private Long id;
+        private String firstName;
+        private String lastName;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ServiceSummary {
+        private Long id;
+        private String name;
+        private Integer durationMinutes;
+        private BigDecimal price;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StaffSummary {
+        private Long id;
+        private String name;
+    }
+}
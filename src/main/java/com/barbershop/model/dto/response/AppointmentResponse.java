@@ -1,6 +1,7 @@
 package com.barbershop.model.dto.response;
 
 import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.ArchivedAppointment;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -22,7 +23,10 @@ public class AppointmentResponse {
     private String notes;
     private BigDecimal totalPrice;
     private Integer totalDuration;
+    private LocalDateTime endDateTime;
     private LocalDateTime createdAt;
+    // send back in If-Match to change the appointment only if nobody else did meanwhile
+    private Long version;
 
     public static AppointmentResponse fromEntity(Appointment appointment) {
         List<AppointmentItemResponse> itemResponses = appointment.getItems()
@@ -30,16 +34,41 @@ public class AppointmentResponse {
                 .map(AppointmentItemResponse::fromEntity)
                 .collect(Collectors.toList());
 
-        BigDecimal totalPrice = appointment.getItems()
+        return new AppointmentResponse(
+                appointment.getId(),
+                UserResponse.fromEntity(appointment.getCustomer()),
+                itemResponses,
+                appointment.getAppointmentDateTime(),
+                appointment.getStatus().name(),
+                appointment.getNotes(),
+                appointment.getTotalPrice(),
+                appointment.getTotalDurationMinutes(),
+                appointment.getEndDateTime(),
+                appointment.getCreatedAt(),
+                appointment.getVersion()
+        );
+    }
+
+    public static AppointmentResponse fromArchived(ArchivedAppointment appointment) {
+        List<AppointmentItemResponse> itemResponses = appointment.getItems()
                 .stream()
-                .map(item -> item.getPrice())
+                .map(AppointmentItemResponse::fromArchived)
+                .collect(Collectors.toList());
+
+        BigDecimal totalPrice = itemResponses.stream()
+                .map(AppointmentItemResponse::getPrice)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        Integer totalDuration = appointment.getItems()
-                .stream()
-                .map(item -> item.getDurationMinutes())
+        Integer totalDuration = itemResponses.stream()
+                .map(AppointmentItemResponse::getDurationMinutes)
                 .reduce(0, Integer::sum);
 
+        // archived rows predate the stored totals
+        LocalDateTime endDateTime = itemResponses.stream()
+                .map(AppointmentItemResponse::getEndTime)
+                .max(LocalDateTime::compareTo)
+                .orElse(appointment.getAppointmentDateTime());
+
         return new AppointmentResponse(
                 appointment.getId(),
                 UserResponse.fromEntity(appointment.getCustomer()),
@@ -49,7 +78,9 @@ public class AppointmentResponse {
                 appointment.getNotes(),
                 totalPrice,
                 totalDuration,
-                appointment.getCreatedAt()
+                endDateTime,
+                appointment.getCreatedAt(),
+                null
         );
     }
 }
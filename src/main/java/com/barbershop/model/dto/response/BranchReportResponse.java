@@ -0,0 +1,35 @@
+package com.barbershop.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BranchReportResponse {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<BranchTotals> branches;
+    private Long totalAppointments;
+    private BigDecimal totalRevenue;
+    // shards that did not answer in time; their branches are missing from the totals
+    private List<String> failedShards;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BranchTotals {
+        private String branchId;
+        private String shard;
+        private Long appointments;
+        private Map<String, Long> appointmentsByStatus;
+        // revenue of completed appointments
+        private BigDecimal revenue;
+    }
+}
@@ -0,0 +1,37 @@
+package com.barbershop.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusResponse {
+    private String action;
+    private Integer requested;
+    private Integer updated;
+    private List<Result> results;
+
+    public enum Outcome {
+        UPDATED,
+        // already in the target status
+        UNCHANGED,
+        INVALID_TRANSITION,
+        NOT_FOUND,
+        // changed by someone else between validation and update
+        CONFLICT
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private Long id;
+        private Outcome outcome;
+        private String previousStatus;
+        private String message;
+    }
+}
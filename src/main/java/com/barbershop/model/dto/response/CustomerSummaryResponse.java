@@ -0,0 +1,27 @@
+package com.barbershop.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerSummaryResponse {
+    private Long customerId;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String phone;
+    private Integer visitCount;
+    private Integer cancelledCount;
+    private LocalDateTime lastVisitAt;
+    private BigDecimal lifetimeSpend;
+    private Long favouriteServiceId;
+    private String favouriteServiceName;
+    private Long favouriteStaffId;
+    private String favouriteStaffName;
+}
@@ -0,0 +1,33 @@
+package com.barbershop.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccupancyForecastResponse {
+    // weeks whose utilization the forecast is based on
+    private LocalDate historyFrom;
+    private LocalDate historyTo;
+    private List<Week> weeks;
+    // expected minutes per weekday and hour over all forecast weeks
+    private List<OccupancyResponse.Slot> slots;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Week {
+        private LocalDate weekStart;
+        // already booked
+        private Long bookedMinutes;
+        // at least what is booked; the history's utilization applied to this week's hours
+        private Long expectedMinutes;
+        private Long availableMinutes;
+        private Double expectedUtilization;
+    }
+}
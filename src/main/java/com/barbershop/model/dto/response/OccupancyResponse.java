@@ -0,0 +1,36 @@
+package com.barbershop.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccupancyResponse {
+    private LocalDate from;
+    // exclusive
+    private LocalDate to;
+    private Long bookedMinutes;
+    private Long availableMinutes;
+    private Double utilization;
+    // one per weekday and hour, Monday 00:00 first
+    private List<Slot> slots;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Slot {
+        private DayOfWeek dayOfWeek;
+        private Integer hour;
+        private Long bookedMinutes;
+        // staff working hours falling in this slot
+        private Long availableMinutes;
+        // booked / available; above 1 when bookings run outside working hours
+        private Double utilization;
+    }
+}
@@ -0,0 +1,34 @@
+package com.barbershop.model.dto.response;
+
+import com.barbershop.model.entity.ScheduleException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleExceptionResponse {
+    private Long id;
+    private Long staffId;
+    private LocalDate date;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private String kind;
+    private String reason;
+
+    public static ScheduleExceptionResponse fromEntity(ScheduleException exception) {
+        return new ScheduleExceptionResponse(
+                exception.getId(),
+                exception.getStaff().getId(),
+                exception.getDate(),
+                exception.getStartTime(),
+                exception.getEndTime(),
+                exception.getKind().name(),
+                exception.getReason()
+        );
+    }
+}
@@ -0,0 +1,28 @@
+package com.barbershop.model.dto.response;
+
+import com.barbershop.model.entity.ShopHoliday;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShopHolidayResponse {
+    private Long id;
+    private LocalDate date;
+    private String name;
+    private LocalTime closesAt;
+
+    public static ShopHolidayResponse fromEntity(ShopHoliday holiday) {
+        return new ShopHolidayResponse(
+                holiday.getId(),
+                holiday.getDate(),
+                holiday.getName(),
+                holiday.getClosesAt()
+        );
+    }
+}
@@ -0,0 +1,21 @@
+package com.barbershop.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StaffAvailabilityResponse {
+    private Long staffId;
+    private Long serviceId;
+    private LocalDate date;
+    private Integer durationMinutes;
+    // start times at which the whole service fits the staff member's calendar and bookings
+    private List<LocalTime> slots;
+}
@@ -0,0 +1,30 @@
+package com.barbershop.model.dto.response;
+
+import com.barbershop.model.entity.StaffShift;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StaffShiftResponse {
+    private Long id;
+    private DayOfWeek dayOfWeek;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private String kind;
+
+    public static StaffShiftResponse fromEntity(StaffShift shift) {
+        return new StaffShiftResponse(
+                shift.getId(),
+                shift.getDayOfWeek(),
+                shift.getStartTime(),
+                shift.getEndTime(),
+                shift.getKind().name()
+        );
+    }
+}
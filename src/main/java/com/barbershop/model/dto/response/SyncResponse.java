@@ -0,0 +1,29 @@
+package com.barbershop.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncResponse {
+    // pass as ?since= on the next sync
+    private String token;
+    // true when this is a full snapshot: replace local data instead of merging
+    private Boolean reset;
+    private List<AppointmentResponse> appointments;
+    private List<ServiceResponse> services;
+    private List<StaffResponse> staff;
+    private Deleted deleted;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Deleted {
+        private List<Long> services;
+        private List<Long> staff;
+    }
+}
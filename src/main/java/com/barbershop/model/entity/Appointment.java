@@ -4,15 +4,21 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.TenantId;
 import org.hibernate.annotations.UpdateTimestamp;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+        @Index(name = "idx_appointment_status_time", columnList = "status, appointmentDateTime, id"),
+        @Index(name = "idx_appointment_updated_at", columnList = "updatedAt")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,6 +28,12 @@ public class Appointment {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Branch (shop) this row belongs to; filled in from the current branch on insert
+    @TenantId
+    @ColumnDefault("'main'")
+    @Column(nullable = false, length = 50)
+    private String branchId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", nullable = false)
     private User customer;
@@ -39,6 +51,18 @@ public class Appointment {
     @Column(columnDefinition = "TEXT")
     private String notes;
 
+    // Totals over the items, kept by recalculateTotals() so reads need no pass over the items
+    @ColumnDefault("0")
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal totalPrice = BigDecimal.ZERO;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer totalDurationMinutes = 0;
+
+    // End of the latest item; the start time when there are no items
+    private LocalDateTime endDateTime;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -47,6 +71,12 @@ public class Appointment {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
+    // Optimistic lock; bulk JPQL updates bump it themselves
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version = 0L;
+
     public enum AppointmentStatus {
         PENDING,
         CONFIRMED,
@@ -59,11 +89,39 @@ public class Appointment {
     public void addItem(AppointmentItem item) {
         items.add(item);
         item.setAppointment(this);
+        recalculateTotals();
     }
 
     // Helper method to remove item from appointment
     public void removeItem(AppointmentItem item) {
         items.remove(item);
         item.setAppointment(null);
+        recalculateTotals();
+    }
+
+    // For items added to the list directly. A save goes through merge (the version is never null),
+    // whose managed copy has no items yet at this point, so totals already set are kept.
+    @PrePersist
+    void fillTotals() {
+        if (endDateTime == null) {
+            recalculateTotals();
+        }
+    }
+
+    public void recalculateTotals() {
+        BigDecimal price = BigDecimal.ZERO;
+        int duration = 0;
+        LocalDateTime end = null;
+        for (AppointmentItem item : items) {
+            price = price.add(item.getPrice());
+            duration += item.getDurationMinutes();
+            LocalDateTime itemEnd = item.calculateEndTime();
+            if (end == null || itemEnd.isAfter(end)) {
+                end = itemEnd;
+            }
+        }
+        totalPrice = price;
+        totalDurationMinutes = duration;
+        endDateTime = end != null ? end : appointmentDateTime;
     }
 }
\ No newline at end of file
@@ -5,12 +5,19 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "appointment_items")
+@Table(name = "appointment_items", indexes = {
+        @Index(name = "idx_item_scheduled_time", columnList = "scheduledTime"),
+        @Index(name = "idx_item_updated_at", columnList = "updatedAt"),
+        // overlap checks: new bookings are in the future, so endTime > :start keeps the range short
+        @Index(name = "idx_item_staff_end_time", columnList = "staff_id, endTime, scheduledTime")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -41,14 +48,42 @@ public class AppointmentItem {
     @Column(nullable = false)
     private LocalDateTime scheduledTime;
 
+    // scheduledTime + durationMinutes, so overlaps are a plain range predicate
+    private LocalDateTime endTime;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     private ItemStatus status = ItemStatus.PENDING;
 
+    // Due time of the last reminder a node claimed for this item; only moved by claimReminder
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime reminderDueAt;
+
+    // Drives delta sync together with the appointment's updatedAt
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version = 0L;
+
+    @PrePersist
+    @PreUpdate
+    void updateEndTime() {
+        endTime = calculateEndTime();
+    }
+
+    public LocalDateTime calculateEndTime() {
+        return scheduledTime.plusMinutes(durationMinutes);
+    }
+
     public enum ItemStatus {
         PENDING,
         IN_PROGRESS,
         COMPLETED,
-        CANCELLED
+        CANCELLED,
+        // the appointment was marked NO_SHOW; the time is neither booked nor served
+        NO_SHOW
     }
 }
@@ -0,0 +1,59 @@
+package com.barbershop.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Closed appointment moved out of the hot appointments table; keeps its original id
+ */
+@Entity
+@Table(name = "appointments_archive", indexes = {
+        @Index(name = "idx_appointment_archive_customer_time", columnList = "customer_id, branchId, appointmentDateTime")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedAppointment {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String branchId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id", nullable = false)
+    private User customer;
+
+    @OneToMany(mappedBy = "appointment", cascade = CascadeType.ALL, orphanRemoval = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private List<ArchivedAppointmentItem> items = new ArrayList<>();
+
+    @Column(nullable = false)
+    private LocalDateTime appointmentDateTime;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Appointment.AppointmentStatus status;
+
+    @Column(columnDefinition = "TEXT")
+    private String notes;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,25 @@
+package com.barbershop.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fence row of a staff partition. Every booking locks the rows of its staff partitions and
+ * bumps the generation, so bookings of one partition are serialized across nodes and an owner
+ * can tell whether anyone else has booked since it last loaded the partition.
+ */
+@Entity
+@Table(name = "booking_partitions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingPartition {
+
+    @Id
+    private Integer partitionId;
+
+    @Column(nullable = false)
+    private Long generation = 0L;
+}
@@ -0,0 +1,33 @@
+package com.barbershop.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Membership lease of an application node; a node is live while its lease has not expired
+ */
+@Entity
+@Table(name = "cluster_nodes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterNode {
+
+    @Id
+    @Column(length = 100)
+    private String nodeId;
+
+    // base URL other nodes forward bookings to
+    @Column(length = 255)
+    private String url;
+
+    @Column(nullable = false)
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(nullable = false)
+    private LocalDateTime joinedAt;
+}
@@ -0,0 +1,71 @@
+package com.barbershop.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lifetime totals of one customer at one branch, kept up to date as appointments close
+ */
+@Entity
+@Table(name = "customer_summaries", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_customer_summary_branch_customer", columnNames = {"branchId", "customer_id"})
+}, indexes = {
+        @Index(name = "idx_customer_summary_last_visit", columnList = "branchId, lastVisitAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // written by shard-wide jobs as well, so filtered explicitly like the archive
+    @Column(nullable = false, length = 50)
+    private String branchId;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(nullable = false)
+    private Integer visitCount = 0;
+
+    @Column(nullable = false)
+    private Integer cancelledCount = 0;
+
+    private LocalDateTime lastVisitAt;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal lifetimeSpend = BigDecimal.ZERO;
+
+    // completed items per service / staff id, the favourites are picked from these
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<Long, Integer> serviceVisits = new HashMap<>();
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<Long, Integer> staffVisits = new HashMap<>();
+
+    private Long favouriteServiceId;
+
+    private Long favouriteStaffId;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public CustomerSummary(String branchId, Long customerId) {
+        this.branchId = branchId;
+        this.customerId = customerId;
+    }
+}
@@ -0,0 +1,35 @@
+package com.barbershop.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Keyset position of a batch job, written in the same transaction as each chunk
+ */
+@Entity
+@Table(name = "job_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobCheckpoint {
+
+    @Id
+    @Column(length = 100)
+    private String jobName;
+
+    // last processed row in (lastTime, lastId) order
+    private LocalDateTime lastTime;
+
+    private Long lastId;
+
+    @Column(nullable = false)
+    private Long processedTotal = 0L;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,73 @@
+package com.barbershop.model.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * A change to one staff member's week on a single date: time off or extra hours
+ */
+@Entity
+@Table(name = "schedule_exceptions", indexes = {
+        @Index(name = "idx_schedule_exceptions_date", columnList = "date"),
+        @Index(name = "idx_schedule_exceptions_staff", columnList = "staff_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleException {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @ColumnDefault("'main'")
+    @Column(nullable = false, length = 50)
+    private String branchId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "staff_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Staff staff;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    // Both empty: the whole day
+    private LocalTime startTime;
+
+    private LocalTime endTime;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Kind kind = Kind.OFF;
+
+    @Column(length = 255)
+    private String reason;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public enum Kind {
+        OFF,    // not working, e.g. leave or a doctor's visit
+        EXTRA   // working outside the usual week
+    }
+}
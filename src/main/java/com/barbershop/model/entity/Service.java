@@ -1,10 +1,15 @@
 package com.barbershop.model.entity;
 
+import com.barbershop.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.TenantId;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
@@ -12,6 +17,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "services")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.SERVICES)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,6 +28,12 @@ public class Service {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Branch (shop) this row belongs to; filled in from the current branch on insert
+    @TenantId
+    @ColumnDefault("'main'")
+    @Column(nullable = false, length = 50)
+    private String branchId;
+
     @Column(nullable = false, length = 100)
     private String name;
 
@@ -0,0 +1,48 @@
+package com.barbershop.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * A date the branch is closed, or closes early, for every staff member
+ */
+@Entity
+@Table(name = "shop_holidays", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_shop_holidays_branch_date", columnNames = {"branchId", "date"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShopHoliday {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @ColumnDefault("'main'")
+    @Column(nullable = false, length = 50)
+    private String branchId;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    // Empty: closed all day; otherwise open until then, e.g. the eve of a religious holiday
+    private LocalTime closesAt;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
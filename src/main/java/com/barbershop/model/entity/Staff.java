@@ -1,17 +1,29 @@
 package com.barbershop.model.entity;
 
+import com.barbershop.config.SecondLevelCacheConfig;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.TenantId;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity
 @Table(name = "staff")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.STAFF)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,6 +33,12 @@ public class Staff {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Branch (shop) this row belongs to; filled in from the current branch on insert
+    @TenantId
+    @ColumnDefault("'main'")
+    @Column(nullable = false, length = 50)
+    private String branchId;
+
     @Column(nullable = false, length = 100)
     private String name;
 
@@ -46,6 +64,18 @@ public class Staff {
     @Column(nullable = false)
     private LocalTime workEndTime = LocalTime.of(18, 0);
 
+    // Services this staff member performs; a service linked to nobody can be done by anyone
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(
+            name = "staff_services",
+            joinColumns = @JoinColumn(name = "staff_id"),
+            inverseJoinColumns = @JoinColumn(name = "service_id")
+    )
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Set<Service> services = new HashSet<>();
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -1,5 +1,6 @@
 package com.barbershop.model.entity;
 
+import com.barbershop.sharding.UserReplicationListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -11,6 +12,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserReplicationListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,115 @@
+package com.barbershop.projection;
+
+import com.barbershop.exception.BadRequestException;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fields requested with {@code ?fields=} and the response view. Top level names select
+ * appointment fields, {@code items} selects every item field and {@code items.<name>} single ones,
+ * e.g. {@code fields=id,status,items.scheduledTime,items.staff}.
+ */
+public class AppointmentFields {
+
+    public static final List<String> APPOINTMENT_FIELDS = List.of(
+            "id", "customer", "appointmentDateTime", "status", "notes", "totalPrice", "totalDuration", "endDateTime",
+            "createdAt", "items");
+
+    public static final List<String> ITEM_FIELDS = List.of(
+            "id", "service", "staff", "price", "durationMinutes", "scheduledTime", "endTime", "status");
+
+    private static final String ITEM_PREFIX = "items.";
+
+    private final Set<String> appointmentFields;
+    private final Set<String> itemFields;
+    private final boolean normalized;
+
+    private AppointmentFields(Set<String> appointmentFields, Set<String> itemFields, boolean normalized) {
+        this.appointmentFields = appointmentFields;
+        this.itemFields = itemFields;
+        this.normalized = normalized;
+    }
+
+    /**
+     * Null when neither parameter asks for anything but the full response
+     */
+    public static AppointmentFields parse(String fields, String view) {
+        boolean normalized;
+        if (view == null || view.isBlank() || view.equalsIgnoreCase("full")) {
+            normalized = false;
+        } else if (view.equalsIgnoreCase("normalized")) {
+            normalized = true;
+        } else {
+            throw new BadRequestException("Unknown view: " + view + ". Use full or normalized");
+        }
+        if ((fields == null || fields.isBlank()) && !normalized) {
+            return null;
+        }
+
+        Set<String> appointmentFields = new LinkedHashSet<>();
+        Set<String> itemFields = new LinkedHashSet<>();
+        if (fields == null || fields.isBlank()) {
+            appointmentFields.addAll(APPOINTMENT_FIELDS);
+            itemFields.addAll(ITEM_FIELDS);
+        } else {
+            for (String raw : fields.split(",")) {
+                String field = raw.trim();
+                if (field.isEmpty()) {
+                    continue;
+                }
+                if (field.startsWith(ITEM_PREFIX)) {
+                    String itemField = field.substring(ITEM_PREFIX.length());
+                    if (!ITEM_FIELDS.contains(itemField)) {
+                        throw new BadRequestException("Unknown field: " + field);
+                    }
+                    appointmentFields.add("items");
+                    itemFields.add(itemField);
+                } else if (field.equals("items")) {
+                    appointmentFields.add("items");
+                    itemFields.addAll(ITEM_FIELDS);
+                } else if (APPOINTMENT_FIELDS.contains(field)) {
+                    appointmentFields.add(field);
+                } else {
+                    throw new BadRequestException("Unknown field: " + field);
+                }
+            }
+        }
+        // rows are always identified
+        appointmentFields.add("id");
+        if (!itemFields.isEmpty()) {
+            itemFields.add("id");
+        }
+        return new AppointmentFields(appointmentFields, itemFields, normalized);
+    }
+
+    public boolean has(String field) {
+        return appointmentFields.contains(field);
+    }
+
+    public boolean hasItem(String field) {
+        return itemFields.contains(field);
+    }
+
+    public boolean isNormalized() {
+        return normalized;
+    }
+
+    /**
+     * Whether item rows have to be read; the totals are stored on the appointment
+     */
+    public boolean needsItems() {
+        return has("items");
+    }
+
+    /**
+     * Stable text for cache keys, independent of the order fields were listed in
+     */
+    public String key() {
+        StringBuilder key = new StringBuilder(normalized ? "n" : "f");
+        APPOINTMENT_FIELDS.stream().filter(appointmentFields::contains).forEach(field -> key.append(',').append(field));
+        ITEM_FIELDS.stream().filter(itemFields::contains).forEach(field -> key.append(",items.").append(field));
+        return key.toString();
+    }
+}
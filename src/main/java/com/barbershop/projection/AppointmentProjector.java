@@ -0,0 +1,297 @@
+package com.barbershop.projection;
+
+import com.barbershop.model.dto.response.AppointmentListView;
+import com.barbershop.model.dto.response.AppointmentListView.CustomerSummary;
+import com.barbershop.model.dto.response.AppointmentListView.ServiceSummary;
+import com.barbershop.model.dto.response.AppointmentListView.StaffSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Reads appointment lists with only the columns the requested fields need. Select lists are built
+ * per request, so TEXT columns such as notes are not read unless asked for, and services, staff and
+ * customers are read once per list (never their descriptions) instead of once per item.
+ */
+@Component
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class AppointmentProjector {
+
+    private static final int IN_CHUNK = 1000;
+
+    private final EntityManager entityManager;
+
+    /**
+     * Appointments starting in [from, to), by time
+     */
+    public AppointmentListView between(AppointmentFields fields, LocalDateTime from, LocalDateTime to) {
+        List<Map<String, Object>> rows = loadAppointments(fields,
+                " WHERE a.appointmentDateTime >= :from AND a.appointmentDateTime < :to ORDER BY a.appointmentDateTime ASC, a.id ASC",
+                Map.of("from", from, "to", to), null);
+        return view(fields, rows);
+    }
+
+    /**
+     * One page of all appointments, by id
+     */
+    public AppointmentListView page(AppointmentFields fields, Pageable pageable) {
+        List<Map<String, Object>> rows = loadAppointments(fields, " ORDER BY a.id ASC", Map.of(), pageable);
+        long total = entityManager.createQuery("SELECT COUNT(a) FROM Appointment a", Long.class).getSingleResult();
+
+        AppointmentListView view = view(fields, rows);
+        view.setPage(pageable.getPageNumber());
+        view.setSize(pageable.getPageSize());
+        view.setTotalElements(total);
+        view.setTotalPages((int) ((total + pageable.getPageSize() - 1) / pageable.getPageSize()));
+        return view;
+    }
+
+    private List<Map<String, Object>> loadAppointments(AppointmentFields fields, String filter,
+                                                       Map<String, Object> parameters, Pageable pageable) {
+        Columns columns = new Columns();
+        columns.add("id", "a.id");
+        boolean joinCustomer = fields.has("customer") && !fields.isNormalized();
+        if (fields.has("customer")) {
+            columns.add("customerId", "a.customer.id");
+            if (joinCustomer) {
+                columns.add("customerFirstName", "c.firstName");
+                columns.add("customerLastName", "c.lastName");
+            }
+        }
+        for (String field : List.of("appointmentDateTime", "status", "notes", "endDateTime", "createdAt")) {
+            if (fields.has(field)) {
+                columns.add(field, "a." + field);
+            }
+        }
+        if (fields.has("totalPrice")) {
+            columns.add("totalPrice", "a.totalPrice");
+        }
+        if (fields.has("totalDuration")) {
+            columns.add("totalDuration", "a.totalDurationMinutes");
+        }
+
+        String jpql = "SELECT " + columns.select() + " FROM Appointment a" + (joinCustomer ? " JOIN a.customer c" : "") + filter;
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql, Tuple.class);
+        parameters.forEach(query::setParameter);
+        if (pageable != null) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Tuple tuple : query.getResultList()) {
+            Map<String, Object> values = columns.read(tuple);
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : AppointmentFields.APPOINTMENT_FIELDS) {
+                if (!fields.has(field)) {
+                    continue;
+                }
+                switch (field) {
+                    case "customer" -> {
+                        if (fields.isNormalized()) {
+                            row.put("customerId", values.get("customerId"));
+                        } else {
+                            row.put("customer", new CustomerSummary((Long) values.get("customerId"),
+                                    (String) values.get("customerFirstName"), (String) values.get("customerLastName")));
+                        }
+                    }
+                    case "status" -> row.put("status", ((Enum<?>) values.get("status")).name());
+                    case "items" -> row.put("items", new ArrayList<Map<String, Object>>());
+                    default -> row.put(field, values.get(field));
+                }
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private AppointmentListView view(AppointmentFields fields, List<Map<String, Object>> rows) {
+        Set<Long> serviceIds = new LinkedHashSet<>();
+        Set<Long> staffIds = new LinkedHashSet<>();
+        if (fields.needsItems() && !rows.isEmpty()) {
+            Map<Long, Map<String, Object>> byId = new HashMap<>();
+            rows.forEach(row -> byId.put((Long) row.get("id"), row));
+            for (Map<String, Object> item : loadItems(fields, byId.keySet())) {
+                Map<String, Object> row = byId.get((Long) item.remove("appointmentId"));
+                if (item.get("serviceId") != null) {
+                    serviceIds.add((Long) item.get("serviceId"));
+                }
+                if (item.get("staffId") != null) {
+                    staffIds.add((Long) item.get("staffId"));
+                }
+                ((List<Map<String, Object>>) row.get("items")).add(item);
+            }
+        }
+
+        AppointmentListView view = new AppointmentListView();
+        view.setContent(rows);
+        if (fields.isNormalized()) {
+            if (fields.has("customer")) {
+                Set<Long> customerIds = new LinkedHashSet<>();
+                rows.forEach(row -> customerIds.add((Long) row.get("customerId")));
+                view.setCustomers(dictionary("SELECT u.id, u.firstName, u.lastName FROM User u WHERE u.id IN :ids", customerIds,
+                        tuple -> new CustomerSummary(tuple.get(0, Long.class), tuple.get(1, String.class), tuple.get(2, String.class))));
+            }
+            if (fields.hasItem("service")) {
+                view.setServices(dictionary("SELECT s.id, s.name, s.durationMinutes, s.price FROM Service s WHERE s.id IN :ids", serviceIds,
+                        tuple -> new ServiceSummary(tuple.get(0, Long.class), tuple.get(1, String.class),
+                                tuple.get(2, Integer.class), tuple.get(3, BigDecimal.class))));
+            }
+            if (fields.hasItem("staff")) {
+                view.setStaff(dictionary("SELECT s.id, s.name FROM Staff s WHERE s.id IN :ids", staffIds,
+                        tuple -> new StaffSummary(tuple.get(0, Long.class), tuple.get(1, String.class))));
+            }
+        }
+        return view;
+    }
+
+    private List<Map<String, Object>> loadItems(AppointmentFields fields, Collection<Long> appointmentIds) {
+        boolean normalized = fields.isNormalized();
+        Columns columns = new Columns();
+        columns.add("appointmentId", "ai.appointment.id");
+        columns.add("id", "ai.id");
+        if (fields.hasItem("service")) {
+            columns.add("serviceId", "ai.service.id");
+            if (!normalized) {
+                columns.add("serviceName", "sv.name");
+            }
+        }
+        if (fields.hasItem("staff")) {
+            if (normalized) {
+                columns.add("staffId", "ai.staff.id");
+            } else {
+                columns.add("staffId", "st.id");
+                columns.add("staffName", "st.name");
+            }
+        }
+        if (fields.hasItem("price")) {
+            columns.add("price", "ai.price");
+        }
+        if (fields.hasItem("durationMinutes")) {
+            columns.add("durationMinutes", "ai.durationMinutes");
+        }
+        if (fields.hasItem("scheduledTime")) {
+            columns.add("scheduledTime", "ai.scheduledTime");
+        }
+        if (fields.hasItem("endTime")) {
+            columns.add("endTime", "ai.endTime");
+        }
+        if (fields.hasItem("status")) {
+            columns.add("status", "ai.status");
+        }
+
+        String jpql = "SELECT " + columns.select() + " FROM AppointmentItem ai" +
+                (fields.hasItem("service") && !normalized ? " JOIN ai.service sv" : "") +
+                (fields.hasItem("staff") && !normalized ? " LEFT JOIN ai.staff st" : "") +
+                " WHERE ai.appointment.id IN :ids ORDER BY ai.scheduledTime ASC, ai.id ASC";
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (List<Long> chunk : chunks(appointmentIds)) {
+            for (Tuple tuple : entityManager.createQuery(jpql, Tuple.class).setParameter("ids", chunk).getResultList()) {
+                Map<String, Object> values = columns.read(tuple);
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("appointmentId", values.get("appointmentId"));
+                for (String field : AppointmentFields.ITEM_FIELDS) {
+                    switch (field) {
+                        case "service" -> {
+                            if (!fields.hasItem("service")) {
+                                continue;
+                            }
+                            if (normalized) {
+                                item.put("serviceId", values.get("serviceId"));
+                            } else {
+                                item.put("service", new ServiceSummary((Long) values.get("serviceId"),
+                                        (String) values.get("serviceName"), null, null));
+                            }
+                        }
+                        case "staff" -> {
+                            if (!fields.hasItem("staff")) {
+                                continue;
+                            }
+                            if (normalized) {
+                                item.put("staffId", values.get("staffId"));
+                            } else {
+                                item.put("staff", values.get("staffId") == null ? null
+                                        : new StaffSummary((Long) values.get("staffId"), (String) values.get("staffName")));
+                            }
+                        }
+                        case "status" -> {
+                            if (fields.hasItem("status")) {
+                                item.put("status", ((Enum<?>) values.get("status")).name());
+                            }
+                        }
+                        default -> {
+                            if (values.containsKey(field)) {
+                                item.put(field, values.get(field));
+                            }
+                        }
+                    }
+                }
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    private <T> Map<Long, T> dictionary(String jpql, Set<Long> ids, Function<Tuple, T> mapper) {
+        Map<Long, T> dictionary = new LinkedHashMap<>();
+        for (List<Long> chunk : chunks(ids)) {
+            for (Tuple tuple : entityManager.createQuery(jpql, Tuple.class).setParameter("ids", chunk).getResultList()) {
+                dictionary.put(tuple.get(0, Long.class), mapper.apply(tuple));
+            }
+        }
+        return dictionary;
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int start = 0; start < all.size(); start += IN_CHUNK) {
+            chunks.add(all.subList(start, Math.min(all.size(), start + IN_CHUNK)));
+        }
+        return chunks;
+    }
+
+    /**
+     * Select list with a name for every position
+     */
+    private static final class Columns {
+        private final List<String> names = new ArrayList<>();
+        private final List<String> expressions = new ArrayList<>();
+
+        void add(String name, String expression) {
+            names.add(name);
+            expressions.add(expression);
+        }
+
+        String select() {
+            return String.join(", ", expressions);
+        }
+
+        Map<String, Object> read(Tuple tuple) {
+            Map<String, Object> values = new HashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                values.put(names.get(i), tuple.get(i));
+            }
+            return values;
+        }
+    }
+}
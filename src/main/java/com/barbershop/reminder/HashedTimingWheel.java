@@ -0,0 +1,177 @@
+package com.barbershop.reminder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel (Varghese & Lauck) for a large number of keyed timers.
+ *
+ * Timers are hashed into {@code wheelSize} buckets by their deadline tick; timers further away
+ * than one rotation share a bucket and are skipped until their tick is reached. Schedule and
+ * cancel are O(1), advancing one tick only touches one bucket. The wheel is driven by the
+ * caller through {@link #advanceTo(long)}, so it has no thread of its own and is easy to test.
+ *
+ * Scheduling an existing key replaces its timer. All methods are thread-safe.
+ */
+public class HashedTimingWheel<K, V> {
+
+    private final long tickMillis;
+    private final int mask;
+    private final Bucket<K, V>[] wheel;
+    private final Map<K, Timer<K, V>> timers = new HashMap<>();
+    private final long originMillis;
+
+    // next tick to be processed
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(Duration tick, int wheelSize, long originMillis) {
+        if (tick.toMillis() <= 0) {
+            throw new IllegalArgumentException("tick must be at least 1 ms");
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of two");
+        }
+        this.tickMillis = tick.toMillis();
+        this.mask = wheelSize - 1;
+        this.wheel = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new Bucket<>();
+        }
+        this.originMillis = originMillis;
+        this.currentTick = tickOf(originMillis);
+    }
+
+    /**
+     * Schedule (or reschedule) a timer; deadlines in the past fire on the next tick
+     */
+    public synchronized void schedule(K key, long deadlineMillis, V value) {
+        cancel(key);
+
+        long deadlineTick = Math.max(ceilTick(deadlineMillis), currentTick);
+        Timer<K, V> timer = new Timer<>(key, value, deadlineMillis, deadlineTick);
+        wheel[(int) (deadlineTick & mask)].add(timer);
+        timers.put(key, timer);
+    }
+
+    /**
+     * Cancel a pending timer; returns false if it was unknown or already fired
+     */
+    public synchronized boolean cancel(K key) {
+        Timer<K, V> timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        timer.bucket.remove(timer);
+        return true;
+    }
+
+    public synchronized boolean contains(K key) {
+        return timers.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return timers.size();
+    }
+
+    /**
+     * Process every tick up to {@code nowMillis} and return the values of the timers that
+     * expired, in deadline order
+     */
+    public synchronized List<V> advanceTo(long nowMillis) {
+        long targetTick = tickOf(nowMillis);
+        if (targetTick < currentTick) {
+            return List.of();
+        }
+
+        // after a long pause every bucket is visited once instead of once per missed tick
+        long ticks = Math.min(targetTick - currentTick + 1, wheel.length);
+        List<Timer<K, V>> expired = new ArrayList<>();
+        for (long i = 0; i < ticks; i++) {
+            wheel[(int) ((currentTick + i) & mask)].expire(targetTick, expired);
+        }
+        currentTick = targetTick + 1;
+
+        expired.sort((a, b) -> Long.compare(a.deadlineMillis, b.deadlineMillis));
+        List<V> values = new ArrayList<>(expired.size());
+        for (Timer<K, V> timer : expired) {
+            timers.remove(timer.key);
+            values.add(timer.value);
+        }
+        return values;
+    }
+
+    private long tickOf(long millis) {
+        return Math.floorDiv(millis - originMillis, tickMillis);
+    }
+
+    private long ceilTick(long millis) {
+        return -Math.floorDiv(originMillis - millis, tickMillis);
+    }
+
+    private static final class Timer<K, V> {
+        final K key;
+        final V value;
+        final long deadlineMillis;
+        final long deadlineTick;
+        Bucket<K, V> bucket;
+        Timer<K, V> prev;
+        Timer<K, V> next;
+
+        Timer(K key, V value, long deadlineMillis, long deadlineTick) {
+            this.key = key;
+            this.value = value;
+            this.deadlineMillis = deadlineMillis;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list so a cancelled timer is unlinked in O(1)
+     */
+    private static final class Bucket<K, V> {
+        Timer<K, V> head;
+        Timer<K, V> tail;
+
+        void add(Timer<K, V> timer) {
+            timer.bucket = this;
+            if (tail == null) {
+                head = tail = timer;
+            } else {
+                tail.next = timer;
+                timer.prev = tail;
+                tail = timer;
+            }
+        }
+
+        void remove(Timer<K, V> timer) {
+            if (timer.prev != null) {
+                timer.prev.next = timer.next;
+            } else {
+                head = timer.next;
+            }
+            if (timer.next != null) {
+                timer.next.prev = timer.prev;
+            } else {
+                tail = timer.prev;
+            }
+            timer.prev = timer.next = null;
+            timer.bucket = null;
+        }
+
+        void expire(long upToTick, List<Timer<K, V>> expired) {
+            Timer<K, V> timer = head;
+            while (timer != null) {
+                Timer<K, V> next = timer.next;
+                if (timer.deadlineTick <= upToTick) {
+                    remove(timer);
+                    expired.add(timer);
+                }
+                timer = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.barbershop.reminder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local stub sender that only logs; used when no ReminderSender bean is defined
+ */
+@Slf4j
+public class LoggingReminderSender implements ReminderSender {
+
+    @Override
+    public void send(Reminder reminder) {
+        ReminderTarget target = reminder.getTarget();
+        log.info("Reminder {} -> customer {}: {} at {} (appointment {}, item {})",
+                reminder.getType(), target.getCustomerId(), target.getServiceName(),
+                target.getScheduledTime(), target.getAppointmentId(), target.getItemId());
+    }
+}
@@ -0,0 +1,28 @@
+package com.barbershop.reminder;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A single reminder due for delivery
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Reminder {
+    private ReminderType type;
+    private ReminderTarget target;
+    private LocalDateTime dueAt;
+    // shard holding the appointment, for the re-check before sending
+    private String shard;
+
+    /**
+     * Stable key per item and reminder type, used for rescheduling and cancellation
+     */
+    public String key() {
+        return target.getItemId() + ":" + type;
+    }
+}
@@ -0,0 +1,220 @@
+package com.barbershop.reminder;
+
+import com.barbershop.event.AppointmentEvent;
+import com.barbershop.event.AppointmentEventConsumer;
+import com.barbershop.repository.AppointmentItemRepository;
+import com.barbershop.sharding.BranchContext;
+import com.barbershop.sharding.ShardDirectory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Sends reminders 24h and 2h before every appointment item.
+ *
+ * Only reminders due within a sliding window ({@code reminder.window-hours}) are held in a
+ * hashed timing wheel, so memory is bounded by the window rather than by all future bookings.
+ * The window is extended periodically from the database with an indexed range query on
+ * {@code scheduledTime}; appointment events from the outbox keep the wheel in sync in between.
+ * Items are re-checked against the database right before sending, which covers any race between
+ * a window refill and a cancellation. Item ids are unique across shards, so one wheel serves
+ * all of them.
+ *
+ * Every node fills its own wheel, so a reminder is claimed in the database before it is sent
+ * ({@code claimReminder}): only the node whose conditional update hits the row sends it. A
+ * reminder whose sender fails after the claim is not sent again.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "reminder", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ReminderScheduler implements AppointmentEventConsumer {
+
+    private final AppointmentItemRepository appointmentItemRepository;
+    private final ReminderSender sender;
+    private final ShardDirectory shardDirectory;
+    private final TransactionTemplate transactionTemplate;
+    private final HashedTimingWheel<String, Reminder> wheel;
+    private final Duration window;
+
+    // appointment id -> wheel keys of its reminders, for cancellation
+    private final Map<Long, Set<String>> keysByAppointment = new HashMap<>();
+
+    // reminders due up to this instant have been loaded into the wheel
+    private LocalDateTime horizon;
+
+    private final Counter sentCounter;
+    private final Counter skippedCounter;
+    private final Counter failedCounter;
+
+    public ReminderScheduler(AppointmentItemRepository appointmentItemRepository,
+                             ObjectProvider<ReminderSender> senders,
+                             ShardDirectory shardDirectory,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${reminder.tick-ms:1000}") long tickMs,
+                             @Value("${reminder.wheel-size:8192}") int wheelSize,
+                             @Value("${reminder.window-hours:6}") long windowHours) {
+        this.appointmentItemRepository = appointmentItemRepository;
+        this.sender = senders.getIfAvailable(LoggingReminderSender::new);
+        this.shardDirectory = shardDirectory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.window = Duration.ofHours(windowHours);
+        this.horizon = LocalDateTime.now();
+        this.wheel = new HashedTimingWheel<>(Duration.ofMillis(tickMs), wheelSize, toMillis(horizon));
+
+        this.sentCounter = meterRegistry.counter("reminders.sent");
+        this.skippedCounter = meterRegistry.counter("reminders.skipped");
+        this.failedCounter = meterRegistry.counter("reminders.failed");
+        Gauge.builder("reminders.scheduled", wheel, HashedTimingWheel::size).register(meterRegistry);
+    }
+
+    /**
+     * Extend the window: load reminders falling due between the old and the new horizon
+     */
+    @Scheduled(fixedDelayString = "${reminder.refill-interval-ms:300000}")
+    public void refill() {
+        LocalDateTime from;
+        LocalDateTime to = LocalDateTime.now().plus(window);
+        synchronized (this) {
+            from = horizon;
+            if (!to.isAfter(from)) {
+                return;
+            }
+            // move the horizon first so both the loaded items and concurrent events land in the wheel
+            horizon = to;
+        }
+
+        int loaded = 0;
+        for (String shard : shardDirectory.shards()) {
+            for (ReminderType type : ReminderType.values()) {
+                List<ReminderTarget> targets = BranchContext.callOnShard(shard, () ->
+                        appointmentItemRepository.findReminderTargets(from.plus(type.getLead()), to.plus(type.getLead())));
+                for (ReminderTarget target : targets) {
+                    loaded += schedule(target, type, shard, LocalDateTime.now()) ? 1 : 0;
+                }
+            }
+        }
+
+        if (loaded > 0) {
+            log.debug("Loaded {} reminders due until {}", loaded, to);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${reminder.tick-ms:1000}")
+    public void tick() {
+        List<Reminder> due = wheel.advanceTo(System.currentTimeMillis());
+        if (due.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            due.forEach(this::unindex);
+        }
+
+        Set<Long> remindable = new HashSet<>();
+        due.stream()
+                .collect(Collectors.groupingBy(Reminder::getShard,
+                        Collectors.mapping(reminder -> reminder.getTarget().getItemId(), Collectors.toSet())))
+                .forEach((shard, itemIds) -> remindable.addAll(BranchContext.callOnShard(shard, () ->
+                        appointmentItemRepository.findRemindableItemIds(itemIds))));
+
+        for (Reminder reminder : due) {
+            if (!remindable.contains(reminder.getTarget().getItemId()) || !claim(reminder)) {
+                skippedCounter.increment();
+                continue;
+            }
+            try {
+                sender.send(reminder);
+                sentCounter.increment();
+            } catch (Exception ex) {
+                failedCounter.increment();
+                log.warn("Could not send {} reminder for appointment item {}: {}",
+                        reminder.getType(), reminder.getTarget().getItemId(), ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Keep the wheel in sync with appointment changes published through the outbox
+     */
+    @Override
+    public void onEvent(AppointmentEvent event) {
+        cancelAppointment(event.getAppointmentId());
+
+        switch (event.getType()) {
+            case CANCELLED, COMPLETED, NO_SHOW -> {
+                // nothing to remind about any more
+            }
+            default -> {
+                // events are delivered while bound to the shard that wrote them
+                String shard = shardDirectory.currentShard();
+                LocalDateTime now = LocalDateTime.now();
+                for (ReminderTarget target : appointmentItemRepository.findReminderTargetsByAppointment(event.getAppointmentId())) {
+                    for (ReminderType type : ReminderType.values()) {
+                        schedule(target, type, shard, now);
+                    }
+                }
+            }
+        }
+    }
+
+    public int scheduledCount() {
+        return wheel.size();
+    }
+
+    private synchronized boolean schedule(ReminderTarget target, ReminderType type, String shard, LocalDateTime now) {
+        LocalDateTime dueAt = target.getScheduledTime().minus(type.getLead());
+        // past reminders are not sent late; later ones are picked up by a refill
+        if (!dueAt.isAfter(now) || dueAt.isAfter(horizon)) {
+            return false;
+        }
+
+        Reminder reminder = new Reminder(type, target, dueAt, shard);
+        wheel.schedule(reminder.key(), toMillis(dueAt), reminder);
+        keysByAppointment.computeIfAbsent(target.getAppointmentId(), id -> new HashSet<>()).add(reminder.key());
+        return true;
+    }
+
+    private boolean claim(Reminder reminder) {
+        return BranchContext.callOnShard(reminder.getShard(), () -> transactionTemplate.execute(status ->
+                appointmentItemRepository.claimReminder(reminder.getTarget().getItemId(), reminder.getDueAt()))) == 1;
+    }
+
+    private synchronized void cancelAppointment(Long appointmentId) {
+        Set<String> keys = keysByAppointment.remove(appointmentId);
+        if (keys != null) {
+            keys.forEach(wheel::cancel);
+        }
+    }
+
+    private void unindex(Reminder reminder) {
+        Set<String> keys = keysByAppointment.get(reminder.getTarget().getAppointmentId());
+        if (keys != null) {
+            keys.remove(reminder.key());
+            if (keys.isEmpty()) {
+                keysByAppointment.remove(reminder.getTarget().getAppointmentId());
+            }
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,11 @@
+package com.barbershop.reminder;
+
+/**
+ * Delivery channel for appointment reminders (SMS, e-mail, push).
+ *
+ * Throwing an exception counts the reminder as failed; it is not retried.
+ */
+public interface ReminderSender {
+
+    void send(Reminder reminder) throws Exception;
+}
@@ -0,0 +1,22 @@
+package com.barbershop.reminder;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Appointment item that reminders are sent for (JPQL projection)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReminderTarget {
+    private Long appointmentId;
+    private Long itemId;
+    private Long customerId;
+    private Long staffId;
+    private String serviceName;
+    private LocalDateTime scheduledTime;
+}
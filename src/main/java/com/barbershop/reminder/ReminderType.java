@@ -0,0 +1,21 @@
+package com.barbershop.reminder;
+
+import java.time.Duration;
+
+public enum ReminderType {
+    DAY_BEFORE(Duration.ofHours(24)),
+    TWO_HOURS_BEFORE(Duration.ofHours(2));
+
+    private final Duration lead;
+
+    ReminderType(Duration lead) {
+        this.lead = lead;
+    }
+
+    /**
+     * How long before the scheduled time the reminder goes out
+     */
+    public Duration getLead() {
+        return lead;
+    }
+}
@@ -0,0 +1,110 @@
+package com.barbershop.report;
+
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.model.dto.response.BranchReportResponse;
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.sharding.BranchContext;
+import com.barbershop.sharding.ShardDirectory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cross-branch admin reports. Every shard is queried in parallel for its branches' totals and
+ * the partial results are merged; a shard that fails or times out is reported instead of
+ * failing the whole report.
+ */
+@Slf4j
+@Service
+public class BranchReportService {
+
+    private final AppointmentRepository appointmentRepository;
+    private final ShardDirectory shardDirectory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+
+    @Value("${sharding.report-timeout-ms:10000}")
+    private long timeoutMs;
+
+    public BranchReportService(AppointmentRepository appointmentRepository,
+                               ShardDirectory shardDirectory,
+                               PlatformTransactionManager transactionManager) {
+        this.appointmentRepository = appointmentRepository;
+        this.shardDirectory = shardDirectory;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.executor = Executors.newFixedThreadPool(shardDirectory.shards().size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public BranchReportResponse getBranchReport(LocalDateTime from, LocalDateTime to) {
+        if (!to.isAfter(from)) {
+            throw new BadRequestException("Report end must be after its start");
+        }
+
+        Map<String, CompletableFuture<List<BranchStatusTotal>>> futures = new LinkedHashMap<>();
+        for (String shard : shardDirectory.shards()) {
+            futures.put(shard, CompletableFuture.supplyAsync(() -> BranchContext.callOnShard(shard, () ->
+                    readOnlyTransaction.execute(status -> appointmentRepository.summarizeByBranch(from, to))), executor));
+        }
+
+        Map<String, BranchReportResponse.BranchTotals> byBranch = new LinkedHashMap<>();
+        for (String branch : shardDirectory.branches()) {
+            byBranch.put(branch, new BranchReportResponse.BranchTotals(
+                    branch, shardDirectory.shardFor(branch), 0L, new LinkedHashMap<>(), BigDecimal.ZERO));
+        }
+
+        List<String> failedShards = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        for (Map.Entry<String, CompletableFuture<List<BranchStatusTotal>>> entry : futures.entrySet()) {
+            List<BranchStatusTotal> totals;
+            try {
+                totals = entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (Exception ex) {
+                entry.getValue().cancel(true);
+                failedShards.add(entry.getKey());
+                byBranch.values().removeIf(branch -> branch.getShard().equals(entry.getKey()));
+                log.warn("Branch report: shard {} failed: {}", entry.getKey(), ex.toString());
+                continue;
+            }
+            totals.forEach(total -> merge(byBranch, entry.getKey(), total));
+        }
+
+        long totalAppointments = byBranch.values().stream().mapToLong(BranchReportResponse.BranchTotals::getAppointments).sum();
+        BigDecimal totalRevenue = byBranch.values().stream()
+                .map(BranchReportResponse.BranchTotals::getRevenue)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return new BranchReportResponse(from, to, new ArrayList<>(byBranch.values()),
+                totalAppointments, totalRevenue, failedShards);
+    }
+
+    private static void merge(Map<String, BranchReportResponse.BranchTotals> byBranch, String shard, BranchStatusTotal total) {
+        // rows of a branch that is no longer configured are still counted
+        BranchReportResponse.BranchTotals branch = byBranch.computeIfAbsent(total.getBranchId(), id ->
+                new BranchReportResponse.BranchTotals(id, shard, 0L, new LinkedHashMap<>(), BigDecimal.ZERO));
+        branch.setAppointments(branch.getAppointments() + total.getAppointments());
+        branch.getAppointmentsByStatus().merge(total.getStatus().name(), total.getAppointments(), Long::sum);
+        if (total.getStatus() == Appointment.AppointmentStatus.COMPLETED && total.getRevenue() != null) {
+            branch.setRevenue(branch.getRevenue().add(total.getRevenue()));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.barbershop.report;
+
+import com.barbershop.model.entity.Appointment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Appointment count and booked revenue of one branch and status (JPQL projection)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BranchStatusTotal {
+    private String branchId;
+    private Appointment.AppointmentStatus status;
+    private Long appointments;
+    private BigDecimal revenue;
+}
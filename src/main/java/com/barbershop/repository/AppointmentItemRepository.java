@@ -1,35 +1,126 @@
 package com.barbershop.repository;
 
+import com.barbershop.analytics.BookedInterval;
+import com.barbershop.event.AppointmentStaff;
 import com.barbershop.model.entity.AppointmentItem;
 import com.barbershop.model.entity.Staff;
+import com.barbershop.reminder.ReminderTarget;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface AppointmentItemRepository extends JpaRepository<AppointmentItem, Long> {
 
     @Query("SELECT ai FROM AppointmentItem ai WHERE ai.staff = :staff AND " +
             "ai.scheduledTime BETWEEN :start AND :end AND " +
-            "ai.status NOT IN ('CANCELLED')")
+            "ai.status NOT IN ('CANCELLED', 'NO_SHOW')")
     List<AppointmentItem> findStaffSchedule(
             @Param("staff") Staff staff,
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end
     );
 
-    // Simplified conflict check - we'll do time calculation in service layer
+    // Items of the staff member overlapping [startTime, endTime)
     @Query("SELECT ai FROM AppointmentItem ai WHERE " +
             "ai.staff = :staff AND " +
-            "ai.scheduledTime BETWEEN :startTime AND :endTime AND " +
-            "ai.status NOT IN ('CANCELLED')")
+            "ai.endTime > :startTime AND ai.scheduledTime < :endTime AND " +
+            "ai.status NOT IN ('CANCELLED', 'NO_SHOW')")
     List<AppointmentItem> findConflictingAppointments(
             @Param("staff") Staff staff,
             @Param("startTime") LocalDateTime startTime,
             @Param("endTime") LocalDateTime endTime
     );
-}
\ No newline at end of file
+
+    // Everything a staff member is booked for from the given time on, loaded into a partition owner's schedule
+    @Query("SELECT ai FROM AppointmentItem ai WHERE ai.staff.id = :staffId AND " +
+            "ai.scheduledTime >= :from AND ai.status NOT IN ('CANCELLED', 'NO_SHOW')")
+    List<AppointmentItem> findActiveByStaffFrom(@Param("staffId") Long staffId, @Param("from") LocalDateTime from);
+
+    @Query("SELECT new com.barbershop.reminder.ReminderTarget(a.id, ai.id, a.customer.id, s.id, sv.name, ai.scheduledTime) " +
+            "FROM AppointmentItem ai JOIN ai.appointment a JOIN ai.service sv LEFT JOIN ai.staff s " +
+            "WHERE ai.scheduledTime > :from AND ai.scheduledTime <= :to AND " +
+            "ai.status NOT IN ('CANCELLED', 'COMPLETED', 'NO_SHOW') AND a.status IN ('PENDING', 'CONFIRMED')")
+    List<ReminderTarget> findReminderTargets(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    @Query("SELECT new com.barbershop.reminder.ReminderTarget(a.id, ai.id, a.customer.id, s.id, sv.name, ai.scheduledTime) " +
+            "FROM AppointmentItem ai JOIN ai.appointment a JOIN ai.service sv LEFT JOIN ai.staff s " +
+            "WHERE a.id = :appointmentId AND " +
+            "ai.status NOT IN ('CANCELLED', 'COMPLETED', 'NO_SHOW') AND a.status IN ('PENDING', 'CONFIRMED')")
+    List<ReminderTarget> findReminderTargetsByAppointment(@Param("appointmentId") Long appointmentId);
+
+    // Items among the given ones that still need reminders
+    @Query("SELECT ai.id FROM AppointmentItem ai WHERE ai.id IN :ids AND " +
+            "ai.status NOT IN ('CANCELLED', 'COMPLETED', 'NO_SHOW') AND ai.appointment.status IN ('PENDING', 'CONFIRMED')")
+    List<Long> findRemindableItemIds(@Param("ids") Collection<Long> ids);
+
+    // One node wins each reminder: the marker only moves forward, and reminders of an item fall due in order
+    @Modifying
+    @Query("UPDATE AppointmentItem ai SET ai.reminderDueAt = :dueAt " +
+            "WHERE ai.id = :id AND (ai.reminderDueAt IS NULL OR ai.reminderDueAt < :dueAt)")
+    int claimReminder(@Param("id") Long id, @Param("dueAt") LocalDateTime dueAt);
+
+    // Joined to the appointment so only the current branch is seen
+    @Query("SELECT DISTINCT a.id FROM AppointmentItem ai JOIN ai.appointment a " +
+            "WHERE ai.updatedAt >= :since AND ai.updatedAt < :until")
+    List<Long> findAppointmentIdsChangedBetween(@Param("since") LocalDateTime since, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("DELETE FROM AppointmentItem ai WHERE ai.appointment.id IN :appointmentIds")
+    int deleteByAppointmentIds(@Param("appointmentIds") Collection<Long> appointmentIds);
+
+    @Query("SELECT DISTINCT new com.barbershop.event.AppointmentStaff(ai.appointment.id, ai.staff.id) " +
+            "FROM AppointmentItem ai WHERE ai.appointment.id IN :appointmentIds AND ai.staff IS NOT NULL")
+    List<AppointmentStaff> findStaffByAppointmentIds(@Param("appointmentIds") Collection<Long> appointmentIds);
+
+    @Modifying
+    @Query("UPDATE AppointmentItem ai SET ai.status = :status, ai.updatedAt = :now, ai.version = ai.version + 1 " +
+            "WHERE ai.appointment.id IN :appointmentIds AND ai.status NOT IN :kept")
+    int updateStatusByAppointmentIds(
+            @Param("appointmentIds") Collection<Long> appointmentIds,
+            @Param("status") AppointmentItem.ItemStatus status,
+            @Param("kept") Collection<AppointmentItem.ItemStatus> kept,
+            @Param("now") LocalDateTime now
+    );
+
+    @Query("SELECT ai.id FROM AppointmentItem ai WHERE ai.endTime IS NULL")
+    List<Long> findIdsWithoutEndTime(Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE AppointmentItem ai SET ai.endTime = ai.scheduledTime + ai.durationMinutes minute WHERE ai.id IN :ids")
+    int fillEndTime(@Param("ids") Collection<Long> ids);
+
+    // Staffed items overlapping [from, to), cancelled and no-show ones left out; read row by row, call inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.barbershop.analytics.BookedInterval(ai.staff.id, ai.scheduledTime, ai.endTime) " +
+            "FROM AppointmentItem ai JOIN ai.appointment a " +
+            "WHERE ai.staff IS NOT NULL AND ai.endTime > :from AND ai.scheduledTime < :to AND " +
+            "ai.status NOT IN ('CANCELLED', 'NO_SHOW')")
+    Stream<BookedInterval> streamBookedIntervals(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT new com.barbershop.analytics.BookedInterval(ai.staff.id, ai.scheduledTime, ai.endTime) " +
+            "FROM AppointmentItem ai WHERE ai.staff.id IN :staffIds AND " +
+            "ai.endTime > :from AND ai.scheduledTime < :to AND ai.status NOT IN ('CANCELLED', 'NO_SHOW')")
+    List<BookedInterval> findBookedIntervals(
+            @Param("staffIds") Collection<Long> staffIds,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+}
@@ -1,15 +1,23 @@
 package com.barbershop.repository;
 
+import com.barbershop.bulk.AppointmentStatusRow;
+import com.barbershop.crm.VisitLine;
+import com.barbershop.job.OverdueAppointment;
 import com.barbershop.model.entity.Appointment;
 import com.barbershop.model.entity.User;
+import com.barbershop.report.BranchStatusTotal;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,7 +27,8 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
 
     Page<Appointment> findByCustomer(User customer, Pageable pageable);
 
-    @Query("SELECT a FROM Appointment a WHERE a.appointmentDateTime BETWEEN :start AND :end")
+    @Query("SELECT DISTINCT a FROM Appointment a JOIN FETCH a.customer LEFT JOIN FETCH a.items i " +
+            "LEFT JOIN FETCH i.service LEFT JOIN FETCH i.staff WHERE a.appointmentDateTime BETWEEN :start AND :end")
     List<Appointment> findAppointmentsBetween(
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end
@@ -34,11 +43,122 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
             Pageable pageable
     );
 
-    @Query("SELECT a FROM Appointment a WHERE " +
+    @Query("SELECT DISTINCT a FROM Appointment a JOIN FETCH a.customer LEFT JOIN FETCH a.items i " +
+            "LEFT JOIN FETCH i.service LEFT JOIN FETCH i.staff WHERE " +
             "DATE(a.appointmentDateTime) = DATE(:date) " +
             "ORDER BY a.appointmentDateTime ASC")
     List<Appointment> findByDate(@Param("date") LocalDateTime date);
 
-    @Query("SELECT a FROM Appointment a LEFT JOIN FETCH a.items WHERE a.id = :id")
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.customer LEFT JOIN FETCH a.items i " +
+            "LEFT JOIN FETCH i.service LEFT JOIN FETCH i.staff WHERE a.id = :id")
     Appointment findByIdWithItems(@Param("id") Long id);
-}
\ No newline at end of file
+
+    // Everything AppointmentResponse reads, in one statement
+    @Query("SELECT DISTINCT a FROM Appointment a JOIN FETCH a.customer LEFT JOIN FETCH a.items i " +
+            "LEFT JOIN FETCH i.service LEFT JOIN FETCH i.staff WHERE a.id IN :ids ORDER BY a.id")
+    List<Appointment> findAllWithDetails(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT a.id FROM Appointment a WHERE a.updatedAt >= :since AND a.updatedAt < :until")
+    List<Long> findIdsChangedBetween(@Param("since") LocalDateTime since, @Param("until") LocalDateTime until);
+
+    @Query("SELECT a.id FROM Appointment a WHERE a.appointmentDateTime >= :from")
+    List<Long> findIdsFrom(@Param("from") LocalDateTime from);
+
+    // Keyset page over (appointmentDateTime, id), served by idx_appointment_status_time
+    @Query("SELECT new com.barbershop.job.OverdueAppointment(a.id, a.customer.id, a.appointmentDateTime, a.branchId) " +
+            "FROM Appointment a WHERE a.status IN ('PENDING', 'CONFIRMED') AND " +
+            "a.appointmentDateTime < :cutoff AND " +
+            "(a.appointmentDateTime > :afterTime OR (a.appointmentDateTime = :afterTime AND a.id > :afterId)) " +
+            "ORDER BY a.appointmentDateTime ASC, a.id ASC")
+    List<OverdueAppointment> findOverdueAfter(
+            @Param("cutoff") LocalDateTime cutoff,
+            @Param("afterTime") LocalDateTime afterTime,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    // Rows confirmed or completed since they were read are left alone
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = 'NO_SHOW', a.updatedAt = :now, a.version = a.version + 1 " +
+            "WHERE a.id IN :ids AND a.status IN ('PENDING', 'CONFIRMED')")
+    int markNoShow(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Row locks in id order on the rows still in one of the statuses; an update of exactly these ids then changes all of them
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a.id FROM Appointment a WHERE a.id IN :ids AND a.status IN :statuses ORDER BY a.id")
+    List<Long> lockInStatus(
+            @Param("ids") Collection<Long> ids,
+            @Param("statuses") Collection<Appointment.AppointmentStatus> statuses
+    );
+
+    // Closed appointments past the archive horizon; reviewed ones stay because reviews reference them
+    @Query("SELECT a.id FROM Appointment a WHERE a.status IN ('COMPLETED', 'CANCELLED', 'NO_SHOW') AND " +
+            "a.appointmentDateTime < :cutoff AND " +
+            "NOT EXISTS (SELECT r.id FROM Review r WHERE r.appointment = a) " +
+            "ORDER BY a.appointmentDateTime ASC, a.id ASC")
+    List<Long> findArchivableIds(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Appointment a WHERE a.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.barbershop.report.BranchStatusTotal(a.branchId, a.status, COUNT(DISTINCT a.id), SUM(i.price)) " +
+            "FROM Appointment a LEFT JOIN a.items i " +
+            "WHERE a.appointmentDateTime >= :from AND a.appointmentDateTime < :to " +
+            "GROUP BY a.branchId, a.status")
+    List<BranchStatusTotal> summarizeByBranch(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT new com.barbershop.bulk.AppointmentStatusRow(a.id, a.customer.id, a.status, a.appointmentDateTime, a.branchId) " +
+            "FROM Appointment a WHERE a.id IN :ids")
+    List<AppointmentStatusRow> findStatusRows(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.barbershop.bulk.AppointmentStatusRow(a.id, a.customer.id, a.status, a.appointmentDateTime, a.branchId) " +
+            "FROM Appointment a WHERE a.appointmentDateTime >= :from AND a.appointmentDateTime < :to AND " +
+            "(:status IS NULL OR a.status = :status) " +
+            "ORDER BY a.appointmentDateTime ASC, a.id ASC")
+    List<AppointmentStatusRow> findStatusRowsBetween(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("status") Appointment.AppointmentStatus status,
+            Pageable pageable
+    );
+
+    // Rows moved on by someone else since they were read are left alone
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = :to, a.updatedAt = :now, a.version = a.version + 1 " +
+            "WHERE a.id IN :ids AND a.status IN :from")
+    int transition(
+            @Param("ids") Collection<Long> ids,
+            @Param("from") Collection<Appointment.AppointmentStatus> from,
+            @Param("to") Appointment.AppointmentStatus to,
+            @Param("now") LocalDateTime now
+    );
+
+    @Query("SELECT new com.barbershop.crm.VisitLine(a.id, a.branchId, a.customer.id, a.appointmentDateTime, a.status, " +
+            "ai.status, ai.service.id, ai.staff.id, ai.price) " +
+            "FROM Appointment a LEFT JOIN a.items ai WHERE a.id IN :ids")
+    List<VisitLine> findVisitLines(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.barbershop.crm.VisitLine(a.id, a.branchId, a.customer.id, a.appointmentDateTime, a.status, " +
+            "ai.status, ai.service.id, ai.staff.id, ai.price) " +
+            "FROM Appointment a LEFT JOIN a.items ai WHERE a.customer.id IN :customerIds AND a.status IN :statuses")
+    List<VisitLine> findVisitLinesByCustomers(
+            @Param("customerIds") Collection<Long> customerIds,
+            @Param("statuses") Collection<Appointment.AppointmentStatus> statuses
+    );
+
+    @Query("SELECT DISTINCT a.customer.id FROM Appointment a WHERE a.status IN :statuses")
+    List<Long> findCustomerIdsWithStatus(@Param("statuses") Collection<Appointment.AppointmentStatus> statuses);
+
+    @Query("SELECT a.id FROM Appointment a WHERE a.endDateTime IS NULL")
+    List<Long> findIdsWithoutTotals(Pageable pageable);
+
+    // Same values as Appointment.recalculateTotals(), for rows written before the columns existed
+    @Modifying
+    @Query("UPDATE Appointment a SET " +
+            "a.totalPrice = COALESCE((SELECT SUM(ai.price) FROM AppointmentItem ai WHERE ai.appointment = a), 0), " +
+            "a.totalDurationMinutes = COALESCE((SELECT SUM(ai.durationMinutes) FROM AppointmentItem ai WHERE ai.appointment = a), 0), " +
+            "a.endDateTime = COALESCE((SELECT MAX(ai.endTime) FROM AppointmentItem ai WHERE ai.appointment = a), a.appointmentDateTime) " +
+            "WHERE a.id IN :ids")
+    int fillTotals(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,81 @@
+package com.barbershop.repository;
+
+import com.barbershop.analytics.BookedInterval;
+import com.barbershop.crm.VisitLine;
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.ArchivedAppointment;
+import com.barbershop.model.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface ArchivedAppointmentRepository extends JpaRepository<ArchivedAppointment, Long> {
+
+    long countByCustomerAndBranchId(User customer, String branchId);
+
+    // Offset window rather than a Pageable: the caller continues the hot table's page here
+    @Query("SELECT a FROM ArchivedAppointment a WHERE a.customer = :customer AND a.branchId = :branchId " +
+            "ORDER BY a.appointmentDateTime DESC, a.id DESC LIMIT :limit OFFSET :offset")
+    List<ArchivedAppointment> findCustomerWindow(
+            @Param("customer") User customer,
+            @Param("branchId") String branchId,
+            @Param("offset") int offset,
+            @Param("limit") int limit
+    );
+
+    @Query("SELECT a FROM ArchivedAppointment a LEFT JOIN FETCH a.items WHERE a.id = :id AND a.branchId = :branchId")
+    ArchivedAppointment findByIdWithItems(@Param("id") Long id, @Param("branchId") String branchId);
+
+    @Modifying
+    @Query("INSERT INTO ArchivedAppointment (id, branchId, customer, appointmentDateTime, status, notes, createdAt, updatedAt, archivedAt) " +
+            "SELECT a.id, a.branchId, a.customer, a.appointmentDateTime, a.status, a.notes, a.createdAt, a.updatedAt, :now " +
+            "FROM Appointment a WHERE a.id IN :ids")
+    int copyAppointments(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("INSERT INTO ArchivedAppointmentItem (id, appointment.id, service, staff, price, durationMinutes, scheduledTime, status) " +
+            "SELECT ai.id, ai.appointment.id, ai.service, ai.staff, ai.price, ai.durationMinutes, ai.scheduledTime, ai.status " +
+            "FROM AppointmentItem ai WHERE ai.appointment.id IN :ids")
+    int copyItems(@Param("ids") Collection<Long> ids);
+
+    // branchId null: every branch on the shard
+    @Query("SELECT new com.barbershop.crm.VisitLine(a.id, a.branchId, a.customer.id, a.appointmentDateTime, a.status, " +
+            "ai.status, ai.service.id, ai.staff.id, ai.price) " +
+            "FROM ArchivedAppointment a LEFT JOIN a.items ai WHERE a.customer.id IN :customerIds AND a.status IN :statuses " +
+            "AND (:branchId IS NULL OR a.branchId = :branchId)")
+    List<VisitLine> findVisitLinesByCustomers(
+            @Param("customerIds") Collection<Long> customerIds,
+            @Param("statuses") Collection<Appointment.AppointmentStatus> statuses,
+            @Param("branchId") String branchId
+    );
+
+    @Query("SELECT DISTINCT a.customer.id FROM ArchivedAppointment a WHERE a.status IN :statuses")
+    List<Long> findCustomerIdsWithStatus(@Param("statuses") Collection<Appointment.AppointmentStatus> statuses);
+
+    // Archived items have no stored end; those starting before the range are filtered by the caller
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.barbershop.analytics.BookedInterval(ai.staff.id, ai.scheduledTime, " +
+            "ai.scheduledTime + ai.durationMinutes minute) " +
+            "FROM ArchivedAppointmentItem ai JOIN ai.appointment a " +
+            "WHERE a.branchId = :branchId AND ai.staff IS NOT NULL AND " +
+            "ai.scheduledTime >= :earliest AND ai.scheduledTime < :to AND ai.status NOT IN ('CANCELLED', 'NO_SHOW')")
+    Stream<BookedInterval> streamBookedIntervals(
+            @Param("earliest") LocalDateTime earliest,
+            @Param("to") LocalDateTime to,
+            @Param("branchId") String branchId
+    );
+}
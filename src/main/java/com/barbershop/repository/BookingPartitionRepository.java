@@ -0,0 +1,20 @@
+package com.barbershop.repository;
+
+import com.barbershop.model.entity.BookingPartition;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BookingPartitionRepository extends JpaRepository<BookingPartition, Integer> {
+
+    // SELECT ... FOR UPDATE: held until the booking transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM BookingPartition p WHERE p.partitionId = :partitionId")
+    Optional<BookingPartition> findForUpdate(@Param("partitionId") Integer partitionId);
+}
@@ -0,0 +1,22 @@
+package com.barbershop.repository;
+
+import com.barbershop.model.entity.ClusterNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ClusterNodeRepository extends JpaRepository<ClusterNode, String> {
+
+    @Query("SELECT n FROM ClusterNode n WHERE n.leaseExpiresAt > :now ORDER BY n.nodeId")
+    List<ClusterNode> findLive(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM ClusterNode n WHERE n.leaseExpiresAt < :before")
+    int deleteExpiredBefore(@Param("before") LocalDateTime before);
+}
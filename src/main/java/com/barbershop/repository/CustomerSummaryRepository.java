@@ -0,0 +1,54 @@
+package com.barbershop.repository;
+
+import com.barbershop.model.dto.response.CustomerSummaryResponse;
+import com.barbershop.model.entity.CustomerSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CustomerSummaryRepository extends JpaRepository<CustomerSummary, Long> {
+
+    @Query("SELECT s FROM CustomerSummary s WHERE s.branchId = :branchId AND s.customerId IN :customerIds")
+    List<CustomerSummary> findByBranchAndCustomers(
+            @Param("branchId") String branchId,
+            @Param("customerIds") Collection<Long> customerIds
+    );
+
+    // Slice: the page is read with one query, no count
+    @Query("SELECT new com.barbershop.model.dto.response.CustomerSummaryResponse(" +
+            "s.customerId, u.firstName, u.lastName, u.email, u.phone, s.visitCount, s.cancelledCount, " +
+            "s.lastVisitAt, s.lifetimeSpend, s.favouriteServiceId, sv.name, s.favouriteStaffId, st.name) " +
+            "FROM CustomerSummary s JOIN User u ON u.id = s.customerId " +
+            "LEFT JOIN Service sv ON sv.id = s.favouriteServiceId " +
+            "LEFT JOIN Staff st ON st.id = s.favouriteStaffId " +
+            "WHERE s.branchId = :branchId")
+    Slice<CustomerSummaryResponse> findPage(@Param("branchId") String branchId, Pageable pageable);
+
+    @Query("SELECT new com.barbershop.model.dto.response.CustomerSummaryResponse(" +
+            "s.customerId, u.firstName, u.lastName, u.email, u.phone, s.visitCount, s.cancelledCount, " +
+            "s.lastVisitAt, s.lifetimeSpend, s.favouriteServiceId, sv.name, s.favouriteStaffId, st.name) " +
+            "FROM CustomerSummary s JOIN User u ON u.id = s.customerId " +
+            "LEFT JOIN Service sv ON sv.id = s.favouriteServiceId " +
+            "LEFT JOIN Staff st ON st.id = s.favouriteStaffId " +
+            "WHERE s.branchId = :branchId AND s.customerId IN :customerIds")
+    List<CustomerSummaryResponse> findViews(
+            @Param("branchId") String branchId,
+            @Param("customerIds") Collection<Long> customerIds
+    );
+
+    @Query("SELECT DISTINCT s.customerId FROM CustomerSummary s")
+    List<Long> findCustomerIds();
+
+    // branchId null: every branch on the shard
+    @Modifying
+    @Query("DELETE FROM CustomerSummary s WHERE s.customerId IN :customerIds AND (:branchId IS NULL OR s.branchId = :branchId)")
+    int deleteByCustomerIds(@Param("customerIds") Collection<Long> customerIds, @Param("branchId") String branchId);
+}
@@ -0,0 +1,61 @@
+package com.barbershop.repository;
+
+import com.barbershop.idempotency.IdempotencyRecord;
+import com.barbershop.model.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    // A plain insert rather than save(), which would merge into a row another request already claimed
+    @Modifying
+    @Query("INSERT INTO IdempotencyKey (key, fingerprint, createdAt, expiresAt, claimedBy, claimedUntil) " +
+            "VALUES (:key, :fingerprint, :now, :expiresAt, :node, :claimedUntil)")
+    int claim(
+            @Param("key") String key,
+            @Param("fingerprint") String fingerprint,
+            @Param("now") LocalDateTime now,
+            @Param("expiresAt") LocalDateTime expiresAt,
+            @Param("node") String node,
+            @Param("claimedUntil") LocalDateTime claimedUntil
+    );
+
+    // A projection, not the entity: polling must see the row as committed, not a cached instance.
+    // An in-flight claim whose lease ran out reads as no record, so waiters stop waiting.
+    @Query("SELECT new com.barbershop.idempotency.IdempotencyRecord(k.fingerprint, k.responseStatus, k.responseBody) " +
+            "FROM IdempotencyKey k WHERE k.key = :key AND k.expiresAt > :now " +
+            "AND (k.responseStatus IS NOT NULL OR k.claimedUntil > :now)")
+    Optional<IdempotencyRecord> findRecord(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.responseStatus = :status, k.responseBody = :body, k.claimedUntil = NULL " +
+            "WHERE k.key = :key AND k.claimedBy = :node")
+    int complete(@Param("key") String key, @Param("node") String node, @Param("status") int status, @Param("body") String body);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.key = :key AND k.claimedBy = :node AND k.responseStatus IS NULL")
+    int release(@Param("key") String key, @Param("node") String node);
+
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.claimedUntil = :claimedUntil " +
+            "WHERE k.key IN :keys AND k.claimedBy = :node AND k.responseStatus IS NULL")
+    int renew(@Param("keys") Collection<String> keys, @Param("node") String node, @Param("claimedUntil") LocalDateTime claimedUntil);
+
+    // Expired keys, and in-flight claims whose node stopped renewing them
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.key = :key AND (k.expiresAt <= :now OR " +
+            "(k.responseStatus IS NULL AND (k.claimedUntil IS NULL OR k.claimedUntil <= :now)))")
+    int deleteIfExpired(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt < :before")
+    int deleteExpiredBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,60 @@
+package com.barbershop.repository;
+
+import com.barbershop.model.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Unclaimed pending events; appointments with an earlier event waiting for its retry or held by
+    // another dispatcher are left out, so they cannot fill the batch or be delivered out of order
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.status = 'PENDING' AND " +
+            "(e.claimedUntil IS NULL OR e.claimedUntil <= :now) AND NOT EXISTS (" +
+            "SELECT 1 FROM OutboxEvent b WHERE b.aggregateId = e.aggregateId AND b.status = 'PENDING' " +
+            "AND b.id <= e.id AND (b.nextAttemptAt > :now OR b.claimedUntil > :now)) ORDER BY e.id ASC")
+    List<Long> findClaimable(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Rows claimed by someone else in the meantime are left alone
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedBy = :claim, e.claimedUntil = :until " +
+            "WHERE e.id IN :ids AND e.status = 'PENDING' AND (e.claimedUntil IS NULL OR e.claimedUntil <= :now)")
+    int claim(
+            @Param("ids") Collection<Long> ids,
+            @Param("claim") String claim,
+            @Param("now") LocalDateTime now,
+            @Param("until") LocalDateTime until
+    );
+
+    // Appointments of the claim with an earlier pending event outside it: another dispatcher got there first
+    @Query("SELECT DISTINCT e.aggregateId FROM OutboxEvent e WHERE e.claimedBy = :claim AND EXISTS (" +
+            "SELECT 1 FROM OutboxEvent b WHERE b.aggregateId = e.aggregateId AND b.status = 'PENDING' " +
+            "AND b.id < e.id AND (b.claimedBy IS NULL OR b.claimedBy <> :claim))")
+    List<Long> findOvertakenAggregates(@Param("claim") String claim);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedBy = NULL, e.claimedUntil = NULL " +
+            "WHERE e.claimedBy = :claim AND e.aggregateId IN :aggregateIds")
+    int release(@Param("claim") String claim, @Param("aggregateIds") Collection<Long> aggregateIds);
+
+    @Query("SELECT e FROM OutboxEvent e WHERE e.claimedBy = :claim AND e.status = 'PENDING' ORDER BY e.id ASC")
+    List<OutboxEvent> findClaimed(@Param("claim") String claim);
+
+    long countByStatus(OutboxEvent.OutboxStatus status);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = 'PROCESSED', e.processedAt = :now WHERE e.id IN :ids")
+    int markProcessed(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = 'PROCESSED' AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,23 @@
+package com.barbershop.repository;
+
+import com.barbershop.model.entity.ScheduleException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ScheduleExceptionRepository extends JpaRepository<ScheduleException, Long> {
+
+    // Both bounds inclusive
+    @Query("SELECT e FROM ScheduleException e WHERE e.date BETWEEN :from AND :to ORDER BY e.date, e.id")
+    List<ScheduleException> findBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT e FROM ScheduleException e WHERE e.staff.id = :staffId AND e.date BETWEEN :from AND :to ORDER BY e.date, e.id")
+    List<ScheduleException> findByStaffBetween(@Param("staffId") Long staffId,
+                                               @Param("from") LocalDate from,
+                                               @Param("to") LocalDate to);
+}
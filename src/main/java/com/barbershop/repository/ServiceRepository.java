@@ -1,15 +1,27 @@
 package com.barbershop.repository;
 
 import com.barbershop.model.entity.Service;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ServiceRepository extends JpaRepository<Service, Long> {
 
+    // Active lists are read far more often than services change; the query cache drops them on any write
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Service> findByActiveTrue();
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Service> findByActiveTrueOrderByNameAsc();
+
+    @Query("SELECT x FROM Service x WHERE x.updatedAt >= :since AND x.updatedAt < :until ORDER BY x.id")
+    List<Service> findChangedBetween(@Param("since") LocalDateTime since, @Param("until") LocalDateTime until);
 }
\ No newline at end of file
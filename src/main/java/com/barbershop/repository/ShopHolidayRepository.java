@@ -0,0 +1,17 @@
+package com.barbershop.repository;
+
+import com.barbershop.model.entity.ShopHoliday;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ShopHolidayRepository extends JpaRepository<ShopHoliday, Long> {
+
+    List<ShopHoliday> findByDateBetweenOrderByDateAsc(LocalDate from, LocalDate to);
+
+    Optional<ShopHoliday> findByDate(LocalDate date);
+}
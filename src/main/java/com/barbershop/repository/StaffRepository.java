@@ -1,15 +1,41 @@
 package com.barbershop.repository;
 
 import com.barbershop.model.entity.Staff;
+import com.barbershop.skill.StaffSkill;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface StaffRepository extends JpaRepository<Staff, Long> {
 
+    // Active lists are read far more often than staff change; the query cache drops them on any write
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Staff> findByActiveTrue();
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Staff> findByActiveTrueOrderByNameAsc();
+
+    @Query("SELECT x FROM Staff x WHERE x.updatedAt >= :since AND x.updatedAt < :until ORDER BY x.id")
+    List<Staff> findChangedBetween(@Param("since") LocalDateTime since, @Param("until") LocalDateTime until);
+
+    // Whole skill matrix of the current branch
+    @Query("SELECT new com.barbershop.skill.StaffSkill(s.id, sv.id) FROM Staff s JOIN s.services sv")
+    List<StaffSkill> findSkills();
+
+    @Query("SELECT s FROM Staff s LEFT JOIN FETCH s.services WHERE s.id = :id")
+    Staff findByIdWithServices(@Param("id") Long id);
+
+    // Join table rows are not entities; a service is unlinked before it is deleted
+    @Modifying
+    @Query(value = "DELETE FROM staff_services WHERE service_id = :serviceId", nativeQuery = true)
+    int unlinkService(@Param("serviceId") Long serviceId);
 }
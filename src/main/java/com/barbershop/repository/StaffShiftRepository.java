@@ -0,0 +1,21 @@
+package com.barbershop.repository;
+
+import com.barbershop.model.entity.StaffShift;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StaffShiftRepository extends JpaRepository<StaffShift, Long> {
+
+    @Query("SELECT s FROM StaffShift s WHERE s.staff.id = :staffId ORDER BY s.dayOfWeek, s.startTime")
+    List<StaffShift> findByStaffId(@Param("staffId") Long staffId);
+
+    @Modifying
+    @Query("DELETE FROM StaffShift s WHERE s.staff.id = :staffId")
+    int deleteByStaffId(@Param("staffId") Long staffId);
+}
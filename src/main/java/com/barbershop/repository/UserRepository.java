@@ -1,13 +1,17 @@
 package com.barbershop.repository;
 
 import com.barbershop.model.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -25,4 +29,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Page<User> searchCustomers(@Param("search") String search, Pageable pageable);
 
     Page<User> findByRole(User.UserRole role, Pageable pageable);
+
+    @Query("SELECT u.role FROM User u WHERE u.id = :id")
+    Optional<User.UserRole> findRoleById(@Param("id") Long id);
+
+    // Row locks in id order, so two writers locking overlapping sets cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id IN :ids ORDER BY u.id")
+    List<User> lockAll(@Param("ids") Collection<Long> ids);
 }
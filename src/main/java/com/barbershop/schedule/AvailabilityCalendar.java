@@ -0,0 +1,324 @@
+package com.barbershop.schedule;
+
+import com.barbershop.model.entity.ScheduleException;
+import com.barbershop.model.entity.ShopHoliday;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.StaffShift;
+import com.barbershop.repository.ScheduleExceptionRepository;
+import com.barbershop.repository.ShopHolidayRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.StaffShiftRepository;
+import com.barbershop.sharding.ShardDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.barbershop.schedule.DayMask.MINUTES_PER_DAY;
+
+/**
+ * When each staff member can be booked, compiled into one {@link DayMask} per staff member and
+ * date, per branch.
+ *
+ * A staff member's week comes from their WORK shifts minus their BREAK shifts; staff without
+ * WORK shifts work their default hours every day. Each date then applies the shop holiday
+ * (closed, or closed from a time on), the staff member's EXTRA hours and their time OFF, in
+ * that order. Dates from yesterday to {@code schedule.horizon-days} ahead are compiled up
+ * front, so a lookup is an array index; other dates are compiled on demand from the week and
+ * that date's rows.
+ *
+ * For picking staff, each date also gets a bitmap per minute of who is on shift, in the
+ * caller's staff order, so "who works through 14:30-15:15" is a few ANDs however many staff
+ * there are. Minutes with the same staff share one bitmap.
+ *
+ * Invalidated like {@link com.barbershop.skill.StaffSkillIndex}: staff and schedule changes bump
+ * the generation and drop the branch's calendar now and after commit, and calendars older than
+ * {@code schedule.max-age-seconds} are rebuilt to pick up other nodes' changes and the new day.
+ * A staff member the calendar does not know is closed until then.
+ */
+@Slf4j
+@Component
+public class AvailabilityCalendar {
+
+    private final StaffRepository staffRepository;
+    private final StaffShiftRepository shiftRepository;
+    private final ScheduleExceptionRepository exceptionRepository;
+    private final ShopHolidayRepository holidayRepository;
+    private final ShardDirectory shardDirectory;
+    private final Map<String, Snapshot> branches = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    @Value("${schedule.horizon-days:120}")
+    private int horizonDays;
+
+    @Value("${schedule.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    public AvailabilityCalendar(StaffRepository staffRepository,
+                                StaffShiftRepository shiftRepository,
+                                ScheduleExceptionRepository exceptionRepository,
+                                ShopHolidayRepository holidayRepository,
+                                ShardDirectory shardDirectory) {
+        this.staffRepository = staffRepository;
+        this.shiftRepository = shiftRepository;
+        this.exceptionRepository = exceptionRepository;
+        this.holidayRepository = holidayRepository;
+        this.shardDirectory = shardDirectory;
+    }
+
+    /**
+     * Whether the staff member works through [start, start + durationMinutes), past midnight included
+     */
+    public boolean isAvailable(Long staffId, LocalDateTime start, int durationMinutes) {
+        if (durationMinutes < 1) {
+            return false;
+        }
+        Snapshot snapshot = snapshot();
+        LocalDate date = start.toLocalDate();
+        int from = start.getHour() * 60 + start.getMinute();
+        int remaining = durationMinutes;
+        while (true) {
+            int to = Math.min(MINUTES_PER_DAY, from + remaining);
+            if (!day(snapshot, staffId, date).covers(from, to)) {
+                return false;
+            }
+            remaining -= to - from;
+            if (remaining == 0) {
+                return true;
+            }
+            from = 0;
+            date = date.plusDays(1);
+        }
+    }
+
+    /**
+     * The staff member's open minutes on the date; closed all day for staff of another branch
+     */
+    public DayMask day(Long staffId, LocalDate date) {
+        return day(snapshot(), staffId, date);
+    }
+
+    /**
+     * Which of the staff work through [start, start + durationMinutes), as bit positions into
+     * {@code staffIds}; callers should pass the same array each time, the bitmaps are kept per array
+     */
+    public BitSet onShift(long[] staffIds, LocalDateTime start, int durationMinutes) {
+        BitSet working = new BitSet(staffIds.length);
+        if (durationMinutes < 1) {
+            return working;
+        }
+        working.set(0, staffIds.length);
+        Snapshot snapshot = snapshot();
+        LocalDate date = start.toLocalDate();
+        int from = start.getHour() * 60 + start.getMinute();
+        int remaining = durationMinutes;
+        while (true) {
+            int to = Math.min(MINUTES_PER_DAY, from + remaining);
+            BitSet[] minutes = staffByMinute(snapshot, staffIds, date);
+            for (int minute = from; minute < to && !working.isEmpty(); minute++) {
+                if (minute == from || minutes[minute] != minutes[minute - 1]) {
+                    working.and(minutes[minute]);
+                }
+            }
+            remaining -= to - from;
+            if (remaining == 0 || working.isEmpty()) {
+                return working;
+            }
+            from = 0;
+            date = date.plusDays(1);
+        }
+    }
+
+    /**
+     * Drop the current branch's calendar now and, inside a transaction, once more after commit
+     */
+    public void invalidate() {
+        String branch = shardDirectory.currentBranch();
+        generation.incrementAndGet();
+        branches.remove(branch);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                    branches.remove(branch);
+                }
+            });
+        }
+    }
+
+    private DayMask day(Snapshot snapshot, Long staffId, LocalDate date) {
+        DayMask[] days = snapshot.days.get(staffId);
+        if (days == null) {
+            return DayMask.CLOSED;
+        }
+        long offset = date.toEpochDay() - snapshot.firstDay;
+        if (offset >= 0 && offset < days.length) {
+            return days[(int) offset];
+        }
+        BitSet open = compile(snapshot.weeks.get(staffId), date,
+                holidayRepository.findByDate(date).orElse(null),
+                exceptionRepository.findByStaffBetween(staffId, date, date));
+        return new DayMask(open);
+    }
+
+    // who of staffIds is open at each minute of the date, kept for dates within the horizon
+    private BitSet[] staffByMinute(Snapshot snapshot, long[] staffIds, LocalDate date) {
+        long offset = date.toEpochDay() - snapshot.firstDay;
+        boolean kept = offset >= 0 && offset <= horizonDays;
+        if (kept) {
+            StaffByMinute known = snapshot.staffByMinute.get(date.toEpochDay());
+            if (known != null && known.staffIds == staffIds) {
+                return known.minutes;
+            }
+        }
+        DayMask[] days = new DayMask[staffIds.length];
+        for (int position = 0; position < staffIds.length; position++) {
+            days[position] = day(snapshot, staffIds[position], date);
+        }
+        BitSet[] minutes = new BitSet[MINUTES_PER_DAY];
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            BitSet open = new BitSet(staffIds.length);
+            for (int position = 0; position < days.length; position++) {
+                if (days[position].isOpen(minute)) {
+                    open.set(position);
+                }
+            }
+            minutes[minute] = minute > 0 && open.equals(minutes[minute - 1]) ? minutes[minute - 1] : open;
+        }
+        if (kept) {
+            snapshot.staffByMinute.put(date.toEpochDay(), new StaffByMinute(staffIds, minutes));
+        }
+        return minutes;
+    }
+
+    private Snapshot snapshot() {
+        long now = System.currentTimeMillis();
+        String branch = shardDirectory.currentBranch();
+        Snapshot snapshot = branches.get(branch);
+        if (snapshot == null || snapshot.expiresAt <= now || snapshot.generation != generation.get()) {
+            long built = generation.get();
+            snapshot = build(now + maxAgeSeconds * 1000, built);
+            if (generation.get() == built) {
+                // not kept when invalidated meanwhile, it may hold what was read before the change
+                branches.put(branch, snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    private Snapshot build(long expiresAt, long generation) {
+        LocalDate first = LocalDate.now().minusDays(1);
+        LocalDate last = first.plusDays(horizonDays);
+        List<Staff> staff = staffRepository.findAll();
+        Map<Long, List<StaffShift>> shifts = shiftRepository.findAll().stream()
+                .collect(Collectors.groupingBy(shift -> shift.getStaff().getId()));
+        Map<Long, Map<LocalDate, List<ScheduleException>>> exceptions = exceptionRepository.findBetween(first, last).stream()
+                .collect(Collectors.groupingBy(exception -> exception.getStaff().getId(),
+                        Collectors.groupingBy(ScheduleException::getDate)));
+        Map<LocalDate, ShopHoliday> holidays = holidayRepository.findByDateBetweenOrderByDateAsc(first, last).stream()
+                .collect(Collectors.toMap(ShopHoliday::getDate, Function.identity()));
+
+        Snapshot snapshot = new Snapshot(expiresAt, generation, first.toEpochDay());
+        Map<BitSet, DayMask> shared = new HashMap<>();
+        for (Staff member : staff) {
+            BitSet[] week = week(member, shifts.getOrDefault(member.getId(), List.of()));
+            Map<LocalDate, List<ScheduleException>> changes = exceptions.getOrDefault(member.getId(), Map.of());
+            DayMask[] days = new DayMask[horizonDays + 1];
+            for (int offset = 0; offset < days.length; offset++) {
+                LocalDate date = first.plusDays(offset);
+                BitSet open = compile(week, date, holidays.get(date), changes.getOrDefault(date, List.of()));
+                days[offset] = shared.computeIfAbsent(open, DayMask::new);
+            }
+            snapshot.weeks.put(member.getId(), week);
+            snapshot.days.put(member.getId(), days);
+        }
+        log.debug("Compiled {} days for {} staff into {} masks", horizonDays + 1, staff.size(), shared.size());
+        return snapshot;
+    }
+
+    // open minutes of each weekday, Monday first
+    private static BitSet[] week(Staff member, List<StaffShift> shifts) {
+        boolean defaultHours = shifts.stream().noneMatch(shift -> shift.getKind() == StaffShift.Kind.WORK);
+        BitSet[] week = new BitSet[7];
+        for (int day = 0; day < week.length; day++) {
+            week[day] = new BitSet(MINUTES_PER_DAY);
+            if (defaultHours) {
+                set(week[day], minute(member.getWorkStartTime(), 0), minute(member.getWorkEndTime(), 0), true);
+            }
+        }
+        for (StaffShift shift : shifts) {
+            if (shift.getKind() == StaffShift.Kind.WORK) {
+                set(week[shift.getDayOfWeek().ordinal()], minute(shift.getStartTime(), 0), minute(shift.getEndTime(), 0), true);
+            }
+        }
+        for (StaffShift shift : shifts) {
+            if (shift.getKind() == StaffShift.Kind.BREAK) {
+                set(week[shift.getDayOfWeek().ordinal()], minute(shift.getStartTime(), 0), minute(shift.getEndTime(), 0), false);
+            }
+        }
+        return week;
+    }
+
+    private static BitSet compile(BitSet[] week, LocalDate date, ShopHoliday holiday, List<ScheduleException> changes) {
+        BitSet open = week == null ? new BitSet(MINUTES_PER_DAY) : (BitSet) week[date.getDayOfWeek().ordinal()].clone();
+        if (holiday != null) {
+            set(open, minute(holiday.getClosesAt(), 0), MINUTES_PER_DAY, false);
+        }
+        for (ScheduleException change : changes) {
+            if (change.getKind() == ScheduleException.Kind.EXTRA) {
+                set(open, minute(change.getStartTime(), 0), minute(change.getEndTime(), MINUTES_PER_DAY), true);
+            }
+        }
+        for (ScheduleException change : changes) {
+            if (change.getKind() == ScheduleException.Kind.OFF) {
+                set(open, minute(change.getStartTime(), 0), minute(change.getEndTime(), MINUTES_PER_DAY), false);
+            }
+        }
+        return open;
+    }
+
+    // ranges ending before they start (rows older than the validation) are ignored
+    private static void set(BitSet minutes, int from, int to, boolean open) {
+        if (from < to) {
+            minutes.set(from, to, open);
+        }
+    }
+
+    private static int minute(LocalTime time, int whenEmpty) {
+        return time == null ? whenEmpty : time.getHour() * 60 + time.getMinute();
+    }
+
+    private static final class Snapshot {
+
+        final long expiresAt;
+        final long generation;
+        final long firstDay;
+        final Map<Long, BitSet[]> weeks = new HashMap<>();
+        final Map<Long, DayMask[]> days = new HashMap<>();
+        // filled on first use, by epoch day
+        final Map<Long, StaffByMinute> staffByMinute = new ConcurrentHashMap<>();
+
+        Snapshot(long expiresAt, long generation, long firstDay) {
+            this.expiresAt = expiresAt;
+            this.generation = generation;
+            this.firstDay = firstDay;
+        }
+    }
+
+    private record StaffByMinute(long[] staffIds, BitSet[] minutes) {
+    }
+}
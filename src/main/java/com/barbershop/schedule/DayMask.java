@@ -0,0 +1,69 @@
+package com.barbershop.schedule;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The minutes of one day a staff member can be booked for.
+ *
+ * Kept as a running count of open minutes, so whether a whole range is open is one subtraction
+ * however long the range is. Masks are immutable and shared by every day that compiles to the
+ * same minutes, which for most staff is one per weekday.
+ */
+public final class DayMask {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    public static final DayMask CLOSED = new DayMask(new BitSet(MINUTES_PER_DAY));
+
+    private final BitSet open;
+    // open minutes before each minute; the last entry is the day's total
+    private final char[] openBefore = new char[MINUTES_PER_DAY + 1];
+
+    DayMask(BitSet open) {
+        this.open = open;
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            openBefore[minute + 1] = (char) (openBefore[minute] + (open.get(minute) ? 1 : 0));
+        }
+    }
+
+    /**
+     * Whether every minute of [from, to) is open
+     */
+    public boolean covers(int from, int to) {
+        return from >= 0 && to <= MINUTES_PER_DAY && from < to && openBefore[to] - openBefore[from] == to - from;
+    }
+
+    public boolean isOpen(int minute) {
+        return open.get(minute);
+    }
+
+    public int openMinutes() {
+        return openBefore[MINUTES_PER_DAY];
+    }
+
+    /**
+     * This day with the given [start, end) minute ranges closed as well
+     */
+    public DayMask without(List<int[]> ranges) {
+        BitSet remaining = (BitSet) open.clone();
+        for (int[] range : ranges) {
+            remaining.clear(Math.max(0, range[0]), Math.min(MINUTES_PER_DAY, Math.max(range[0], range[1])));
+        }
+        return new DayMask(remaining);
+    }
+
+    /**
+     * Closed stretches of the day as [start, end) minute pairs
+     */
+    public List<int[]> closedRuns() {
+        List<int[]> runs = new ArrayList<>();
+        for (int start = open.nextClearBit(0); start < MINUTES_PER_DAY; start = open.nextClearBit(start)) {
+            int end = Math.min(MINUTES_PER_DAY, open.nextSetBit(start) < 0 ? MINUTES_PER_DAY : open.nextSetBit(start));
+            runs.add(new int[]{start, end});
+            start = end;
+        }
+        return runs;
+    }
+}
@@ -0,0 +1,232 @@
+package com.barbershop.schedule;
+
+import com.barbershop.analytics.BookedInterval;
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.exception.ResourceNotFoundException;
+import com.barbershop.model.dto.request.ScheduleExceptionRequest;
+import com.barbershop.model.dto.request.ShopHolidayRequest;
+import com.barbershop.model.dto.request.StaffShiftsRequest;
+import com.barbershop.model.dto.response.ScheduleExceptionResponse;
+import com.barbershop.model.dto.response.ShopHolidayResponse;
+import com.barbershop.model.dto.response.StaffAvailabilityResponse;
+import com.barbershop.model.dto.response.StaffShiftResponse;
+import com.barbershop.model.entity.ScheduleException;
+import com.barbershop.model.entity.ShopHoliday;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.StaffShift;
+import com.barbershop.repository.AppointmentItemRepository;
+import com.barbershop.repository.ScheduleExceptionRepository;
+import com.barbershop.repository.ShopHolidayRepository;
+import com.barbershop.repository.StaffShiftRepository;
+import com.barbershop.service.ServiceService;
+import com.barbershop.service.StaffService;
+import com.barbershop.skill.StaffSkillIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Weekly shifts, exceptions and shop holidays, and free slot search on the compiled calendar
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ScheduleService {
+
+    private static final int MAX_RANGE_DAYS = 366;
+
+    private final StaffService staffService;
+    private final ServiceService serviceService;
+    private final StaffShiftRepository shiftRepository;
+    private final ScheduleExceptionRepository exceptionRepository;
+    private final ShopHolidayRepository holidayRepository;
+    private final AppointmentItemRepository appointmentItemRepository;
+    private final AvailabilityCalendar calendar;
+    private final StaffSkillIndex skillIndex;
+
+    @Value("${schedule.slot-step-minutes:15}")
+    private int slotStepMinutes;
+
+    /**
+     * Weekly shifts and breaks of a staff member
+     */
+    public List<StaffShiftResponse> getShifts(Long staffId) {
+        staffService.findById(staffId);
+        return shiftRepository.findByStaffId(staffId).stream()
+                .map(StaffShiftResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Replace the weekly shifts and breaks of a staff member
+     */
+    public List<StaffShiftResponse> updateShifts(Long staffId, List<StaffShiftsRequest.Shift> shifts) {
+        Staff staff = staffService.findById(staffId);
+        for (StaffShiftsRequest.Shift shift : shifts) {
+            validateRange(shift.getStartTime(), shift.getEndTime());
+        }
+
+        shiftRepository.deleteByStaffId(staffId);
+        List<StaffShift> saved = shiftRepository.saveAll(shifts.stream()
+                .map(shift -> {
+                    StaffShift entity = new StaffShift();
+                    entity.setStaff(staff);
+                    entity.setDayOfWeek(shift.getDayOfWeek());
+                    entity.setStartTime(shift.getStartTime());
+                    entity.setEndTime(shift.getEndTime());
+                    entity.setKind(shift.getKind() == null ? StaffShift.Kind.WORK : shift.getKind());
+                    return entity;
+                })
+                .toList());
+        calendar.invalidate();
+        return saved.stream()
+                .map(StaffShiftResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Exceptions of a staff member between two dates, both inclusive
+     */
+    public List<ScheduleExceptionResponse> getExceptions(Long staffId, LocalDate from, LocalDate to) {
+        staffService.findById(staffId);
+        validateDates(from, to);
+        return exceptionRepository.findByStaffBetween(staffId, from, to).stream()
+                .map(ScheduleExceptionResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Add time off or extra hours on one date
+     */
+    public ScheduleExceptionResponse addException(Long staffId, ScheduleExceptionRequest request) {
+        Staff staff = staffService.findById(staffId);
+        if (request.getStartTime() != null || request.getEndTime() != null) {
+            if (request.getStartTime() == null || request.getEndTime() == null) {
+                throw new BadRequestException("Give both start and end time, or neither for the whole day");
+            }
+            validateRange(request.getStartTime(), request.getEndTime());
+        }
+
+        ScheduleException exception = new ScheduleException();
+        exception.setStaff(staff);
+        exception.setDate(request.getDate());
+        exception.setStartTime(request.getStartTime());
+        exception.setEndTime(request.getEndTime());
+        exception.setKind(request.getKind() == null ? ScheduleException.Kind.OFF : request.getKind());
+        exception.setReason(request.getReason());
+        ScheduleException saved = exceptionRepository.save(exception);
+        calendar.invalidate();
+        return ScheduleExceptionResponse.fromEntity(saved);
+    }
+
+    /**
+     * Remove an exception of a staff member
+     */
+    public void deleteException(Long staffId, Long exceptionId) {
+        ScheduleException exception = exceptionRepository.findById(exceptionId)
+                .filter(found -> found.getStaff().getId().equals(staffId))
+                .orElseThrow(() -> new ResourceNotFoundException("Schedule exception", "id", exceptionId));
+        exceptionRepository.delete(exception);
+        calendar.invalidate();
+    }
+
+    /**
+     * Shop holidays between two dates, both inclusive
+     */
+    public List<ShopHolidayResponse> getHolidays(LocalDate from, LocalDate to) {
+        validateDates(from, to);
+        return holidayRepository.findByDateBetweenOrderByDateAsc(from, to).stream()
+                .map(ShopHolidayResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Close the shop on a date, all day or from a time on
+     */
+    public ShopHolidayResponse addHoliday(ShopHolidayRequest request) {
+        if (holidayRepository.findByDate(request.getDate()).isPresent()) {
+            throw new BadRequestException("There is already a holiday on " + request.getDate());
+        }
+        ShopHoliday holiday = new ShopHoliday();
+        holiday.setDate(request.getDate());
+        holiday.setName(request.getName());
+        holiday.setClosesAt(request.getClosesAt());
+        ShopHoliday saved = holidayRepository.save(holiday);
+        calendar.invalidate();
+        return ShopHolidayResponse.fromEntity(saved);
+    }
+
+    /**
+     * Remove a shop holiday
+     */
+    public void deleteHoliday(Long id) {
+        ShopHoliday holiday = holidayRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Holiday", "id", id));
+        holidayRepository.delete(holiday);
+        calendar.invalidate();
+    }
+
+    /**
+     * Start times on the date at which the staff member can take the whole service; none for
+     * inactive staff or services, or staff who do not perform the service
+     */
+    @Transactional(readOnly = true)
+    public StaffAvailabilityResponse findFreeSlots(Long staffId, Long serviceId, LocalDate date) {
+        Staff staff = staffService.findById(staffId);
+        com.barbershop.model.entity.Service service = serviceService.findById(serviceId);
+        int duration = service.getDurationMinutes();
+        StaffAvailabilityResponse response = new StaffAvailabilityResponse(staffId, serviceId, date, duration, new ArrayList<>());
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!staff.getActive() || !service.getActive() || !skillIndex.canPerform(staffId, serviceId)
+                || date.isBefore(now.toLocalDate())) {
+            return response;
+        }
+
+        // the calendar's open minutes less what is already booked, then each candidate is one lookup
+        LocalDateTime dayStart = date.atStartOfDay();
+        List<int[]> booked = new ArrayList<>();
+        for (BookedInterval interval : appointmentItemRepository.findBookedIntervals(List.of(staffId), dayStart, dayStart.plusDays(1))) {
+            booked.add(new int[]{minute(dayStart, interval.getStart()), minute(dayStart, interval.getEnd())});
+        }
+        DayMask free = calendar.day(staffId, date).without(booked);
+
+        int earliest = date.equals(now.toLocalDate()) ? minute(dayStart, now.truncatedTo(ChronoUnit.MINUTES)) + 1 : 0;
+        int first = (earliest + slotStepMinutes - 1) / slotStepMinutes * slotStepMinutes;
+        for (int start = first; start + duration <= DayMask.MINUTES_PER_DAY; start += slotStepMinutes) {
+            if (free.covers(start, start + duration)) {
+                response.getSlots().add(LocalTime.of(start / 60, start % 60));
+            }
+        }
+        return response;
+    }
+
+    private static void validateRange(LocalTime start, LocalTime end) {
+        if (!start.isBefore(end)) {
+            throw new BadRequestException("Start time " + start + " must be before end time " + end);
+        }
+    }
+
+    private static void validateDates(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new BadRequestException("'to' must not be before 'from'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_RANGE_DAYS) {
+            throw new BadRequestException("Date range must be at most " + MAX_RANGE_DAYS + " days");
+        }
+    }
+
+    private static int minute(LocalDateTime dayStart, LocalDateTime time) {
+        return (int) Duration.between(dayStart, time).toMinutes();
+    }
+}
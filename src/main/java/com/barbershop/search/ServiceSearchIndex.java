@@ -0,0 +1,214 @@
+package com.barbershop.search;
+
+import com.barbershop.model.dto.response.ServiceResponse;
+import com.barbershop.model.entity.Service;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.sharding.ShardDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over service names and descriptions, one per branch.
+ *
+ * Terms are folded by {@link TextFolding} and kept sorted, so the last characters a customer
+ * typed can match as a prefix with one range scan. Every query term must match; a service
+ * scores the rarer terms higher, name hits above description hits and whole words above
+ * prefixes. ServiceService keeps the index current after each committed change; since other
+ * nodes' changes are not seen, a branch's index is also rebuilt once it is older than
+ * {@code search.max-age-seconds}.
+ */
+@Slf4j
+@Component
+public class ServiceSearchIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double PREFIX_FACTOR = 0.5;
+
+    private final ServiceRepository serviceRepository;
+    private final ShardDirectory shardDirectory;
+    private final Map<String, BranchIndex> branches = new ConcurrentHashMap<>();
+
+    @Value("${search.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    public ServiceSearchIndex(ServiceRepository serviceRepository, ShardDirectory shardDirectory) {
+        this.serviceRepository = serviceRepository;
+        this.shardDirectory = shardDirectory;
+    }
+
+    /**
+     * Active services of the current branch matching every term of the query, best first
+     */
+    public List<ServiceResponse> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TextFolding.terms(query)));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        return index().search(terms, limit);
+    }
+
+    /**
+     * Add or replace a service; inside a transaction this happens once it commits
+     */
+    public void index(Service service) {
+        String branch = shardDirectory.currentBranch();
+        ServiceResponse document = ServiceResponse.fromEntity(service);
+        afterCommit(() -> {
+            BranchIndex index = branches.get(branch);
+            if (index != null) {
+                index.put(document);
+            }
+        });
+    }
+
+    public void remove(Long serviceId) {
+        String branch = shardDirectory.currentBranch();
+        afterCommit(() -> {
+            BranchIndex index = branches.get(branch);
+            if (index != null) {
+                index.remove(serviceId);
+            }
+        });
+    }
+
+    /**
+     * Drop every branch's index; each is rebuilt on its next search
+     */
+    public void clear() {
+        branches.clear();
+    }
+
+    private BranchIndex index() {
+        long now = System.currentTimeMillis();
+        return branches.compute(shardDirectory.currentBranch(), (branch, current) -> {
+            if (current != null && current.expiresAt > now) {
+                return current;
+            }
+            BranchIndex index = new BranchIndex(now + maxAgeSeconds * 1000);
+            serviceRepository.findAll().forEach(service -> index.put(ServiceResponse.fromEntity(service)));
+            log.debug("Indexed {} services of branch {}", index.documents.size(), branch);
+            return index;
+        });
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private static final class BranchIndex {
+
+        final long expiresAt;
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        // term -> service id -> field weight
+        final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        final Map<Long, Document> documents = new HashMap<>();
+
+        BranchIndex(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        void put(ServiceResponse service) {
+            Map<String, Integer> weights = new HashMap<>();
+            TextFolding.terms(service.getDescription()).forEach(term -> weights.put(term, DESCRIPTION_WEIGHT));
+            TextFolding.terms(service.getName()).forEach(term -> weights.put(term, NAME_WEIGHT));
+
+            lock.writeLock().lock();
+            try {
+                removeLocked(service.getId());
+                weights.forEach((term, weight) ->
+                        postings.computeIfAbsent(term, key -> new HashMap<>()).put(service.getId(), weight));
+                documents.put(service.getId(), new Document(service, weights.keySet()));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long serviceId) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(serviceId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeLocked(Long serviceId) {
+            Document previous = documents.remove(serviceId);
+            if (previous == null) {
+                return;
+            }
+            for (String term : previous.terms) {
+                Map<Long, Integer> posting = postings.get(term);
+                posting.remove(serviceId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+
+        List<ServiceResponse> search(List<String> terms, int limit) {
+            lock.readLock().lock();
+            try {
+                Map<Long, Double> scores = null;
+                for (String term : terms) {
+                    Map<Long, Double> matches = new HashMap<>();
+                    for (Map.Entry<String, Map<Long, Integer>> entry
+                            : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+                        double idf = Math.log(1.0 + (double) documents.size() / entry.getValue().size());
+                        double factor = entry.getKey().length() == term.length() ? idf : idf * PREFIX_FACTOR;
+                        entry.getValue().forEach((id, weight) -> matches.merge(id, weight * factor, Math::max));
+                    }
+                    if (scores != null) {
+                        Map<Long, Double> previous = scores;
+                        matches.keySet().retainAll(previous.keySet());
+                        matches.replaceAll((id, score) -> score + previous.get(id));
+                    }
+                    scores = matches;
+                    if (scores.isEmpty()) {
+                        return List.of();
+                    }
+                }
+
+                Map<Long, Double> ranked = scores;
+                return ranked.keySet().stream()
+                        .map(documents::get)
+                        .filter(document -> Boolean.TRUE.equals(document.service.getActive()))
+                        .sorted(Comparator.comparingDouble((Document document) -> -ranked.get(document.service.getId()))
+                                .thenComparing(document -> document.service.getName()))
+                        .limit(limit)
+                        .map(document -> document.service)
+                        .toList();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private record Document(ServiceResponse service, Set<String> terms) {
+    }
+}
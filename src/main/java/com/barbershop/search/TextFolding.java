@@ -0,0 +1,63 @@
+package com.barbershop.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits text into search terms that compare equal regardless of case and accents.
+ *
+ * Turkish letters fold to their base Latin letter (ç→c, ğ→g, ı/İ→i, ö→o, ş→s, ü→u), so
+ * "sakal", "SAKAL" and "Sakal Tıraşı" all meet "tiras". Letters with no fold of their own lose
+ * their combining marks after NFD decomposition.
+ */
+public final class TextFolding {
+
+    private TextFolding() {
+    }
+
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean letter = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                terms.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    static String fold(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case 'ç', 'Ç' -> out.append('c');
+                case 'ğ', 'Ğ' -> out.append('g');
+                case 'ı', 'I', 'İ' -> out.append('i');
+                case 'ö', 'Ö' -> out.append('o');
+                case 'ş', 'Ş' -> out.append('s');
+                case 'ü', 'Ü' -> out.append('u');
+                default -> out.append(c);
+            }
+        }
+        String decomposed = Normalizer.normalize(out, Normalizer.Form.NFD);
+        StringBuilder plain = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                plain.append(c);
+            }
+        }
+        return plain.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -28,15 +28,24 @@ public class JwtTokenProvider {
      * Generate JWT token from user ID
      */
     public String generateToken(Long userId) {
+        return generateToken(userId, null);
+    }
+
+    /**
+     * Generate JWT token from user ID, routing later requests to the given branch
+     */
+    public String generateToken(Long userId, String branch) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .subject(String.valueOf(userId))
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(getSigningKey())
-                .compact();
+                .expiration(expiryDate);
+        if (branch != null) {
+            builder.claim("branch", branch);
+        }
+        return builder.signWith(getSigningKey()).compact();
     }
 
     /**
@@ -60,6 +69,22 @@ public class JwtTokenProvider {
         return Long.parseLong(claims.getSubject());
     }
 
+    /**
+     * Get branch claim from JWT token, null if absent or the token is invalid
+     */
+    public String getBranchFromToken(String token) {
+        try {
+            return Jwts.parser()
+                    .verifyWith(getSigningKey())
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload()
+                    .get("branch", String.class);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /**
      * Validate JWT token
      */
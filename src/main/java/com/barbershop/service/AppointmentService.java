@@ -1,22 +1,49 @@
 package com.barbershop.service;
 
+import com.barbershop.assignment.StaffAssignmentService;
+import com.barbershop.bulk.BulkTransition;
+import com.barbershop.cache.CacheRegion;
+import com.barbershop.cache.EncodedResponseCache;
+import com.barbershop.cluster.BookingCluster;
+import com.barbershop.crm.CustomerSummaryService;
+import com.barbershop.event.AppointmentEventPublisher;
+import com.barbershop.event.AppointmentEventType;
 import com.barbershop.exception.AppointmentConflictException;
 import com.barbershop.exception.BadRequestException;
+import com.barbershop.exception.PreconditionFailedException;
 import com.barbershop.exception.ResourceNotFoundException;
 import com.barbershop.model.dto.request.AppointmentCreateRequest;
 import com.barbershop.model.dto.request.AppointmentItemRequest;
+import com.barbershop.model.dto.response.AppointmentListView;
 import com.barbershop.model.dto.response.AppointmentResponse;
 import com.barbershop.model.entity.*;
+import com.barbershop.projection.AppointmentFields;
+import com.barbershop.projection.AppointmentProjector;
 import com.barbershop.repository.AppointmentItemRepository;
 import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.ArchivedAppointmentRepository;
+import com.barbershop.schedule.AvailabilityCalendar;
+import com.barbershop.sharding.ShardDirectory;
+import com.barbershop.skill.StaffSkillIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,14 +53,47 @@ public class AppointmentService {
 
     private final AppointmentRepository appointmentRepository;
     private final AppointmentItemRepository appointmentItemRepository;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
     private final UserService userService;
     private final ServiceService serviceService;
     private final StaffService staffService;
+    private final AppointmentEventPublisher eventPublisher;
+    private final ShardDirectory shardDirectory;
+    private final ObjectProvider<BookingCluster> bookingCluster;
+    private final EncodedResponseCache responseCache;
+    private final AppointmentProjector appointmentProjector;
+    private final CustomerSummaryService customerSummaryService;
+    private final StaffSkillIndex skillIndex;
+    private final StaffAssignmentService staffAssignmentService;
+    private final AvailabilityCalendar availabilityCalendar;
+    private final PlatformTransactionManager transactionManager;
 
     /**
-     * Create new appointment with multiple services
+     * Create new appointment with multiple services.
+     *
+     * Runs as two transactions. Staff for unassigned items are picked in a read-only one; the
+     * booking transaction then locks the chosen staff's partitions before it reads anything
+     * (see {@link BookingCluster#reserve}) and repeats every check under the lock.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public AppointmentResponse createAppointment(Long customerId, AppointmentCreateRequest request) {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        List<Long> staffIds = readOnlyTransaction.execute(
+                status -> staffAssignmentService.assign(request.getItems(), findActiveServices(request)));
+        return new TransactionTemplate(transactionManager).execute(status -> book(customerId, request, staffIds));
+    }
+
+    private AppointmentResponse book(Long customerId, AppointmentCreateRequest request, List<Long> staffIds) {
+        // With several nodes, lock the staff partitions first; any earlier read would fix the
+        // snapshot before the lock and could miss the previous holder's booking
+        BookingCluster cluster = bookingCluster.getIfAvailable();
+        BookingCluster.Reservation reservation = cluster == null ? null : cluster.reserve(staffIds.stream()
+                .filter(Objects::nonNull)
+                .toList());
+
+        List<com.barbershop.model.entity.Service> services = findActiveServices(request);
+
         // Validate customer
         User customer = userService.findById(customerId);
 
@@ -50,28 +110,28 @@ public class AppointmentService {
         appointment.setNotes(request.getNotes());
 
         // Process each service item
-        for (AppointmentItemRequest itemRequest : request.getItems()) {
-            // Validate service
-            com.barbershop.model.entity.Service service = serviceService.findById(itemRequest.getServiceId());
-
-            if (!service.getActive()) {
-                throw new BadRequestException("Service is not active: " + service.getName());
-            }
+        for (int i = 0; i < request.getItems().size(); i++) {
+            AppointmentItemRequest itemRequest = request.getItems().get(i);
+            com.barbershop.model.entity.Service service = services.get(i);
 
-            // Validate and assign staff
+            // Validate staff
             Staff staff = null;
-            if (itemRequest.getStaffId() != null) {
-                staff = staffService.findById(itemRequest.getStaffId());
+            if (staffIds.get(i) != null) {
+                staff = staffService.findById(staffIds.get(i));
 
                 if (!staff.getActive()) {
                     throw new BadRequestException("Staff is not active");
                 }
 
+                if (!skillIndex.canPerform(staff.getId(), service.getId())) {
+                    throw new BadRequestException(staff.getName() + " does not perform " + service.getName());
+                }
+
                 // Check staff availability
-                checkStaffAvailability(staff, itemRequest.getScheduledTime(), service.getDurationMinutes());
+                checkStaffAvailability(reservation, staff, itemRequest.getScheduledTime(), service.getDurationMinutes());
 
                 // Check working hours
-                validateWorkingHours(staff, itemRequest.getScheduledTime());
+                validateWorkingHours(staff, itemRequest.getScheduledTime(), service.getDurationMinutes());
             }
 
             // Create appointment item
@@ -89,50 +149,59 @@ public class AppointmentService {
 
         // Save appointment (items will be saved automatically due to CascadeType.ALL)
         Appointment savedAppointment = appointmentRepository.save(appointment);
+        eventPublisher.publish(savedAppointment, AppointmentEventType.CREATED);
+        responseCache.invalidate(CacheRegion.BOARD, CacheRegion.OCCUPANCY);
 
         return AppointmentResponse.fromEntity(savedAppointment);
     }
 
+    private List<com.barbershop.model.entity.Service> findActiveServices(AppointmentCreateRequest request) {
+        List<com.barbershop.model.entity.Service> services = new ArrayList<>(request.getItems().size());
+        for (AppointmentItemRequest itemRequest : request.getItems()) {
+            com.barbershop.model.entity.Service service = serviceService.findById(itemRequest.getServiceId());
+            if (!service.getActive()) {
+                throw new BadRequestException("Service is not active: " + service.getName());
+            }
+            services.add(service);
+        }
+        return services;
+    }
+
+    /**
+     * Check staff availability, from the partition owner's in-memory schedule when this node owns it
+     */
+    private void checkStaffAvailability(BookingCluster.Reservation reservation, Staff staff,
+                                        LocalDateTime startTime, Integer durationMinutes) {
+        if (reservation == null) {
+            checkStaffAvailability(staff, startTime, durationMinutes);
+            return;
+        }
+        LocalDateTime endTime = startTime.plusMinutes(durationMinutes);
+        reservation.checkAvailability(staff.getId(), startTime, endTime,
+                () -> checkStaffAvailability(staff, startTime, durationMinutes));
+        reservation.record(staff.getId(), startTime, endTime);
+    }
+
     /**
      * Check if staff is available at the given time
      */
     private void checkStaffAvailability(Staff staff, LocalDateTime startTime, Integer durationMinutes) {
         LocalDateTime endTime = startTime.plusMinutes(durationMinutes);
 
-        // Get all appointments for this staff around this time
-        LocalDateTime searchStart = startTime.minusMinutes(120); // 2 hours before
-        LocalDateTime searchEnd = endTime.plusMinutes(120);       // 2 hours after
-
-        List<AppointmentItem> potentialConflicts = appointmentItemRepository
-                .findConflictingAppointments(staff, searchStart, searchEnd);
-
-        // Check each appointment for actual time conflict
-        for (AppointmentItem existing : potentialConflicts) {
-            LocalDateTime existingStart = existing.getScheduledTime();
-            LocalDateTime existingEnd = existingStart.plusMinutes(existing.getDurationMinutes());
-
-            // Check if times overlap
-            boolean hasConflict = (startTime.isBefore(existingEnd) && endTime.isAfter(existingStart));
-
-            if (hasConflict) {
-                throw new AppointmentConflictException(
-                        "Staff is not available at " + startTime + ". Please choose another time or staff member.");
-            }
+        // Only items that really overlap come back
+        if (!appointmentItemRepository.findConflictingAppointments(staff, startTime, endTime).isEmpty()) {
+            throw new AppointmentConflictException(
+                    "Staff is not available at " + startTime + ". Please choose another time or staff member.");
         }
     }
 
     /**
-     * Validate appointment time is within staff working hours
+     * Validate the whole item falls within the staff member's calendar for that date
      */
-    private void validateWorkingHours(Staff staff, LocalDateTime appointmentTime) {
-        if (appointmentTime.toLocalTime().isBefore(staff.getWorkStartTime())) {
-            throw new BadRequestException(
-                    "Appointment time is before staff working hours. Staff starts at " + staff.getWorkStartTime());
-        }
-
-        if (appointmentTime.toLocalTime().isAfter(staff.getWorkEndTime())) {
-            throw new BadRequestException(
-                    "Appointment time is after staff working hours. Staff ends at " + staff.getWorkEndTime());
+    private void validateWorkingHours(Staff staff, LocalDateTime startTime, Integer durationMinutes) {
+        if (!availabilityCalendar.isAvailable(staff.getId(), startTime, durationMinutes)) {
+            throw new BadRequestException("Appointment time is outside staff working hours. " + staff.getName()
+                    + " is not working from " + startTime + " to " + startTime.plusMinutes(durationMinutes));
         }
     }
 
@@ -141,19 +210,56 @@ public class AppointmentService {
      */
     public AppointmentResponse getAppointmentById(Long id) {
         Appointment appointment = appointmentRepository.findByIdWithItems(id);
-        if (appointment == null) {
+        if (appointment != null) {
+            return AppointmentResponse.fromEntity(appointment);
+        }
+
+        // Fall back to the archive for old closed appointments
+        ArchivedAppointment archived = archivedAppointmentRepository.findByIdWithItems(id, shardDirectory.currentBranch());
+        if (archived == null) {
             throw new ResourceNotFoundException("Appointment", "id", id);
         }
-        return AppointmentResponse.fromEntity(appointment);
+        return AppointmentResponse.fromArchived(archived);
     }
 
     /**
-     * Get customer's appointments
+     * Get appointments by IDs, archived ones included; unknown IDs are left out
+     */
+    public List<AppointmentResponse> getAppointmentsByIds(Collection<Long> ids) {
+        List<Long> distinct = ids.stream().distinct().toList();
+        Map<Long, AppointmentResponse> byId = new HashMap<>();
+        appointmentRepository.findAllWithDetails(distinct)
+                .forEach(appointment -> byId.put(appointment.getId(), AppointmentResponse.fromEntity(appointment)));
+        for (Long id : distinct) {
+            if (!byId.containsKey(id)) {
+                // old closed appointments live in the archive
+                ArchivedAppointment archived = archivedAppointmentRepository.findByIdWithItems(id, shardDirectory.currentBranch());
+                if (archived != null) {
+                    byId.put(id, AppointmentResponse.fromArchived(archived));
+                }
+            }
+        }
+        return distinct.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Get customer's appointments, including archived history.
+     * Archived appointments are listed after the hot ones, newest first.
      */
     public Page<AppointmentResponse> getCustomerAppointments(Long customerId, Pageable pageable) {
         User customer = userService.findById(customerId);
         Page<Appointment> appointments = appointmentRepository.findByCustomer(customer, pageable);
-        return appointments.map(AppointmentResponse::fromEntity);
+        long archivedCount = archivedAppointmentRepository.countByCustomerAndBranchId(customer, shardDirectory.currentBranch());
+
+        List<AppointmentResponse> content = new ArrayList<>(toResponses(appointments).getContent());
+        int missing = pageable.getPageSize() - content.size();
+        if (missing > 0 && archivedCount > 0) {
+            // continue the page in the archive right where the hot rows ran out
+            long archiveOffset = Math.max(0, pageable.getOffset() - appointments.getTotalElements());
+            archivedAppointmentRepository.findCustomerWindow(customer, shardDirectory.currentBranch(), (int) archiveOffset, missing)
+                    .forEach(archived -> content.add(AppointmentResponse.fromArchived(archived)));
+        }
+        return new PageImpl<>(content, pageable, appointments.getTotalElements() + archivedCount);
     }
 
     /**
@@ -161,9 +267,36 @@ public class AppointmentService {
      */
     public Page<AppointmentResponse> getAllAppointments(Pageable pageable) {
         Page<Appointment> appointments = appointmentRepository.findAll(pageable);
+        return toResponses(appointments);
+    }
+
+    /**
+     * Map a page of appointments with one more query for their customers, items, services and staff.
+     * Paging cannot fetch-join the items, so the page is read first and the details are loaded into
+     * the same managed instances.
+     */
+    private Page<AppointmentResponse> toResponses(Page<Appointment> appointments) {
+        if (appointments.hasContent()) {
+            appointmentRepository.findAllWithDetails(appointments.map(Appointment::getId).getContent());
+        }
         return appointments.map(AppointmentResponse::fromEntity);
     }
 
+    /**
+     * Get all appointments reduced to the requested fields (Admin)
+     */
+    public AppointmentListView getAllAppointments(AppointmentFields fields, Pageable pageable) {
+        return appointmentProjector.page(fields, pageable);
+    }
+
+    /**
+     * Get appointments by date reduced to the requested fields
+     */
+    public AppointmentListView getAppointmentsByDate(LocalDateTime date, AppointmentFields fields) {
+        LocalDateTime startOfDay = date.toLocalDate().atStartOfDay();
+        return appointmentProjector.between(fields, startOfDay, startOfDay.plusDays(1));
+    }
+
     /**
      * Get appointments by date
      */
@@ -185,14 +318,23 @@ public class AppointmentService {
     }
 
     /**
-     * Update appointment status
+     * Set the status without the transition rules, for corrections such as reopening a completed
+     * appointment; items are left as they are
      */
     public AppointmentResponse updateAppointmentStatus(Long id, Appointment.AppointmentStatus status) {
         Appointment appointment = appointmentRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment", "id", id));
+        return applyStatus(appointment, status);
+    }
 
+    private AppointmentResponse applyStatus(Appointment appointment, Appointment.AppointmentStatus status) {
+        Appointment.AppointmentStatus previous = appointment.getStatus();
         appointment.setStatus(status);
-        Appointment updated = appointmentRepository.save(appointment);
+        // flushed so the response carries the new version
+        Appointment updated = appointmentRepository.saveAndFlush(appointment);
+        customerSummaryService.recordStatusChange(updated, previous);
+        eventPublisher.publish(updated, AppointmentEventType.forStatus(status));
+        responseCache.invalidate(CacheRegion.BOARD, CacheRegion.OCCUPANCY);
 
         return AppointmentResponse.fromEntity(updated);
     }
@@ -200,43 +342,58 @@ public class AppointmentService {
     /**
      * Cancel appointment
      */
-    public AppointmentResponse cancelAppointment(Long id, Long customerId) {
+    public AppointmentResponse cancelAppointment(Long id, Long customerId, Long expectedVersion) {
         Appointment appointment = appointmentRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment", "id", id));
+        checkVersion(appointment, expectedVersion);
 
         // Verify ownership
         if (!appointment.getCustomer().getId().equals(customerId)) {
             throw new BadRequestException("You can only cancel your own appointments");
         }
 
-        // Check if already completed
-        if (appointment.getStatus() == Appointment.AppointmentStatus.COMPLETED) {
-            throw new BadRequestException("Cannot cancel a completed appointment");
+        if (!checkTransition(appointment, BulkTransition.CANCEL)) {
+            return AppointmentResponse.fromEntity(appointment);
         }
 
         // Cancel appointment and all items
+        Appointment.AppointmentStatus previous = appointment.getStatus();
         appointment.setStatus(Appointment.AppointmentStatus.CANCELLED);
         appointment.getItems().forEach(item -> item.setStatus(AppointmentItem.ItemStatus.CANCELLED));
 
-        Appointment updated = appointmentRepository.save(appointment);
+        Appointment updated = appointmentRepository.saveAndFlush(appointment);
+        customerSummaryService.recordStatusChange(updated, previous);
+        eventPublisher.publish(updated, AppointmentEventType.CANCELLED);
+        responseCache.invalidate(CacheRegion.BOARD, CacheRegion.OCCUPANCY);
         return AppointmentResponse.fromEntity(updated);
     }
 
     /**
      * Confirm appointment (Admin)
      */
-    public AppointmentResponse confirmAppointment(Long id) {
-        return updateAppointmentStatus(id, Appointment.AppointmentStatus.CONFIRMED);
+    public AppointmentResponse confirmAppointment(Long id, Long expectedVersion) {
+        Appointment appointment = appointmentRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Appointment", "id", id));
+        checkVersion(appointment, expectedVersion);
+        if (!checkTransition(appointment, BulkTransition.CONFIRM)) {
+            return AppointmentResponse.fromEntity(appointment);
+        }
+        return applyStatus(appointment, Appointment.AppointmentStatus.CONFIRMED);
     }
 
     /**
      * Complete appointment (Admin/Staff)
      */
-    public AppointmentResponse completeAppointment(Long id) {
+    public AppointmentResponse completeAppointment(Long id, Long expectedVersion) {
         Appointment appointment = appointmentRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment", "id", id));
+        checkVersion(appointment, expectedVersion);
+        if (!checkTransition(appointment, BulkTransition.COMPLETE)) {
+            return AppointmentResponse.fromEntity(appointment);
+        }
 
         // Mark appointment as completed
+        Appointment.AppointmentStatus previous = appointment.getStatus();
         appointment.setStatus(Appointment.AppointmentStatus.COMPLETED);
 
         // Mark all items as completed
@@ -246,10 +403,40 @@ public class AppointmentService {
             }
         });
 
-        Appointment updated = appointmentRepository.save(appointment);
+        Appointment updated = appointmentRepository.saveAndFlush(appointment);
+        customerSummaryService.recordStatusChange(updated, previous);
+        eventPublisher.publish(updated, AppointmentEventType.COMPLETED);
+        responseCache.invalidate(CacheRegion.BOARD, CacheRegion.OCCUPANCY);
         return AppointmentResponse.fromEntity(updated);
     }
 
+    /**
+     * Whether the appointment still has to make the transition: false when it is already there,
+     * an error when its current status does not allow it. A retry after a lost race runs this
+     * against the winner's status, so a cancelled appointment is never confirmed or completed.
+     */
+    private boolean checkTransition(Appointment appointment, BulkTransition transition) {
+        Appointment.AppointmentStatus current = appointment.getStatus();
+        if (current == transition.getTo()) {
+            return false;
+        }
+        if (!transition.getFrom().contains(current)) {
+            throw new BadRequestException("Cannot " + transition.getPath() + " a "
+                    + current.name().toLowerCase(Locale.ROOT).replace('_', '-') + " appointment");
+        }
+        return true;
+    }
+
+    /**
+     * If-Match precondition; the version column still guards the write if it changes after this check
+     */
+    private void checkVersion(Appointment appointment, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(appointment.getVersion())) {
+            throw new PreconditionFailedException("Appointment " + appointment.getId() + " is at version " +
+                    appointment.getVersion() + ", not " + expectedVersion + ". Reload it and try again.");
+        }
+    }
+
     /**
      * Get staff schedule for a day
      */
@@ -9,6 +9,7 @@ import com.barbershop.model.dto.response.UserResponse;
 import com.barbershop.model.entity.User;
 import com.barbershop.repository.UserRepository;
 import com.barbershop.security.JwtTokenProvider;
+import com.barbershop.sharding.BranchContext;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -74,8 +75,8 @@ public class AuthService {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        // Generate JWT token
-        String jwt = tokenProvider.generateToken(user.getId());
+        // Generate JWT token, bound to the branch the user logged in at
+        String jwt = tokenProvider.generateToken(user.getId(), BranchContext.branch());
 
         return new AuthResponse(jwt, UserResponse.fromEntity(user));
     }
@@ -1,14 +1,25 @@
 package com.barbershop.service;
 
+import com.barbershop.cache.CacheRegion;
+import com.barbershop.cache.EncodedResponseCache;
 import com.barbershop.exception.ResourceNotFoundException;
 import com.barbershop.model.dto.request.ServiceRequest;
 import com.barbershop.model.dto.response.ServiceResponse;
 import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.SyncTombstone;
 import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.search.ServiceSearchIndex;
+import com.barbershop.skill.StaffSkillIndex;
+import com.barbershop.sync.SyncService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @org.springframework.stereotype.Service
@@ -17,6 +28,11 @@ import java.util.stream.Collectors;
 public class ServiceService {
 
     private final ServiceRepository serviceRepository;
+    private final EncodedResponseCache responseCache;
+    private final SyncService syncService;
+    private final ServiceSearchIndex searchIndex;
+    private final StaffRepository staffRepository;
+    private final StaffSkillIndex skillIndex;
     // TODO: Add ReviewRepository for average rating
 
     /**
@@ -47,6 +63,20 @@ public class ServiceService {
                 .orElseThrow(() -> new ResourceNotFoundException("Service", "id", id));
     }
 
+    /**
+     * Get services by IDs in one query, in the order asked; unknown IDs are left out
+     */
+    public List<ServiceResponse> getServicesByIds(Collection<Long> ids) {
+        Map<Long, Service> byId = serviceRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Service::getId, Function.identity()));
+        return ids.stream()
+                .distinct()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(ServiceResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Get service response by ID
      */
@@ -74,6 +104,8 @@ public class ServiceService {
         service.setActive(request.getActive() != null ? request.getActive() : true);
 
         Service savedService = serviceRepository.save(service);
+        searchIndex.index(savedService);
+        responseCache.invalidate(CacheRegion.SERVICES, CacheRegion.BOARD);
         return ServiceResponse.fromEntity(savedService);
     }
 
@@ -104,6 +136,8 @@ public class ServiceService {
         }
 
         Service updatedService = serviceRepository.save(service);
+        searchIndex.index(updatedService);
+        responseCache.invalidate(CacheRegion.SERVICES, CacheRegion.BOARD);
         return ServiceResponse.fromEntity(updatedService);
     }
 
@@ -114,6 +148,8 @@ public class ServiceService {
         Service service = findById(id);
         service.setActive(false);
         serviceRepository.save(service);
+        searchIndex.index(service);
+        responseCache.invalidate(CacheRegion.SERVICES, CacheRegion.BOARD);
     }
 
     /**
@@ -121,7 +157,12 @@ public class ServiceService {
      */
     public void permanentlyDeleteService(Long id) {
         Service service = findById(id);
+        staffRepository.unlinkService(id);
         serviceRepository.delete(service);
+        skillIndex.invalidate();
+        syncService.recordDeletion(SyncTombstone.EntityType.SERVICE, id);
+        searchIndex.remove(id);
+        responseCache.invalidate(CacheRegion.SERVICES, CacheRegion.BOARD);
     }
 
     /**
@@ -131,5 +172,7 @@ public class ServiceService {
         Service service = findById(id);
         service.setActive(true);
         serviceRepository.save(service);
+        searchIndex.index(service);
+        responseCache.invalidate(CacheRegion.SERVICES, CacheRegion.BOARD);
     }
 }
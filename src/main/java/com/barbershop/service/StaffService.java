@@ -1,15 +1,31 @@
 package com.barbershop.service;
 
+import com.barbershop.cache.CacheRegion;
+import com.barbershop.cache.EncodedResponseCache;
+import com.barbershop.exception.BadRequestException;
 import com.barbershop.exception.ResourceNotFoundException;
+import com.barbershop.model.dto.response.ServiceResponse;
 import com.barbershop.model.dto.response.StaffResponse;
 import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.SyncTombstone;
+import com.barbershop.repository.ServiceRepository;
 import com.barbershop.repository.StaffRepository;
+import com.barbershop.schedule.AvailabilityCalendar;
+import com.barbershop.skill.StaffSkillIndex;
+import com.barbershop.sync.SyncService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,6 +34,11 @@ import java.util.stream.Collectors;
 public class StaffService {
 
     private final StaffRepository staffRepository;
+    private final EncodedResponseCache responseCache;
+    private final SyncService syncService;
+    private final ServiceRepository serviceRepository;
+    private final StaffSkillIndex skillIndex;
+    private final AvailabilityCalendar availabilityCalendar;
 
     /**
      * Get all active staff
@@ -47,6 +68,20 @@ public class StaffService {
                 .orElseThrow(() -> new ResourceNotFoundException("Staff", "id", id));
     }
 
+    /**
+     * Get staff by IDs in one query, in the order asked; unknown IDs are left out
+     */
+    public List<StaffResponse> getStaffByIds(Collection<Long> ids) {
+        Map<Long, Staff> byId = staffRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Staff::getId, Function.identity()));
+        return ids.stream()
+                .distinct()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(StaffResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Get staff response by ID
      */
@@ -71,6 +106,9 @@ public class StaffService {
         }
 
         Staff savedStaff = staffRepository.save(staff);
+        responseCache.invalidate(CacheRegion.STAFF, CacheRegion.BOARD, CacheRegion.OCCUPANCY);
+        skillIndex.invalidate();
+        availabilityCalendar.invalidate();
         return StaffResponse.fromEntity(savedStaff);
     }
 
@@ -107,6 +145,9 @@ public class StaffService {
         }
 
         Staff updatedStaff = staffRepository.save(staff);
+        responseCache.invalidate(CacheRegion.STAFF, CacheRegion.BOARD, CacheRegion.OCCUPANCY);
+        skillIndex.invalidate();
+        availabilityCalendar.invalidate();
         return StaffResponse.fromEntity(updatedStaff);
     }
 
@@ -117,6 +158,9 @@ public class StaffService {
         Staff staff = findById(id);
         staff.setActive(false);
         staffRepository.save(staff);
+        responseCache.invalidate(CacheRegion.STAFF, CacheRegion.BOARD, CacheRegion.OCCUPANCY);
+        skillIndex.invalidate();
+        availabilityCalendar.invalidate();
     }
 
     /**
@@ -126,6 +170,9 @@ public class StaffService {
         Staff staff = findById(id);
         staff.setActive(true);
         staffRepository.save(staff);
+        responseCache.invalidate(CacheRegion.STAFF, CacheRegion.BOARD, CacheRegion.OCCUPANCY);
+        skillIndex.invalidate();
+        availabilityCalendar.invalidate();
     }
 
     /**
@@ -134,5 +181,61 @@ public class StaffService {
     public void deleteStaff(Long id) {
         Staff staff = findById(id);
         staffRepository.delete(staff);
+        syncService.recordDeletion(SyncTombstone.EntityType.STAFF, id);
+        responseCache.invalidate(CacheRegion.STAFF, CacheRegion.BOARD, CacheRegion.OCCUPANCY);
+        skillIndex.invalidate();
+        availabilityCalendar.invalidate();
+    }
+
+    /**
+     * Services the staff member performs
+     */
+    public List<ServiceResponse> getStaffServices(Long id) {
+        Staff staff = staffRepository.findByIdWithServices(id);
+        if (staff == null) {
+            throw new ResourceNotFoundException("Staff", "id", id);
+        }
+        return toResponses(staff.getServices());
+    }
+
+    /**
+     * Replace the services the staff member performs
+     */
+    public List<ServiceResponse> updateStaffServices(Long id, Collection<Long> serviceIds) {
+        Staff staff = staffRepository.findByIdWithServices(id);
+        if (staff == null) {
+            throw new ResourceNotFoundException("Staff", "id", id);
+        }
+        List<com.barbershop.model.entity.Service> services = serviceRepository.findAllById(serviceIds);
+        if (services.size() != new HashSet<>(serviceIds).size()) {
+            throw new BadRequestException("Unknown service id in " + serviceIds);
+        }
+
+        staff.getServices().clear();
+        staff.getServices().addAll(services);
+        staffRepository.save(staff);
+        skillIndex.invalidate();
+        return toResponses(services);
+    }
+
+    /**
+     * Active staff who perform the service; with a time, only those whose calendar covers the whole service
+     */
+    public List<StaffResponse> getStaffForService(Long serviceId, LocalDateTime at) {
+        com.barbershop.model.entity.Service service = serviceRepository.findById(serviceId)
+                .orElseThrow(() -> new ResourceNotFoundException("Service", "id", serviceId));
+        List<Long> ids = at == null
+                ? skillIndex.eligibleStaff(service.getId())
+                : skillIndex.eligibleStaff(service.getId(), at, service.getDurationMinutes());
+        return getStaffByIds(ids).stream()
+                .sorted(Comparator.comparing(StaffResponse::getName))
+                .collect(Collectors.toList());
+    }
+
+    private static List<ServiceResponse> toResponses(Collection<com.barbershop.model.entity.Service> services) {
+        return services.stream()
+                .sorted(Comparator.comparing(com.barbershop.model.entity.Service::getName))
+                .map(ServiceResponse::fromEntity)
+                .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,87 @@
+package com.barbershop.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Branch (and optionally an explicit shard) bound to the current thread.
+ *
+ * Requests run as a single branch: the routing data source picks that branch's shard and
+ * Hibernate restricts branch-scoped entities to it. Background jobs run as {@link #ALL_BRANCHES}
+ * on one explicit shard at a time and see every branch stored there.
+ */
+public final class BranchContext {
+
+    public static final String ALL_BRANCHES = "*";
+
+    private static final ThreadLocal<String> BRANCH = new ThreadLocal<>();
+    private static final ThreadLocal<String> SHARD = new ThreadLocal<>();
+
+    private BranchContext() {
+    }
+
+    /**
+     * Current branch, or null when none was set (the default branch applies)
+     */
+    public static String branch() {
+        return BRANCH.get();
+    }
+
+    /**
+     * Shard chosen explicitly for an all-branches operation, or null
+     */
+    public static String shard() {
+        return SHARD.get();
+    }
+
+    public static void setBranch(String branch) {
+        BRANCH.set(branch);
+        SHARD.remove();
+    }
+
+    public static void clear() {
+        BRANCH.remove();
+        SHARD.remove();
+    }
+
+    /**
+     * Run work for a single branch
+     */
+    public static <T> T callAsBranch(String branch, Supplier<T> work) {
+        return call(branch, null, work);
+    }
+
+    /**
+     * Run work on one shard across all branches stored there
+     */
+    public static <T> T callOnShard(String shard, Supplier<T> work) {
+        return call(ALL_BRANCHES, shard, work);
+    }
+
+    public static void runOnShard(String shard, Runnable work) {
+        callOnShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private static <T> T call(String branch, String shard, Supplier<T> work) {
+        String previousBranch = BRANCH.get();
+        String previousShard = SHARD.get();
+        BRANCH.set(branch);
+        SHARD.set(shard);
+        try {
+            return work.get();
+        } finally {
+            restore(BRANCH, previousBranch);
+            restore(SHARD, previousShard);
+        }
+    }
+
+    private static void restore(ThreadLocal<String> holder, String value) {
+        if (value == null) {
+            holder.remove();
+        } else {
+            holder.set(value);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.barbershop.sharding;
+
+import com.barbershop.model.dto.response.ApiResponse;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Binds the branch of a request before anything touches the database.
+ *
+ * Sources, first match wins:
+ * <ol>
+ *   <li>path prefix {@code /api/branches/{branch}/...}, stripped so the normal API handles it</li>
+ *   <li>{@code X-Branch-Id} header</li>
+ *   <li>{@code branch} claim of the bearer token</li>
+ * </ol>
+ * Requests without any of these use the default branch. A path or header naming another
+ * branch than the token's claim is refused unless the token belongs to a customer: staff and
+ * admin tokens act only on the branch they were issued for.
+ */
+public class BranchResolutionFilter extends OncePerRequestFilter {
+
+    public static final String BRANCH_HEADER = "X-Branch-Id";
+
+    private static final Pattern BRANCH_PATH = Pattern.compile("^/api/branches/([A-Za-z0-9_-]+)(/.*)$");
+
+    private final ShardDirectory shardDirectory;
+    private final JwtTokenProvider tokenProvider;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+
+    public BranchResolutionFilter(ShardDirectory shardDirectory, JwtTokenProvider tokenProvider,
+                                  UserRepository userRepository, ObjectMapper objectMapper) {
+        this.shardDirectory = shardDirectory;
+        this.tokenProvider = tokenProvider;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String branch = null;
+        HttpServletRequest effectiveRequest = request;
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Matcher matcher = BRANCH_PATH.matcher(path);
+        if (matcher.matches()) {
+            branch = matcher.group(1);
+            effectiveRequest = new StrippedPathRequest(request, "/api" + matcher.group(2));
+        }
+        if (branch == null) {
+            branch = request.getHeader(BRANCH_HEADER);
+        }
+        String token = bearerToken(request);
+        String tokenBranch = token != null ? tokenProvider.getBranchFromToken(token) : null;
+        if (!StringUtils.hasText(branch)) {
+            branch = tokenBranch;
+        } else if (tokenBranch != null && !branch.equals(tokenBranch) && !isCustomer(token)) {
+            reject(response, HttpServletResponse.SC_FORBIDDEN, "This token is only valid for branch " + tokenBranch);
+            return;
+        }
+
+        if (StringUtils.hasText(branch) && !shardDirectory.isKnownBranch(branch)) {
+            reject(response, HttpServletResponse.SC_BAD_REQUEST, "Unknown branch: " + branch);
+            return;
+        }
+
+        BranchContext.setBranch(StringUtils.hasText(branch) ? branch : null);
+        try {
+            filterChain.doFilter(effectiveRequest, response);
+        } finally {
+            BranchContext.clear();
+        }
+    }
+
+    private String bearerToken(HttpServletRequest request) {
+        String bearerToken = request.getHeader("Authorization");
+        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
+            return bearerToken.substring(7);
+        }
+        return null;
+    }
+
+    // the role is read now rather than carried in the token, so a promotion applies at once
+    private boolean isCustomer(String token) {
+        return userRepository.findRoleById(tokenProvider.getUserIdFromToken(token))
+                .map(role -> role == User.UserRole.CUSTOMER)
+                .orElse(false);
+    }
+
+    private void reject(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(message));
+    }
+
+    /**
+     * Presents {@code /api/branches/{branch}/x} as {@code /api/x} to security and MVC
+     */
+    private static class StrippedPathRequest extends HttpServletRequestWrapper {
+
+        private final String path;
+
+        StrippedPathRequest(HttpServletRequest request, String path) {
+            super(request);
+            this.path = path;
+        }
+
+        @Override
+        public String getRequestURI() {
+            return getContextPath() + path;
+        }
+
+        @Override
+        public StringBuffer getRequestURL() {
+            HttpServletRequest request = (HttpServletRequest) getRequest();
+            StringBuffer url = new StringBuffer();
+            url.append(request.getScheme()).append("://").append(request.getServerName());
+            url.append(':').append(request.getServerPort()).append(getRequestURI());
+            return url;
+        }
+
+        @Override
+        public String getServletPath() {
+            return path;
+        }
+
+        @Override
+        public String getPathInfo() {
+            return null;
+        }
+    }
+}
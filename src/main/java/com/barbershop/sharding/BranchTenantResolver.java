@@ -0,0 +1,30 @@
+package com.barbershop.sharding;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+
+/**
+ * Supplies the current branch as Hibernate tenant id for @TenantId entities
+ */
+public class BranchTenantResolver implements CurrentTenantIdentifierResolver<String> {
+
+    private final ShardDirectory shardDirectory;
+
+    public BranchTenantResolver(ShardDirectory shardDirectory) {
+        this.shardDirectory = shardDirectory;
+    }
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        return shardDirectory.currentBranch();
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+
+    @Override
+    public boolean isRoot(String tenantId) {
+        return BranchContext.ALL_BRANCHES.equals(tenantId);
+    }
+}
@@ -0,0 +1,26 @@
+package com.barbershop.sharding;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Physical data source of every shard, keyed by shard name
+ */
+public class ShardDataSources {
+
+    private final Map<String, DataSource> dataSources;
+
+    public ShardDataSources(Map<String, DataSource> dataSources) {
+        this.dataSources = Collections.unmodifiableMap(new LinkedHashMap<>(dataSources));
+    }
+
+    public DataSource get(String shard) {
+        return dataSources.get(shard);
+    }
+
+    public Map<String, DataSource> asMap() {
+        return dataSources;
+    }
+}
@@ -0,0 +1,108 @@
+package com.barbershop.sharding;
+
+import com.barbershop.exception.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves branches to shards and knows the shard id ranges
+ */
+public class ShardDirectory {
+
+    public static final String DEFAULT_SHARD = "default";
+
+    // ids generated on shard n start at n * ID_RANGE, so they stay unique across shards
+    public static final long ID_RANGE = 1_000_000_000_000L;
+
+    private final String defaultBranch;
+    private final Map<String, String> shardByBranch;
+    private final Map<String, Integer> indexByShard = new LinkedHashMap<>();
+
+    public ShardDirectory(ShardingProperties properties) {
+        this.defaultBranch = properties.getDefaultBranch();
+        this.shardByBranch = Collections.unmodifiableMap(new LinkedHashMap<>(properties.getBranches()));
+
+        indexByShard.put(DEFAULT_SHARD, 0);
+        Set<Integer> usedIndexes = new HashSet<>(Set.of(0));
+        properties.getShards().forEach((name, shard) -> {
+            if (shard.getIndex() <= 0 || !usedIndexes.add(shard.getIndex())) {
+                throw new IllegalStateException("Shard '" + name + "' needs a unique index greater than 0");
+            }
+            indexByShard.put(name, shard.getIndex());
+        });
+
+        shardByBranch.forEach((branch, shard) -> {
+            if (!indexByShard.containsKey(shard)) {
+                throw new IllegalStateException("Branch '" + branch + "' is mapped to unknown shard '" + shard + "'");
+            }
+        });
+        if (!shardByBranch.containsKey(defaultBranch)) {
+            throw new IllegalStateException("Default branch '" + defaultBranch + "' is not mapped to a shard");
+        }
+    }
+
+    public String defaultBranch() {
+        return defaultBranch;
+    }
+
+    public boolean isKnownBranch(String branch) {
+        return shardByBranch.containsKey(branch);
+    }
+
+    public List<String> branches() {
+        return new ArrayList<>(shardByBranch.keySet());
+    }
+
+    public List<String> branchesOn(String shard) {
+        return shardByBranch.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(shard))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public String shardFor(String branch) {
+        String shard = shardByBranch.get(branch);
+        if (shard == null) {
+            throw new BadRequestException("Unknown branch: " + branch);
+        }
+        return shard;
+    }
+
+    public List<String> shards() {
+        return new ArrayList<>(indexByShard.keySet());
+    }
+
+    public int shardIndex(String shard) {
+        return indexByShard.get(shard);
+    }
+
+    public boolean isSharded() {
+        return indexByShard.size() > 1;
+    }
+
+    /**
+     * Shard the current thread is bound to
+     */
+    public String currentShard() {
+        String shard = BranchContext.shard();
+        if (shard != null) {
+            return shard;
+        }
+        String branch = BranchContext.branch();
+        return shardFor(branch == null || BranchContext.ALL_BRANCHES.equals(branch) ? defaultBranch : branch);
+    }
+
+    /**
+     * Branch the current thread works for (the tenant id of branch-scoped entities)
+     */
+    public String currentBranch() {
+        String branch = BranchContext.branch();
+        return branch != null ? branch : defaultBranch;
+    }
+}
@@ -0,0 +1,145 @@
+package com.barbershop.sharding;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Field;
+import java.sql.DatabaseMetaData;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Prepares the extra shards once the entity manager factory (and with it the default shard
+ * schema) is ready: applies {@code spring.jpa.hibernate.ddl-auto} to each shard, moves its
+ * identity columns into the shard's id range and resyncs the replicated users.
+ */
+@Slf4j
+public class ShardSchemaInitializer implements SmartInitializingSingleton {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final HibernateMetadataCapture metadataCapture;
+    private final ShardDirectory shardDirectory;
+    private final ShardDataSources shardDataSources;
+    private final JpaProperties jpaProperties;
+    private final UserReplicator userReplicator;
+    private final String ddlAuto;
+
+    public ShardSchemaInitializer(EntityManagerFactory entityManagerFactory,
+                                  HibernateMetadataCapture metadataCapture,
+                                  ShardDirectory shardDirectory,
+                                  ShardDataSources shardDataSources,
+                                  JpaProperties jpaProperties,
+                                  UserReplicator userReplicator,
+                                  String ddlAuto) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.metadataCapture = metadataCapture;
+        this.shardDirectory = shardDirectory;
+        this.shardDataSources = shardDataSources;
+        this.jpaProperties = jpaProperties;
+        this.userReplicator = userReplicator;
+        this.ddlAuto = ddlAuto;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!shardDirectory.isSharded() || !entityManagerFactory.isOpen()) {
+            return;
+        }
+        Metadata metadata = metadataCapture.getMetadata();
+        for (String shard : shardDirectory.shards()) {
+            if (ShardDirectory.DEFAULT_SHARD.equals(shard)) {
+                continue;
+            }
+            DataSource dataSource = shardDataSources.get(shard);
+            applySchema(metadata, dataSource);
+            applyIdRange(metadata, dataSource, shardDirectory.shardIndex(shard) * ShardDirectory.ID_RANGE);
+            log.info("Shard {} ready (branches {})", shard, shardDirectory.branchesOn(shard));
+        }
+        userReplicator.resyncAll();
+    }
+
+    private void applySchema(Metadata metadata, DataSource dataSource) {
+        String action = switch (ddlAuto) {
+            case "create", "create-drop" -> "create";
+            case "update", "validate" -> ddlAuto;
+            default -> null;
+        };
+        if (action == null) {
+            return;
+        }
+
+        Map<String, Object> settings = new HashMap<>(jpaProperties.getProperties());
+        settings.put(AvailableSettings.HBM2DDL_AUTO, action);
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySettings(settings)
+                .applySetting(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource)
+                .build();
+        try {
+            SchemaManagementToolCoordinator.process(metadata, registry, settings, dropAction -> { });
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+    }
+
+    /**
+     * Start identity columns at the shard's id base so ids never collide across shards
+     */
+    private void applyIdRange(Metadata metadata, DataSource dataSource, long base) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        String product = productName(dataSource);
+
+        for (PersistentClass entity : metadata.getEntityBindings()) {
+            if (!hasIdentityId(entity.getMappedClass())) {
+                continue;
+            }
+            String table = entity.getTable().getName();
+            String column = entity.getIdentifier().getColumns().get(0).getName();
+            Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(" + column + "), 0) FROM " + table, Long.class);
+            if (max != null && max >= base) {
+                continue;
+            }
+
+            if (product.contains("mysql") || product.contains("mariadb")) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " AUTO_INCREMENT = " + base);
+            } else if (product.contains("h2")) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN " + column + " RESTART WITH " + base);
+            } else {
+                log.warn("Cannot set id range of {} on {}; ids may collide across shards", table, product);
+            }
+        }
+    }
+
+    private static boolean hasIdentityId(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                GeneratedValue generated = field.getAnnotation(GeneratedValue.class);
+                if (field.isAnnotationPresent(Id.class) && generated != null) {
+                    return generated.strategy() == GenerationType.IDENTITY;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String productName(DataSource dataSource) {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName).toLowerCase();
+        } catch (Exception ex) {
+            return "unknown";
+        }
+    }
+}
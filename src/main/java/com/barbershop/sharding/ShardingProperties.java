@@ -0,0 +1,37 @@
+package com.barbershop.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Branch-to-shard layout. The primary {@code spring.datasource} is always the shard named
+ * {@value ShardDirectory#DEFAULT_SHARD} with index 0; further shards are declared under
+ * {@code sharding.shards}.
+ */
+@Data
+@ConfigurationProperties(prefix = "sharding")
+public class ShardingProperties {
+
+    // branch used when a request does not name one
+    private String defaultBranch = "main";
+
+    // branch code -> shard name
+    private Map<String, String> branches = new LinkedHashMap<>(Map.of("main", ShardDirectory.DEFAULT_SHARD));
+
+    // shard name -> connection settings (besides the default shard)
+    private Map<String, Shard> shards = new LinkedHashMap<>();
+
+    @Data
+    public static class Shard {
+        // fixed, unique and > 0: ids generated on this shard start at index * 10^12
+        private int index;
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maximumPoolSize = 10;
+    }
+}
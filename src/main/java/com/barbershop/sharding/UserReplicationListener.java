@@ -0,0 +1,24 @@
+package com.barbershop.sharding;
+
+import com.barbershop.model.entity.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA listener on {@link User} that feeds the {@link UserReplicator}
+ */
+public class UserReplicationListener {
+
+    private final ObjectProvider<UserReplicator> replicator;
+
+    public UserReplicationListener(ObjectProvider<UserReplicator> replicator) {
+        this.replicator = replicator;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void afterWrite(User user) {
+        replicator.ifAvailable(r -> r.replicate(user));
+    }
+}
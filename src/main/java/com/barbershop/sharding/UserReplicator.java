@@ -0,0 +1,160 @@
+package com.barbershop.sharding;
+
+import com.barbershop.model.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Copies user rows to every shard.
+ *
+ * Users are global while bookings are sharded, and appointments on every shard keep a foreign
+ * key to their customer, so the (small) users table is replicated as reference data with the
+ * same ids everywhere. Copies are written after the originating transaction commits and match
+ * on id only: when another user already holds the email on a shard (both registered before
+ * replication caught up) the copy is refused and reported, never written over that user.
+ * Copies that fail are kept and retried every {@code sharding.user-replication-retry-ms} with
+ * the user's current row; a full resync at startup repairs anything lost with a restart.
+ */
+@Slf4j
+public class UserReplicator {
+
+    private static final String COLUMNS =
+            "id, email, password, first_name, last_name, phone, role, active, created_at, updated_at";
+
+    private static final String INSERT =
+            "INSERT INTO users (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE =
+            "UPDATE users SET email = ?, password = ?, first_name = ?, last_name = ?, phone = ?, " +
+            "role = ?, active = ?, updated_at = ? WHERE id = ?";
+
+    private final ShardDirectory shardDirectory;
+    private final ShardDataSources shardDataSources;
+    // target shard -> user id -> shard the user's row is read from
+    private final Map<String, Map<Long, String>> failed = new ConcurrentHashMap<>();
+
+    public UserReplicator(ShardDirectory shardDirectory, ShardDataSources shardDataSources) {
+        this.shardDirectory = shardDirectory;
+        this.shardDataSources = shardDataSources;
+    }
+
+    /**
+     * Replicate a user written on the current shard once the transaction commits
+     */
+    public void replicate(User user) {
+        if (!shardDirectory.isSharded()) {
+            return;
+        }
+        Object[] row = toRow(user);
+        String sourceShard = shardDirectory.currentShard();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    copyToOtherShards(sourceShard, List.<Object[]>of(row));
+                }
+            });
+        } else {
+            copyToOtherShards(sourceShard, List.<Object[]>of(row));
+        }
+    }
+
+    /**
+     * Make every shard hold every user
+     */
+    public void resyncAll() {
+        if (!shardDirectory.isSharded()) {
+            return;
+        }
+        for (String shard : shardDirectory.shards()) {
+            List<Object[]> rows = new JdbcTemplate(shardDataSources.get(shard))
+                    .query("SELECT " + COLUMNS + " FROM users", UserReplicator::readRow);
+            copyToOtherShards(shard, rows);
+        }
+    }
+
+    /**
+     * Copy again what failed before, from the user's current row
+     */
+    @Scheduled(fixedDelayString = "${sharding.user-replication-retry-ms:60000}")
+    public void retryFailed() {
+        failed.forEach((targetShard, users) -> users.forEach((userId, sourceShard) -> {
+            List<Object[]> current = new JdbcTemplate(shardDataSources.get(sourceShard))
+                    .query("SELECT " + COLUMNS + " FROM users WHERE id = ?", UserReplicator::readRow, userId);
+            // gone meanwhile: nothing left to copy
+            if (current.isEmpty() || copy(sourceShard, targetShard, current.get(0))) {
+                users.remove(userId, sourceShard);
+            }
+        }));
+        failed.values().removeIf(Map::isEmpty);
+    }
+
+    /**
+     * Number of user copies waiting for a retry
+     */
+    public int pendingRetries() {
+        return failed.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private void copyToOtherShards(String sourceShard, List<Object[]> rows) {
+        for (String targetShard : shardDataSources.asMap().keySet()) {
+            if (targetShard.equals(sourceShard)) {
+                continue;
+            }
+            for (Object[] row : rows) {
+                if (!copy(sourceShard, targetShard, row)) {
+                    failed.computeIfAbsent(targetShard, shard -> new ConcurrentHashMap<>()).put((Long) row[0], sourceShard);
+                }
+            }
+        }
+    }
+
+    private boolean copy(String sourceShard, String targetShard, Object[] row) {
+        JdbcTemplate target = new JdbcTemplate(shardDataSources.get(targetShard));
+        try {
+            int updated = target.update(UPDATE, row[1], row[2], row[3], row[4], row[5], row[6], row[7], row[9], row[0]);
+            if (updated == 0) {
+                target.update(INSERT, row);
+            }
+            return true;
+        } catch (DuplicateKeyException ex) {
+            log.error("User {} from shard {} not copied to shard {}: email {} belongs to another user there",
+                    row[0], sourceShard, targetShard, row[1]);
+        } catch (RuntimeException ex) {
+            log.error("Could not replicate user {} from shard {} to shard {}; will retry", row[0], sourceShard, targetShard, ex);
+        }
+        return false;
+    }
+
+    private static Object[] readRow(ResultSet rs, int rowNum) throws SQLException {
+        return new Object[]{
+                rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                rs.getString(6), rs.getString(7), rs.getBoolean(8), rs.getTimestamp(9), rs.getTimestamp(10)
+        };
+    }
+
+    private static Object[] toRow(User user) {
+        return new Object[]{
+                user.getId(), user.getEmail(), user.getPassword(), user.getFirstName(), user.getLastName(),
+                user.getPhone(), user.getRole().name(), user.getActive(),
+                timestamp(user.getCreatedAt()), timestamp(user.getUpdatedAt())
+        };
+    }
+
+    private static Timestamp timestamp(LocalDateTime time) {
+        return Timestamp.valueOf(time != null ? time : LocalDateTime.now());
+    }
+}
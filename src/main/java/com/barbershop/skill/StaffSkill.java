@@ -0,0 +1,16 @@
+package com.barbershop.skill;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One staff member - service link of the skill matrix (JPQL projection)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StaffSkill {
+    private Long staffId;
+    private Long serviceId;
+}
@@ -0,0 +1,171 @@
+package com.barbershop.skill;
+
+import com.barbershop.model.entity.Staff;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.schedule.AvailabilityCalendar;
+import com.barbershop.sharding.ShardDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bitmap index of who can do what, one per branch.
+ *
+ * Every staff member gets a bit position. Each service has a bitset of the staff linked to it
+ * and there is one bitset of active staff, so "who can do service X" is a clone and an AND;
+ * "at 14:30 for 45 minutes" ANDs in the {@link AvailabilityCalendar}'s on-shift bitmap, which
+ * the calendar keeps in this index's staff order.
+ * A service nobody is linked to can be done by anyone, which keeps shops that have not filled
+ * in the matrix working as before.
+ *
+ * The index is read-only once built. Staff and skill changes drop the branch's index (now and
+ * after commit) and the next lookup rebuilds it with two queries; indexes older than
+ * {@code skills.max-age-seconds} are rebuilt too, to pick up other nodes' changes.
+ */
+@Slf4j
+@Component
+public class StaffSkillIndex {
+
+    private final StaffRepository staffRepository;
+    private final ShardDirectory shardDirectory;
+    private final AvailabilityCalendar availabilityCalendar;
+    private final Map<String, Snapshot> branches = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    @Value("${skills.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    public StaffSkillIndex(StaffRepository staffRepository, ShardDirectory shardDirectory,
+                           AvailabilityCalendar availabilityCalendar) {
+        this.staffRepository = staffRepository;
+        this.shardDirectory = shardDirectory;
+        this.availabilityCalendar = availabilityCalendar;
+    }
+
+    /**
+     * Whether the staff member may be booked for the service, whatever their state
+     */
+    public boolean canPerform(Long staffId, Long serviceId) {
+        Snapshot snapshot = snapshot();
+        BitSet skilled = snapshot.skilled.get(serviceId);
+        Integer position = snapshot.positions.get(staffId);
+        return skilled == null || position != null && skilled.get(position);
+    }
+
+    /**
+     * Active staff who perform the service
+     */
+    public List<Long> eligibleStaff(Long serviceId) {
+        Snapshot snapshot = snapshot();
+        BitSet eligible = snapshot.skilledOrAll(serviceId);
+        eligible.and(snapshot.active);
+        return snapshot.ids(eligible);
+    }
+
+    /**
+     * Active staff who perform the service and work through [start, start + durationMinutes)
+     */
+    public List<Long> eligibleStaff(Long serviceId, LocalDateTime start, int durationMinutes) {
+        Snapshot snapshot = snapshot();
+        BitSet eligible = snapshot.skilledOrAll(serviceId);
+        eligible.and(snapshot.active);
+        eligible.and(availabilityCalendar.onShift(snapshot.staffIds, start, durationMinutes));
+        return snapshot.ids(eligible);
+    }
+
+    /**
+     * Drop the current branch's index now and, inside a transaction, once more after commit
+     */
+    public void invalidate() {
+        String branch = shardDirectory.currentBranch();
+        generation.incrementAndGet();
+        branches.remove(branch);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                    branches.remove(branch);
+                }
+            });
+        }
+    }
+
+    private Snapshot snapshot() {
+        long now = System.currentTimeMillis();
+        String branch = shardDirectory.currentBranch();
+        Snapshot snapshot = branches.get(branch);
+        if (snapshot == null || snapshot.expiresAt <= now) {
+            long built = generation.get();
+            snapshot = build(now + maxAgeSeconds * 1000);
+            if (generation.get() == built) {
+                // not kept when invalidated meanwhile, it may hold what was read before the change
+                branches.put(branch, snapshot);
+            }
+            log.debug("Indexed skills of {} staff in branch {}", snapshot.staffIds.length, branch);
+        }
+        return snapshot;
+    }
+
+    private Snapshot build(long expiresAt) {
+        List<Staff> staff = staffRepository.findAll();
+        Snapshot snapshot = new Snapshot(expiresAt, staff.size());
+        for (int position = 0; position < staff.size(); position++) {
+            Staff member = staff.get(position);
+            snapshot.staffIds[position] = member.getId();
+            snapshot.positions.put(member.getId(), position);
+            if (!Boolean.FALSE.equals(member.getActive())) {
+                snapshot.active.set(position);
+            }
+        }
+        for (StaffSkill skill : staffRepository.findSkills()) {
+            Integer position = snapshot.positions.get(skill.getStaffId());
+            if (position != null) {
+                snapshot.skilled.computeIfAbsent(skill.getServiceId(), id -> new BitSet(staff.size())).set(position);
+            }
+        }
+        return snapshot;
+    }
+
+    private static final class Snapshot {
+
+        final long expiresAt;
+        final long[] staffIds;
+        final Map<Long, Integer> positions = new HashMap<>();
+        final BitSet active;
+        final Map<Long, BitSet> skilled = new HashMap<>();
+        final BitSet everyone;
+
+        Snapshot(long expiresAt, int size) {
+            this.expiresAt = expiresAt;
+            this.staffIds = new long[size];
+            this.active = new BitSet(size);
+            this.everyone = new BitSet(size);
+            everyone.set(0, size);
+        }
+
+        // a fresh set the caller may modify
+        BitSet skilledOrAll(Long serviceId) {
+            return (BitSet) skilled.getOrDefault(serviceId, everyone).clone();
+        }
+
+        List<Long> ids(BitSet positions) {
+            List<Long> ids = new ArrayList<>(positions.cardinality());
+            for (int position = positions.nextSetBit(0); position >= 0; position = positions.nextSetBit(position + 1)) {
+                ids.add(staffIds[position]);
+            }
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.barbershop.sync;
+
+import com.barbershop.model.dto.response.AppointmentResponse;
+import com.barbershop.model.dto.response.ServiceResponse;
+import com.barbershop.model.dto.response.StaffResponse;
+import com.barbershop.model.dto.response.SyncResponse;
+import com.barbershop.model.entity.SyncTombstone;
+import com.barbershop.repository.AppointmentItemRepository;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.SyncTombstoneRepository;
+import com.barbershop.sharding.BranchContext;
+import com.barbershop.sharding.ShardDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Changes since a sync token, for clients that keep a local copy of the schedule.
+ *
+ * A delta covers the half-open window [since, until) on {@code updatedAt}, plus tombstones of
+ * hard-deleted services and staff. {@code until} trails the clock by {@code sync.settle-ms}:
+ * timestamps are taken before commit, so a row stamped just before "now" may not be visible yet,
+ * and stopping short of it keeps it for the next window instead of skipping it. A client without
+ * a token, or with one older than the tombstone retention, gets a full snapshot instead.
+ */
+@Slf4j
+@Service
+public class SyncService {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final AppointmentRepository appointmentRepository;
+    private final AppointmentItemRepository appointmentItemRepository;
+    private final ServiceRepository serviceRepository;
+    private final StaffRepository staffRepository;
+    private final SyncTombstoneRepository tombstoneRepository;
+    private final ShardDirectory shardDirectory;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${sync.settle-ms:2000}")
+    private long settleMs;
+
+    @Value("${sync.tombstone-retention-days:30}")
+    private long retentionDays;
+
+    @Value("${sync.snapshot-days-back:7}")
+    private long snapshotDaysBack;
+
+    public SyncService(AppointmentRepository appointmentRepository,
+                       AppointmentItemRepository appointmentItemRepository,
+                       ServiceRepository serviceRepository,
+                       StaffRepository staffRepository,
+                       SyncTombstoneRepository tombstoneRepository,
+                       ShardDirectory shardDirectory,
+                       PlatformTransactionManager transactionManager) {
+        this.appointmentRepository = appointmentRepository;
+        this.appointmentItemRepository = appointmentItemRepository;
+        this.serviceRepository = serviceRepository;
+        this.staffRepository = staffRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.shardDirectory = shardDirectory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Changes after the token, or a full snapshot when token is null or too old
+     */
+    @Transactional(readOnly = true)
+    public SyncResponse changesSince(String token) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.minus(Duration.ofMillis(settleMs));
+        if (token == null || token.isBlank()) {
+            return snapshot(until);
+        }
+        LocalDateTime since = SyncToken.decode(token);
+        if (since.isBefore(now.minusDays(retentionDays))) {
+            // deletions before this point are gone, a delta could miss some
+            return snapshot(until);
+        }
+        if (!until.isAfter(since)) {
+            return new SyncResponse(token, false, List.of(), List.of(), List.of(), new SyncResponse.Deleted(List.of(), List.of()));
+        }
+
+        // an item can change without its appointment; either one puts the appointment in the delta
+        TreeSet<Long> appointmentIds = new TreeSet<>(appointmentRepository.findIdsChangedBetween(since, until));
+        appointmentIds.addAll(appointmentItemRepository.findAppointmentIdsChangedBetween(since, until));
+
+        List<Long> deletedServices = new ArrayList<>();
+        List<Long> deletedStaff = new ArrayList<>();
+        for (SyncTombstone tombstone : tombstoneRepository.findDeletedBetween(since, until)) {
+            (tombstone.getEntityType() == SyncTombstone.EntityType.SERVICE ? deletedServices : deletedStaff)
+                    .add(tombstone.getEntityId());
+        }
+
+        return new SyncResponse(
+                SyncToken.encode(until),
+                false,
+                appointments(new ArrayList<>(appointmentIds)),
+                serviceRepository.findChangedBetween(since, until).stream().map(ServiceResponse::fromEntity).toList(),
+                staffRepository.findChangedBetween(since, until).stream().map(StaffResponse::fromEntity).toList(),
+                new SyncResponse.Deleted(deletedServices, deletedStaff)
+        );
+    }
+
+    /**
+     * Remember a hard delete; call in the transaction that deletes the row
+     */
+    @Transactional
+    public void recordDeletion(SyncTombstone.EntityType type, Long id) {
+        tombstoneRepository.save(new SyncTombstone(null, null, type, id, LocalDateTime.now()));
+    }
+
+    @Scheduled(cron = "${sync.purge-cron:0 45 3 * * *}")
+    public void purgeTombstones() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        for (String shard : shardDirectory.shards()) {
+            int purged = BranchContext.callOnShard(shard,
+                    () -> transactionTemplate.execute(status -> tombstoneRepository.deleteOlderThan(cutoff)));
+            if (purged > 0) {
+                log.debug("Purged {} sync tombstones on shard {}", purged, shard);
+            }
+        }
+    }
+
+    private SyncResponse snapshot(LocalDateTime until) {
+        LocalDateTime from = LocalDate.now().minusDays(snapshotDaysBack).atStartOfDay();
+        return new SyncResponse(
+                SyncToken.encode(until),
+                true,
+                appointments(appointmentRepository.findIdsFrom(from)),
+                serviceRepository.findAll().stream().map(ServiceResponse::fromEntity).toList(),
+                staffRepository.findAll().stream().map(StaffResponse::fromEntity).toList(),
+                new SyncResponse.Deleted(List.of(), List.of())
+        );
+    }
+
+    private List<AppointmentResponse> appointments(List<Long> ids) {
+        List<AppointmentResponse> appointments = new ArrayList<>(ids.size());
+        for (int start = 0; start < ids.size(); start += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(start, Math.min(ids.size(), start + CHUNK_SIZE));
+            appointmentRepository.findAllWithDetails(chunk).stream()
+                    .map(AppointmentResponse::fromEntity)
+                    .forEach(appointments::add);
+        }
+        return appointments;
+    }
+}
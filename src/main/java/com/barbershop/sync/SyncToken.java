@@ -0,0 +1,36 @@
+package com.barbershop.sync;
+
+import com.barbershop.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque sync position: the end of the change window a client has seen
+ */
+final class SyncToken {
+
+    private static final String PREFIX = "v1:";
+
+    private SyncToken() {
+    }
+
+    static String encode(LocalDateTime position) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + position).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static LocalDateTime decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new BadRequestException("Invalid sync token");
+            }
+            return LocalDateTime.parse(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid sync token");
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.barbershop.analytics;
+
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.model.dto.response.OccupancyForecastResponse;
+import com.barbershop.model.dto.response.OccupancyResponse;
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.AppointmentItem;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.service.AppointmentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "analytics.units-per-task=1")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OccupancyServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OccupancyService occupancyService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        staffRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void bookedMinutesAreSplitAcrossHoursAgainstWorkingHours() {
+        User customer = customer();
+        Staff ali = staff("Ali");
+        Service haircut = service();
+        book(customer, ali, haircut, MONDAY.atTime(10, 45), 30);
+        book(customer, ali, haircut, MONDAY.plusDays(1).atTime(14, 0), 60);
+        Long cancelled = book(customer, ali, haircut, MONDAY.plusDays(2).atTime(9, 0), 30);
+        appointmentService.cancelAppointment(cancelled, customer.getId(), null);
+
+        OccupancyResponse heatmap = occupancyService.getHeatmap(MONDAY, MONDAY.plusWeeks(1));
+
+        assertEquals(90, heatmap.getBookedMinutes());
+        assertEquals(7 * 9 * 60, heatmap.getAvailableMinutes());
+        assertEquals(15, slot(heatmap, DayOfWeek.MONDAY, 10).getBookedMinutes());
+        assertEquals(15, slot(heatmap, DayOfWeek.MONDAY, 11).getBookedMinutes());
+        assertEquals(0.25, slot(heatmap, DayOfWeek.MONDAY, 11).getUtilization());
+        assertEquals(60, slot(heatmap, DayOfWeek.TUESDAY, 14).getBookedMinutes());
+        assertEquals(0, slot(heatmap, DayOfWeek.WEDNESDAY, 9).getBookedMinutes());
+        assertEquals(0, slot(heatmap, DayOfWeek.MONDAY, 8).getAvailableMinutes());
+        assertEquals(60, slot(heatmap, DayOfWeek.SUNDAY, 17).getAvailableMinutes());
+    }
+
+    @Test
+    void multiYearRangeSumsEveryStaffWeek() {
+        User customer = customer();
+        Service haircut = service();
+        Staff ali = staff("Ali");
+        Staff veli = staff("Veli");
+        for (int week = 0; week < 104; week++) {
+            book(customer, week % 2 == 0 ? ali : veli, haircut, MONDAY.plusWeeks(week).atTime(17, 30), 60);
+        }
+
+        OccupancyResponse heatmap = occupancyService.getHeatmap(MONDAY, MONDAY.plusWeeks(104));
+
+        assertEquals(104 * 60, heatmap.getBookedMinutes());
+        assertEquals(2L * 104 * 7 * 9 * 60, heatmap.getAvailableMinutes());
+        assertEquals(104 * 30, slot(heatmap, DayOfWeek.MONDAY, 17).getBookedMinutes());
+        assertEquals(104 * 30, slot(heatmap, DayOfWeek.MONDAY, 18).getBookedMinutes());
+        assertEquals(0, slot(heatmap, DayOfWeek.MONDAY, 18).getAvailableMinutes());
+    }
+
+    @Test
+    void cachedHeatmapIsDroppedWhenABookingChanges() throws Exception {
+        User customer = customer();
+        Staff ali = staff("Ali");
+        Service haircut = service();
+        LocalDate from = MONDAY.plusWeeks(3);
+        book(customer, ali, haircut, from.atTime(10, 0), 30);
+        Long second = book(customer, ali, haircut, from.atTime(11, 0), 60);
+
+        String url = "/api/admin/reports/occupancy?from=" + from + "&to=" + from.plusWeeks(1);
+        mockMvc.perform(get(url).with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.bookedMinutes").value(90))
+                .andExpect(jsonPath("$.data.slots.length()").value(OccupancyService.SLOTS));
+
+        appointmentService.cancelAppointment(second, customer.getId(), null);
+        mockMvc.perform(get(url).with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.bookedMinutes").value(30));
+
+        mockMvc.perform(get(url).with(user("customer").roles("CUSTOMER")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/admin/reports/occupancy?from=" + from + "&to=" + from)
+                        .with(user("admin").roles("ADMIN")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void forecastNeverDropsBelowWhatIsBooked() {
+        User customer = customer();
+        Staff ali = staff("Ali");
+        Service haircut = service();
+        book(customer, ali, haircut, MONDAY.atTime(10, 0), 45);
+
+        OccupancyForecastResponse forecast = occupancyService.getForecast(2);
+
+        assertEquals(2, forecast.getWeeks().size());
+        assertEquals(45, forecast.getWeeks().stream().mapToLong(OccupancyForecastResponse.Week::getBookedMinutes).sum());
+        // no history yet: the expectation is what is booked
+        assertEquals(45, forecast.getWeeks().stream().mapToLong(OccupancyForecastResponse.Week::getExpectedMinutes).sum());
+        assertEquals(2 * 7 * 9 * 60, forecast.getWeeks().stream().mapToLong(OccupancyForecastResponse.Week::getAvailableMinutes).sum());
+        assertThrows(BadRequestException.class, () -> occupancyService.getForecast(0));
+    }
+
+    private Long book(User customer, Staff staff, Service service, LocalDateTime start, int minutes) {
+        Appointment appointment = new Appointment();
+        appointment.setCustomer(customer);
+        appointment.setAppointmentDateTime(start);
+        AppointmentItem item = new AppointmentItem();
+        item.setService(service);
+        item.setStaff(staff);
+        item.setPrice(service.getPrice());
+        item.setDurationMinutes(minutes);
+        item.setScheduledTime(start);
+        appointment.addItem(item);
+        return appointmentRepository.save(appointment).getId();
+    }
+
+    private static OccupancyResponse.Slot slot(OccupancyResponse heatmap, DayOfWeek day, int hour) {
+        return heatmap.getSlots().get((day.getValue() - 1) * 24 + hour);
+    }
+
+    private User customer() {
+        User customer = new User();
+        customer.setEmail("occupancy@example.com");
+        customer.setPassword("x");
+        customer.setFirstName("Occupancy");
+        customer.setLastName("Customer");
+        return userRepository.save(customer);
+    }
+
+    private Staff staff(String name) {
+        Staff staff = new Staff();
+        staff.setName(name);
+        return staffRepository.save(staff);
+    }
+
+    private Service service() {
+        Service service = new Service();
+        service.setName("Haircut");
+        service.setDurationMinutes(30);
+        service.setPrice(new BigDecimal("150.00"));
+        return serviceRepository.save(service);
+    }
+}
@@ -0,0 +1,176 @@
+package com.barbershop.assignment;
+
+import com.barbershop.exception.AppointmentConflictException;
+import com.barbershop.model.dto.request.AppointmentCreateRequest;
+import com.barbershop.model.dto.request.AppointmentItemRequest;
+import com.barbershop.model.dto.response.AppointmentItemResponse;
+import com.barbershop.model.dto.response.AppointmentResponse;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.OutboxEventRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.schedule.AvailabilityCalendar;
+import com.barbershop.service.AppointmentService;
+import com.barbershop.service.StaffService;
+import com.barbershop.skill.StaffSkillIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StaffAssignmentServiceTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(2);
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private StaffService staffService;
+
+    @Autowired
+    private StaffSkillIndex skillIndex;
+
+    @Autowired
+    private AvailabilityCalendar calendar;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    private Long customerId;
+    private Staff ali;
+    private Staff veli;
+    private Staff can;
+    private Service haircut;
+    private Service beard;
+
+    @BeforeEach
+    void setUp() {
+        User customer = new User();
+        customer.setEmail("assignment@example.com");
+        customer.setPassword("x");
+        customer.setFirstName("Assignment");
+        customer.setLastName("Customer");
+        customerId = userRepository.save(customer).getId();
+
+        ali = staff("Ali", LocalTime.of(9, 0), LocalTime.of(18, 0));
+        veli = staff("Veli", LocalTime.of(9, 0), LocalTime.of(18, 0));
+        can = staff("Can", LocalTime.of(12, 0), LocalTime.of(20, 0));
+        haircut = service("Haircut");
+        beard = service("Beard Trim");
+        calendar.invalidate();
+        skillIndex.invalidate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        staffRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+        calendar.invalidate();
+        skillIndex.invalidate();
+    }
+
+    @Test
+    void picksFreeSkilledStaffOnShift() {
+        staffService.updateStaffServices(ali.getId(), List.of(beard.getId(), haircut.getId()));
+        staffService.updateStaffServices(veli.getId(), List.of(beard.getId(), haircut.getId()));
+        staffService.updateStaffServices(can.getId(), List.of(haircut.getId()));
+        book(DAY.atTime(10, 0), item(beard, ali, 10, 0));
+
+        // Ali is busy and Can is not on shift yet
+        assertEquals(List.of(veli.getId()), staffOf(book(DAY.atTime(10, 0), item(haircut, null, 10, 0))));
+        // nobody else does beards
+        assertThrows(AppointmentConflictException.class, () -> book(DAY.atTime(10, 0), item(beard, null, 10, 0)));
+        assertEquals(List.of(), skillIndex.eligibleStaff(beard.getId(), DAY.atTime(19, 0), 30));
+        assertThrows(AppointmentConflictException.class, () -> book(DAY.atTime(19, 0), item(beard, null, 19, 0)));
+
+        // two items at once go to two people, the asked-for one is kept
+        List<Long> staff = staffOf(book(DAY.atTime(13, 0),
+                item(haircut, null, 13, 0), item(beard, veli, 13, 0), item(haircut, null, 13, 0)));
+        assertEquals(veli.getId(), staff.get(1));
+        assertNotEquals(staff.get(0), staff.get(2));
+        assertEquals(3, staff.stream().distinct().count());
+    }
+
+    @Test
+    void balancesLoadAndPacksAgainstBookings() {
+        book(DAY.atTime(10, 0), item(haircut, ali, 10, 0));
+        book(DAY.atTime(14, 0), item(haircut, veli, 14, 0));
+        book(DAY.atTime(15, 0), item(haircut, veli, 15, 0));
+
+        // Ali has less booked and 10:30 leaves him no gap
+        assertEquals(List.of(ali.getId()), staffOf(book(DAY.atTime(10, 30), item(haircut, null, 10, 30))));
+        // right after Veli's 14:00, and Ali is now as busy as Veli
+        book(DAY.atTime(11, 0), item(haircut, ali, 11, 0));
+        assertEquals(List.of(veli.getId()), staffOf(book(DAY.atTime(14, 30), item(haircut, null, 14, 30))));
+        // Can's day is empty and 12:30 is close to the start of his shift
+        assertEquals(List.of(can.getId()), staffOf(book(DAY.atTime(12, 30), item(haircut, null, 12, 30))));
+    }
+
+    private AppointmentResponse book(LocalDateTime at, AppointmentItemRequest... items) {
+        return appointmentService.createAppointment(customerId, new AppointmentCreateRequest(at, List.of(items), null));
+    }
+
+    private static AppointmentItemRequest item(Service service, Staff staff, int hour, int minute) {
+        return new AppointmentItemRequest(service.getId(), staff == null ? null : staff.getId(), DAY.atTime(hour, minute));
+    }
+
+    private static List<Long> staffOf(AppointmentResponse response) {
+        List<Long> staff = new ArrayList<>();
+        for (AppointmentItemResponse item : response.getItems()) {
+            staff.add(item.getStaff().getId());
+        }
+        return staff;
+    }
+
+    private Staff staff(String name, LocalTime start, LocalTime end) {
+        Staff staff = new Staff();
+        staff.setName(name);
+        staff.setWorkStartTime(start);
+        staff.setWorkEndTime(end);
+        staff.setActive(true);
+        return staffRepository.save(staff);
+    }
+
+    private Service service(String name) {
+        Service service = new Service();
+        service.setName(name);
+        service.setDurationMinutes(30);
+        service.setPrice(new BigDecimal("150.00"));
+        return serviceRepository.save(service);
+    }
+}
@@ -0,0 +1,170 @@
+package com.barbershop.batch;
+
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.AppointmentItem;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.barbershop.batch.BatchReadServiceTest$RecordingInspector")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BatchReadServiceTest {
+
+    static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        staffRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void bookingScreenLoadsInOneCallWithOneStaffQuery() throws Exception {
+        User customer = new User();
+        customer.setEmail("batch@example.com");
+        customer.setPassword("x");
+        customer.setFirstName("Batch");
+        customer.setLastName("Customer");
+        customer = userRepository.save(customer);
+        String token = jwtTokenProvider.generateToken(customer.getId());
+
+        Service haircut = new Service();
+        haircut.setName("Haircut");
+        haircut.setDurationMinutes(30);
+        haircut.setPrice(new BigDecimal("150.00"));
+        haircut = serviceRepository.save(haircut);
+        Long[] staffIds = new Long[3];
+        for (int i = 0; i < 3; i++) {
+            Staff staff = new Staff();
+            staff.setName("Barber " + i);
+            staffIds[i] = staffRepository.save(staff).getId();
+        }
+
+        Appointment appointment = new Appointment();
+        appointment.setCustomer(customer);
+        appointment.setAppointmentDateTime(LocalDate.now().plusDays(1).atTime(10, 0));
+        AppointmentItem item = new AppointmentItem();
+        item.setAppointment(appointment);
+        item.setService(haircut);
+        item.setPrice(haircut.getPrice());
+        item.setDurationMinutes(haircut.getDurationMinutes());
+        item.setScheduledTime(appointment.getAppointmentDateTime());
+        appointment.getItems().add(item);
+        Long appointmentId = appointmentRepository.save(appointment).getId();
+
+        String body = """
+                {"requests": [
+                  {"id": "services", "path": "/api/services"},
+                  {"id": "pair", "path": "/api/staff?ids=%d,%d"},
+                  {"id": "one", "path": "/api/staff/%d"},
+                  {"id": "gone", "path": "/api/staff/999999"},
+                  {"id": "mine", "path": "/api/appointments/my-appointments?size=5"},
+                  {"id": "booking", "path": "/api/appointments/%d"},
+                  {"id": "users", "path": "/api/users"}
+                ]}
+                """.formatted(staffIds[2], staffIds[0], staffIds[1], appointmentId);
+        STATEMENTS.clear();
+        byte[] response = mockMvc.perform(post("/api/batch")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode results = objectMapper.readTree(response).path("data").path("results");
+        assertEquals(7, results.size());
+        assertEquals(1, results.get(0).path("data").size());
+        // requested order is kept
+        assertEquals(staffIds[2], results.get(1).path("data").get(0).path("id").asLong());
+        assertEquals(staffIds[0], results.get(1).path("data").get(1).path("id").asLong());
+        assertEquals(staffIds[1], results.get(2).path("data").path("id").asLong());
+        assertEquals(404, results.get(3).path("status").asInt());
+        assertEquals(1, results.get(4).path("data").path("content").size());
+        assertEquals(appointmentId, results.get(5).path("data").path("id").asLong());
+        assertEquals(400, results.get(6).path("status").asInt());
+
+        long staffLookups = STATEMENTS.stream()
+                .filter(sql -> sql.contains(" from staff ") && sql.contains(" in ("))
+                .count();
+        assertEquals(1, staffLookups);
+    }
+
+    @Test
+    void multiGetReturnsOnlyTheAskedServices() throws Exception {
+        Service first = new Service();
+        first.setName("Haircut");
+        first.setDurationMinutes(30);
+        first.setPrice(new BigDecimal("150.00"));
+        Long firstId = serviceRepository.save(first).getId();
+        Service second = new Service();
+        second.setName("Shave");
+        second.setDurationMinutes(20);
+        second.setPrice(new BigDecimal("90.00"));
+        serviceRepository.save(second);
+
+        mockMvc.perform(get("/api/services").param("ids", firstId + ",999999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.data[0].name").value("Haircut"));
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql.toLowerCase());
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.barbershop.bulk;
+
+import com.barbershop.model.dto.request.BulkStatusRequest;
+import com.barbershop.model.dto.response.BulkStatusResponse;
+import com.barbershop.model.dto.response.BulkStatusResponse.Outcome;
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.AppointmentItem;
+import com.barbershop.model.entity.OutboxEvent;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.OutboxEventRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AppointmentBulkServiceTest {
+
+    @Autowired
+    private AppointmentBulkService bulkService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void completesManyAppointmentsAndReportsEveryId() {
+        User customer = new User();
+        customer.setEmail("bulk@example.com");
+        customer.setPassword("x");
+        customer.setFirstName("Bulk");
+        customer.setLastName("Customer");
+        customer = userRepository.save(customer);
+
+        Service service = new Service();
+        service.setName("Haircut");
+        service.setDurationMinutes(30);
+        service.setPrice(new BigDecimal("150.00"));
+        service = serviceRepository.save(service);
+
+        LocalDateTime day = LocalDate.now().plusDays(1).atTime(9, 0);
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Appointment appointment = new Appointment();
+            appointment.setCustomer(customer);
+            appointment.setAppointmentDateTime(day.plusMinutes(i));
+            appointment.setStatus(i % 2 == 0 ? Appointment.AppointmentStatus.PENDING : Appointment.AppointmentStatus.CONFIRMED);
+            for (int j = 0; j < 2; j++) {
+                AppointmentItem item = new AppointmentItem();
+                item.setService(service);
+                item.setPrice(service.getPrice());
+                item.setDurationMinutes(service.getDurationMinutes());
+                item.setScheduledTime(appointment.getAppointmentDateTime().plusMinutes(30L * j));
+                // one cancelled item per appointment stays cancelled
+                item.setStatus(j == 0 ? AppointmentItem.ItemStatus.PENDING : AppointmentItem.ItemStatus.CANCELLED);
+                appointment.addItem(item);
+            }
+            appointments.add(appointment);
+        }
+        appointments.get(0).setStatus(Appointment.AppointmentStatus.CANCELLED);
+        appointments.get(1).setStatus(Appointment.AppointmentStatus.COMPLETED);
+        appointments = appointmentRepository.saveAll(appointments);
+
+        List<Long> ids = new ArrayList<>(appointments.stream().map(Appointment::getId).toList());
+        ids.add(-1L);
+        BulkStatusResponse response = bulkService.apply(BulkTransition.COMPLETE, new BulkStatusRequest(ids, null, null, null));
+
+        assertEquals(501, response.getRequested());
+        assertEquals(498, response.getUpdated());
+        Map<Long, BulkStatusResponse.Result> results = response.getResults().stream()
+                .collect(Collectors.toMap(BulkStatusResponse.Result::getId, Function.identity()));
+        assertEquals(Outcome.INVALID_TRANSITION, results.get(ids.get(0)).getOutcome());
+        assertEquals(Outcome.UNCHANGED, results.get(ids.get(1)).getOutcome());
+        assertEquals(Outcome.UPDATED, results.get(ids.get(2)).getOutcome());
+        assertEquals(Outcome.NOT_FOUND, results.get(-1L).getOutcome());
+
+        assertEquals(499, count("SELECT COUNT(*) FROM appointments WHERE status = 'COMPLETED'"));
+        assertEquals(498, count("SELECT COUNT(*) FROM appointment_items WHERE status = 'COMPLETED'"));
+        assertEquals(500, count("SELECT COUNT(*) FROM appointment_items WHERE status = 'CANCELLED'"));
+        assertEquals(498, outboxEventRepository.countByStatus(OutboxEvent.OutboxStatus.PENDING));
+
+        // by filter: nothing in the window can be cancelled any more
+        BulkStatusResponse cancel = bulkService.apply(BulkTransition.CANCEL,
+                new BulkStatusRequest(null, day, day.plusDays(1), Appointment.AppointmentStatus.COMPLETED));
+        assertEquals(499, cancel.getRequested());
+        assertEquals(0, cancel.getUpdated());
+    }
+
+    @Test
+    void noShowMovesOpenItemsAlong() {
+        User customer = new User();
+        customer.setEmail("bulk-noshow@example.com");
+        customer.setPassword("x");
+        customer.setFirstName("Bulk");
+        customer.setLastName("NoShow");
+        customer = userRepository.save(customer);
+
+        Service service = new Service();
+        service.setName("Shave");
+        service.setDurationMinutes(20);
+        service.setPrice(new BigDecimal("80.00"));
+        service = serviceRepository.save(service);
+
+        Appointment appointment = new Appointment();
+        appointment.setCustomer(customer);
+        appointment.setAppointmentDateTime(LocalDateTime.now().minusDays(1));
+        appointment.setStatus(Appointment.AppointmentStatus.CONFIRMED);
+        for (AppointmentItem.ItemStatus status : List.of(AppointmentItem.ItemStatus.PENDING, AppointmentItem.ItemStatus.CANCELLED)) {
+            AppointmentItem item = new AppointmentItem();
+            item.setService(service);
+            item.setPrice(service.getPrice());
+            item.setDurationMinutes(service.getDurationMinutes());
+            item.setScheduledTime(appointment.getAppointmentDateTime());
+            item.setStatus(status);
+            appointment.addItem(item);
+        }
+        appointment = appointmentRepository.save(appointment);
+
+        BulkStatusResponse response = bulkService.apply(BulkTransition.NO_SHOW,
+                new BulkStatusRequest(List.of(appointment.getId()), null, null, null));
+
+        assertEquals(1, response.getUpdated());
+        assertEquals(1, count("SELECT COUNT(*) FROM appointment_items WHERE status = 'NO_SHOW'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM appointment_items WHERE status = 'CANCELLED'"));
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
@@ -0,0 +1,96 @@
+package com.barbershop.cache;
+
+import com.barbershop.model.dto.request.ServiceRequest;
+import com.barbershop.model.entity.Service;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.service.ServiceService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class EncodedResponseCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EncodedResponseCache responseCache;
+
+    @Autowired
+    private ServiceService serviceService;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        responseCache.invalidate(CacheRegion.values());
+    }
+
+    @AfterEach
+    void tearDown() {
+        serviceRepository.deleteAll();
+        responseCache.invalidate(CacheRegion.values());
+    }
+
+    @Test
+    void servesCachedBytesUntilTheServiceChanges() throws Exception {
+        Service service = new Service();
+        service.setName("Haircut");
+        service.setDurationMinutes(30);
+        service.setPrice(new BigDecimal("150.00"));
+        Long id = serviceRepository.save(service).getId();
+
+        MockHttpServletResponse first = mockMvc.perform(get("/api/services"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data[0].name").value("Haircut"))
+                .andReturn().getResponse();
+        double hitsBefore = meterRegistry.counter("cache.responses", "result", "hit").count();
+
+        MockHttpServletResponse gzipped = mockMvc.perform(get("/api/services").header(HttpHeaders.ACCEPT_ENCODING, "gzip, br"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertEquals("gzip", gzipped.getHeader(HttpHeaders.CONTENT_ENCODING));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            assertArrayEquals(first.getContentAsByteArray(), in.readAllBytes());
+        }
+
+        mockMvc.perform(get("/api/services").header(HttpHeaders.IF_NONE_MATCH, first.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified());
+        assertTrue(meterRegistry.counter("cache.responses", "result", "hit").count() >= hitsBefore + 2);
+
+        ServiceRequest rename = new ServiceRequest();
+        rename.setName("Skin fade");
+        serviceService.updateService(id, rename);
+
+        mockMvc.perform(get("/api/services"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].name").value("Skin fade"));
+    }
+}
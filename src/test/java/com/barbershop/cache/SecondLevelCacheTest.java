@@ -0,0 +1,146 @@
+package com.barbershop.cache;
+
+import com.barbershop.model.dto.request.ServiceRequest;
+import com.barbershop.model.dto.response.ServiceResponse;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.schedule.AvailabilityCalendar;
+import com.barbershop.service.ServiceService;
+import com.barbershop.service.StaffService;
+import com.barbershop.skill.StaffSkillIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SecondLevelCacheTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ServiceService serviceService;
+
+    @Autowired
+    private StaffService staffService;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StaffSkillIndex skillIndex;
+
+    @Autowired
+    private AvailabilityCalendar calendar;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        staffRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+        skillIndex.invalidate();
+        calendar.invalidate();
+    }
+
+    @Test
+    void referenceEntitiesAndActiveListsComeFromTheCache() {
+        ServiceResponse haircut = serviceService.createService(request("Haircut"));
+        Staff staff = new Staff();
+        staff.setName("Ali");
+        staff.setWorkStartTime(LocalTime.of(9, 0));
+        staff.setWorkEndTime(LocalTime.of(18, 0));
+        Long staffId = staffService.createStaff(staff).getId();
+        // identity inserts are not cached, the first read puts them there
+        serviceService.getServiceById(haircut.getId());
+        staffService.getStaffById(staffId);
+        statistics.clear();
+
+        assertEquals("Haircut", serviceService.getServiceById(haircut.getId()).getName());
+        assertEquals("Ali", staffService.getStaffById(staffId).getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getSecondLevelCacheHitCount());
+
+        assertEquals(List.of("Haircut"), activeNames());
+        long queries = statistics.getPrepareStatementCount();
+        assertEquals(List.of("Haircut"), activeNames());
+        assertEquals(queries, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        // writes drop the cached list and refresh the entity
+        serviceService.createService(request("Beard Trim"));
+        assertEquals(List.of("Beard Trim", "Haircut"), activeNames());
+        Staff rename = new Staff();
+        rename.setName("Ali Veli");
+        staffService.updateStaff(staffId, rename);
+        assertEquals("Ali Veli", staffService.getStaffById(staffId).getName());
+
+        assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests").tag("region", "services").meter());
+    }
+
+    @Test
+    void usersAreAlwaysReadFromTheDatabase() {
+        User user = new User();
+        user.setEmail("cache@example.com");
+        user.setPassword("x");
+        user.setFirstName("Cache");
+        user.setLastName("User");
+        Long userId = userRepository.save(user).getId();
+        statistics.clear();
+
+        // another node may have changed the password or role, so no copy is kept
+        userRepository.findById(userId).orElseThrow();
+        userRepository.findByEmail("cache@example.com").orElseThrow();
+        userRepository.findById(userId).orElseThrow();
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getSecondLevelCachePutCount());
+    }
+
+    private List<String> activeNames() {
+        return serviceService.getAllActiveServices().stream().map(ServiceResponse::getName).toList();
+    }
+
+    private static ServiceRequest request(String name) {
+        ServiceRequest request = new ServiceRequest();
+        request.setName(name);
+        request.setDurationMinutes(30);
+        request.setPrice(new BigDecimal("150.00"));
+        return request;
+    }
+}
@@ -0,0 +1,274 @@
+package com.barbershop.cluster;
+
+import com.barbershop.BarbershopManagementSystemApplication;
+import com.barbershop.model.dto.request.AppointmentCreateRequest;
+import com.barbershop.model.dto.request.AppointmentItemRequest;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.security.JwtTokenProvider;
+import com.barbershop.service.AppointmentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs several booking nodes in one JVM against a shared database and books contended slots
+ * through random nodes while nodes join and leave.
+ */
+class BookingClusterTest {
+
+    private static final String DB_URL = "jdbc:h2:mem:barbershop_cluster;MODE=MySQL;DATABASE_TO_LOWER=TRUE;" +
+            "CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+
+    private final List<ConfigurableApplicationContext> nodes = new CopyOnWriteArrayList<>();
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void noOverlappingBookingsWhileNodesJoinAndLeave() throws Exception {
+        ConfigurableApplicationContext first = startNode("node-1", "create");
+        startNode("node-2", "none");
+        awaitMembers(2);
+
+        User customer = new User();
+        customer.setEmail("cluster@example.com");
+        customer.setPassword("x");
+        customer.setFirstName("Cluster");
+        customer.setLastName("Customer");
+        customer = first.getBean(UserRepository.class).save(customer);
+        String token = first.getBean(JwtTokenProvider.class).generateToken(customer.getId());
+
+        Service service = new Service();
+        service.setName("Haircut");
+        service.setDurationMinutes(30);
+        service.setPrice(new BigDecimal("150.00"));
+        Long serviceId = first.getBean(ServiceRepository.class).save(service).getId();
+
+        List<Long> staffIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Staff staff = new Staff();
+            staff.setName("Barber " + i);
+            staffIds.add(first.getBean(StaffRepository.class).save(staff).getId());
+        }
+
+        // 15 minute grid with 30 minute services: neighbouring slots collide
+        LocalDateTime day = LocalDate.now().plusDays(1).atTime(LocalTime.of(10, 0));
+        AtomicInteger created = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<Future<?>> runs = new ArrayList<>();
+        for (int client = 0; client < 8; client++) {
+            SplittableRandom random = new SplittableRandom(client);
+            runs.add(clients.submit(() -> {
+                while (!done.get()) {
+                    Long staffId = staffIds.get(random.nextInt(staffIds.size()));
+                    LocalDateTime slot = day.plusMinutes(15L * random.nextInt(16));
+                    if (book(random, token, serviceId, staffId, slot) == 201) {
+                        created.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        startNode("node-3", "none");
+        awaitMembers(3);
+        nodes.remove(first);
+        first.close();
+        awaitMembers(2);
+        Thread.sleep(500);
+        done.set(true);
+
+        for (Future<?> run : runs) {
+            run.get(2, TimeUnit.MINUTES);
+        }
+        clients.shutdown();
+
+        ConfigurableApplicationContext survivor = nodes.get(0);
+        List<Map<String, Object>> items = survivor.getBean(JdbcTemplate.class).queryForList(
+                "SELECT staff_id, scheduled_time, duration_minutes FROM appointment_items " +
+                "WHERE status <> 'CANCELLED' ORDER BY staff_id, scheduled_time");
+        assertTrue(created.get() > 0);
+        // a response can get lost when its node goes down, the booking itself cannot
+        assertTrue(items.size() >= created.get());
+        for (int i = 1; i < items.size(); i++) {
+            Map<String, Object> previous = items.get(i - 1);
+            Map<String, Object> current = items.get(i);
+            if (previous.get("staff_id").equals(current.get("staff_id"))) {
+                LocalDateTime previousEnd = ((Timestamp) previous.get("scheduled_time")).toLocalDateTime()
+                        .plusMinutes(((Number) previous.get("duration_minutes")).longValue());
+                LocalDateTime start = ((Timestamp) current.get("scheduled_time")).toLocalDateTime();
+                assertTrue(!start.isBefore(previousEnd), "overlapping bookings for staff " + current.get("staff_id"));
+            }
+        }
+
+        double forwarded = nodes.stream()
+                .mapToDouble(node -> node.getBean(MeterRegistry.class).counter("cluster.bookings.forwarded").count())
+                .sum();
+        assertTrue(forwarded > 0);
+    }
+
+    @Test
+    void bookingTransactionLocksBeforeItReads() throws Exception {
+        ConfigurableApplicationContext node = startNode("node-1", "create",
+                "--spring.jpa.properties.hibernate.session_factory.statement_inspector=" + FirstStatementInspector.class.getName());
+        awaitMembers(1);
+
+        User customer = new User();
+        customer.setEmail("cluster-order@example.com");
+        customer.setPassword("x");
+        customer.setFirstName("Cluster");
+        customer.setLastName("Order");
+        Long customerId = node.getBean(UserRepository.class).save(customer).getId();
+
+        Service service = new Service();
+        service.setName("Haircut");
+        service.setDurationMinutes(30);
+        service.setPrice(new BigDecimal("150.00"));
+        Long serviceId = node.getBean(ServiceRepository.class).save(service).getId();
+
+        Staff staff = new Staff();
+        staff.setName("Barber");
+        node.getBean(StaffRepository.class).save(staff);
+
+        // the staff member is picked by the assignment, which reads bookings before any lock is held
+        LocalDateTime slot = LocalDate.now().plusDays(1).atTime(LocalTime.of(10, 0));
+        FirstStatementInspector.watched = Thread.currentThread();
+        try {
+            node.getBean(AppointmentService.class).createAppointment(customerId,
+                    new AppointmentCreateRequest(slot, List.of(new AppointmentItemRequest(serviceId, null, slot)), null));
+        } finally {
+            FirstStatementInspector.watched = null;
+        }
+
+        // read-only transactions are left out; the one booking transaction starts with the partition lock
+        assertEquals(1, FirstStatementInspector.FIRST.size(), FirstStatementInspector.FIRST.toString());
+        String first = FirstStatementInspector.FIRST.get(0);
+        assertTrue(first.contains("booking_partitions") && first.contains("for update"), first);
+    }
+
+    private int book(SplittableRandom random, String token, Long serviceId, Long staffId, LocalDateTime slot) {
+        String body = """
+                {"appointmentDateTime": "%s", "items": [{"serviceId": %d, "staffId": %d, "scheduledTime": "%s"}]}
+                """.formatted(slot, serviceId, staffId, slot);
+        // a node may be going away; try another one
+        for (int tries = 0; tries < 3; tries++) {
+            List<ConfigurableApplicationContext> live = List.copyOf(nodes);
+            int port = ((WebServerApplicationContext) live.get(random.nextInt(live.size()))).getWebServer().getPort();
+            try {
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/appointments"))
+                        .header("Authorization", "Bearer " + token)
+                        .header("Content-Type", "application/json")
+                        .timeout(Duration.ofSeconds(20))
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+                return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (Exception ex) {
+                // connection refused or reset while the node shut down
+            }
+        }
+        return -1;
+    }
+
+    private ConfigurableApplicationContext startNode(String nodeId, String ddlAuto, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of("--server.port=0",
+                "--spring.datasource.url=" + DB_URL,
+                "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                "--scheduling.enabled=true",
+                "--outbox.enabled=false",
+                "--reminder.enabled=false",
+                "--noshow.enabled=false",
+                "--archive.enabled=false",
+                "--cluster.enabled=true",
+                "--cluster.node-id=" + nodeId,
+                "--cluster.heartbeat-ms=200",
+                "--cluster.lease-ms=2000"));
+        args.addAll(List.of(extraArgs));
+        ConfigurableApplicationContext node = new SpringApplicationBuilder(BarbershopManagementSystemApplication.class)
+                .profiles("test")
+                .run(args.toArray(String[]::new));
+        nodes.add(node);
+        return node;
+    }
+
+    private void awaitMembers(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            boolean settled = nodes.stream()
+                    .allMatch(node -> node.getBean(BookingCluster.class).memberCount() == count);
+            if (settled) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Cluster did not settle on " + count + " members");
+    }
+
+    /**
+     * Records the first statement of every read-write transaction run by the watched thread
+     */
+    public static class FirstStatementInspector implements StatementInspector {
+
+        static final List<String> FIRST = new CopyOnWriteArrayList<>();
+        static volatile Thread watched;
+
+        @Override
+        public String inspect(String sql) {
+            if (Thread.currentThread() != watched
+                    || !TransactionSynchronizationManager.isActualTransactionActive()
+                    || TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                    || TransactionSynchronizationManager.hasResource(FirstStatementInspector.class)) {
+                return sql;
+            }
+            TransactionSynchronizationManager.bindResource(FirstStatementInspector.class, sql);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(FirstStatementInspector.class);
+                }
+            });
+            FIRST.add(sql.toLowerCase());
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.barbershop.concurrency;
+
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.OutboxEventRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.service.AppointmentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OptimisticRetryTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User customer;
+    private Long appointmentId;
+
+    @BeforeEach
+    void setUp() {
+        customer = new User();
+        customer.setEmail("optimistic@example.com");
+        customer.setPassword("x");
+        customer.setFirstName("Opti");
+        customer.setLastName("Mistic");
+        customer = userRepository.save(customer);
+
+        Appointment appointment = new Appointment();
+        appointment.setCustomer(customer);
+        appointment.setAppointmentDateTime(LocalDateTime.now().plusDays(1));
+        appointmentId = appointmentRepository.save(appointment).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void staleWriteIsRejected() {
+        Appointment stale = appointmentRepository.findById(appointmentId).orElseThrow();
+        appointmentService.confirmAppointment(appointmentId, null);
+
+        stale.setStatus(Appointment.AppointmentStatus.CANCELLED);
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> appointmentRepository.save(stale));
+        assertEquals(Appointment.AppointmentStatus.CONFIRMED,
+                appointmentRepository.findById(appointmentId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void retryRevalidatesAgainstTheWinningWrite() {
+        double conflictsBefore = meterRegistry.counter("appointments.optimistic.conflicts", "operation", "cancel").count();
+        AtomicInteger attempts = new AtomicInteger();
+
+        // the customer cancels while the staff completes the same appointment
+        BadRequestException rejected = assertThrows(BadRequestException.class, () -> optimisticRetry.run("cancel", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                return new TransactionTemplate(transactionManager).execute(status -> {
+                    Appointment loaded = appointmentRepository.findById(appointmentId).orElseThrow();
+                    CompletableFuture.runAsync(() -> appointmentService.completeAppointment(appointmentId, null)).join();
+                    loaded.setStatus(Appointment.AppointmentStatus.CANCELLED);
+                    return null;
+                });
+            }
+            return appointmentService.cancelAppointment(appointmentId, customer.getId(), null);
+        }));
+
+        assertEquals("Cannot cancel a completed appointment", rejected.getMessage());
+        assertEquals(2, attempts.get());
+        assertEquals(conflictsBefore + 1,
+                meterRegistry.counter("appointments.optimistic.conflicts", "operation", "cancel").count());
+        assertEquals(Appointment.AppointmentStatus.COMPLETED,
+                appointmentRepository.findById(appointmentId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void confirmRetriedAfterACancelIsRefused() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        // the front desk confirms while the customer cancels the same appointment
+        BadRequestException rejected = assertThrows(BadRequestException.class, () -> optimisticRetry.run("confirm", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                return new TransactionTemplate(transactionManager).execute(status -> {
+                    Appointment loaded = appointmentRepository.findById(appointmentId).orElseThrow();
+                    CompletableFuture.runAsync(() -> appointmentService.cancelAppointment(appointmentId, customer.getId(), null)).join();
+                    loaded.setStatus(Appointment.AppointmentStatus.CONFIRMED);
+                    return null;
+                });
+            }
+            return appointmentService.confirmAppointment(appointmentId, null);
+        }));
+
+        assertEquals("Cannot confirm a cancelled appointment", rejected.getMessage());
+        assertEquals(2, attempts.get());
+        assertEquals(Appointment.AppointmentStatus.CANCELLED,
+                appointmentRepository.findById(appointmentId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void completeRetriedAfterACancelIsRefused() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        // the staff completes while the customer cancels the same appointment
+        BadRequestException rejected = assertThrows(BadRequestException.class, () -> optimisticRetry.run("complete", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                return new TransactionTemplate(transactionManager).execute(status -> {
+                    Appointment loaded = appointmentRepository.findById(appointmentId).orElseThrow();
+                    CompletableFuture.runAsync(() -> appointmentService.cancelAppointment(appointmentId, customer.getId(), null)).join();
+                    loaded.setStatus(Appointment.AppointmentStatus.COMPLETED);
+                    return null;
+                });
+            }
+            return appointmentService.completeAppointment(appointmentId, null);
+        }));
+
+        assertEquals("Cannot complete a cancelled appointment", rejected.getMessage());
+        assertEquals(2, attempts.get());
+        assertEquals(Appointment.AppointmentStatus.CANCELLED,
+                appointmentRepository.findById(appointmentId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void ifMatchPreconditionIsChecked() throws Exception {
+        mockMvc.perform(get("/api/appointments/" + appointmentId).with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+
+        mockMvc.perform(put("/api/appointments/" + appointmentId + "/confirm").with(user("admin").roles("ADMIN"))
+                        .header(HttpHeaders.IF_MATCH, "\"5\""))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(put("/api/appointments/" + appointmentId + "/confirm").with(user("admin").roles("ADMIN"))
+                        .header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.data.version").value(1));
+    }
+}
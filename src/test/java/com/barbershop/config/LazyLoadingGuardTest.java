@@ -0,0 +1,143 @@
+package com.barbershop.config;
+
+import com.barbershop.model.dto.request.AppointmentCreateRequest;
+import com.barbershop.model.dto.request.AppointmentItemRequest;
+import com.barbershop.model.dto.response.AppointmentResponse;
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.OutboxEventRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.service.AppointmentService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.LazyInitializationException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LazyLoadingGuardTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(2);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    private Long customerId;
+    private Long staffId;
+    private Long serviceId;
+
+    @BeforeEach
+    void setUp() {
+        User customer = new User();
+        customer.setEmail("lazy@example.com");
+        customer.setPassword("x");
+        customer.setFirstName("Lazy");
+        customer.setLastName("Customer");
+        customerId = userRepository.save(customer).getId();
+
+        Staff staff = new Staff();
+        staff.setName("Ali");
+        staff.setWorkStartTime(LocalTime.of(9, 0));
+        staff.setWorkEndTime(LocalTime.of(18, 0));
+        staffId = staffRepository.save(staff).getId();
+
+        Service service = new Service();
+        service.setName("Haircut");
+        service.setDurationMinutes(30);
+        service.setPrice(new BigDecimal("150.00"));
+        serviceId = serviceRepository.save(service).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        staffRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void refusesToStartWithOpenSessionInView() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        new LazyLoadingGuard(beanFactory, entityManagerFactory).afterSingletonsInstantiated();
+
+        beanFactory.registerSingleton("openEntityManagerInViewInterceptor", new OpenEntityManagerInViewInterceptor());
+        IllegalStateException refused = assertThrows(IllegalStateException.class,
+                () -> new LazyLoadingGuard(beanFactory, entityManagerFactory).afterSingletonsInstantiated());
+        assertTrue(refused.getMessage().contains("spring.jpa.open-in-view=false"));
+    }
+
+    @Test
+    void responsesAreMappedInsideTheServiceWithOneFetch() {
+        for (int hour = 10; hour < 13; hour++) {
+            book(DAY.atTime(hour, 0));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        statistics.clear();
+
+        List<AppointmentResponse> byDate = appointmentService.getAppointmentsByDate(DAY.atStartOfDay());
+        assertEquals(3, byDate.size());
+        assertEquals("Haircut", byDate.get(2).getItems().get(0).getService().getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        List<AppointmentResponse> page = appointmentService.getAllAppointments(PageRequest.of(0, 10)).getContent();
+        assertEquals("Ali", page.get(0).getItems().get(0).getStaff().getName());
+        assertEquals("lazy@example.com", page.get(0).getCustomer().getEmail());
+        // the page, then its details
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        // nothing loads lazily once the transaction is over
+        Appointment detached = appointmentRepository.findById(byDate.get(0).getId()).orElseThrow();
+        assertThrows(LazyInitializationException.class, () -> detached.getItems().size());
+    }
+
+    private void book(LocalDateTime at) {
+        appointmentService.createAppointment(customerId,
+                new AppointmentCreateRequest(at, List.of(new AppointmentItemRequest(serviceId, staffId, at)), null));
+    }
+}
@@ -0,0 +1,240 @@
+package com.barbershop.crm;
+
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.job.CustomerSummaryBackfill;
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.AppointmentItem;
+import com.barbershop.model.entity.CustomerSummary;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.CustomerSummaryRepository;
+import com.barbershop.repository.OutboxEventRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.service.AppointmentService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.barbershop.crm.CustomerSummaryServiceTest$RecordingInspector")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CustomerSummaryServiceTest {
+
+    static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private CustomerSummaryBackfill backfill;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private CustomerSummaryRepository customerSummaryRepository;
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        staffRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+        customerSummaryRepository.deleteAll();
+    }
+
+    @Test
+    void completeAndCancelKeepTheSummaryCurrent() throws Exception {
+        User customer = customer("crm@example.com");
+        Service haircut = serviceRepository.save(service("Haircut", "150.00"));
+        Service shave = serviceRepository.save(service("Shave", "90.00"));
+        Staff ali = staff("Ali");
+        Staff veli = staff("Veli");
+
+        LocalDateTime first = LocalDate.now().minusDays(10).atTime(10, 0);
+        LocalDateTime second = LocalDate.now().minusDays(3).atTime(11, 0);
+        Long a1 = appointment(customer, first, Appointment.AppointmentStatus.CONFIRMED, haircut, ali, shave, ali).getId();
+        Long a2 = appointment(customer, second, Appointment.AppointmentStatus.CONFIRMED, haircut, veli).getId();
+        Long a3 = appointment(customer, LocalDate.now().plusDays(2).atTime(9, 0),
+                Appointment.AppointmentStatus.PENDING, shave, veli).getId();
+
+        appointmentService.completeAppointment(a1, null);
+        appointmentService.completeAppointment(a2, null);
+        appointmentService.cancelAppointment(a3, customer.getId(), null);
+
+        CustomerSummary summary = customerSummaryRepository.findAll().get(0);
+        assertEquals(2, summary.getVisitCount());
+        assertEquals(1, summary.getCancelledCount());
+        assertEquals(second, summary.getLastVisitAt());
+        assertEquals(0, new BigDecimal("390.00").compareTo(summary.getLifetimeSpend()));
+        assertEquals(haircut.getId(), summary.getFavouriteServiceId());
+        assertEquals(ali.getId(), summary.getFavouriteStaffId());
+
+        STATEMENTS.clear();
+        byte[] body = mockMvc.perform(get("/api/admin/customers/summaries").param("sort", "spend")
+                        .with(user("admin").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode page = objectMapper.readTree(body).path("data");
+        JsonNode row = page.path("content").get(0);
+        assertEquals("Crm", row.path("firstName").asText());
+        assertEquals("Haircut", row.path("favouriteServiceName").asText());
+        assertEquals("Ali", row.path("favouriteStaffName").asText());
+        assertFalse(page.path("hasNext").asBoolean());
+        assertEquals(1, STATEMENTS.stream().filter(sql -> sql.startsWith("select")).count());
+
+        // reopening a completed appointment takes it back out
+        appointmentService.updateAppointmentStatus(a2, Appointment.AppointmentStatus.CONFIRMED);
+        summary = customerSummaryRepository.findAll().get(0);
+        assertEquals(1, summary.getVisitCount());
+        assertEquals(first, summary.getLastVisitAt());
+        assertEquals(0, new BigDecimal("240.00").compareTo(summary.getLifetimeSpend()));
+    }
+
+    @Test
+    void repeatedCloseIsCountedOnce() {
+        User customer = customer("retry@example.com");
+        Service haircut = serviceRepository.save(service("Haircut", "150.00"));
+        Staff ali = staff("Ali");
+        Long visit = appointment(customer, LocalDate.now().minusDays(2).atTime(10, 0),
+                Appointment.AppointmentStatus.CONFIRMED, haircut, ali).getId();
+        Long cancelled = appointment(customer, LocalDate.now().plusDays(2).atTime(10, 0),
+                Appointment.AppointmentStatus.PENDING, haircut, ali).getId();
+
+        appointmentService.completeAppointment(visit, null);
+        appointmentService.completeAppointment(visit, null);
+        appointmentService.cancelAppointment(cancelled, customer.getId(), null);
+        appointmentService.cancelAppointment(cancelled, customer.getId(), null);
+
+        CustomerSummary summary = customerSummaryRepository.findAll().get(0);
+        assertEquals(1, summary.getVisitCount());
+        assertEquals(1, summary.getCancelledCount());
+        assertEquals(0, new BigDecimal("150.00").compareTo(summary.getLifetimeSpend()));
+
+        // a cancelled appointment cannot be completed after all
+        assertThrows(BadRequestException.class, () -> appointmentService.completeAppointment(cancelled, null));
+        summary = customerSummaryRepository.findAll().get(0);
+        assertEquals(1, summary.getVisitCount());
+        assertEquals(1, summary.getCancelledCount());
+    }
+
+    @Test
+    void backfillRebuildsSummariesFromHistory() {
+        Service haircut = serviceRepository.save(service("Haircut", "150.00"));
+        Staff ali = staff("Ali");
+        // history written before summaries existed
+        for (int i = 0; i < 5; i++) {
+            User customer = customer("history" + i + "@example.com");
+            for (int visit = 0; visit <= i; visit++) {
+                appointment(customer, LocalDate.now().minusDays(30 + visit).atTime(10, 0),
+                        Appointment.AppointmentStatus.COMPLETED, haircut, ali);
+            }
+        }
+        assertEquals(0, customerSummaryRepository.count());
+
+        assertEquals(5, backfill.rebuildAll());
+        List<CustomerSummary> summaries = customerSummaryRepository.findAll();
+        assertEquals(15, summaries.stream().mapToInt(CustomerSummary::getVisitCount).sum());
+        assertEquals(0, new BigDecimal("2250.00").compareTo(summaries.stream()
+                .map(CustomerSummary::getLifetimeSpend).reduce(BigDecimal.ZERO, BigDecimal::add)));
+
+        // running it again gives the same rows, not doubled ones
+        assertEquals(5, backfill.rebuildAll());
+        assertEquals(15, customerSummaryRepository.findAll().stream().mapToInt(CustomerSummary::getVisitCount).sum());
+    }
+
+    private User customer(String email) {
+        User customer = new User();
+        customer.setEmail(email);
+        customer.setPassword("x");
+        customer.setFirstName("Crm");
+        customer.setLastName("Customer");
+        return userRepository.save(customer);
+    }
+
+    private Staff staff(String name) {
+        Staff staff = new Staff();
+        staff.setName(name);
+        return staffRepository.save(staff);
+    }
+
+    // services and staff in pairs
+    private Appointment appointment(User customer, LocalDateTime time, Appointment.AppointmentStatus status, Object... serviceAndStaff) {
+        Appointment appointment = new Appointment();
+        appointment.setCustomer(customer);
+        appointment.setAppointmentDateTime(time);
+        appointment.setStatus(status);
+        for (int i = 0; i < serviceAndStaff.length; i += 2) {
+            Service service = (Service) serviceAndStaff[i];
+            AppointmentItem item = new AppointmentItem();
+            item.setAppointment(appointment);
+            item.setService(service);
+            item.setStaff((Staff) serviceAndStaff[i + 1]);
+            item.setPrice(service.getPrice());
+            item.setDurationMinutes(service.getDurationMinutes());
+            item.setScheduledTime(time.plusMinutes(30L * (i / 2)));
+            appointment.getItems().add(item);
+        }
+        return appointmentRepository.save(appointment);
+    }
+
+    private static Service service(String name, String price) {
+        Service service = new Service();
+        service.setName(name);
+        service.setDurationMinutes(30);
+        service.setPrice(new BigDecimal(price));
+        return service;
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql.toLowerCase());
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.barbershop.datagen;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DatasetGeneratorTest {
+
+    private static final LocalDate REFERENCE = LocalDate.of(2026, 6, 1);
+
+    @Test
+    void sameSeedProducesSameRows() {
+        RecordingSink first = generate(7L);
+        RecordingSink second = generate(7L);
+        RecordingSink other = generate(8L);
+
+        assertThat(first.rows).isEqualTo(second.rows);
+        assertThat(first.rows).isNotEqualTo(other.rows);
+    }
+
+    @Test
+    void staffCalendarsNeverOverlap() {
+        RecordingSink sink = generate(42L);
+
+        assertThat(sink.itemsByStaff).isNotEmpty();
+        for (List<LocalDateTime[]> intervals : sink.itemsByStaff.values()) {
+            intervals.sort((a, b) -> a[0].compareTo(b[0]));
+            for (int i = 1; i < intervals.size(); i++) {
+                assertThat(intervals.get(i)[0]).isAfterOrEqualTo(intervals.get(i - 1)[1]);
+            }
+        }
+    }
+
+    private RecordingSink generate(long seed) {
+        DatasetSpec spec = new DatasetSpec();
+        spec.setSeed(seed);
+        spec.setCustomers(500);
+        spec.setAppointments(5_000);
+        spec.setDays(30);
+        spec.setStartDate(REFERENCE.minusDays(20));
+
+        RecordingSink sink = new RecordingSink();
+        DatasetGenerator.Result result = new DatasetGenerator(spec)
+                .generate(sink, new DatasetGenerator.IdBase(), "hash", REFERENCE);
+        assertThat(result.getAppointments()).isEqualTo(5_000);
+        return sink;
+    }
+
+    private static class RecordingSink implements DatasetSink {
+        private final List<String> rows = new ArrayList<>();
+        private final Map<Long, List<LocalDateTime[]>> itemsByStaff = new HashMap<>();
+
+        @Override
+        public void user(long id, String email, String passwordHash, String firstName, String lastName,
+                         String phone, String role, LocalDateTime createdAt) {
+            rows.add("u" + id + email + firstName + lastName + phone + createdAt);
+        }
+
+        @Override
+        public void staff(long id, String name, String phone, String email, String specialties,
+                          LocalTime workStartTime, LocalTime workEndTime, LocalDateTime createdAt) {
+            rows.add("s" + id + name + workStartTime + workEndTime);
+        }
+
+        @Override
+        public void service(long id, String name, String description, int durationMinutes,
+                            BigDecimal price, LocalDateTime createdAt) {
+            rows.add("v" + id + name + price);
+        }
+
+        @Override
+        public void appointment(long id, long customerId, LocalDateTime appointmentDateTime, LocalDateTime endDateTime,
+                                String status, String notes, BigDecimal totalPrice, int totalDurationMinutes,
+                                LocalDateTime createdAt, LocalDateTime updatedAt) {
+            rows.add("a" + id + customerId + appointmentDateTime + status);
+        }
+
+        @Override
+        public void item(long id, long appointmentId, long serviceId, long staffId, BigDecimal price,
+                         int durationMinutes, LocalDateTime scheduledTime, String status) {
+            rows.add("i" + id + appointmentId + serviceId + staffId + scheduledTime);
+            itemsByStaff.computeIfAbsent(staffId, key -> new ArrayList<>())
+                    .add(new LocalDateTime[]{scheduledTime, scheduledTime.plusMinutes(durationMinutes)});
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
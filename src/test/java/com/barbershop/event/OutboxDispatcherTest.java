@@ -0,0 +1,207 @@
+package com.barbershop.event;
+
+import com.barbershop.model.entity.OutboxEvent;
+import com.barbershop.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest(properties = {"outbox.initial-backoff-ms=0", "outbox.max-backoff-ms=0"})
+@ActiveProfiles("test")
+class OutboxDispatcherTest {
+
+    @Autowired
+    private OutboxDispatcher dispatcher;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RecordingConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository.deleteAll();
+        consumer.received.clear();
+        consumer.failOnce.clear();
+    }
+
+    @Test
+    void deliversEventsInOrderAndMarksThemProcessed() throws Exception {
+        save(1L, AppointmentEventType.CREATED);
+        save(2L, AppointmentEventType.CREATED);
+        save(1L, AppointmentEventType.CONFIRMED);
+
+        dispatcher.dispatch();
+
+        assertEquals(List.of("1:CREATED", "2:CREATED", "1:CONFIRMED"), consumer.received);
+        assertEquals(3, outboxEventRepository.countByStatus(OutboxEvent.OutboxStatus.PROCESSED));
+    }
+
+    @Test
+    void failedEventHoldsBackLaterEventsOfSameAppointment() throws Exception {
+        consumer.failOnce.add("1:CREATED");
+        save(1L, AppointmentEventType.CREATED);
+        save(1L, AppointmentEventType.CANCELLED);
+        save(2L, AppointmentEventType.CREATED);
+
+        dispatcher.dispatchBatch();
+        assertEquals(List.of("2:CREATED"), consumer.received);
+
+        OutboxEvent retried = outboxEventRepository.findAll().get(0);
+        assertEquals(1, retried.getAttempts());
+        assertNotNull(retried.getLastError());
+
+        dispatcher.dispatchBatch();
+        assertEquals(List.of("2:CREATED", "1:CREATED", "1:CANCELLED"), consumer.received);
+        assertEquals(0, outboxEventRepository.countByStatus(OutboxEvent.OutboxStatus.PENDING));
+    }
+
+    @Test
+    void appointmentsInBackoffDoNotFillTheBatch() throws Exception {
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 5);
+        try {
+            for (int i = 0; i < 12; i++) {
+                OutboxEvent waiting = save(1L, AppointmentEventType.UPDATED);
+                if (i == 0) {
+                    waiting.setAttempts(1);
+                    waiting.setNextAttemptAt(LocalDateTime.now().plusMinutes(5));
+                    outboxEventRepository.save(waiting);
+                }
+            }
+            save(2L, AppointmentEventType.CREATED);
+
+            dispatcher.dispatch();
+            assertEquals(List.of("2:CREATED"), consumer.received);
+            assertEquals(12, outboxEventRepository.countByStatus(OutboxEvent.OutboxStatus.PENDING));
+        } finally {
+            ReflectionTestUtils.setField(dispatcher, "batchSize", 200);
+        }
+    }
+
+    @Test
+    void claimHeldByAnotherDispatcherHoldsBackTheAppointment() throws Exception {
+        OutboxEvent claimed = save(1L, AppointmentEventType.CREATED);
+        claimed.setClaimedBy("other-node");
+        claimed.setClaimedUntil(LocalDateTime.now().plusMinutes(1));
+        outboxEventRepository.save(claimed);
+        save(1L, AppointmentEventType.CONFIRMED);
+        save(2L, AppointmentEventType.CREATED);
+
+        dispatcher.dispatch();
+        assertEquals(List.of("2:CREATED"), consumer.received);
+
+        // the other node died and its lease ran out
+        claimed = outboxEventRepository.findById(claimed.getId()).orElseThrow();
+        claimed.setClaimedUntil(LocalDateTime.now().minusSeconds(1));
+        outboxEventRepository.save(claimed);
+
+        dispatcher.dispatch();
+        assertEquals(List.of("2:CREATED", "1:CREATED", "1:CONFIRMED"), consumer.received);
+        assertEquals(0, outboxEventRepository.countByStatus(OutboxEvent.OutboxStatus.PENDING));
+    }
+
+    @Test
+    void concurrentDispatchersDeliverEachEventOnceInOrder() throws Exception {
+        AppointmentEventType[] types = AppointmentEventType.values();
+        Map<Long, List<String>> expected = new HashMap<>();
+        for (int i = 0; i < 60; i++) {
+            long appointmentId = 1 + i % 5;
+            AppointmentEventType type = types[i / 5 % types.length];
+            save(appointmentId, type);
+            expected.computeIfAbsent(appointmentId, id -> new ArrayList<>()).add(appointmentId + ":" + type);
+        }
+
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> nodes = new ArrayList<>();
+            for (int n = 0; n < 4; n++) {
+                nodes.add(executor.submit(() -> {
+                    start.await();
+                    long deadline = System.currentTimeMillis() + 20_000;
+                    while (outboxEventRepository.countByStatus(OutboxEvent.OutboxStatus.PENDING) > 0
+                            && System.currentTimeMillis() < deadline) {
+                        dispatcher.dispatch();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> node : nodes) {
+                node.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            ReflectionTestUtils.setField(dispatcher, "batchSize", 200);
+        }
+
+        assertEquals(60, consumer.received.size());
+        Map<Long, List<String>> received = new HashMap<>();
+        for (String key : consumer.received) {
+            Long appointmentId = Long.valueOf(key.substring(0, key.indexOf(':')));
+            received.computeIfAbsent(appointmentId, id -> new ArrayList<>()).add(key);
+        }
+        assertEquals(expected, received);
+    }
+
+    private OutboxEvent save(Long appointmentId, AppointmentEventType type) throws Exception {
+        AppointmentEvent event = new AppointmentEvent(null, type, appointmentId, 10L, type.name(),
+                LocalDateTime.now().plusDays(1), List.of(), LocalDateTime.now(), "main");
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setAggregateId(appointmentId);
+        outboxEvent.setEventType(type);
+        outboxEvent.setPayload(objectMapper.writeValueAsString(event));
+        return outboxEventRepository.save(outboxEvent);
+    }
+
+    static class RecordingConsumer implements AppointmentEventConsumer {
+
+        final List<String> received = new CopyOnWriteArrayList<>();
+        final Set<String> failOnce = new CopyOnWriteArraySet<>();
+
+        @Override
+        public void onEvent(AppointmentEvent event) {
+            String key = event.getAppointmentId() + ":" + event.getType();
+            if (failOnce.remove(key)) {
+                throw new IllegalStateException("simulated failure");
+            }
+            received.add(key);
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        RecordingConsumer recordingConsumer() {
+            return new RecordingConsumer();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.barbershop.idempotency;
+
+import com.barbershop.model.entity.IdempotencyKey;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.IdempotencyKeyRepository;
+import com.barbershop.repository.OutboxEventRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// The database store is the one that has to work across nodes; it is used for the booking test
+@SpringBootTest(properties = "idempotency.store=database")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IdempotencyTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private DatabaseIdempotencyStore store;
+
+    @AfterEach
+    void tearDown() {
+        idempotencyKeyRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        staffRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentRetriesBookOnceAndReplayTheFirstResponse() throws Exception {
+        User customer = new User();
+        customer.setEmail("idempotent@example.com");
+        customer.setPassword("x");
+        customer.setFirstName("Retry");
+        customer.setLastName("Customer");
+        String token = jwtTokenProvider.generateToken(userRepository.save(customer).getId());
+
+        Service service = new Service();
+        service.setName("Haircut");
+        service.setDurationMinutes(30);
+        service.setPrice(new BigDecimal("150.00"));
+        Long serviceId = serviceRepository.save(service).getId();
+
+        Staff staff = new Staff();
+        staff.setName("Ali");
+        Long staffId = staffRepository.save(staff).getId();
+
+        LocalDateTime slot = LocalDate.now().plusDays(1).atTime(10, 0);
+        String body = """
+                {"appointmentDateTime": "%s", "items": [{"serviceId": %d, "staffId": %d, "scheduledTime": "%s"}]}
+                """.formatted(slot, serviceId, staffId, slot);
+
+        ExecutorService clients = Executors.newFixedThreadPool(6);
+        List<Future<MockHttpServletResponse>> attempts = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            attempts.add(clients.submit(() -> book(token, "booking-1", body)));
+        }
+        Set<Long> appointmentIds = new HashSet<>();
+        int replayed = 0;
+        for (Future<MockHttpServletResponse> attempt : attempts) {
+            MockHttpServletResponse response = attempt.get();
+            assertEquals(201, response.getStatus(), response.getContentAsString());
+            appointmentIds.add(objectMapper.readTree(response.getContentAsByteArray()).path("data").path("id").asLong());
+            if ("true".equals(response.getHeader(IdempotencyService.REPLAYED_HEADER))) {
+                replayed++;
+            }
+        }
+        clients.shutdown();
+
+        assertEquals(1, appointmentIds.size());
+        assertEquals(5, replayed);
+        assertEquals(1, appointmentRepository.count());
+
+        // the same key for another booking is refused
+        String other = body.replace("10:00", "11:00");
+        assertEquals(400, book(token, "booking-1", other).getStatus());
+        // without the key a retry is a new booking attempt, which conflicts with the first
+        assertEquals(409, book(token, null, body).getStatus());
+    }
+
+    @Test
+    void claimOfANodeThatStoppedIsTakenOverOnceItsLeaseRunsOut() throws Exception {
+        Duration ttl = Duration.ofHours(24);
+        LocalDateTime now = LocalDateTime.now();
+        // another node claimed these and died; one lease is still running, the other ran out
+        idempotencyKeyRepository.save(new IdempotencyKey("main:1:live", "f", null, null,
+                now, now.plus(ttl), "other-node", now.plusMinutes(1)));
+        idempotencyKeyRepository.save(new IdempotencyKey("main:1:crashed", "f", null, null,
+                now.minusMinutes(1), now.plus(ttl), "other-node", now.minusSeconds(1)));
+
+        IdempotencyRecord live = store.begin("main:1:live", "f", ttl);
+        assertNotNull(live);
+        assertFalse(live.isCompleted());
+        assertNull(store.await("main:1:crashed", Duration.ofSeconds(1)));
+        assertNull(store.begin("main:1:crashed", "f", ttl));
+        assertFalse(store.begin("main:1:crashed", "f", ttl).isCompleted());
+
+        // the heartbeat keeps a running request's claim alive past the lease
+        ReflectionTestUtils.setField(store, "claimLeaseMs", 200L);
+        try {
+            assertNull(store.begin("main:1:slow", "f", ttl));
+            for (int i = 0; i < 4; i++) {
+                store.renewClaims();
+                assertNotNull(store.begin("main:1:slow", "f", ttl));
+                Thread.sleep(100);
+            }
+            store.complete("main:1:slow", 201, "{}");
+            assertTrue(store.begin("main:1:slow", "f", ttl).isCompleted());
+        } finally {
+            ReflectionTestUtils.setField(store, "claimLeaseMs", 30000L);
+        }
+
+        // a node cannot give up or complete a key another node holds
+        store.release("main:1:live");
+        store.complete("main:1:live", 201, "{}");
+        assertFalse(store.begin("main:1:live", "f", ttl).isCompleted());
+    }
+
+    @Test
+    void memoryStoreEvictsFinishedKeysFirst() {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore();
+        ReflectionTestUtils.setField(store, "maxEntries", 2);
+        Duration ttl = Duration.ofMinutes(5);
+
+        assertNull(store.begin("a", "fa", ttl));
+        store.complete("a", 201, "{}");
+        assertNull(store.begin("b", "fb", ttl));
+        assertNotNull(store.begin("b", "fb", ttl));
+        assertNull(store.begin("c", "fc", ttl));
+
+        // "a" was finished and oldest, "b" is still running
+        assertEquals(2, store.size());
+        assertNull(store.begin("a", "fa", ttl));
+        assertNotNull(store.begin("b", "fb", ttl));
+    }
+
+    private MockHttpServletResponse book(String token, String key, String body) throws Exception {
+        var request = post("/api/appointments")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body);
+        if (key != null) {
+            request.header(IdempotencyService.HEADER, key);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,141 @@
+package com.barbershop.job;
+
+import com.barbershop.model.dto.response.AppointmentResponse;
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.AppointmentItem;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.AppointmentItemRepository;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.ArchivedAppointmentRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.service.AppointmentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {"archive.batch-size=2", "archive.pause-ms=0"})
+@ActiveProfiles("test")
+class AppointmentArchiverTest {
+
+    @Autowired
+    private AppointmentArchiver archiver;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AppointmentItemRepository appointmentItemRepository;
+
+    @Autowired
+    private ArchivedAppointmentRepository archivedAppointmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @AfterEach
+    void tearDown() {
+        archivedAppointmentRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        staffRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void movesOldClosedAppointmentsAndKeepsCustomerHistoryComplete() {
+        User customer = customer();
+        Service service = service();
+        Staff staff = staff();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Appointment> old = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            old.add(appointment(customer, service, staff, now.minusYears(2).plusDays(i), Appointment.AppointmentStatus.COMPLETED));
+        }
+        appointment(customer, service, staff, now.minusYears(2), Appointment.AppointmentStatus.CONFIRMED);
+        appointment(customer, service, staff, now.minusDays(3), Appointment.AppointmentStatus.COMPLETED);
+
+        assertEquals(3, archiver.archive());
+
+        assertEquals(2, appointmentRepository.count());
+        assertEquals(2, appointmentItemRepository.count());
+        assertEquals(3, archivedAppointmentRepository.count());
+
+        List<Long> seen = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            Page<AppointmentResponse> result = appointmentService.getCustomerAppointments(customer.getId(), PageRequest.of(page, 2));
+            assertEquals(5, result.getTotalElements());
+            result.forEach(a -> seen.add(a.getId()));
+        }
+        assertEquals(5, seen.stream().distinct().count());
+
+        AppointmentResponse archived = appointmentService.getAppointmentById(old.get(0).getId());
+        assertEquals("COMPLETED", archived.getStatus());
+        assertEquals(1, archived.getItems().size());
+        assertEquals(0, new BigDecimal("150.00").compareTo(archived.getTotalPrice()));
+    }
+
+    private User customer() {
+        User user = new User();
+        user.setEmail("archive@example.com");
+        user.setPassword("x");
+        user.setFirstName("Old");
+        user.setLastName("Customer");
+        return userRepository.save(user);
+    }
+
+    private Service service() {
+        Service service = new Service();
+        service.setName("Haircut");
+        service.setDurationMinutes(30);
+        service.setPrice(new BigDecimal("150.00"));
+        return serviceRepository.save(service);
+    }
+
+    private Staff staff() {
+        Staff staff = new Staff();
+        staff.setName("Barber");
+        return staffRepository.save(staff);
+    }
+
+    private Appointment appointment(User customer, Service service, Staff staff, LocalDateTime time,
+                                    Appointment.AppointmentStatus status) {
+        Appointment appointment = new Appointment();
+        appointment.setCustomer(customer);
+        appointment.setAppointmentDateTime(time);
+        appointment.setStatus(status);
+
+        AppointmentItem item = new AppointmentItem();
+        item.setService(service);
+        item.setStaff(staff);
+        item.setPrice(service.getPrice());
+        item.setDurationMinutes(service.getDurationMinutes());
+        item.setScheduledTime(time);
+        appointment.addItem(item);
+        return appointmentRepository.save(appointment);
+    }
+}
@@ -0,0 +1,136 @@
+package com.barbershop.job;
+
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.AppointmentItem;
+import com.barbershop.model.entity.OutboxEvent;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.JobCheckpointRepository;
+import com.barbershop.repository.OutboxEventRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {"noshow.chunk-size=3", "noshow.busy-duty-cycle=1.0"})
+@ActiveProfiles("test")
+class NoShowSweeperTest {
+
+    @Autowired
+    private NoShowSweeper sweeper;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Service service;
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        jobCheckpointRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void marksPastDueAppointmentsInChunksAndResumesFromCheckpoint() {
+        User customer = customer();
+        service = service();
+        LocalDateTime now = LocalDateTime.now();
+        List<Appointment> overdue = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            overdue.add(appointment(customer, now.minusDays(2).plusHours(i), Appointment.AppointmentStatus.PENDING));
+        }
+        Appointment completed = appointment(customer, now.minusDays(1), Appointment.AppointmentStatus.COMPLETED);
+        Appointment withinGrace = appointment(customer, now.minusMinutes(10), Appointment.AppointmentStatus.CONFIRMED);
+        Appointment upcoming = appointment(customer, now.plusDays(1), Appointment.AppointmentStatus.CONFIRMED);
+
+        assertEquals(7, sweeper.sweep());
+
+        overdue.forEach(a -> assertEquals(Appointment.AppointmentStatus.NO_SHOW, status(a)));
+        assertEquals(Appointment.AppointmentStatus.COMPLETED, status(completed));
+        assertEquals(Appointment.AppointmentStatus.CONFIRMED, status(withinGrace));
+        assertEquals(Appointment.AppointmentStatus.CONFIRMED, status(upcoming));
+        // items go along with their appointment, the cancelled one stays cancelled
+        assertEquals(7, count("SELECT COUNT(*) FROM appointment_items WHERE status = 'NO_SHOW'"));
+        assertEquals(10, count("SELECT COUNT(*) FROM appointment_items WHERE status = 'CANCELLED'"));
+        assertEquals(3, count("SELECT COUNT(*) FROM appointment_items WHERE status = 'PENDING'"));
+        assertEquals(7, outboxEventRepository.countByStatus(OutboxEvent.OutboxStatus.PENDING));
+        assertEquals(overdue.get(6).getId(), jobCheckpointRepository.findById(NoShowSweeper.JOB_NAME).orElseThrow().getLastId());
+
+        // a new past-due row after the checkpoint is picked up, nothing before it is rescanned
+        Appointment late = appointment(customer, now.minusHours(3), Appointment.AppointmentStatus.PENDING);
+        assertEquals(1, sweeper.sweep());
+        assertEquals(Appointment.AppointmentStatus.NO_SHOW, status(late));
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private Appointment.AppointmentStatus status(Appointment appointment) {
+        return appointmentRepository.findById(appointment.getId()).orElseThrow().getStatus();
+    }
+
+    private User customer() {
+        User user = new User();
+        user.setEmail("noshow@example.com");
+        user.setPassword("x");
+        user.setFirstName("No");
+        user.setLastName("Show");
+        return userRepository.save(user);
+    }
+
+    private Service service() {
+        Service haircut = new Service();
+        haircut.setName("Haircut");
+        haircut.setDurationMinutes(30);
+        haircut.setPrice(new BigDecimal("150.00"));
+        return serviceRepository.save(haircut);
+    }
+
+    private Appointment appointment(User customer, LocalDateTime time, Appointment.AppointmentStatus status) {
+        Appointment appointment = new Appointment();
+        appointment.setCustomer(customer);
+        appointment.setAppointmentDateTime(time);
+        appointment.setStatus(status);
+        for (AppointmentItem.ItemStatus itemStatus : List.of(AppointmentItem.ItemStatus.PENDING, AppointmentItem.ItemStatus.CANCELLED)) {
+            AppointmentItem item = new AppointmentItem();
+            item.setService(service);
+            item.setPrice(service.getPrice());
+            item.setDurationMinutes(service.getDurationMinutes());
+            item.setScheduledTime(time);
+            item.setStatus(itemStatus);
+            appointment.addItem(item);
+        }
+        return appointmentRepository.save(appointment);
+    }
+}
@@ -0,0 +1,350 @@
+package com.barbershop.live;
+
+import com.barbershop.bulk.AppointmentBulkService;
+import com.barbershop.bulk.BulkTransition;
+import com.barbershop.event.AppointmentEvent;
+import com.barbershop.event.AppointmentEventType;
+import com.barbershop.event.OutboxDispatcher;
+import com.barbershop.model.dto.request.BulkStatusRequest;
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.AppointmentItem;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.OutboxEventRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.security.JwtTokenProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class LiveCalendarHubTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private LiveCalendarHub hub;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private AppointmentBulkService bulkService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        staffRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void bookingIsPushedToTheCalendarStream() throws Exception {
+        User admin = new User();
+        admin.setEmail("frontdesk@example.com");
+        admin.setPassword("x");
+        admin.setFirstName("Front");
+        admin.setLastName("Desk");
+        admin.setRole(User.UserRole.ADMIN);
+        String token = jwtTokenProvider.generateToken(userRepository.save(admin).getId());
+
+        Service service = new Service();
+        service.setName("Haircut");
+        service.setDurationMinutes(30);
+        service.setPrice(new BigDecimal("150.00"));
+        Long serviceId = serviceRepository.save(service).getId();
+
+        Staff staff = new Staff();
+        staff.setName("Ali");
+        Long staffId = staffRepository.save(staff).getId();
+
+        HttpClient client = HttpClient.newHttpClient();
+        int subscribed = hub.subscriberCount();
+        HttpResponse<InputStream> stream = client.send(HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/appointments/live?date=" + DAY + "&staffId=" + staffId))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, stream.statusCode());
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(stream.body(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    lines.add(line);
+                }
+            } catch (Exception ex) {
+                // stream closed
+            }
+        });
+        reader.setDaemon(true);
+        reader.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (hub.subscriberCount() == subscribed && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        LocalDateTime slot = DAY.atTime(10, 0);
+        String body = """
+                {"appointmentDateTime": "%s", "items": [{"serviceId": %d, "staffId": %d, "scheduledTime": "%s"}]}
+                """.formatted(slot, serviceId, staffId, slot);
+        HttpResponse<String> booked = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/appointments"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, booked.statusCode(), booked.body());
+        outboxDispatcher.dispatch();
+
+        String event = null;
+        String data = null;
+        String line;
+        while ((line = lines.poll(5, TimeUnit.SECONDS)) != null) {
+            if (line.startsWith("event:")) {
+                event = line.substring(6);
+            } else if (line.startsWith("data:") && "created".equals(event)) {
+                data = line.substring(5);
+                break;
+            }
+        }
+        assertEquals("created", event);
+        assertTrue(data.contains("\"staffIds\":[" + staffId + "]"), data);
+    }
+
+    @Test
+    void bulkChangeReachesStaffFilteredSubscribers() throws Exception {
+        User customer = new User();
+        customer.setEmail("bulk-live@example.com");
+        customer.setPassword("x");
+        customer.setFirstName("Bulk");
+        customer.setLastName("Live");
+        customer = userRepository.save(customer);
+
+        Service service = new Service();
+        service.setName("Beard trim");
+        service.setDurationMinutes(20);
+        service.setPrice(new BigDecimal("90.00"));
+        service = serviceRepository.save(service);
+
+        Staff staff = new Staff();
+        staff.setName("Veli");
+        staff = staffRepository.save(staff);
+
+        Appointment appointment = new Appointment();
+        appointment.setCustomer(customer);
+        appointment.setAppointmentDateTime(DAY.atTime(11, 0));
+        AppointmentItem item = new AppointmentItem();
+        item.setService(service);
+        item.setStaff(staff);
+        item.setPrice(service.getPrice());
+        item.setDurationMinutes(service.getDurationMinutes());
+        item.setScheduledTime(appointment.getAppointmentDateTime());
+        appointment.addItem(item);
+        Long appointmentId = appointmentRepository.save(appointment).getId();
+
+        RecordingSubscriber subscriber = new RecordingSubscriber(filter(staff.getId()), 16);
+        hub.register(subscriber, null);
+        bulkService.apply(BulkTransition.CONFIRM, new BulkStatusRequest(List.of(appointmentId), null, null, null));
+        outboxDispatcher.dispatch();
+
+        subscriber.await(2);
+        assertEquals(List.of("confirmed:" + appointmentId), subscriber.events().subList(1, 2));
+    }
+
+    @Test
+    void reconnectReplaysOnlyMissedMatchingEvents() throws Exception {
+        RecordingSubscriber first = new RecordingSubscriber(filter(1L), 16);
+        hub.register(first, null);
+        hub.onEvent(event(900_000_101L, 1L, 1L));
+        first.await(2);
+        assertEquals(LiveCalendarHub.READY_EVENT, first.names().get(0));
+        String lastEventId = first.ids().get(1);
+
+        hub.onEvent(event(900_000_102L, 2L, 1L));
+        hub.onEvent(event(900_000_103L, 3L, 2L));
+        hub.onEvent(event(900_000_104L, 4L, 1L));
+        // redelivered by the outbox after another consumer failed
+        hub.onEvent(event(900_000_104L, 4L, 1L));
+
+        RecordingSubscriber resumed = new RecordingSubscriber(filter(1L), 16);
+        hub.register(resumed, lastEventId);
+        resumed.await(2);
+        assertEquals(List.of("created:2", "created:4"), resumed.events());
+
+        RecordingSubscriber stale = new RecordingSubscriber(filter(1L), 16);
+        hub.register(stale, "another-node-7");
+        stale.await(1);
+        assertEquals(List.of(LiveCalendarHub.RESET_EVENT), stale.names());
+    }
+
+    @Test
+    void slowSubscriberIsEvictedWithoutHoldingBackOthers() throws Exception {
+        double evicted = meterRegistry.counter("live.subscribers.evicted").count();
+        BlockedSubscriber slow = new BlockedSubscriber(filter(null), 4);
+        RecordingSubscriber fast = new RecordingSubscriber(filter(null), 64);
+        hub.register(slow, null);
+        hub.register(fast, null);
+
+        for (long i = 1; i <= 20; i++) {
+            hub.onEvent(event(900_000_200 + i, i, 1L));
+        }
+        fast.await(21);
+        assertEquals(evicted + 1, meterRegistry.counter("live.subscribers.evicted").count());
+
+        slow.release.countDown();
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+        assertTrue(slow.sent.size() <= 5);
+    }
+
+    private static LiveFilter filter(Long staffId) {
+        return new LiveFilter("main", DAY, staffId);
+    }
+
+    private static AppointmentEvent event(long outboxId, long appointmentId, long staffId) {
+        return new AppointmentEvent(outboxId, AppointmentEventType.CREATED, appointmentId, 10L, "PENDING",
+                DAY.atTime(10, 0), List.of(staffId), LocalDateTime.now(), "main");
+    }
+
+    private static String text(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        return frame.stream().map(part -> String.valueOf(part.getData())).collect(Collectors.joining());
+    }
+
+    static class RecordingSubscriber extends LiveSubscriber {
+
+        final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+
+        RecordingSubscriber(LiveFilter filter, int bufferSize) {
+            super(null, filter, bufferSize);
+        }
+
+        @Override
+        protected void send(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+            sent.add(text(frame));
+        }
+
+        @Override
+        protected void complete() {
+        }
+
+        void await(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (sent.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(count, sent.size());
+        }
+
+        List<String> ids() {
+            return field("id:");
+        }
+
+        List<String> names() {
+            return field("event:");
+        }
+
+        List<String> events() {
+            return sent.stream()
+                    .map(frame -> value(frame, "event:") + ":" + value(frame, "data:").replaceAll(".*\"appointmentId\":(\\d+).*", "$1"))
+                    .toList();
+        }
+
+        private List<String> field(String prefix) {
+            return sent.stream().map(frame -> value(frame, prefix)).toList();
+        }
+
+        private static String value(String frame, String prefix) {
+            return frame.lines()
+                    .filter(line -> line.startsWith(prefix))
+                    .map(line -> line.substring(prefix.length()))
+                    .findFirst()
+                    .orElse("");
+        }
+    }
+
+    static class BlockedSubscriber extends LiveSubscriber {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+        final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+
+        BlockedSubscriber(LiveFilter filter, int bufferSize) {
+            super(null, filter, bufferSize);
+        }
+
+        // a client that stopped reading: the write does not return
+        @Override
+        protected void send(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            sent.add(text(frame));
+        }
+
+        @Override
+        protected void complete() {
+            completed.countDown();
+        }
+    }
+}
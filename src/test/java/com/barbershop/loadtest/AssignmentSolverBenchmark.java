@@ -0,0 +1,141 @@
+package com.barbershop.loadtest;
+
+import com.barbershop.assignment.AssignmentSearch;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.barbershop.schedule.DayMask.MINUTES_PER_DAY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Staff assignment solver on dense days.
+ *
+ * Builds days with many staff who are already mostly booked, then keeps asking for
+ * multi-service appointments without staff until the day is full. Every answer is checked for
+ * overlaps and the solve time is recorded per appointment size; the day ends after a run of
+ * conflicts. No Spring context, the solver alone.
+ *
+ * Run with: gradle loadTest --tests '*AssignmentSolverBenchmark' -Dloadtest.staff=60
+ */
+@Tag("load")
+class AssignmentSolverBenchmark {
+
+    private static final long SEED = Long.getLong("loadtest.seed", 42L);
+    private static final int DAYS = Integer.getInteger("loadtest.days", 200);
+    private static final int STAFF = Integer.getInteger("loadtest.staff", 40);
+    private static final int PREBOOKED_PERCENT = Integer.getInteger("loadtest.prebookedPercent", 70);
+    private static final int SKILLED_PERCENT = Integer.getInteger("loadtest.skilledPercent", 60);
+    private static final int MAX_ITEMS = Integer.getInteger("loadtest.maxItems", 5);
+    private static final long BUDGET_MS = Long.getLong("loadtest.budgetMs", 50L);
+
+    private static final int SHIFT_START = 9 * 60;
+    private static final int SHIFT_END = 21 * 60;
+    private static final int[] DURATIONS = {15, 30, 30, 45, 60, 90};
+
+    @Test
+    void denseDays() throws IOException {
+        SplittableRandom random = new SplittableRandom(SEED);
+        LatencyRecorder recorder = new LatencyRecorder();
+        long budgetNanos = TimeUnit.MILLISECONDS.toNanos(BUDGET_MS);
+        long timeouts = 0;
+        long worst = 0;
+        long started = System.nanoTime();
+
+        for (int day = 0; day < DAYS; day++) {
+            AssignmentSearch.Timeline[] timelines = prebook(random);
+            int conflictsInARow = 0;
+            while (conflictsInARow < 20) {
+                List<AssignmentSearch.Item> items = appointment(random);
+                AssignmentSearch search = new AssignmentSearch(items, timelines, 1, 2);
+                long solveStarted = System.nanoTime();
+                int[] solution = search.solve(budgetNanos);
+                long elapsed = System.nanoTime() - solveStarted;
+                worst = Math.max(worst, elapsed);
+                timeouts += search.timedOut() ? 1 : 0;
+                recorder.record("solve/" + items.size() + " items", elapsed,
+                        solution == null ? LatencyRecorder.Outcome.CONFLICT : LatencyRecorder.Outcome.OK);
+                if (solution == null) {
+                    conflictsInARow++;
+                    continue;
+                }
+                conflictsInARow = 0;
+                for (int i = 0; i < items.size(); i++) {
+                    AssignmentSearch.Item item = items.get(i);
+                    assertThat(item.candidates()).contains(solution[i]);
+                    assertThat(timelines[solution[i]].overlaps(item.start(), item.end()))
+                            .as("overlap on day %d", day).isFalse();
+                    timelines[solution[i]].add(item.start(), item.end());
+                }
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - started) / 1_000_000_000.0;
+
+        String report = String.format("Assignment solver: days=%d staff=%d prebooked=%d%% skilled=%d%% budget=%dms seed=%d%n",
+                DAYS, STAFF, PREBOOKED_PERCENT, SKILLED_PERCENT, BUDGET_MS, SEED)
+                + recorder.report(elapsedSeconds)
+                + String.format("Time budget reached: %d, slowest solve: %.2f ms%n", timeouts, worst / 1_000_000.0);
+        System.out.println(report);
+        Path directory = Paths.get("build", "reports", "loadtest");
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve("assignment-solver.txt"), report);
+
+        // the deadline is looked at every 256 nodes, so allow a little past it
+        assertThat(worst).as("slowest solve").isLessThan(budgetNanos + TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(recorder.count(LatencyRecorder.Outcome.OK)).as("appointments placed").isPositive();
+    }
+
+    // every staff member booked back to back with random gaps until the share is reached
+    private static AssignmentSearch.Timeline[] prebook(SplittableRandom random) {
+        AssignmentSearch.Timeline[] timelines = new AssignmentSearch.Timeline[STAFF];
+        int target = (SHIFT_END - SHIFT_START) * PREBOOKED_PERCENT / 100;
+        for (int staff = 0; staff < STAFF; staff++) {
+            timelines[staff] = new AssignmentSearch.Timeline();
+            timelines[staff].block(0, SHIFT_START);
+            timelines[staff].block(SHIFT_END, MINUTES_PER_DAY);
+            int minute = SHIFT_START;
+            int booked = 0;
+            while (booked < target) {
+                minute += random.nextInt(4) * 15;
+                int duration = DURATIONS[random.nextInt(DURATIONS.length)];
+                if (minute + duration > SHIFT_END) {
+                    break;
+                }
+                timelines[staff].add(minute, minute + duration);
+                minute += duration;
+                booked += duration;
+            }
+        }
+        return timelines;
+    }
+
+    // one to MAX_ITEMS services in a row, some of them at the same time, each with its skilled staff
+    private static List<AssignmentSearch.Item> appointment(SplittableRandom random) {
+        int size = 1 + random.nextInt(MAX_ITEMS);
+        int minute = SHIFT_START + random.nextInt((SHIFT_END - SHIFT_START) / 15 - 8) * 15;
+        List<AssignmentSearch.Item> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int duration = DURATIONS[random.nextInt(DURATIONS.length)];
+            List<Integer> candidates = new ArrayList<>();
+            for (int staff = 0; staff < STAFF; staff++) {
+                if (random.nextInt(100) < SKILLED_PERCENT) {
+                    candidates.add(staff);
+                }
+            }
+            items.add(new AssignmentSearch.Item(minute, minute + duration,
+                    candidates.stream().mapToInt(Integer::intValue).toArray()));
+            if (random.nextBoolean()) {
+                minute += duration;
+            }
+        }
+        return items;
+    }
+}
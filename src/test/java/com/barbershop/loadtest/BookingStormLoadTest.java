@@ -0,0 +1,303 @@
+package com.barbershop.loadtest;
+
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.schedule.AvailabilityCalendar;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Booking-storm load test.
+ *
+ * Boots the full application on a random port against in-memory H2 (MySQL mode), seeds a
+ * catalog, staff roster and customer base, then replays a mixed workload from concurrent
+ * virtual users: catalog browsing, logins, bookings with contention on a few popular barbers,
+ * cancellations and admin day views. Prints throughput, p50/p95/p99 and error rates per
+ * endpoint and writes the same report to build/reports/loadtest.
+ *
+ * Run with: gradle loadTest -Dloadtest.durationSeconds=60 -Dloadtest.users=64
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "scheduling.enabled=true")
+@ActiveProfiles("test")
+class BookingStormLoadTest {
+
+    private static final long SEED = Long.getLong("loadtest.seed", 42L);
+    private static final int USERS = Integer.getInteger("loadtest.users", 32);
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.durationSeconds", 30);
+    private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmupSeconds", 5);
+    private static final int CUSTOMERS = Integer.getInteger("loadtest.customers", 500);
+    private static final int STAFF = Integer.getInteger("loadtest.staff", 12);
+    private static final int POPULAR_STAFF = Integer.getInteger("loadtest.popularStaff", 3);
+    private static final int POPULAR_SHARE_PERCENT = Integer.getInteger("loadtest.popularSharePercent", 70);
+    private static final int BOOKING_DAYS = Integer.getInteger("loadtest.bookingDays", 5);
+    private static final boolean ASSERT_NO_OVERLAPS = Boolean.getBoolean("loadtest.assertNoOverlaps");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private AvailabilityCalendar availabilityCalendar;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private LoadTestDataSeeder.SeededData data;
+    private String adminToken;
+
+    @Test
+    void bookingStorm() throws Exception {
+        data = new LoadTestDataSeeder(userRepository, staffRepository, serviceRepository, passwordEncoder)
+                .seed(SEED, CUSTOMERS, STAFF);
+        // seeded through the repositories, so the calendar has not heard of the staff
+        availabilityCalendar.invalidate();
+        adminToken = login(LoadTestDataSeeder.ADMIN_EMAIL, new LatencyRecorder());
+
+        // Warm up JIT, connection pool and Hibernate caches without recording
+        runPhase(new LatencyRecorder(), WARMUP_SECONDS, SEED ^ 0x5DEECE66DL);
+
+        LatencyRecorder recorder = new LatencyRecorder();
+        long started = System.nanoTime();
+        runPhase(recorder, DURATION_SECONDS, SEED);
+        double elapsedSeconds = (System.nanoTime() - started) / 1_000_000_000.0;
+
+        long overlaps = countOverlappingStaffBookings();
+        String report = String.format("Booking storm: users=%d duration=%ds seed=%d customers=%d staff=%d popular=%d%n",
+                USERS, DURATION_SECONDS, SEED, CUSTOMERS, STAFF, POPULAR_STAFF)
+                + recorder.report(elapsedSeconds)
+                + String.format("Overlapping staff bookings: %d%n", overlaps);
+
+        System.out.println(report);
+        writeReport(report);
+
+        assertThat(recorder.count(LatencyRecorder.Outcome.SERVER_ERROR)).as("5xx responses").isZero();
+        assertThat(recorder.count(LatencyRecorder.Outcome.TRANSPORT_ERROR)).as("transport errors").isZero();
+        if (ASSERT_NO_OVERLAPS) {
+            assertThat(overlaps).as("overlapping staff bookings").isZero();
+        }
+    }
+
+    private void runPhase(LatencyRecorder recorder, int seconds, long seed) throws Exception {
+        if (seconds <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(USERS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < USERS; i++) {
+                VirtualUser user = new VirtualUser(recorder, new SplittableRandom(seed + i), i);
+                futures.add(executor.submit(() -> user.run(deadline)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * One simulated client; keeps its own token and list of booked appointments
+     */
+    private class VirtualUser {
+        private final LatencyRecorder recorder;
+        private final SplittableRandom random;
+        private final String email;
+        private final List<Long> myAppointments = new ArrayList<>();
+        private String token;
+
+        VirtualUser(LatencyRecorder recorder, SplittableRandom random, int index) {
+            this.recorder = recorder;
+            this.random = random;
+            this.email = data.customerEmails().get(index % data.customerEmails().size());
+        }
+
+        void run(long deadline) {
+            token = login(email, recorder);
+            while (System.nanoTime() < deadline) {
+                int roll = random.nextInt(100);
+                if (roll < 30) {
+                    get("GET /api/services", "/api/services", null);
+                } else if (roll < 45) {
+                    get("GET /api/staff", "/api/staff", null);
+                } else if (roll < 52) {
+                    token = login(email, recorder);
+                } else if (roll < 80) {
+                    book();
+                } else if (roll < 90) {
+                    cancel();
+                } else {
+                    LocalDate day = LocalDate.now().plusDays(1 + random.nextInt(BOOKING_DAYS));
+                    get("GET by-date (admin)", "/api/appointments/by-date?date=" + day.atStartOfDay(), adminToken);
+                }
+            }
+        }
+
+        private void book() {
+            boolean popular = random.nextInt(100) < POPULAR_SHARE_PERCENT;
+            List<Long> staffIds = data.staffIds();
+            Long staffId = popular
+                    ? staffIds.get(random.nextInt(Math.min(POPULAR_STAFF, staffIds.size())))
+                    : staffIds.get(random.nextInt(staffIds.size()));
+
+            LocalDate day = LocalDate.now().plusDays(1 + random.nextInt(BOOKING_DAYS));
+            LocalDateTime start = LocalDateTime.of(day, LocalTime.of(9, 0)).plusMinutes(30L * random.nextInt(15));
+
+            List<Map<String, Object>> items = new ArrayList<>();
+            LocalDateTime cursor = start;
+            int itemCount = random.nextInt(100) < 30 ? 2 : 1;
+            for (int i = 0; i < itemCount; i++) {
+                int serviceIndex = random.nextInt(data.serviceIds().size());
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("serviceId", data.serviceIds().get(serviceIndex));
+                item.put("staffId", staffId);
+                item.put("scheduledTime", cursor.toString());
+                items.add(item);
+                cursor = cursor.plusMinutes(data.serviceDurations().get(serviceIndex));
+            }
+
+            Map<String, Object> body = new HashMap<>();
+            body.put("appointmentDateTime", start.toString());
+            body.put("items", items);
+            body.put("notes", "load test");
+
+            JsonNode response = send("POST /api/appointments", HttpRequest.newBuilder(uri("/api/appointments"))
+                    .header("Content-Type", "application/json")
+                    .header("Authorization", "Bearer " + token)
+                    .POST(HttpRequest.BodyPublishers.ofString(toJson(body))));
+            if (response != null && response.path("data").has("id")) {
+                myAppointments.add(response.path("data").path("id").asLong());
+            }
+        }
+
+        private void cancel() {
+            if (myAppointments.isEmpty()) {
+                get("GET /api/appointments/my", "/api/appointments/my-appointments?page=0&size=10", token);
+                return;
+            }
+            Long id = myAppointments.remove(random.nextInt(myAppointments.size()));
+            send("PUT /api/appointments/cancel", HttpRequest.newBuilder(uri("/api/appointments/" + id + "/cancel"))
+                    .header("Authorization", "Bearer " + token)
+                    .PUT(HttpRequest.BodyPublishers.noBody()));
+        }
+
+        private void get(String endpoint, String path, String bearer) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path)).GET();
+            if (bearer != null) {
+                builder.header("Authorization", "Bearer " + bearer);
+            }
+            send(endpoint, builder);
+        }
+
+        private JsonNode send(String endpoint, HttpRequest.Builder builder) {
+            return LoadTestRequests.send(httpClient, objectMapper, recorder, endpoint, builder);
+        }
+    }
+
+    private String login(String email, LatencyRecorder recorder) {
+        Map<String, String> body = Map.of("email", email, "password", LoadTestDataSeeder.PASSWORD);
+        JsonNode response = LoadTestRequests.send(httpClient, objectMapper, recorder, "POST /api/auth/login",
+                HttpRequest.newBuilder(uri("/api/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(toJson(body))));
+        return response == null ? null : response.path("data").path("accessToken").asText(null);
+    }
+
+    /**
+     * Count pairs of live items that overlap for the same staff member
+     */
+    private long countOverlappingStaffBookings() {
+        Map<Long, List<long[]>> intervalsByStaff = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT staff_id, scheduled_time, duration_minutes FROM appointment_items " +
+                        "WHERE staff_id IS NOT NULL AND status <> 'CANCELLED'",
+                rs -> {
+                    long start = rs.getTimestamp("scheduled_time").getTime();
+                    long end = start + TimeUnit.MINUTES.toMillis(rs.getInt("duration_minutes"));
+                    intervalsByStaff.computeIfAbsent(rs.getLong("staff_id"), key -> new ArrayList<>())
+                            .add(new long[]{start, end});
+                });
+
+        long overlaps = 0;
+        for (List<long[]> intervals : intervalsByStaff.values()) {
+            intervals.sort((a, b) -> Long.compare(a[0], b[0]));
+            long maxEnd = Long.MIN_VALUE;
+            for (long[] interval : intervals) {
+                if (interval[0] < maxEnd) {
+                    overlaps++;
+                }
+                maxEnd = Math.max(maxEnd, interval[1]);
+            }
+        }
+        return overlaps;
+    }
+
+    private void writeReport(String report) throws IOException {
+        Path directory = Paths.get("build", "reports", "loadtest");
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve("booking-storm.txt"), report);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.barbershop.loadtest;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects per-endpoint latencies and outcomes for a load test run
+ */
+class LatencyRecorder {
+
+    enum Outcome {
+        OK,
+        CONFLICT,
+        CLIENT_ERROR,
+        SERVER_ERROR,
+        TRANSPORT_ERROR
+    }
+
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long latencyNanos, Outcome outcome) {
+        stats.computeIfAbsent(endpoint, key -> new EndpointStats()).add(latencyNanos, outcome);
+    }
+
+    long count(Outcome outcome) {
+        return stats.values().stream().mapToLong(s -> s.count(outcome)).sum();
+    }
+
+    /**
+     * Render a fixed-width report with throughput, percentiles and error rates per endpoint
+     */
+    String report(double elapsedSeconds) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-30s %8s %9s %8s %8s %8s %8s %8s %8s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "409", "err %"));
+
+        long totalRequests = 0;
+        for (Map.Entry<String, EndpointStats> entry : new TreeMap<>(stats).entrySet()) {
+            EndpointStats s = entry.getValue();
+            long[] sorted = s.sortedLatencies();
+            long total = sorted.length;
+            totalRequests += total;
+            long errors = s.count(Outcome.CLIENT_ERROR) + s.count(Outcome.SERVER_ERROR) + s.count(Outcome.TRANSPORT_ERROR);
+
+            sb.append(String.format(Locale.ROOT, "%-30s %8d %9.1f %8.2f %8.2f %8.2f %8.2f %8d %8.2f%n",
+                    entry.getKey(),
+                    total,
+                    total / elapsedSeconds,
+                    millis(percentile(sorted, 0.50)),
+                    millis(percentile(sorted, 0.95)),
+                    millis(percentile(sorted, 0.99)),
+                    millis(total == 0 ? 0 : sorted[sorted.length - 1]),
+                    s.count(Outcome.CONFLICT),
+                    total == 0 ? 0.0 : 100.0 * errors / total));
+        }
+
+        sb.append(String.format(Locale.ROOT, "%-30s %8d %9.1f%n", "TOTAL", totalRequests, totalRequests / elapsedSeconds));
+        return sb.toString();
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static class EndpointStats {
+        private long[] latencies = new long[1024];
+        private int size;
+        private final long[] outcomes = new long[Outcome.values().length];
+
+        synchronized void add(long latencyNanos, Outcome outcome) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latencyNanos;
+            outcomes[outcome.ordinal()]++;
+        }
+
+        synchronized long count(Outcome outcome) {
+            return outcomes[outcome.ordinal()];
+        }
+
+        synchronized long[] sortedLatencies() {
+            long[] copy = Arrays.copyOf(latencies, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.barbershop.loadtest;
+
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.UserRepository;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Seeds a realistic catalog, staff roster and customer base for the booking-storm load test
+ */
+class LoadTestDataSeeder {
+
+    static final String PASSWORD = "loadtest123";
+    static final String ADMIN_EMAIL = "loadtest-admin@barbershop.local";
+
+    private static final String[] SERVICE_NAMES = {
+            "Classic Haircut", "Skin Fade", "Beard Trim", "Hot Towel Shave", "Kids Haircut",
+            "Hair Wash", "Beard Coloring", "Hair Coloring", "Head Massage", "Eyebrow Shaping"
+    };
+    private static final int[] SERVICE_DURATIONS = {30, 45, 15, 30, 30, 15, 30, 60, 15, 15};
+
+    private final UserRepository userRepository;
+    private final StaffRepository staffRepository;
+    private final ServiceRepository serviceRepository;
+    private final PasswordEncoder passwordEncoder;
+
+    LoadTestDataSeeder(UserRepository userRepository,
+                       StaffRepository staffRepository,
+                       ServiceRepository serviceRepository,
+                       PasswordEncoder passwordEncoder) {
+        this.userRepository = userRepository;
+        this.staffRepository = staffRepository;
+        this.serviceRepository = serviceRepository;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    SeededData seed(long seed, int customerCount, int staffCount) {
+        SplittableRandom random = new SplittableRandom(seed);
+        // BCrypt is deliberately slow, so every seeded account shares one hash
+        String passwordHash = passwordEncoder.encode(PASSWORD);
+
+        User admin = new User();
+        admin.setEmail(ADMIN_EMAIL);
+        admin.setPassword(passwordHash);
+        admin.setFirstName("Load");
+        admin.setLastName("Admin");
+        admin.setRole(User.UserRole.ADMIN);
+        userRepository.save(admin);
+
+        List<User> customers = new ArrayList<>(customerCount);
+        for (int i = 0; i < customerCount; i++) {
+            User customer = new User();
+            customer.setEmail("customer" + i + "@loadtest.local");
+            customer.setPassword(passwordHash);
+            customer.setFirstName("Customer");
+            customer.setLastName("No" + i);
+            customer.setPhone("555" + String.format("%07d", i));
+            customer.setRole(User.UserRole.CUSTOMER);
+            customers.add(customer);
+        }
+        userRepository.saveAll(customers);
+
+        List<Staff> staffList = new ArrayList<>(staffCount);
+        for (int i = 0; i < staffCount; i++) {
+            Staff staff = new Staff();
+            staff.setName("Barber " + i);
+            staff.setSpecialties("Haircut, Beard");
+            staff.setWorkStartTime(LocalTime.of(9, 0));
+            staff.setWorkEndTime(LocalTime.of(18, 0));
+            staffList.add(staff);
+        }
+        staffRepository.saveAll(staffList);
+
+        List<Service> services = new ArrayList<>(SERVICE_NAMES.length);
+        for (int i = 0; i < SERVICE_NAMES.length; i++) {
+            Service service = new Service();
+            service.setName(SERVICE_NAMES[i]);
+            service.setDescription("Load test service " + SERVICE_NAMES[i]);
+            service.setDurationMinutes(SERVICE_DURATIONS[i]);
+            service.setPrice(BigDecimal.valueOf(100 + random.nextInt(400)));
+            services.add(service);
+        }
+        serviceRepository.saveAll(services);
+
+        return new SeededData(
+                customers.stream().map(User::getEmail).toList(),
+                staffList.stream().map(Staff::getId).toList(),
+                services.stream().map(Service::getId).toList(),
+                services.stream().map(Service::getDurationMinutes).toList()
+        );
+    }
+
+    record SeededData(List<String> customerEmails,
+                      List<Long> staffIds,
+                      List<Long> serviceIds,
+                      List<Integer> serviceDurations) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.barbershop.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Sends a single request, classifies the outcome and records its latency
+ */
+final class LoadTestRequests {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private LoadTestRequests() {
+    }
+
+    static JsonNode send(HttpClient client,
+                         ObjectMapper objectMapper,
+                         LatencyRecorder recorder,
+                         String endpoint,
+                         HttpRequest.Builder builder) {
+        long started = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = client.send(builder.timeout(REQUEST_TIMEOUT).build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            long latency = System.nanoTime() - started;
+            recorder.record(endpoint, latency, classify(response.statusCode()));
+            if (response.statusCode() >= 300 || response.body().length == 0) {
+                return null;
+            }
+            return objectMapper.readTree(response.body());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            recorder.record(endpoint, System.nanoTime() - started, LatencyRecorder.Outcome.TRANSPORT_ERROR);
+            return null;
+        } catch (Exception e) {
+            recorder.record(endpoint, System.nanoTime() - started, LatencyRecorder.Outcome.TRANSPORT_ERROR);
+            return null;
+        }
+    }
+
+    private static LatencyRecorder.Outcome classify(int status) {
+        if (status < 300) {
+            return LatencyRecorder.Outcome.OK;
+        }
+        if (status == 409) {
+            return LatencyRecorder.Outcome.CONFLICT;
+        }
+        if (status < 500) {
+            return LatencyRecorder.Outcome.CLIENT_ERROR;
+        }
+        return LatencyRecorder.Outcome.SERVER_ERROR;
+    }
+}
@@ -0,0 +1,145 @@
+package com.barbershop.projection;
+
+import com.barbershop.model.dto.response.AppointmentListView;
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.AppointmentItem;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.service.AppointmentService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.barbershop.projection.AppointmentProjectorTest$RecordingInspector")
+@ActiveProfiles("test")
+class AppointmentProjectorTest {
+
+    static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        staffRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void normalizedViewSendsServicesAndStaffOnceAndSkipsUnrequestedColumns() {
+        User customer = new User();
+        customer.setEmail("projection@example.com");
+        customer.setPassword("x");
+        customer.setFirstName("Pro");
+        customer.setLastName("Jection");
+        customer = userRepository.save(customer);
+
+        Service haircut = new Service();
+        haircut.setName("Haircut");
+        haircut.setDescription("A long description nobody on the board needs");
+        haircut.setDurationMinutes(30);
+        haircut.setPrice(new BigDecimal("150.00"));
+        haircut = serviceRepository.save(haircut);
+
+        Staff barber = new Staff();
+        barber.setName("Ali");
+        barber = staffRepository.save(barber);
+
+        LocalDateTime day = LocalDate.now().plusDays(1).atTime(10, 0);
+        for (int i = 0; i < 3; i++) {
+            Appointment appointment = new Appointment();
+            appointment.setCustomer(customer);
+            appointment.setAppointmentDateTime(day.plusHours(i));
+            appointment.setNotes("Short on the sides");
+            for (int j = 0; j < 2; j++) {
+                AppointmentItem item = new AppointmentItem();
+                item.setService(haircut);
+                // second item has no staff assigned
+                item.setStaff(j == 0 ? barber : null);
+                item.setPrice(haircut.getPrice());
+                item.setDurationMinutes(haircut.getDurationMinutes());
+                item.setScheduledTime(day.plusHours(i).plusMinutes(30L * j));
+                appointment.addItem(item);
+            }
+            appointmentRepository.save(appointment);
+        }
+
+        STATEMENTS.clear();
+        AppointmentListView view = appointmentService.getAppointmentsByDate(day,
+                AppointmentFields.parse("appointmentDateTime,totalPrice,items.service,items.staff", "normalized"));
+
+        assertEquals(3, view.getContent().size());
+        Map<String, Object> first = view.getContent().get(0);
+        assertEquals(List.of("id", "appointmentDateTime", "totalPrice", "items"), List.copyOf(first.keySet()));
+        assertEquals(0, new BigDecimal("300.00").compareTo((BigDecimal) first.get("totalPrice")));
+        List<Map<String, Object>> items = (List<Map<String, Object>>) first.get("items");
+        assertEquals(List.of("id", "serviceId", "staffId"), List.copyOf(items.get(0).keySet()));
+        assertEquals(barber.getId(), items.get(0).get("staffId"));
+        assertNull(items.get(1).get("staffId"));
+
+        assertEquals(1, view.getServices().size());
+        assertEquals("Haircut", view.getServices().get(haircut.getId()).getName());
+        assertEquals(1, view.getStaff().size());
+        assertNull(view.getCustomers());
+
+        // appointments, items and the two dictionaries; no notes or descriptions read
+        assertEquals(4, STATEMENTS.size());
+        STATEMENTS.forEach(sql -> {
+            assertFalse(sql.contains("notes"), sql);
+            assertFalse(sql.contains("description"), sql);
+        });
+
+        // the compact view embeds names instead
+        AppointmentListView compact = appointmentService.getAppointmentsByDate(day,
+                AppointmentFields.parse("notes,items.service", null));
+        Map<String, Object> item = ((List<Map<String, Object>>) compact.getContent().get(0).get("items")).get(0);
+        assertEquals("Short on the sides", compact.getContent().get(0).get("notes"));
+        assertEquals("Haircut", ((AppointmentListView.ServiceSummary) item.get("service")).getName());
+        assertNull(compact.getServices());
+        assertTrue(STATEMENTS.stream().anyMatch(sql -> sql.contains("notes")));
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
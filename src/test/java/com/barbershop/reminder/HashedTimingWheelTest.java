@@ -0,0 +1,76 @@
+package com.barbershop.reminder;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimingWheelTest {
+
+    private static final long ORIGIN = 1_700_000_000_000L;
+
+    private final HashedTimingWheel<String, String> wheel =
+            new HashedTimingWheel<>(Duration.ofSeconds(1), 8, ORIGIN);
+
+    @Test
+    void firesTimersWhenTheirTickIsReached() {
+        wheel.schedule("a", ORIGIN + 2_500, "a");
+        wheel.schedule("b", ORIGIN + 1_000, "b");
+
+        assertEquals(List.of(), wheel.advanceTo(ORIGIN + 999));
+        assertEquals(List.of("b"), wheel.advanceTo(ORIGIN + 1_000));
+        assertEquals(List.of(), wheel.advanceTo(ORIGIN + 2_000));
+        assertEquals(List.of("a"), wheel.advanceTo(ORIGIN + 3_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void timersSeveralRotationsAwayWaitForTheirRound() {
+        // 8 buckets of 1s: 3s, 11s and 19s share a bucket
+        wheel.schedule("round0", ORIGIN + 3_000, "round0");
+        wheel.schedule("round1", ORIGIN + 11_000, "round1");
+        wheel.schedule("round2", ORIGIN + 19_000, "round2");
+
+        List<String> fired = new ArrayList<>();
+        for (long t = ORIGIN; t <= ORIGIN + 12_000; t += 1_000) {
+            fired.addAll(wheel.advanceTo(t));
+        }
+        assertEquals(List.of("round0", "round1"), fired);
+        assertTrue(wheel.contains("round2"));
+    }
+
+    @Test
+    void largeJumpExpiresEverythingDueInDeadlineOrder() {
+        wheel.schedule("late", ORIGIN + 30_000, "late");
+        wheel.schedule("early", ORIGIN + 5_000, "early");
+        wheel.schedule("future", ORIGIN + 90_000, "future");
+
+        assertEquals(List.of("early", "late"), wheel.advanceTo(ORIGIN + 60_000));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void cancelAndRescheduleReplaceTheTimer() {
+        wheel.schedule("a", ORIGIN + 2_000, "first");
+        wheel.schedule("a", ORIGIN + 4_000, "second");
+        wheel.schedule("b", ORIGIN + 2_000, "b");
+        assertTrue(wheel.cancel("b"));
+        assertFalse(wheel.cancel("b"));
+
+        assertEquals(List.of(), wheel.advanceTo(ORIGIN + 3_000));
+        assertEquals(List.of("second"), wheel.advanceTo(ORIGIN + 4_000));
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextTick() {
+        wheel.advanceTo(ORIGIN + 10_000);
+        wheel.schedule("overdue", ORIGIN + 1_000, "overdue");
+
+        assertEquals(List.of("overdue"), wheel.advanceTo(ORIGIN + 11_000));
+    }
+}
@@ -0,0 +1,122 @@
+package com.barbershop.reminder;
+
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.AppointmentItem;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.AppointmentItemRepository;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.sharding.ShardDirectory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReminderSchedulerTest {
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AppointmentItemRepository appointmentItemRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ShardDirectory shardDirectory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void eachReminderIsSentByOneNodeOnly() throws Exception {
+        User customer = new User();
+        customer.setEmail("reminded@example.com");
+        customer.setPassword("x");
+        customer.setFirstName("Re");
+        customer.setLastName("Minded");
+        customer = userRepository.save(customer);
+
+        Service service = new Service();
+        service.setName("Haircut");
+        service.setDurationMinutes(30);
+        service.setPrice(new BigDecimal("150.00"));
+        service = serviceRepository.save(service);
+
+        // the two-hour reminder falls due in a few seconds
+        LocalDateTime time = LocalDateTime.now().plusHours(2).plusSeconds(3);
+        Appointment appointment = new Appointment();
+        appointment.setCustomer(customer);
+        appointment.setAppointmentDateTime(time);
+        AppointmentItem item = new AppointmentItem();
+        item.setService(service);
+        item.setPrice(service.getPrice());
+        item.setDurationMinutes(service.getDurationMinutes());
+        item.setScheduledTime(time);
+        appointment.addItem(item);
+        Long itemId = appointmentRepository.save(appointment).getItems().get(0).getId();
+
+        // two nodes, each with its own wheel over the same database
+        List<Reminder> sent = new CopyOnWriteArrayList<>();
+        ReminderScheduler first = node(sent);
+        ReminderScheduler second = node(sent);
+        first.refill();
+        second.refill();
+        assertEquals(1, first.scheduledCount());
+        assertEquals(1, second.scheduledCount());
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((first.scheduledCount() > 0 || second.scheduledCount() > 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+            first.tick();
+            second.tick();
+        }
+
+        assertEquals(1, sent.size());
+        assertEquals(ReminderType.TWO_HOURS_BEFORE, sent.get(0).getType());
+
+        // saving the item through the entity leaves the claim alone
+        AppointmentItem loaded = appointmentItemRepository.findById(itemId).orElseThrow();
+        loaded.setPrice(new BigDecimal("120.00"));
+        appointmentItemRepository.save(loaded);
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM appointment_items WHERE id = ? AND reminder_due_at IS NOT NULL", Long.class, itemId));
+    }
+
+    private ReminderScheduler node(List<Reminder> sent) {
+        StaticListableBeanFactory senders = new StaticListableBeanFactory();
+        senders.addBean("sender", (ReminderSender) sent::add);
+        return new ReminderScheduler(appointmentItemRepository, senders.getBeanProvider(ReminderSender.class),
+                shardDirectory, transactionManager, new SimpleMeterRegistry(), 100, 64, 6);
+    }
+}
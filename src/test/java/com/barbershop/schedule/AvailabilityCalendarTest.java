@@ -0,0 +1,298 @@
+package com.barbershop.schedule;
+
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.model.dto.request.AppointmentCreateRequest;
+import com.barbershop.model.dto.request.AppointmentItemRequest;
+import com.barbershop.model.dto.request.ScheduleExceptionRequest;
+import com.barbershop.model.dto.request.ShopHolidayRequest;
+import com.barbershop.model.dto.request.StaffShiftsRequest;
+import com.barbershop.model.entity.ScheduleException;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.StaffShift;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.OutboxEventRepository;
+import com.barbershop.repository.ScheduleExceptionRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.ShopHolidayRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.StaffShiftRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.service.AppointmentService;
+import com.barbershop.skill.StaffSkillIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AvailabilityCalendarTest {
+
+    private static final LocalDate MONDAY = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+    private static final LocalDate TUESDAY = MONDAY.plusDays(1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AvailabilityCalendar calendar;
+
+    @Autowired
+    private ScheduleService scheduleService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private StaffSkillIndex skillIndex;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @Autowired
+    private StaffShiftRepository shiftRepository;
+
+    @Autowired
+    private ScheduleExceptionRepository exceptionRepository;
+
+    @Autowired
+    private ShopHolidayRepository holidayRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    private Long customerId;
+    private Staff ali;
+    private Service haircut;
+
+    @BeforeEach
+    void setUp() {
+        User customer = new User();
+        customer.setEmail("calendar@example.com");
+        customer.setPassword("x");
+        customer.setFirstName("Calendar");
+        customer.setLastName("Customer");
+        customerId = userRepository.save(customer).getId();
+
+        ali = new Staff();
+        ali.setName("Ali");
+        ali.setWorkStartTime(LocalTime.of(9, 0));
+        ali.setWorkEndTime(LocalTime.of(18, 0));
+        ali = staffRepository.save(ali);
+
+        haircut = new Service();
+        haircut.setName("Haircut");
+        haircut.setDurationMinutes(60);
+        haircut.setPrice(new BigDecimal("150.00"));
+        haircut = serviceRepository.save(haircut);
+        calendar.invalidate();
+        skillIndex.invalidate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        exceptionRepository.deleteAll();
+        shiftRepository.deleteAll();
+        holidayRepository.deleteAll();
+        staffRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+        calendar.invalidate();
+        skillIndex.invalidate();
+    }
+
+    @Test
+    void theWholeItemMustFitTheWorkingHours() {
+        // used to pass, only the start was checked
+        BadRequestException late = assertThrows(BadRequestException.class, () -> book(TUESDAY.atTime(17, 59)));
+        assertTrue(late.getMessage().contains("Ali"));
+        assertThrows(BadRequestException.class, () -> book(TUESDAY.atTime(8, 30)));
+        book(TUESDAY.atTime(17, 0));
+        book(TUESDAY.atTime(9, 0));
+
+        assertEquals(List.of(LocalTime.of(10, 0), LocalTime.of(10, 15), LocalTime.of(10, 30)),
+                slots(TUESDAY).subList(0, 3));
+        assertEquals(LocalTime.of(16, 0), slots(TUESDAY).get(slots(TUESDAY).size() - 1));
+    }
+
+    @Test
+    void staffTheCalendarDoesNotKnowAreClosedUntilItIsRebuilt() {
+        assertTrue(calendar.isAvailable(ali.getId(), TUESDAY.atTime(10, 0), 60));
+
+        // saved behind the calendar's back, as on another node
+        Staff veli = new Staff();
+        veli.setName("Veli");
+        veli.setWorkStartTime(LocalTime.of(12, 0));
+        veli.setWorkEndTime(LocalTime.of(20, 0));
+        veli = staffRepository.save(veli);
+        long[] staffIds = {ali.getId(), veli.getId()};
+        assertFalse(calendar.isAvailable(veli.getId(), TUESDAY.atTime(13, 0), 60));
+        assertEquals(List.of(0), calendar.onShift(staffIds, TUESDAY.atTime(13, 0), 60).stream().boxed().toList());
+
+        calendar.invalidate();
+        assertTrue(calendar.isAvailable(veli.getId(), TUESDAY.atTime(13, 0), 60));
+        assertEquals(List.of(0, 1), calendar.onShift(staffIds, TUESDAY.atTime(13, 0), 60).stream().boxed().toList());
+        assertEquals(List.of(1), calendar.onShift(staffIds, TUESDAY.atTime(17, 30), 60).stream().boxed().toList());
+        assertEquals(List.of(0), calendar.onShift(staffIds, TUESDAY.atTime(9, 0), 15).stream().boxed().toList());
+        assertTrue(calendar.onShift(staffIds, TUESDAY.atTime(19, 30), 60).isEmpty());
+    }
+
+    @Test
+    void weeklyShiftsBreaksExceptionsAndHolidays() {
+        scheduleService.updateShifts(ali.getId(), List.of(
+                shift(DayOfWeek.MONDAY, 9, 18, StaffShift.Kind.WORK),
+                shift(DayOfWeek.MONDAY, 13, 14, StaffShift.Kind.BREAK),
+                shift(DayOfWeek.SATURDAY, 10, 15, StaffShift.Kind.WORK)));
+
+        List<LocalTime> monday = slots(MONDAY);
+        assertTrue(monday.contains(LocalTime.of(12, 0)));
+        assertFalse(monday.contains(LocalTime.of(12, 15)));
+        assertFalse(monday.contains(LocalTime.of(13, 30)));
+        assertTrue(monday.contains(LocalTime.of(14, 0)));
+        // Tuesday is now a day off
+        assertEquals(List.of(), slots(TUESDAY));
+        assertThrows(BadRequestException.class, () -> book(TUESDAY.atTime(10, 0)));
+        assertThrows(BadRequestException.class, () -> book(MONDAY.atTime(12, 30)));
+
+        // every Monday is the same mask, beyond the compiled days too
+        assertSame(calendar.day(ali.getId(), MONDAY), calendar.day(ali.getId(), MONDAY.plusWeeks(2)));
+        assertEquals(monday, slots(MONDAY.plusWeeks(52)));
+
+        // time off in the morning, extra hours on the day off
+        scheduleService.addException(ali.getId(), exception(MONDAY, 9, 12, ScheduleException.Kind.OFF));
+        scheduleService.addException(ali.getId(), exception(TUESDAY, 10, 12, ScheduleException.Kind.EXTRA));
+        assertEquals(LocalTime.of(12, 0), slots(MONDAY).get(0));
+        assertEquals(List.of(LocalTime.of(10, 0), LocalTime.of(10, 15), LocalTime.of(10, 30), LocalTime.of(10, 45), LocalTime.of(11, 0)),
+                slots(TUESDAY));
+        book(TUESDAY.atTime(10, 0));
+        assertEquals(List.of(LocalTime.of(11, 0)), slots(TUESDAY));
+
+        // the shop closes early on the next Monday, and all day the one after
+        scheduleService.addHoliday(new ShopHolidayRequest(MONDAY.plusWeeks(1), "Arife", LocalTime.of(13, 0)));
+        scheduleService.addHoliday(new ShopHolidayRequest(MONDAY.plusWeeks(2), "Bayram", null));
+        assertEquals(LocalTime.of(12, 0), slots(MONDAY.plusWeeks(1)).get(slots(MONDAY.plusWeeks(1)).size() - 1));
+        assertEquals(List.of(), slots(MONDAY.plusWeeks(2)));
+        assertThrows(BadRequestException.class, () -> scheduleService.addHoliday(
+                new ShopHolidayRequest(MONDAY.plusWeeks(2), "Again", null)));
+
+        // back to the default hours every day
+        scheduleService.updateShifts(ali.getId(), List.of());
+        assertEquals(LocalTime.of(9, 0), slots(MONDAY.plusWeeks(3)).get(0));
+        assertThrows(BadRequestException.class, () -> scheduleService.updateShifts(ali.getId(),
+                List.of(shift(DayOfWeek.FRIDAY, 18, 9, StaffShift.Kind.WORK))));
+    }
+
+    @Test
+    void endpoints() throws Exception {
+        mockMvc.perform(put("/api/staff/" + ali.getId() + "/shifts")
+                        .with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"shifts": [
+                                  {"dayOfWeek": "MONDAY", "startTime": "10:00:00", "endTime": "12:00:00"}
+                                ]}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].kind").value("WORK"));
+        mockMvc.perform(get("/api/staff/" + ali.getId() + "/availability")
+                        .param("serviceId", haircut.getId().toString())
+                        .param("date", MONDAY.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.durationMinutes").value(60))
+                .andExpect(jsonPath("$.data.slots.length()").value(5));
+
+        mockMvc.perform(post("/api/staff/" + ali.getId() + "/exceptions")
+                        .with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"date\": \"" + MONDAY + "\", \"startTime\": \"10:00:00\", \"reason\": \"Dentist\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/staff/" + ali.getId() + "/exceptions")
+                        .with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"date\": \"" + MONDAY + "\", \"reason\": \"Dentist\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.kind").value("OFF"));
+        mockMvc.perform(get("/api/staff/" + ali.getId() + "/exceptions")
+                        .param("from", MONDAY.toString())
+                        .param("to", MONDAY.toString()))
+                .andExpect(status().is4xxClientError());
+        mockMvc.perform(get("/api/staff/" + ali.getId() + "/exceptions")
+                        .with(user("admin").roles("ADMIN"))
+                        .param("from", MONDAY.toString())
+                        .param("to", MONDAY.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].reason").value("Dentist"));
+        mockMvc.perform(get("/api/staff/" + ali.getId() + "/availability")
+                        .param("serviceId", haircut.getId().toString())
+                        .param("date", MONDAY.toString()))
+                .andExpect(jsonPath("$.data.slots.length()").value(0));
+
+        mockMvc.perform(post("/api/admin/holidays")
+                        .with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"date\": \"" + TUESDAY + "\", \"name\": \"Cumhuriyet Bayramı\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/api/admin/holidays")
+                        .with(user("admin").roles("ADMIN"))
+                        .param("from", MONDAY.toString())
+                        .param("to", TUESDAY.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].name").value("Cumhuriyet Bayramı"));
+    }
+
+    private void book(LocalDateTime at) {
+        appointmentService.createAppointment(customerId, new AppointmentCreateRequest(at,
+                List.of(new AppointmentItemRequest(haircut.getId(), ali.getId(), at)), null));
+    }
+
+    private List<LocalTime> slots(LocalDate date) {
+        return scheduleService.findFreeSlots(ali.getId(), haircut.getId(), date).getSlots();
+    }
+
+    private static StaffShiftsRequest.Shift shift(DayOfWeek day, int from, int to, StaffShift.Kind kind) {
+        return new StaffShiftsRequest.Shift(day, LocalTime.of(from, 0), LocalTime.of(to, 0), kind);
+    }
+
+    private static ScheduleExceptionRequest exception(LocalDate date, int from, int to, ScheduleException.Kind kind) {
+        return new ScheduleExceptionRequest(date, LocalTime.of(from, 0), LocalTime.of(to, 0), kind, null);
+    }
+}
@@ -0,0 +1,107 @@
+package com.barbershop.search;
+
+import com.barbershop.model.dto.request.ServiceRequest;
+import com.barbershop.model.dto.response.ServiceResponse;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.service.ServiceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ServiceSearchIndexTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ServiceSearchIndex searchIndex;
+
+    @Autowired
+    private ServiceService serviceService;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        serviceRepository.deleteAll();
+        searchIndex.clear();
+    }
+
+    @Test
+    void foldsTurkishLettersAndRanksNameHitsFirst() {
+        assertEquals(List.of("sac", "kesimi", "tiras", "cocuk", "istanbul"),
+                TextFolding.terms("SAÇ Kesimi / Tıraş, çocuk-İSTANBUL"));
+
+        serviceService.createService(request("Sakal Tıraşı", "Sıcak havlu ile beard trim"));
+        serviceService.createService(request("Saç Kesimi", "Classic fade or scissor cut"));
+        serviceService.createService(request("Kids Haircut", "Çocuklar için saç kesimi"));
+
+        assertEquals(List.of("Sakal Tıraşı"), names("tiras"));
+        assertEquals(List.of("Sakal Tıraşı"), names("BEARD"));
+        assertEquals(List.of("Saç Kesimi", "Kids Haircut"), names("saç"));
+        assertEquals(List.of("Saç Kesimi", "Kids Haircut"), names("sac kes"));
+        assertEquals(List.of("Saç Kesimi"), names("fa"));
+        assertEquals(List.of(), names("sakal fade"));
+        assertEquals(List.of(), names("  "));
+    }
+
+    @Test
+    void changesAreIndexedAsTheyCommit() throws Exception {
+        ServiceResponse kids = serviceService.createService(request("Kids Haircut", "For the little ones"));
+        ServiceResponse shave = serviceService.createService(request("Hot Towel Shave", null));
+        assertEquals(List.of("Kids Haircut"), names("kids"));
+
+        serviceService.updateService(kids.getId(), request("Çocuk Traşı", null));
+        assertEquals(List.of(), names("kids"));
+        assertEquals(List.of("Çocuk Traşı"), names("cocuk"));
+
+        serviceService.deleteService(shave.getId());
+        assertEquals(List.of(), names("towel"));
+        serviceService.activateService(shave.getId());
+        assertEquals(List.of("Hot Towel Shave"), names("towel"));
+        serviceService.permanentlyDeleteService(shave.getId());
+        assertEquals(List.of(), names("towel"));
+
+        mockMvc.perform(get("/api/services/search").param("q", "çocuk"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.data[0].id").value(kids.getId()));
+        mockMvc.perform(get("/api/services/search").param("q", "cocuk").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<String> names(String query) {
+        return searchIndex.search(query, 10).stream().map(ServiceResponse::getName).toList();
+    }
+
+    private static ServiceRequest request(String name, String description) {
+        ServiceRequest request = new ServiceRequest();
+        request.setName(name);
+        request.setDescription(description);
+        request.setDurationMinutes(30);
+        request.setPrice(new BigDecimal("150.00"));
+        return request;
+    }
+}
@@ -0,0 +1,159 @@
+package com.barbershop.service;
+
+import com.barbershop.exception.AppointmentConflictException;
+import com.barbershop.job.AppointmentTotalsBackfill;
+import com.barbershop.model.dto.request.AppointmentCreateRequest;
+import com.barbershop.model.dto.request.AppointmentItemRequest;
+import com.barbershop.model.dto.response.AppointmentResponse;
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.OutboxEventRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.schedule.AvailabilityCalendar;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AppointmentOverlapTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(3);
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentTotalsBackfill totalsBackfill;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private AvailabilityCalendar calendar;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    private Long customerId;
+    private Long staffId;
+
+    @BeforeEach
+    void setUp() {
+        User customer = new User();
+        customer.setEmail("overlap@example.com");
+        customer.setPassword("x");
+        customer.setFirstName("Overlap");
+        customer.setLastName("Customer");
+        customerId = userRepository.save(customer).getId();
+
+        Staff staff = new Staff();
+        staff.setName("Ali");
+        staff.setWorkStartTime(LocalTime.of(8, 0));
+        staff.setWorkEndTime(LocalTime.of(20, 0));
+        staffId = staffRepository.save(staff).getId();
+        calendar.invalidate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        staffRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void overlapIsExactAndTotalsAreStored() {
+        Long colour = service("Colour", 180, "900.00");
+        Long haircut = service("Haircut", 30, "150.00");
+
+        AppointmentResponse booked = book(DAY.atTime(9, 0), colour, haircut);
+        assertEquals(0, new BigDecimal("1050.00").compareTo(booked.getTotalPrice()));
+        assertEquals(210, booked.getTotalDuration());
+        assertEquals(DAY.atTime(12, 30), booked.getEndDateTime());
+        assertEquals(DAY.atTime(12, 0), booked.getItems().get(0).getEndTime());
+
+        // starts more than two hours after the long item began, still inside it
+        assertThrows(AppointmentConflictException.class, () -> book(DAY.atTime(11, 30), haircut));
+        assertThrows(AppointmentConflictException.class, () -> book(DAY.atTime(8, 45), haircut));
+        // touching either end is fine
+        book(DAY.atTime(8, 30), haircut);
+        book(DAY.atTime(12, 30), haircut);
+    }
+
+    @Test
+    void rowsWrittenBeforeTheColumnsAreFilledAtStartup() {
+        Long haircut = service("Haircut", 30, "150.00");
+        Long appointmentId = book(DAY.atTime(10, 0), haircut, haircut).getId();
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("UPDATE appointment_items SET end_time = NULL");
+        jdbc.update("UPDATE appointments SET end_date_time = NULL, total_price = 0, total_duration_minutes = 0");
+
+        totalsBackfill.run(null);
+
+        Appointment filled = appointmentRepository.findByIdWithItems(appointmentId);
+        assertEquals(0, new BigDecimal("300.00").compareTo(filled.getTotalPrice()));
+        assertEquals(60, filled.getTotalDurationMinutes());
+        assertEquals(DAY.atTime(11, 0), filled.getEndDateTime());
+        assertEquals(DAY.atTime(10, 30), filled.getItems().get(0).getEndTime());
+    }
+
+    private AppointmentResponse book(LocalDateTime start, Long... serviceIds) {
+        AppointmentCreateRequest request = new AppointmentCreateRequest();
+        request.setAppointmentDateTime(start);
+        LocalDateTime cursor = start;
+        List<AppointmentItemRequest> items = new ArrayList<>();
+        for (Long serviceId : serviceIds) {
+            AppointmentItemRequest item = new AppointmentItemRequest();
+            item.setServiceId(serviceId);
+            item.setStaffId(staffId);
+            item.setScheduledTime(cursor);
+            items.add(item);
+            cursor = cursor.plusMinutes(serviceRepository.findById(serviceId).orElseThrow().getDurationMinutes());
+        }
+        request.setItems(items);
+        return appointmentService.createAppointment(customerId, request);
+    }
+
+    private Long service(String name, int minutes, String price) {
+        Service service = new Service();
+        service.setName(name);
+        service.setDurationMinutes(minutes);
+        service.setPrice(new BigDecimal(price));
+        return serviceRepository.save(service).getId();
+    }
+}
@@ -0,0 +1,213 @@
+package com.barbershop.sharding;
+
+import com.barbershop.model.dto.response.BranchReportResponse;
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.AppointmentItem;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.User;
+import com.barbershop.report.BranchReportService;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.security.JwtTokenProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A second in-memory database stands in for the shard of the kadikoy branch
+@SpringBootTest(properties = {
+        "sharding.branches.kadikoy=east",
+        "sharding.shards.east.index=1",
+        "sharding.shards.east.url=jdbc:h2:mem:barbershop_east;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+        "sharding.shards.east.username=sa",
+        "sharding.shards.east.password="
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ShardingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BranchReportService branchReportService;
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    @Autowired
+    private UserReplicator userReplicator;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @AfterEach
+    void tearDown() {
+        for (String branch : List.of("main", "kadikoy")) {
+            BranchContext.callAsBranch(branch, () -> {
+                appointmentRepository.deleteAll();
+                staffRepository.deleteAll();
+                serviceRepository.deleteAll();
+                return null;
+            });
+        }
+        userRepository.deleteAll();
+        east().update("DELETE FROM users");
+    }
+
+    @Test
+    void branchDataLivesOnItsShardAndReportsCoverAllShards() throws Exception {
+        User customer = customer();
+        // users are reference data on every shard
+        assertEquals(1, east().queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, customer.getId()));
+
+        LocalDateTime time = LocalDateTime.now().minusDays(1);
+        Appointment main = BranchContext.callAsBranch("main", () ->
+                appointment(customer, "Main barber", new BigDecimal("150.00"), time, Appointment.AppointmentStatus.COMPLETED));
+        Appointment kadikoy = BranchContext.callAsBranch("kadikoy", () ->
+                appointment(customer, "Kadikoy barber", new BigDecimal("200.00"), time, Appointment.AppointmentStatus.COMPLETED));
+        BranchContext.callAsBranch("kadikoy", () ->
+                appointment(customer, "Kadikoy junior", new BigDecimal("80.00"), time, Appointment.AppointmentStatus.CANCELLED));
+
+        assertTrue(main.getId() < ShardDirectory.ID_RANGE);
+        assertTrue(kadikoy.getId() >= ShardDirectory.ID_RANGE);
+        assertEquals(2, east().queryForObject(
+                "SELECT COUNT(*) FROM appointments WHERE branch_id = 'kadikoy'", Integer.class));
+        assertEquals(0, east().queryForObject(
+                "SELECT COUNT(*) FROM appointments WHERE branch_id = 'main'", Integer.class));
+
+        // requests only see the staff of their own branch
+        mockMvc.perform(get("/api/branches/kadikoy/staff"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(2)));
+        mockMvc.perform(get("/api/staff").header(BranchResolutionFilter.BRANCH_HEADER, "main"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].name").value("Main barber"));
+        mockMvc.perform(get("/api/branches/unknown/staff"))
+                .andExpect(status().isBadRequest());
+
+        BranchReportResponse report = branchReportService.getBranchReport(time.minusDays(1), time.plusDays(1));
+        assertEquals(List.of(), report.getFailedShards());
+        assertEquals(3, report.getTotalAppointments());
+        assertEquals(0, new BigDecimal("350.00").compareTo(report.getTotalRevenue()));
+        BranchReportResponse.BranchTotals kadikoyTotals = report.getBranches().stream()
+                .filter(branch -> branch.getBranchId().equals("kadikoy"))
+                .findFirst().orElseThrow();
+        assertEquals("east", kadikoyTotals.getShard());
+        assertEquals(1L, kadikoyTotals.getAppointmentsByStatus().get("CANCELLED"));
+    }
+
+    @Test
+    void staffTokensOnlyActOnTheirOwnBranch() throws Exception {
+        User admin = new User();
+        admin.setEmail("branch-admin@example.com");
+        admin.setPassword("x");
+        admin.setFirstName("Branch");
+        admin.setLastName("Admin");
+        admin.setRole(User.UserRole.ADMIN);
+        String adminToken = "Bearer " + jwtTokenProvider.generateToken(userRepository.save(admin).getId(), "main");
+        String customerToken = "Bearer " + jwtTokenProvider.generateToken(customer().getId(), "main");
+
+        // lookups that get past the branch check find no staff 0 and answer 404
+        mockMvc.perform(get("/api/staff/0").header("Authorization", adminToken))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/staff/0").header("Authorization", adminToken).header(BranchResolutionFilter.BRANCH_HEADER, "kadikoy"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/branches/kadikoy/staff/0").header("Authorization", adminToken))
+                .andExpect(status().isForbidden());
+        // customers book wherever they like
+        mockMvc.perform(get("/api/branches/kadikoy/staff/0").header("Authorization", customerToken))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void userCopiesNeverOverwriteAnotherUsersEmail() {
+        // registered on the east shard with the same email before replication caught up
+        east().update("INSERT INTO users (id, email, password, first_name, last_name, role, active, created_at, updated_at) " +
+                "VALUES (?, 'shard@example.com', 'east-secret', 'East', 'User', 'CUSTOMER', TRUE, ?, ?)",
+                ShardDirectory.ID_RANGE + 1, LocalDateTime.now(), LocalDateTime.now());
+        User customer = customer();
+
+        assertEquals("east-secret", east().queryForObject(
+                "SELECT password FROM users WHERE email = 'shard@example.com'", String.class));
+        assertEquals(0, east().queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, customer.getId()));
+        assertEquals(1, userReplicator.pendingRetries());
+
+        // once the conflict is resolved the retry copies the user
+        east().update("DELETE FROM users WHERE id = ?", ShardDirectory.ID_RANGE + 1);
+        userReplicator.retryFailed();
+        assertEquals(0, userReplicator.pendingRetries());
+        assertEquals(1, east().queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, customer.getId()));
+    }
+
+    private JdbcTemplate east() {
+        return new JdbcTemplate(shardDataSources.get("east"));
+    }
+
+    private User customer() {
+        User user = new User();
+        user.setEmail("shard@example.com");
+        user.setPassword("x");
+        user.setFirstName("Shard");
+        user.setLastName("Customer");
+        return userRepository.save(user);
+    }
+
+    private Appointment appointment(User customer, String staffName, BigDecimal price, LocalDateTime time,
+                                    Appointment.AppointmentStatus status) {
+        Service service = new Service();
+        service.setName("Haircut");
+        service.setDurationMinutes(30);
+        service.setPrice(price);
+        service = serviceRepository.save(service);
+
+        Staff staff = new Staff();
+        staff.setName(staffName);
+        staff = staffRepository.save(staff);
+
+        Appointment appointment = new Appointment();
+        appointment.setCustomer(customer);
+        appointment.setAppointmentDateTime(time);
+        appointment.setStatus(status);
+
+        AppointmentItem item = new AppointmentItem();
+        item.setService(service);
+        item.setStaff(staff);
+        item.setPrice(price);
+        item.setDurationMinutes(30);
+        item.setScheduledTime(time);
+        appointment.addItem(item);
+        return appointmentRepository.save(appointment);
+    }
+}
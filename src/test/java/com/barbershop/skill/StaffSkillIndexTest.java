@@ -0,0 +1,187 @@
+package com.barbershop.skill;
+
+import com.barbershop.exception.BadRequestException;
+import com.barbershop.model.dto.request.AppointmentCreateRequest;
+import com.barbershop.model.dto.request.AppointmentItemRequest;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.schedule.AvailabilityCalendar;
+import com.barbershop.service.AppointmentService;
+import com.barbershop.service.ServiceService;
+import com.barbershop.service.StaffService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StaffSkillIndexTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StaffSkillIndex skillIndex;
+
+    @Autowired
+    private AvailabilityCalendar calendar;
+
+    @Autowired
+    private StaffService staffService;
+
+    @Autowired
+    private ServiceService serviceService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    private Staff ali;
+    private Staff veli;
+    private Staff can;
+    private Service beard;
+    private Service haircut;
+
+    @BeforeEach
+    void setUp() {
+        ali = staff("Ali", LocalTime.of(9, 0), LocalTime.of(18, 0), true);
+        veli = staff("Veli", LocalTime.of(12, 0), LocalTime.of(20, 0), true);
+        can = staff("Can", LocalTime.of(9, 0), LocalTime.of(18, 0), false);
+        beard = service("Beard Trim");
+        haircut = service("Haircut");
+        calendar.invalidate();
+        skillIndex.invalidate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        staffRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+        calendar.invalidate();
+        skillIndex.invalidate();
+    }
+
+    @Test
+    void eligibleStaffIsSkillAndActiveAndShift() throws Exception {
+        staffService.updateStaffServices(ali.getId(), List.of(beard.getId()));
+        staffService.updateStaffServices(veli.getId(), List.of(beard.getId()));
+        staffService.updateStaffServices(can.getId(), List.of(beard.getId()));
+
+        assertEquals(Set.of(ali.getId(), veli.getId()), Set.copyOf(skillIndex.eligibleStaff(beard.getId())));
+        assertEquals(List.of(ali.getId()), skillIndex.eligibleStaff(beard.getId(), DAY.atTime(10, 0), 30));
+        assertEquals(List.of(veli.getId()), skillIndex.eligibleStaff(beard.getId(), DAY.atTime(17, 45), 30));
+        assertEquals(2, skillIndex.eligibleStaff(beard.getId(), DAY.atTime(17, 30), 30).size());
+        assertEquals(List.of(), skillIndex.eligibleStaff(beard.getId(), DAY.atTime(23, 45), 30));
+        // linked to nobody: anyone active
+        assertEquals(Set.of(ali.getId(), veli.getId()), Set.copyOf(skillIndex.eligibleStaff(haircut.getId())));
+
+        mockMvc.perform(get("/api/services/" + beard.getId() + "/staff").param("at", DAY.atTime(17, 45).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.data[0].name").value("Veli"));
+        mockMvc.perform(get("/api/services/999999/staff"))
+                .andExpect(status().isNotFound());
+
+        // losing the skill drops Veli at once
+        mockMvc.perform(put("/api/staff/" + veli.getId() + "/services")
+                        .with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"serviceIds\": [" + haircut.getId() + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].name").value("Haircut"));
+        assertEquals(List.of(ali.getId()), skillIndex.eligibleStaff(beard.getId()));
+        assertEquals(List.of(veli.getId()), skillIndex.eligibleStaff(haircut.getId()));
+        mockMvc.perform(get("/api/staff/" + veli.getId() + "/services"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1));
+
+        assertThrows(BadRequestException.class,
+                () -> staffService.updateStaffServices(ali.getId(), List.of(beard.getId(), 999999L)));
+    }
+
+    @Test
+    void bookingRejectsStaffWithoutTheSkill() {
+        staffService.updateStaffServices(ali.getId(), List.of(beard.getId()));
+        User customer = new User();
+        customer.setEmail("skills@example.com");
+        customer.setPassword("x");
+        customer.setFirstName("Skill");
+        customer.setLastName("Customer");
+        Long customerId = userRepository.save(customer).getId();
+
+        BadRequestException rejected = assertThrows(BadRequestException.class,
+                () -> appointmentService.createAppointment(customerId, booking(beard, veli, DAY.atTime(13, 0))));
+        assertTrue(rejected.getMessage().contains("Veli"));
+        appointmentService.createAppointment(customerId, booking(beard, ali, DAY.atTime(13, 0)));
+        appointmentService.createAppointment(customerId, booking(haircut, veli, DAY.atTime(13, 0)));
+
+        // a linked service can still be deleted
+        appointmentRepository.deleteAll();
+        serviceService.permanentlyDeleteService(beard.getId());
+        assertEquals(List.of(), staffService.getStaffServices(ali.getId()));
+    }
+
+    private static AppointmentCreateRequest booking(Service service, Staff staff, LocalDateTime at) {
+        return new AppointmentCreateRequest(at, List.of(new AppointmentItemRequest(service.getId(), staff.getId(), at)), null);
+    }
+
+    private Staff staff(String name, LocalTime start, LocalTime end, boolean active) {
+        Staff staff = new Staff();
+        staff.setName(name);
+        staff.setWorkStartTime(start);
+        staff.setWorkEndTime(end);
+        staff.setActive(active);
+        return staffRepository.save(staff);
+    }
+
+    private Service service(String name) {
+        Service service = new Service();
+        service.setName(name);
+        service.setDurationMinutes(30);
+        service.setPrice(new BigDecimal("150.00"));
+        return serviceRepository.save(service);
+    }
+}
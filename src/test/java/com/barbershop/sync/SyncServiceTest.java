@@ -0,0 +1,175 @@
+package com.barbershop.sync;
+
+import com.barbershop.model.entity.Appointment;
+import com.barbershop.model.entity.AppointmentItem;
+import com.barbershop.model.entity.Service;
+import com.barbershop.model.entity.Staff;
+import com.barbershop.model.entity.User;
+import com.barbershop.repository.AppointmentRepository;
+import com.barbershop.repository.OutboxEventRepository;
+import com.barbershop.repository.ServiceRepository;
+import com.barbershop.repository.StaffRepository;
+import com.barbershop.repository.SyncTombstoneRepository;
+import com.barbershop.repository.UserRepository;
+import com.barbershop.service.AppointmentService;
+import com.barbershop.service.ServiceService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "sync.settle-ms=0")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SyncServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private ServiceService serviceService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private StaffRepository staffRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private SyncTombstoneRepository tombstoneRepository;
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        staffRepository.deleteAll();
+        serviceRepository.deleteAll();
+        userRepository.deleteAll();
+        tombstoneRepository.deleteAll();
+    }
+
+    @Test
+    void deltaHoldsOnlyWhatChangedSinceTheToken() throws Exception {
+        User customer = new User();
+        customer.setEmail("sync@example.com");
+        customer.setPassword("x");
+        customer.setFirstName("Sync");
+        customer.setLastName("Customer");
+        customer = userRepository.save(customer);
+
+        Service haircut = serviceRepository.save(service("Haircut"));
+        Service shave = serviceRepository.save(service("Shave"));
+        Staff ali = new Staff();
+        ali.setName("Ali");
+        ali = staffRepository.save(ali);
+
+        Appointment appointment = new Appointment();
+        appointment.setCustomer(customer);
+        appointment.setAppointmentDateTime(LocalDate.now().plusDays(1).atTime(10, 0));
+        AppointmentItem item = new AppointmentItem();
+        item.setAppointment(appointment);
+        item.setService(haircut);
+        item.setStaff(ali);
+        item.setPrice(haircut.getPrice());
+        item.setDurationMinutes(haircut.getDurationMinutes());
+        item.setScheduledTime(appointment.getAppointmentDateTime());
+        appointment.getItems().add(item);
+        Long appointmentId = appointmentRepository.save(appointment).getId();
+        // another appointment nobody touches afterwards
+        Appointment untouched = new Appointment();
+        untouched.setCustomer(customer);
+        untouched.setAppointmentDateTime(LocalDate.now().plusDays(2).atTime(10, 0));
+        appointmentRepository.save(untouched);
+        Thread.sleep(5);
+
+        JsonNode snapshot = sync(null);
+        assertTrue(snapshot.path("reset").asBoolean());
+        assertEquals(2, snapshot.path("appointments").size());
+        assertEquals(2, snapshot.path("services").size());
+        assertEquals(1, snapshot.path("staff").size());
+
+        Thread.sleep(5);
+        appointmentService.cancelAppointment(appointmentId, customer.getId(), null);
+        Staff veli = new Staff();
+        veli.setName("Veli");
+        Long veliId = staffRepository.save(veli).getId();
+        serviceService.permanentlyDeleteService(shave.getId());
+        Thread.sleep(5);
+
+        JsonNode delta = sync(snapshot.path("token").asText());
+        assertFalse(delta.path("reset").asBoolean());
+        assertEquals(1, delta.path("appointments").size());
+        assertEquals(appointmentId, delta.path("appointments").get(0).path("id").asLong());
+        assertEquals("CANCELLED", delta.path("appointments").get(0).path("status").asText());
+        assertEquals(0, delta.path("services").size());
+        assertEquals(1, delta.path("staff").size());
+        assertEquals(veliId, delta.path("staff").get(0).path("id").asLong());
+        assertEquals(shave.getId(), delta.path("deleted").path("services").get(0).asLong());
+
+        JsonNode quiet = sync(delta.path("token").asText());
+        assertEquals(0, quiet.path("appointments").size());
+        assertEquals(0, quiet.path("staff").size());
+        assertEquals(0, quiet.path("deleted").path("services").size());
+    }
+
+    @Test
+    void expiredTokenGetsSnapshotAndGarbageIsRejected() throws Exception {
+        String expired = SyncToken.encode(LocalDateTime.now().minusDays(60));
+        assertTrue(sync(expired).path("reset").asBoolean());
+
+        mockMvc.perform(get("/api/sync").param("since", "not-a-token").with(user("admin").roles("ADMIN")))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/sync").with(user("customer").roles("CUSTOMER")))
+                .andExpect(status().isForbidden());
+    }
+
+    private JsonNode sync(String token) throws Exception {
+        var request = get("/api/sync").with(user("admin").roles("ADMIN"));
+        if (token != null) {
+            request.param("since", token);
+        }
+        byte[] body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        return objectMapper.readTree(body).path("data");
+    }
+
+    private static Service service(String name) {
+        Service service = new Service();
+        service.setName(name);
+        service.setDurationMinutes(30);
+        service.setPrice(new BigDecimal("150.00"));
+        return service;
+    }
+}